@@ -4,10 +4,12 @@ import com.github.dakusui.jcunit.core.utils.Checks;
 import com.github.dakusui.jcunit8.factorspace.fsm.Scenario;
 
 import java.io.Serializable;
-import java.util.LinkedHashMap;
-import java.util.Map;
-import java.util.Objects;
-import java.util.TreeMap;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
 
 import static java.util.Arrays.asList;
 
@@ -44,15 +46,12 @@ public interface Tuple extends Map<String, Object>, Cloneable, Serializable {
     }
 
     public Tuple build() {
+      if (this.dictionaryOrder)
+        return Compact.of(this.attrs);
       Tuple ret = new Impl();
       for (String k : this.attrs.keySet()) {
         ret.put(k, this.attrs.get(k));
       }
-      if (this.dictionaryOrder) {
-        Tuple sorted = new Sorted();
-        sorted.putAll(ret);
-        ret = sorted;
-      }
       return ret;
     }
   }
@@ -95,4 +94,382 @@ public interface Tuple extends Map<String, Object>, Cloneable, Serializable {
       return Utils.isSubtupleOf(this, another);
     }
   }
+
+  /**
+   * A tuple whose keys are held by a shared {@link Schema} and whose values are
+   * held by a plain array aligned with it.
+   * <p>
+   * Keys are iterated in dictionary order, just like {@link Sorted}. Tuples that
+   * have the same set of keys share the same schema object, and therefore
+   * comparing or testing subtuple relationship between them is done by
+   * comparing value arrays element by element. A hash code is cached until
+   * the tuple is modified.
+   */
+  final class Compact extends AbstractMap<String, Object> implements Tuple {
+    private static final long     serialVersionUID = 1L;
+    private static final Object[] NO_VALUES        = new Object[0];
+
+    private           Schema   schema;
+    private           Object[] values;
+    private transient int      hashCode;
+    private transient boolean  hashCodeValid;
+
+    public Compact() {
+      this(Schema.EMPTY, NO_VALUES);
+    }
+
+    private Compact(Schema schema, Object[] values) {
+      this.schema = schema;
+      this.values = values;
+    }
+
+    static Compact of(Map<String, Object> map) {
+      if (map instanceof Compact)
+        return ((Compact) map).clone();
+      String[] keys = map.keySet().toArray(new String[map.size()]);
+      Arrays.sort(keys);
+      Object[] values = new Object[keys.length];
+      for (int i = 0; i < keys.length; i++)
+        values[i] = map.get(keys[i]);
+      return new Compact(Schema.intern(keys), values);
+    }
+
+    public Schema schema() {
+      return this.schema;
+    }
+
+    /**
+     * Returns a value for a key at {@code index} in the schema of this tuple.
+     *
+     * @param index An index returned by {@link Schema#indexOf(Object)}.
+     */
+    public Object valueAt(int index) {
+      return this.values[index];
+    }
+
+    @Override
+    public int size() {
+      return this.values.length;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+      return this.schema.indexOf(key) >= 0;
+    }
+
+    @Override
+    public Object get(Object key) {
+      int i = this.schema.indexOf(key);
+      return i >= 0 ?
+          this.values[i] :
+          null;
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+      int i = this.schema.indexOf(Objects.requireNonNull(key));
+      Object ret = null;
+      if (i >= 0) {
+        ret = this.values[i];
+        this.values[i] = value;
+      } else {
+        Schema newSchema = this.schema.with(key);
+        int index = newSchema.indexOf(key);
+        Object[] newValues = new Object[this.values.length + 1];
+        System.arraycopy(this.values, 0, newValues, 0, index);
+        newValues[index] = value;
+        System.arraycopy(this.values, index, newValues, index + 1, this.values.length - index);
+        this.schema = newSchema;
+        this.values = newValues;
+      }
+      this.hashCodeValid = false;
+      return ret;
+    }
+
+    @Override
+    public void putAll(Map<? extends String, ?> map) {
+      if (this.values.length == 0 && map instanceof Compact) {
+        this.schema = ((Compact) map).schema;
+        this.values = ((Compact) map).values.clone();
+        this.hashCodeValid = false;
+        return;
+      }
+      super.putAll(map);
+    }
+
+    @Override
+    public Object remove(Object key) {
+      int i = this.schema.indexOf(key);
+      if (i < 0)
+        return null;
+      Object ret = this.values[i];
+      Object[] newValues = new Object[this.values.length - 1];
+      System.arraycopy(this.values, 0, newValues, 0, i);
+      System.arraycopy(this.values, i + 1, newValues, i, this.values.length - i - 1);
+      this.schema = this.schema.without((String) key);
+      this.values = newValues;
+      this.hashCodeValid = false;
+      return ret;
+    }
+
+    @Override
+    public void clear() {
+      this.schema = Schema.EMPTY;
+      this.values = NO_VALUES;
+      this.hashCodeValid = false;
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+      return new AbstractSet<Entry<String, Object>>() {
+        @Override
+        public Iterator<Entry<String, Object>> iterator() {
+          return new Iterator<Entry<String, Object>>() {
+            int next = 0;
+            int last = -1;
+
+            @Override
+            public boolean hasNext() {
+              return this.next < Compact.this.values.length;
+            }
+
+            @Override
+            public Entry<String, Object> next() {
+              if (!hasNext())
+                throw new NoSuchElementException();
+              this.last = this.next++;
+              return new Entry<String, Object>() {
+                final String key = Compact.this.schema.keyAt(last);
+
+                @Override
+                public String getKey() {
+                  return this.key;
+                }
+
+                @Override
+                public Object getValue() {
+                  return Compact.this.get(this.key);
+                }
+
+                @Override
+                public Object setValue(Object value) {
+                  return Compact.this.put(this.key, value);
+                }
+
+                @Override
+                public boolean equals(Object o) {
+                  if (!(o instanceof Entry))
+                    return false;
+                  Entry<?, ?> another = (Entry<?, ?>) o;
+                  return Objects.equals(this.key, another.getKey()) && Objects.equals(getValue(), another.getValue());
+                }
+
+                @Override
+                public int hashCode() {
+                  return this.key.hashCode() ^ Objects.hashCode(getValue());
+                }
+
+                @Override
+                public String toString() {
+                  return this.key + "=" + getValue();
+                }
+              };
+            }
+
+            @Override
+            public void remove() {
+              if (this.last < 0)
+                throw new IllegalStateException();
+              Compact.this.remove(Compact.this.schema.keyAt(this.last));
+              this.next = this.last;
+              this.last = -1;
+            }
+          };
+        }
+
+        @Override
+        public int size() {
+          return Compact.this.values.length;
+        }
+      };
+    }
+
+    @Override
+    public boolean isSubtupleOf(Tuple another) {
+      Checks.checknotnull(another);
+      if (!(another instanceof Compact))
+        return Utils.isSubtupleOf(this, another);
+      Compact that = (Compact) another;
+      if (this.schema == that.schema)
+        return Arrays.equals(this.values, that.values);
+      String[] theseKeys = this.schema.keys;
+      String[] thoseKeys = that.schema.keys;
+      int j = 0;
+      for (int i = 0; i < theseKeys.length; i++) {
+        while (j < thoseKeys.length && thoseKeys[j].compareTo(theseKeys[i]) < 0)
+          j++;
+        if (j == thoseKeys.length || !thoseKeys[j].equals(theseKeys[i]))
+          return false;
+        if (!Objects.equals(this.values[i], that.values[j]))
+          return false;
+        j++;
+      }
+      return true;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o)
+        return true;
+      if (o instanceof Compact) {
+        Compact another = (Compact) o;
+        return this.schema == another.schema && Arrays.equals(this.values, another.values);
+      }
+      return super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+      if (!this.hashCodeValid) {
+        int ret = 0;
+        for (int i = 0; i < this.values.length; i++)
+          ret += this.schema.keys[i].hashCode() ^ Objects.hashCode(this.values[i]);
+        this.hashCode = ret;
+        this.hashCodeValid = true;
+      }
+      return this.hashCode;
+    }
+
+    @Override
+    public Compact clone() {
+      return new Compact(this.schema, this.values.clone());
+    }
+
+    /**
+     * An interned, sorted set of keys of {@link Compact} tuples.
+     * Schemas with the same keys are always the same object.
+     * <p>
+     * Interned schemas and transitions between them are held weakly, so that a
+     * schema is discarded once no tuple uses it. Otherwise every key set of every
+     * subtuple ever created would stay in memory for the life of the JVM.
+     */
+    public static final class Schema implements Serializable {
+      private static final long                                         serialVersionUID = 1L;
+      private static final ConcurrentMap<List<String>, SchemaReference> INTERNED         = new ConcurrentHashMap<>();
+      private static final ReferenceQueue<Schema>                       STALE            = new ReferenceQueue<>();
+      static final         Schema                                       EMPTY            = intern(new String[0]);
+
+      private final           String[]                                     keys;
+      private final transient Map<String, Integer>                         indices;
+      private final transient ConcurrentMap<String, WeakReference<Schema>> extensions;
+      private final transient ConcurrentMap<String, WeakReference<Schema>> reductions;
+
+      private Schema(String[] keys) {
+        this.keys = keys;
+        this.indices = new HashMap<>();
+        for (int i = 0; i < keys.length; i++)
+          this.indices.put(keys[i], i);
+        this.extensions = new ConcurrentHashMap<>();
+        this.reductions = new ConcurrentHashMap<>();
+      }
+
+      /**
+       * Returns a schema that has given keys.
+       *
+       * @param sortedKeys Keys sorted in dictionary order. Must not be modified after this call.
+       */
+      static Schema intern(String[] sortedKeys) {
+        expungeStaleEntries();
+        List<String> key = asList(sortedKeys);
+        while (true) {
+          SchemaReference current = INTERNED.get(key);
+          Schema ret = current != null ?
+              current.get() :
+              null;
+          if (ret != null)
+            return ret;
+          ret = new Schema(sortedKeys);
+          SchemaReference created = new SchemaReference(key, ret);
+          if (current == null ?
+              INTERNED.putIfAbsent(key, created) == null :
+              INTERNED.replace(key, current, created))
+            return ret;
+        }
+      }
+
+      private static void expungeStaleEntries() {
+        SchemaReference each;
+        while ((each = (SchemaReference) STALE.poll()) != null)
+          INTERNED.remove(each.key, each);
+      }
+
+      public int size() {
+        return this.keys.length;
+      }
+
+      public String keyAt(int index) {
+        return this.keys[index];
+      }
+
+      public int indexOf(Object key) {
+        Integer ret = this.indices.get(key);
+        return ret == null ?
+            -1 :
+            ret;
+      }
+
+      public List<String> keys() {
+        return Collections.unmodifiableList(asList(this.keys));
+      }
+
+      Schema with(String key) {
+        return transit(this.extensions, key, k -> {
+          String[] newKeys = Arrays.copyOf(this.keys, this.keys.length + 1);
+          newKeys[this.keys.length] = k;
+          Arrays.sort(newKeys);
+          return intern(newKeys);
+        });
+      }
+
+      Schema without(String key) {
+        return transit(this.reductions, key, k -> {
+          int i = indexOf(k);
+          String[] newKeys = new String[this.keys.length - 1];
+          System.arraycopy(this.keys, 0, newKeys, 0, i);
+          System.arraycopy(this.keys, i + 1, newKeys, i, this.keys.length - i - 1);
+          return intern(newKeys);
+        });
+      }
+
+      private static Schema transit(ConcurrentMap<String, WeakReference<Schema>> transitions, String key, Function<String, Schema> resolver) {
+        WeakReference<Schema> cached = transitions.get(key);
+        Schema ret = cached != null ?
+            cached.get() :
+            null;
+        if (ret == null) {
+          ret = resolver.apply(key);
+          transitions.put(key, new WeakReference<>(ret));
+        }
+        return ret;
+      }
+
+      private Object readResolve() {
+        return intern(this.keys);
+      }
+
+      @Override
+      public String toString() {
+        return Arrays.toString(this.keys);
+      }
+
+      private static class SchemaReference extends WeakReference<Schema> {
+        final List<String> key;
+
+        SchemaReference(List<String> key, Schema schema) {
+          super(schema, STALE);
+          this.key = key;
+        }
+      }
+    }
+  }
 }
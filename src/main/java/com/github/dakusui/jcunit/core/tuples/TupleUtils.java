@@ -4,6 +4,8 @@ import com.github.dakusui.combinatoradix.Combinator;
 import com.github.dakusui.jcunit.core.utils.Checks;
 
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 import static java.util.Objects.requireNonNull;
 
@@ -54,6 +56,86 @@ public enum TupleUtils {
     return ret;
   }
 
+  /**
+   * Visits every {@code strength}-subtuple of {@code tuple} without creating a
+   * map for each of them.
+   * <p>
+   * A tuple given to {@code consumer} is a read-only view that is reused and
+   * updated for the next subtuple as soon as {@code consumer} returns. It can be
+   * used to look up or remove an element of a hash-based collection of tuples,
+   * but it must be copied (e.g., by {@link TupleUtils#copy(Tuple)}) if it needs
+   * to be kept. The order in which subtuples are visited is not specified.
+   *
+   * @param tuple    A tuple whose subtuples are visited.
+   * @param strength Number of attributes of each subtuple.
+   * @param consumer A consumer that receives each subtuple.
+   */
+  public static void forEachSubtupleOf(Tuple tuple, int strength, Consumer<Tuple> consumer) {
+    Checks.checknotnull(tuple);
+    Checks.checkcond(strength >= 0 && strength <= tuple.size());
+    Checks.checknotnull(consumer);
+    SubtupleView view = new SubtupleView(tuple);
+    forEachIndexCombination(tuple.size(), strength, indices -> consumer.accept(view.bind(indices)));
+  }
+
+  /**
+   * Counts {@code strength}-subtuples of {@code tuple} that satisfy {@code predicate}
+   * without creating a map for each of them. See {@link TupleUtils#forEachSubtupleOf(Tuple, int, Consumer)}
+   * for the restrictions on a tuple given to {@code predicate}.
+   *
+   * @param tuple     A tuple whose subtuples are counted.
+   * @param strength  Number of attributes of each subtuple.
+   * @param predicate A predicate to test each subtuple.
+   * @return Number of subtuples that satisfy {@code predicate}.
+   */
+  public static long countSubtuplesOf(Tuple tuple, int strength, Predicate<Tuple> predicate) {
+    Checks.checknotnull(predicate);
+    long[] ret = new long[] { 0 };
+    forEachSubtupleOf(tuple, strength, subtuple -> {
+      if (predicate.test(subtuple))
+        ret[0]++;
+    });
+    return ret[0];
+  }
+
+  /**
+   * Visits every combination of {@code k} indices chosen from {@code 0} to
+   * {@code n - 1} in lexicographic order. An array given to {@code visitor} is
+   * reused and its elements are ascending.
+   *
+   * @param n       Number of indices to choose from.
+   * @param k       Number of indices to be chosen.
+   * @param visitor A visitor that receives each combination.
+   */
+  public static void forEachIndexCombination(int n, int k, IndexCombinationVisitor visitor) {
+    Checks.checkcond(n >= 0 && k >= 0);
+    Checks.checknotnull(visitor);
+    if (k > n)
+      return;
+    int[] indices = new int[k];
+    for (int i = 0; i < k; i++)
+      indices[i] = i;
+    while (true) {
+      visitor.visit(indices);
+      int i = k - 1;
+      while (i >= 0 && indices[i] == n - k + i)
+        i--;
+      if (i < 0)
+        return;
+      indices[i]++;
+      for (int j = i + 1; j < k; j++)
+        indices[j] = indices[j - 1] + 1;
+    }
+  }
+
+  @FunctionalInterface
+  public interface IndexCombinationVisitor {
+    /**
+     * @param indices Chosen indices in ascending order. Must not be modified nor kept.
+     */
+    void visit(int[] indices);
+  }
+
   public static Tuple project(Tuple tuple, List<String> factorNames) {
     Tuple.Builder builder = new Tuple.Builder();
     factorNames.stream().filter(tuple::containsKey).forEach(each -> builder.put(each, tuple.get(each)));
@@ -63,4 +145,115 @@ public enum TupleUtils {
   public static Tuple copy(Tuple tuple) {
     return new Tuple.Builder().putAll(requireNonNull(tuple)).build();
   }
+
+  /**
+   * A read-only view of a subtuple of a tuple, which is selected by an array of
+   * indices that its owner updates.
+   */
+  private static final class SubtupleView extends AbstractMap<String, Object> implements Tuple {
+    private static final long serialVersionUID = 1L;
+
+    private final String[] keys;
+    private final Object[] values;
+    private       int[]    indices;
+
+    private SubtupleView(Tuple tuple) {
+      this.keys = new String[tuple.size()];
+      this.values = new Object[tuple.size()];
+      int i = 0;
+      for (Map.Entry<String, Object> each : tuple.entrySet()) {
+        this.keys[i] = each.getKey();
+        this.values[i] = each.getValue();
+        i++;
+      }
+    }
+
+    private SubtupleView bind(int[] indices) {
+      this.indices = indices;
+      return this;
+    }
+
+    @Override
+    public int size() {
+      return this.indices.length;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+      return positionOf(key) >= 0;
+    }
+
+    @Override
+    public Object get(Object key) {
+      int i = positionOf(key);
+      return i >= 0 ?
+          this.values[i] :
+          null;
+    }
+
+    private int positionOf(Object key) {
+      for (int each : this.indices)
+        if (this.keys[each].equals(key))
+          return each;
+      return -1;
+    }
+
+    @Override
+    public boolean isSubtupleOf(Tuple another) {
+      for (int each : this.indices) {
+        Object value = another.get(this.keys[each]);
+        if (!Objects.equals(this.values[each], value) || (value == null && !another.containsKey(this.keys[each])))
+          return false;
+      }
+      return true;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (o == this)
+        return true;
+      if (!(o instanceof Tuple))
+        return super.equals(o);
+      Tuple another = (Tuple) o;
+      return another.size() == this.indices.length && isSubtupleOf(another);
+    }
+
+    @Override
+    public int hashCode() {
+      int ret = 0;
+      for (int each : this.indices)
+        ret += this.keys[each].hashCode() ^ Objects.hashCode(this.values[each]);
+      return ret;
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+      return new AbstractSet<Entry<String, Object>>() {
+        @Override
+        public Iterator<Entry<String, Object>> iterator() {
+          return new Iterator<Entry<String, Object>>() {
+            int i = 0;
+
+            @Override
+            public boolean hasNext() {
+              return i < indices.length;
+            }
+
+            @Override
+            public Entry<String, Object> next() {
+              if (!hasNext())
+                throw new NoSuchElementException();
+              int index = indices[i++];
+              return new SimpleImmutableEntry<>(keys[index], values[index]);
+            }
+          };
+        }
+
+        @Override
+        public int size() {
+          return indices.length;
+        }
+      };
+    }
+  }
 }
@@ -1,16 +1,13 @@
 package com.github.dakusui.jcunit.fsm;
 
 import com.github.dakusui.jcunit.core.utils.Checks;
-import com.github.dakusui.jcunit8.exceptions.TestDefinitionException;
 
 import java.io.Serializable;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
-import java.util.Arrays;
 import java.util.List;
-import java.util.stream.Stream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
-import static java.lang.String.format;
 import static java.util.Arrays.asList;
 
 /**
@@ -51,6 +48,11 @@ public interface Action<SUT> extends Serializable {
     final         Method     method;
     final         String     name;
     private final Parameters parameters;
+    /**
+     * Dispatchers resolved for SUT classes on which this action has been performed.
+     * Since method handles are not serializable, this is rebuilt lazily.
+     */
+    private transient volatile ConcurrentMap<Class<?>, ActionDispatcher> dispatchers;
 
     /**
      * Creates an object of this class.
@@ -67,36 +69,7 @@ public interface Action<SUT> extends Serializable {
     @Override
     public Object perform(SUT o, Args args) throws Throwable {
       Checks.checknotnull(o);
-      Object ret;
-      try {
-        Method m = chooseMethod(o.getClass(), name);
-        try {
-          ret = m.invoke(o, args.values());
-        } catch (IllegalArgumentException e) {
-          throw new IllegalArgumentException(format("Method '%s/%d' in '%s' expects %s, but %s are given.",
-              name, args.size(),
-              o.getClass().getCanonicalName(),
-              Arrays.toString(m.getParameterTypes()),
-              Arrays.toString(args.types())
-          ));
-        }
-      } catch (IllegalAccessException e) {
-        ////
-        // I know it's possible to support non-public method test by accessing
-        // security manager and it's easy. But I can't be sure it's useful
-        // yet and a careless introduction of a new feature can create a
-        // compatibility conflicts in future, so I'm not supporting it for now.
-        throw Checks.wraptesterror(
-            e,
-            "Non-public method (or anonymous class method) testing isn't supported (%s#%s/%s isn't public)",
-            o.getClass().getCanonicalName(),
-            this.name,
-            args.size()
-        );
-      } catch (InvocationTargetException e) {
-        throw e.getTargetException();
-      }
-      return ret;
+      return dispatcherFor(o.getClass()).dispatch(o, args);
     }
 
     @Override
@@ -136,14 +109,14 @@ public interface Action<SUT> extends Serializable {
       return this.method.equals(another.method);
     }
 
-    private Method chooseMethod(Class<?> klass, String name) {
-      return Stream.of(klass.getMethods())
-          .filter((Method eachMethod) -> eachMethod.getName().equals(name))
-          .filter((Method eachMethod) -> getParameterTypes().equals(asList(eachMethod.getParameterTypes())))
-          .findFirst()
-          .orElseThrow(
-              TestDefinitionException.sutDoesNotHaveSpecifiedMethod(klass, name, getParameterTypes())
-          );
+    private ActionDispatcher dispatcherFor(Class<?> sutClass) {
+      ConcurrentMap<Class<?>, ActionDispatcher> dispatchers = this.dispatchers;
+      if (dispatchers == null)
+        this.dispatchers = dispatchers = new ConcurrentHashMap<>();
+      return dispatchers.computeIfAbsent(
+          sutClass,
+          klass -> ActionDispatcher.resolve(klass, this.name, getParameterTypes())
+      );
     }
 
     /**
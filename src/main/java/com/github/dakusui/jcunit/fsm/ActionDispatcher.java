@@ -0,0 +1,133 @@
+package com.github.dakusui.jcunit.fsm;
+
+import com.github.dakusui.jcunit.core.utils.Checks;
+import com.github.dakusui.jcunit8.exceptions.TestDefinitionException;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static java.lang.String.format;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+
+/**
+ * Resolves a method of SUT that an action represents into a {@code MethodHandle}.
+ * <p/>
+ * Looking up a method by its name and invoking it reflectively for every edge of
+ * every scenario is the most expensive part of FSM scenario playback. An object of
+ * this class is resolved only once per a pair of SUT class and action, and then
+ * reused by {@link Action.Base#perform(Object, Args)}.
+ */
+class ActionDispatcher {
+  private static final MethodType GENERIC_TYPE = MethodType.methodType(Object.class, Object.class, Object[].class);
+
+  /**
+   * Primitive types to which a value of a primitive type can be converted by
+   * widening primitive conversion (JLS 5.1.2) in addition to the identity one.
+   */
+  private static final Map<Class<?>, List<Class<?>>> WIDENINGS = new HashMap<>();
+
+  static {
+    WIDENINGS.put(byte.class, asList(short.class, int.class, long.class, float.class, double.class));
+    WIDENINGS.put(short.class, asList(int.class, long.class, float.class, double.class));
+    WIDENINGS.put(char.class, asList(int.class, long.class, float.class, double.class));
+    WIDENINGS.put(int.class, asList(long.class, float.class, double.class));
+    WIDENINGS.put(long.class, asList(float.class, double.class));
+    WIDENINGS.put(float.class, singletonList(double.class));
+  }
+
+  private final Method       method;
+  private final MethodHandle handle;
+  private final Class<?>[]   parameterTypes;
+
+  private ActionDispatcher(Method method, MethodHandle handle) {
+    this.method = method;
+    this.handle = handle;
+    this.parameterTypes = method.getParameterTypes();
+  }
+
+  /**
+   * Invokes a method which this object represents on {@code sut} with {@code args}.
+   * An exception thrown by the method is thrown as it is.
+   *
+   * @param sut  An object on which the method is invoked.
+   * @param args Arguments given to the method.
+   * @return A value returned by the method. {@code null} if the method is {@code void}.
+   */
+  Object dispatch(Object sut, Args args) throws Throwable {
+    Object[] values = args.values();
+    if (!isCompatibleWith(values))
+      throw new IllegalArgumentException(format("Method '%s/%d' in '%s' expects %s, but %s are given.",
+          method.getName(), args.size(),
+          sut.getClass().getCanonicalName(),
+          Arrays.toString(method.getParameterTypes()),
+          Arrays.toString(args.types())
+      ));
+    return (Object) this.handle.invokeExact(sut, values);
+  }
+
+  /**
+   * Checks {@code values} by the same rules as {@link Method#invoke(Object, Object...)}
+   * does, i.e., a value for a primitive parameter is unboxed and then it may be
+   * widened. The handle converts them in the same way since it is adapted to
+   * take {@code Object}s by {@link MethodHandle#asType(MethodType)}.
+   */
+  private boolean isCompatibleWith(Object[] values) {
+    if (values.length != parameterTypes.length)
+      return false;
+    for (int i = 0; i < values.length; i++) {
+      if (!isAssignable(parameterTypes[i], values[i]))
+        return false;
+    }
+    return true;
+  }
+
+  static ActionDispatcher resolve(Class<?> sutClass, String name, List<Class<?>> parameterTypes) {
+    Method method = Stream.of(sutClass.getMethods())
+        .filter((Method eachMethod) -> eachMethod.getName().equals(name))
+        .filter((Method eachMethod) -> parameterTypes.equals(asList(eachMethod.getParameterTypes())))
+        .findFirst()
+        .orElseThrow(
+            TestDefinitionException.sutDoesNotHaveSpecifiedMethod(sutClass, name, parameterTypes)
+        );
+    try {
+      return new ActionDispatcher(
+          method,
+          MethodHandles.publicLookup().unreflect(method)
+              .asSpreader(Object[].class, parameterTypes.size())
+              .asType(GENERIC_TYPE)
+      );
+    } catch (IllegalAccessException e) {
+      ////
+      // I know it's possible to support non-public method test by accessing
+      // security manager and it's easy. But I can't be sure it's useful
+      // yet and a careless introduction of a new feature can create a
+      // compatibility conflicts in future, so I'm not supporting it for now.
+      throw Checks.wraptesterror(
+          e,
+          "Non-public method (or anonymous class method) testing isn't supported (%s#%s/%s isn't public)",
+          sutClass.getCanonicalName(),
+          name,
+          parameterTypes.size()
+      );
+    }
+  }
+
+  private static boolean isAssignable(Class<?> parameterType, Object value) {
+    if (!parameterType.isPrimitive())
+      return value == null || parameterType.isInstance(value);
+    if (value == null)
+      return false;
+    Class<?> valueType = MethodType.methodType(value.getClass()).unwrap().returnType();
+    return parameterType.equals(valueType) ||
+        WIDENINGS.getOrDefault(valueType, emptyList()).contains(parameterType);
+  }
+}
@@ -0,0 +1,296 @@
+package com.github.dakusui.jcunit8.core;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+import java.util.Collection;
+
+/**
+ * Emits Java Flight Recorder events for test suite generation and test
+ * execution, so that a JFR recording shows where combinatorial suites spend
+ * their time.
+ * <p>
+ * Event types are defined as subclasses of {@code jdk.jfr.Event} nested in
+ * {@link Available}, which is touched only after it is confirmed that the
+ * {@code jdk.jfr} API exists at runtime. On a JVM without it, every method of
+ * this class returns {@link Span#NONE}, which does nothing. If an event type is
+ * not enabled in the current recording, {@link Span#NONE} is returned as well,
+ * so that the cost is negligible unless the events are being recorded.
+ */
+public enum JfrEvents {
+  ;
+
+  private static final boolean AVAILABLE = isJfrAvailable();
+
+  /**
+   * A started event, which is committed by {@link Span#end(long)}.
+   */
+  @FunctionalInterface
+  public interface Span {
+    Span NONE = rows -> {
+    };
+
+    /**
+     * Ends and commits this event.
+     *
+     * @param rows Number of rows produced. Ignored by events that don't have it.
+     */
+    void end(long rows);
+
+    /**
+     * Ends and commits this event without number of rows.
+     */
+    default void end() {
+      end(-1);
+    }
+  }
+
+  public static boolean isAvailable() {
+    return AVAILABLE;
+  }
+
+  /**
+   * Starts an event for an execution of a pipeline.
+   *
+   * @param model    Names of parameters in the parameter space.
+   * @param strength Strength of the requirement.
+   */
+  public static Span pipeline(Collection<String> model, int strength) {
+    return AVAILABLE ? Available.pipeline(model, strength) : Span.NONE;
+  }
+
+  /**
+   * Starts an event for an invocation of {@code Generator#generate()}.
+   *
+   * @param generator Name of the generator.
+   * @param model     Names of factors in the factor space.
+   * @param strength  Strength of the requirement.
+   */
+  public static Span generation(String generator, Collection<String> model, int strength) {
+    return AVAILABLE ? Available.generation(generator, model, strength) : Span.NONE;
+  }
+
+  /**
+   * Starts an event for an invocation of {@code Joiner#apply}.
+   *
+   * @param lhsRows Number of rows in the left hand side.
+   * @param rhsRows Number of rows in the right hand side.
+   */
+  public static Span join(int lhsRows, int rhsRows) {
+    return AVAILABLE ? Available.join(lhsRows, rhsRows) : Span.NONE;
+  }
+
+  /**
+   * Starts an event for an execution of a test oracle against a test case.
+   *
+   * @param model     Name of the test class.
+   * @param oracle    Name of the test oracle.
+   * @param caseIndex Index of the test case in the test suite.
+   */
+  public static Span testCase(String model, String oracle, int caseIndex) {
+    return AVAILABLE ? Available.testCase(model, oracle, caseIndex) : Span.NONE;
+  }
+
+  /**
+   * Starts an event for playback of an edge of an FSM.
+   *
+   * @param model     Name of the SUT's class.
+   * @param edge      The edge, whose string representation is recorded.
+   * @param edgeIndex Index of the edge in its sequence.
+   */
+  public static Span edgePlayback(String model, Object edge, int edgeIndex) {
+    return AVAILABLE ? Available.edgePlayback(model, edge, edgeIndex) : Span.NONE;
+  }
+
+  /**
+   * Commits an event for a stage of a pipeline reported to an instrumentation.
+   *
+   * @param stage   Name of the stage.
+   * @param subject Subject of the stage, e.g., names of involved factors.
+   * @param nanos   Nanoseconds spent by the stage.
+   * @param metrics Metrics reported by the stage.
+   */
+  public static void stage(String stage, String subject, long nanos, String metrics) {
+    if (AVAILABLE)
+      Available.stage(stage, subject, nanos, metrics);
+  }
+
+  private static boolean isJfrAvailable() {
+    try {
+      Class.forName("jdk.jfr.Event");
+      return Available.probe();
+    } catch (ClassNotFoundException | LinkageError e) {
+      return false;
+    }
+  }
+
+  /**
+   * Only loaded when {@code jdk.jfr} API is available.
+   */
+  private enum Available {
+    ;
+
+    static boolean probe() {
+      new PipelineEvent().isEnabled();
+      return true;
+    }
+
+    static Span pipeline(Collection<String> model, int strength) {
+      PipelineEvent event = new PipelineEvent();
+      if (!event.isEnabled())
+        return Span.NONE;
+      event.model = String.join(",", model);
+      event.strength = strength;
+      event.begin();
+      return rows -> {
+        event.rows = rows;
+        event.commit();
+      };
+    }
+
+    static Span generation(String generator, Collection<String> model, int strength) {
+      GenerationEvent event = new GenerationEvent();
+      if (!event.isEnabled())
+        return Span.NONE;
+      event.generator = generator;
+      event.model = String.join(",", model);
+      event.strength = strength;
+      event.begin();
+      return rows -> {
+        event.rows = rows;
+        event.commit();
+      };
+    }
+
+    static Span join(int lhsRows, int rhsRows) {
+      JoinEvent event = new JoinEvent();
+      if (!event.isEnabled())
+        return Span.NONE;
+      event.lhsRows = lhsRows;
+      event.rhsRows = rhsRows;
+      event.begin();
+      return rows -> {
+        event.rows = rows;
+        event.commit();
+      };
+    }
+
+    static Span testCase(String model, String oracle, int caseIndex) {
+      TestCaseEvent event = new TestCaseEvent();
+      if (!event.isEnabled())
+        return Span.NONE;
+      event.model = model;
+      event.oracle = oracle;
+      event.caseIndex = caseIndex;
+      event.begin();
+      return rows -> event.commit();
+    }
+
+    static void stage(String stage, String subject, long nanos, String metrics) {
+      StageEvent event = new StageEvent();
+      if (!event.isEnabled())
+        return;
+      event.stage = stage;
+      event.subject = subject;
+      event.nanos = nanos;
+      event.metrics = metrics;
+      event.commit();
+    }
+
+    static Span edgePlayback(String model, Object edge, int edgeIndex) {
+      EdgePlaybackEvent event = new EdgePlaybackEvent();
+      if (!event.isEnabled())
+        return Span.NONE;
+      event.model = model;
+      event.edge = String.valueOf(edge);
+      event.edgeIndex = edgeIndex;
+      event.begin();
+      return rows -> event.commit();
+    }
+  }
+
+  @Name("jcunit.Pipeline")
+  @Label("Pipeline Execution")
+  @Category("JCUnit")
+  @Description("Generation of a test suite by a pipeline")
+  static class PipelineEvent extends Event {
+    @Label("Model")
+    String model;
+    @Label("Strength")
+    int    strength;
+    @Label("Test Cases")
+    long   rows;
+  }
+
+  @Name("jcunit.Generation")
+  @Label("Generation")
+  @Category("JCUnit")
+  @Description("Generation of tuples by a generator")
+  static class GenerationEvent extends Event {
+    @Label("Generator")
+    String generator;
+    @Label("Model")
+    String model;
+    @Label("Strength")
+    int    strength;
+    @Label("Rows")
+    long   rows;
+  }
+
+  @Name("jcunit.Join")
+  @Label("Join")
+  @Category("JCUnit")
+  @Description("Join of two covering arrays")
+  static class JoinEvent extends Event {
+    @Label("Left Hand Side Rows")
+    int  lhsRows;
+    @Label("Right Hand Side Rows")
+    int  rhsRows;
+    @Label("Rows")
+    long rows;
+  }
+
+  @Name("jcunit.Stage")
+  @Label("JCUnit Stage")
+  @Category("JCUnit")
+  @Description("A stage of a pipeline reported to an instrumentation")
+  static class StageEvent extends Event {
+    @Label("Stage")
+    String stage;
+    @Label("Subject")
+    String subject;
+    @Label("Nanoseconds")
+    long   nanos;
+    @Label("Metrics")
+    String metrics;
+  }
+
+  @Name("jcunit.TestCase")
+  @Label("Test Case")
+  @Category("JCUnit")
+  @Description("Execution of a test oracle against a test case")
+  static class TestCaseEvent extends Event {
+    @Label("Model")
+    String model;
+    @Label("Oracle")
+    String oracle;
+    @Label("Case Index")
+    int    caseIndex;
+  }
+
+  @Name("jcunit.EdgePlayback")
+  @Label("Edge Playback")
+  @Category("JCUnit")
+  @Description("Playback of an edge of an FSM")
+  static class EdgePlaybackEvent extends Event {
+    @Label("Model")
+    String model;
+    @Label("Edge")
+    String edge;
+    @Label("Edge Index")
+    int    edgeIndex;
+  }
+}
@@ -10,6 +10,7 @@ import com.github.dakusui.jcunit.regex.RegexComposer;
 import com.github.dakusui.jcunit8.core.Utils;
 import com.github.dakusui.jcunit8.factorspace.fsm.FsmComposer;
 import com.github.dakusui.jcunit8.factorspace.fsm.FsmDecomposer;
+import com.github.dakusui.jcunit8.factorspace.fsm.FsmScenarioGenerator;
 import com.github.dakusui.jcunit8.factorspace.fsm.Scenario;
 import com.github.dakusui.jcunit8.factorspace.regex.RegexDecomposer;
 
@@ -298,6 +299,48 @@ public interface Parameter<T> {
         return new Factory<>(fsmSpecClass, scenarioLength);
       }
     }
+
+    /**
+     * A factory that creates a simple parameter whose levels are scenarios generated
+     * by walking an FSM graph directly with {@link FsmScenarioGenerator}.
+     * Scenarios are not decomposed into state/action/argument factors, and therefore
+     * no constraint is needed to exclude invalid ones.
+     *
+     * @param <SUT> A type of software under test.
+     */
+    class CoveringFactory<SUT> extends Parameter.Factory.Base<Scenario<SUT>> {
+      private final Class<? extends FsmSpec<SUT>>  fsmSpecClass;
+      private final int                            scenarioLength;
+      private final FsmScenarioGenerator.Criterion criterion;
+      private final int                            argStrength;
+
+      @Override
+      public Parameter<Scenario<SUT>> create(String name) {
+        return Simple.Factory.of(
+            Stream.concat(
+                knownValues.stream(),
+                new FsmScenarioGenerator<>(
+                    name,
+                    new FiniteStateMachine.Impl<>(name, this.fsmSpecClass),
+                    scenarioLength,
+                    criterion,
+                    argStrength
+                ).generate().stream()
+            ).collect(toList())
+        ).create(name);
+      }
+
+      public CoveringFactory(Class<? extends FsmSpec<SUT>> fsmSpecClass, int scenarioLength, FsmScenarioGenerator.Criterion criterion, int argStrength) {
+        this.fsmSpecClass = requireNonNull(fsmSpecClass);
+        this.scenarioLength = checkValue(scenarioLength, (Integer value) -> value > 0);
+        this.criterion = requireNonNull(criterion);
+        this.argStrength = checkValue(argStrength, (Integer value) -> value >= 0);
+      }
+
+      public static <SUT_> CoveringFactory<SUT_> of(Class<? extends FsmSpec<SUT_>> fsmSpecClass, int scenarioLength, FsmScenarioGenerator.Criterion criterion, int argStrength) {
+        return new CoveringFactory<>(fsmSpecClass, scenarioLength, criterion, argStrength);
+      }
+    }
   }
 }
 
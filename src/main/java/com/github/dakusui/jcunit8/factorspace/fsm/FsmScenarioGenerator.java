@@ -0,0 +1,182 @@
+package com.github.dakusui.jcunit8.factorspace.fsm;
+
+import com.github.dakusui.jcunit.fsm.FiniteStateMachine;
+import com.github.dakusui.jcunit.fsm.State;
+import com.github.dakusui.jcunit8.core.StreamableCombinator;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+import static com.github.dakusui.jcunit8.exceptions.TestDefinitionException.checkValue;
+import static java.util.Arrays.asList;
+import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Generates scenarios by walking a graph of an FSM directly.
+ * <p>
+ * {@link FsmDecomposer} encodes each step of a scenario into state, action, and
+ * argument factors and lets a covering array generator find valid rows under
+ * constraints, most of whose candidates are thrown away. This class instead
+ * chooses edges that are actually possible from the current state greedily so that
+ * each of them covers as many uncovered targets as possible. Targets are
+ * <ul>
+ * <li>transitions, each of which is a triple of (from, action, to),</li>
+ * <li>pairs of consecutive transitions (only if {@link Criterion#TRANSITION_PAIR}
+ * is specified), and</li>
+ * <li>t-way combinations of arguments of each action, where t is {@code argStrength}.</li>
+ * </ul>
+ * Generated scenarios start from the initial state of the FSM and can be played
+ * by {@link Player} as they are.
+ *
+ * @param <SUT> A type of software under test.
+ */
+public class FsmScenarioGenerator<SUT> extends FsmTupleAccessor<SUT> {
+  public enum Criterion {
+    TRANSITION,
+    TRANSITION_PAIR
+  }
+
+  private final Criterion                        criterion;
+  private final int                              argStrength;
+  private final Map<State<SUT>, List<Edge<SUT>>> outgoingEdges;
+
+  public FsmScenarioGenerator(String name, FiniteStateMachine<SUT> model, int scenarioLength, Criterion criterion, int argStrength) {
+    super(name, model, checkValue(scenarioLength, (Integer value) -> value > 0));
+    this.criterion = requireNonNull(criterion);
+    this.argStrength = checkValue(argStrength, (Integer value) -> value >= 0);
+    this.outgoingEdges = new LinkedHashMap<>();
+    model.states().forEach(each -> this.outgoingEdges.put(each, new ArrayList<>()));
+    allPossibleEdges(state -> true, action -> true, state -> true)
+        .forEach(edge -> this.outgoingEdges.get(edge.from).add(edge));
+  }
+
+  public List<Scenario<SUT>> generate() {
+    Set<List<Object>> uncovered = allTargets();
+    List<Scenario<SUT>> ret = new LinkedList<>();
+    while (!uncovered.isEmpty()) {
+      int before = uncovered.size();
+      Sequence<SUT> main = walk(uncovered);
+      if (main.isEmpty() || uncovered.size() == before)
+        break;
+      ret.add(new Scenario.Impl<>(this.name, new Sequence.Builder<SUT>().build(), main));
+    }
+    return ret;
+  }
+
+  private Sequence<SUT> walk(Set<List<Object>> uncovered) {
+    Sequence.Builder<SUT> builder = new Sequence.Builder<>();
+    State<SUT> current = this.model.initialState();
+    Edge<SUT> previous = null;
+    for (int i = 0; i < this.scenarioLength; i++) {
+      Optional<Edge<SUT>> next = chooseEdgeCoveringMost(current, previous, uncovered);
+      if (!next.isPresent())
+        next = firstEdgeTowardUncovered(current, uncovered);
+      if (!next.isPresent())
+        break;
+      Edge<SUT> edge = next.get();
+      uncovered.removeAll(targetsCoveredBy(previous, edge));
+      builder.add(edge);
+      previous = edge;
+      current = edge.to;
+    }
+    return builder.build();
+  }
+
+  private Optional<Edge<SUT>> chooseEdgeCoveringMost(State<SUT> from, Edge<SUT> previous, Set<List<Object>> uncovered) {
+    int most = 0;
+    Edge<SUT> ret = null;
+    for (Edge<SUT> each : this.outgoingEdges.get(from)) {
+      int numCovered = (int) targetsCoveredBy(previous, each).stream().filter(uncovered::contains).count();
+      if (numCovered > most) {
+        most = numCovered;
+        ret = each;
+      }
+    }
+    return Optional.ofNullable(ret);
+  }
+
+  /**
+   * Returns the first edge of the shortest route from {@code from} to a state
+   * which has an outgoing edge that covers any of {@code uncovered}.
+   */
+  private Optional<Edge<SUT>> firstEdgeTowardUncovered(State<SUT> from, Set<List<Object>> uncovered) {
+    Map<State<SUT>, Edge<SUT>> firstEdges = new HashMap<>();
+    Deque<State<SUT>> queue = new LinkedList<>();
+    Set<State<SUT>> visited = new HashSet<>();
+    queue.add(from);
+    visited.add(from);
+    while (!queue.isEmpty()) {
+      State<SUT> cur = queue.removeFirst();
+      for (Edge<SUT> each : this.outgoingEdges.get(cur)) {
+        if (!visited.add(each.to))
+          continue;
+        Edge<SUT> firstEdge = cur == from ? each : firstEdges.get(cur);
+        firstEdges.put(each.to, firstEdge);
+        if (hasOutgoingEdgeCovering(each.to, uncovered))
+          return Optional.of(firstEdge);
+        queue.add(each.to);
+      }
+    }
+    return Optional.empty();
+  }
+
+  private boolean hasOutgoingEdgeCovering(State<SUT> state, Set<List<Object>> uncovered) {
+    return this.outgoingEdges.get(state).stream()
+        .anyMatch(edge -> targetsCoveredBy(null, edge).stream().anyMatch(uncovered::contains));
+  }
+
+  private Set<List<Object>> allTargets() {
+    Set<List<Object>> ret = new LinkedHashSet<>();
+    this.outgoingEdges.values().stream()
+        .flatMap(Collection::stream)
+        .forEach(each -> {
+          ret.add(transitionOf(each));
+          ret.addAll(argumentCombinationsOf(each));
+          if (this.criterion == Criterion.TRANSITION_PAIR)
+            this.outgoingEdges.get(each.to).forEach(next -> ret.add(transitionPairOf(each, next)));
+        });
+    return ret;
+  }
+
+  private List<List<Object>> targetsCoveredBy(Edge<SUT> previous, Edge<SUT> edge) {
+    List<List<Object>> ret = new LinkedList<>();
+    ret.add(transitionOf(edge));
+    ret.addAll(argumentCombinationsOf(edge));
+    if (previous != null && this.criterion == Criterion.TRANSITION_PAIR)
+      ret.add(transitionPairOf(previous, edge));
+    return ret;
+  }
+
+  private List<Object> transitionOf(Edge<SUT> edge) {
+    return asList("TRANSITION", edge.from, edge.action, edge.to);
+  }
+
+  private List<Object> transitionPairOf(Edge<SUT> first, Edge<SUT> second) {
+    return asList("TRANSITION_PAIR", first.from, first.action, first.to, second.action, second.to);
+  }
+
+  private List<List<Object>> argumentCombinationsOf(Edge<SUT> edge) {
+    int t = Math.min(this.argStrength, edge.args.size());
+    if (t == 0)
+      return Collections.emptyList();
+    return new StreamableCombinator<>(
+        IntStream.range(0, edge.args.size()).boxed().collect(toList()),
+        t
+    ).stream(
+    ).map(
+        (List<Integer> indices) -> {
+          List<Object> ret = new ArrayList<>(2 + indices.size() * 2);
+          ret.add("ARGS");
+          ret.add(edge.action);
+          indices.forEach(index -> {
+            ret.add(index);
+            ret.add(edge.args.values()[index]);
+          });
+          return ret;
+        }
+    ).collect(
+        toList()
+    );
+  }
+}
@@ -4,6 +4,7 @@ import com.github.dakusui.jcunit.fsm.Action;
 import com.github.dakusui.jcunit.fsm.Args;
 import com.github.dakusui.jcunit.fsm.Expectation;
 import com.github.dakusui.jcunit.fsm.State;
+import com.github.dakusui.jcunit8.core.JfrEvents;
 
 import java.util.function.Predicate;
 
@@ -33,8 +34,14 @@ public interface Player<SUT> {
 
     @Override
     public void visit(Sequence<SUT> sequence) {
+      int i = 0;
       for (Edge<SUT> each : sequence) {
-        each.accept(this);
+        JfrEvents.Span span = JfrEvents.edgePlayback(sut == null ? null : sut.getClass().getName(), each, i++);
+        try {
+          each.accept(this);
+        } finally {
+          span.end();
+        }
       }
     }
 
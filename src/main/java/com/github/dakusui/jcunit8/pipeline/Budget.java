@@ -0,0 +1,333 @@
+package com.github.dakusui.jcunit8.pipeline;
+
+import com.github.dakusui.jcunit8.exceptions.TestDefinitionException;
+import com.github.dakusui.jcunit8.factorspace.FactorSpace;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.unmodifiableList;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A budget for test suite generation, whose limits are given by
+ * {@link Requirement#budgetLimits()}.
+ * <p>
+ * Stages of a pipeline check the budget cooperatively. Once it is exhausted,
+ * they stop searching and finish with the best result found so far, e.g., a
+ * generator completes rows it has already built without trying to cover more
+ * tuples. Each such stage reports an {@link Interruption}, which tells how many
+ * tuples it knows to have left uncovered.
+ * <p>
+ * A budget is stateful. {@link Pipeline.Standard#execute} creates one from the
+ * limits for each execution with {@link Limits#newBudget()} and gives it to the
+ * stages through {@link Requirement#budget()}, so that a requirement, which can
+ * be cached and shared, never holds the state. The outcome of an execution is
+ * available from {@link com.github.dakusui.jcunit8.testsuite.TestSuite#budgetReport()}
+ * and reported to {@link Instrumentation} as a {@link Instrumentation.Stage#BUDGET}
+ * event.
+ */
+public interface Budget {
+  /**
+   * A budget that is never exhausted.
+   */
+  Budget UNLIMITED = new Budget() {
+    @Override
+    public Limits limits() {
+      return Limits.NONE;
+    }
+
+    @Override
+    public boolean isExhausted() {
+      return false;
+    }
+
+    @Override
+    public boolean canAddRow(int rows) {
+      return true;
+    }
+
+    @Override
+    public FactorSpace instrument(FactorSpace factorSpace) {
+      return factorSpace;
+    }
+
+    @Override
+    public void interrupted(String stage, String subject, long uncovered) {
+    }
+
+    @Override
+    public Report report() {
+      return new Report(null, 0, 0, emptyList());
+    }
+
+    @Override
+    public String toString() {
+      return "UNLIMITED";
+    }
+  };
+
+  enum Limit {
+    TIME,
+    ROWS,
+    CONSTRAINT_EVALUATIONS
+  }
+
+  Limits limits();
+
+  /**
+   * Returns {@code true} if any limit of this budget has been reached.
+   * Stages should call this method at the boundaries of their iterations.
+   */
+  boolean isExhausted();
+
+  /**
+   * Returns {@code true} if a row can be added to a set of rows that already
+   * has {@code rows} rows. Otherwise this budget is marked exhausted by
+   * {@link Limit#ROWS}.
+   *
+   * @param rows Number of rows already generated.
+   */
+  boolean canAddRow(int rows);
+
+  /**
+   * Returns a factor space whose constraint evaluations are counted by this
+   * budget, if it limits them.
+   *
+   * @param factorSpace A factor space to be instrumented.
+   */
+  FactorSpace instrument(FactorSpace factorSpace);
+
+  /**
+   * Called by a stage that finished early because this budget was exhausted.
+   *
+   * @param stage     Name of the stage.
+   * @param subject   Subject of the stage, e.g., names of involved factors.
+   * @param uncovered Number of tuples (constraints for negative test generation)
+   *                  the stage knows to have left uncovered.
+   */
+  void interrupted(String stage, String subject, long uncovered);
+
+  Report report();
+
+  /**
+   * Limits of a budget. Unlike a budget, this object is immutable and can be
+   * shared.
+   */
+  final class Limits {
+    public static final Limits NONE = new Limits(Long.MAX_VALUE, Integer.MAX_VALUE, Long.MAX_VALUE);
+
+    private final long timeLimitMillis;
+    private final int  maxRows;
+    private final long maxConstraintEvaluations;
+
+    /**
+     * Creates a limits object.
+     *
+     * @param timeLimitMillis          Wall-clock limit in milliseconds.
+     * @param maxRows                  Maximum number of regular test cases. Seeds
+     *                                 and negative test cases are not counted.
+     * @param maxConstraintEvaluations Maximum number of constraint evaluations.
+     */
+    public Limits(long timeLimitMillis, int maxRows, long maxConstraintEvaluations) {
+      this.timeLimitMillis = TestDefinitionException.checkValue(timeLimitMillis, v -> v > 0);
+      this.maxRows = TestDefinitionException.checkValue(maxRows, v -> v > 0);
+      this.maxConstraintEvaluations = TestDefinitionException.checkValue(maxConstraintEvaluations, v -> v > 0);
+    }
+
+    public long timeLimitMillis() {
+      return this.timeLimitMillis;
+    }
+
+    public int maxRows() {
+      return this.maxRows;
+    }
+
+    public long maxConstraintEvaluations() {
+      return this.maxConstraintEvaluations;
+    }
+
+    public boolean isUnlimited() {
+      return this.equals(NONE);
+    }
+
+    /**
+     * Returns a budget that starts being consumed now.
+     *
+     * @return {@link Budget#UNLIMITED} if nothing is limited, a new budget otherwise.
+     */
+    public Budget newBudget() {
+      return isUnlimited() ?
+          UNLIMITED :
+          new Standard(this);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(this.timeLimitMillis, this.maxRows, this.maxConstraintEvaluations);
+    }
+
+    @Override
+    public boolean equals(Object anotherObject) {
+      if (!(anotherObject instanceof Limits))
+        return false;
+      Limits another = (Limits) anotherObject;
+      return this.timeLimitMillis == another.timeLimitMillis &&
+          this.maxRows == another.maxRows &&
+          this.maxConstraintEvaluations == another.maxConstraintEvaluations;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("timeLimit=%dms, maxRows=%d, maxConstraintEvaluations=%d", timeLimitMillis, maxRows, maxConstraintEvaluations);
+    }
+  }
+
+  final class Interruption {
+    public final String stage;
+    public final String subject;
+    public final long   uncovered;
+
+    public Interruption(String stage, String subject, long uncovered) {
+      this.stage = requireNonNull(stage);
+      this.subject = requireNonNull(subject);
+      this.uncovered = uncovered;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%s(%s):uncovered=%d", stage, subject, uncovered);
+    }
+  }
+
+  /**
+   * An outcome of a budget.
+   * Note that tuples involving factors a generator did not reach before the
+   * budget was exhausted are not counted by {@link #uncovered()}, since they are
+   * never enumerated. A report with no interruption means that the suite covers
+   * everything required.
+   */
+  final class Report {
+    private final Limit              exhaustedBy;
+    private final long               elapsedNanos;
+    private final long               constraintEvaluations;
+    private final List<Interruption> interruptions;
+
+    public Report(Limit exhaustedBy, long elapsedNanos, long constraintEvaluations, List<Interruption> interruptions) {
+      this.exhaustedBy = exhaustedBy;
+      this.elapsedNanos = elapsedNanos;
+      this.constraintEvaluations = constraintEvaluations;
+      this.interruptions = unmodifiableList(new ArrayList<>(interruptions));
+    }
+
+    public Optional<Limit> exhaustedBy() {
+      return Optional.ofNullable(exhaustedBy);
+    }
+
+    public boolean isComplete() {
+      return this.interruptions.isEmpty();
+    }
+
+    public long elapsedNanos() {
+      return elapsedNanos;
+    }
+
+    public long constraintEvaluations() {
+      return constraintEvaluations;
+    }
+
+    public List<Interruption> interruptions() {
+      return interruptions;
+    }
+
+    public long uncovered() {
+      return this.interruptions.stream().mapToLong(each -> each.uncovered).sum();
+    }
+
+    @Override
+    public String toString() {
+      return String.format(
+          "exhaustedBy=%s, elapsed=%dms, constraintEvaluations=%d, uncovered=%d, interruptions=%s",
+          exhaustedBy,
+          TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+          constraintEvaluations,
+          uncovered(),
+          interruptions
+      );
+    }
+  }
+
+  /**
+   * A budget that starts being consumed when it is created.
+   */
+  class Standard implements Budget {
+    private final Limits                              limits;
+    private final Instrumentation.ConstraintCounter   constraintCounter = new Instrumentation.ConstraintCounter();
+    private final AtomicReference<Limit>              exhaustedBy       = new AtomicReference<>();
+    private final ConcurrentLinkedQueue<Interruption> interruptions     = new ConcurrentLinkedQueue<>();
+    private final long                                startedAt         = System.nanoTime();
+
+    public Standard(Limits limits) {
+      this.limits = requireNonNull(limits);
+    }
+
+    @Override
+    public Limits limits() {
+      return this.limits;
+    }
+
+    @Override
+    public boolean isExhausted() {
+      if (this.exhaustedBy.get() != null)
+        return true;
+      if (this.constraintCounter.evaluations() >= this.limits.maxConstraintEvaluations())
+        return exhaust(Limit.CONSTRAINT_EVALUATIONS);
+      if (TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - this.startedAt) >= this.limits.timeLimitMillis())
+        return exhaust(Limit.TIME);
+      return false;
+    }
+
+    @Override
+    public boolean canAddRow(int rows) {
+      return rows < this.limits.maxRows() || !exhaust(Limit.ROWS);
+    }
+
+    @Override
+    public FactorSpace instrument(FactorSpace factorSpace) {
+      return this.limits.maxConstraintEvaluations() == Long.MAX_VALUE ?
+          factorSpace :
+          this.constraintCounter.instrument(factorSpace);
+    }
+
+    @Override
+    public void interrupted(String stage, String subject, long uncovered) {
+      this.interruptions.add(new Interruption(stage, subject, uncovered));
+    }
+
+    @Override
+    public Report report() {
+      return new Report(
+          this.exhaustedBy.get(),
+          System.nanoTime() - this.startedAt,
+          this.constraintCounter.evaluations(),
+          new ArrayList<>(this.interruptions)
+      );
+    }
+
+    @Override
+    public String toString() {
+      return this.limits.toString();
+    }
+
+    private boolean exhaust(Limit limit) {
+      this.exhaustedBy.compareAndSet(null, limit);
+      return true;
+    }
+  }
+}
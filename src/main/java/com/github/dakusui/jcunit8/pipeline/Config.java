@@ -8,12 +8,14 @@ import com.github.dakusui.jcunit8.factorspace.ParameterSpace;
 import com.github.dakusui.jcunit8.pipeline.stages.Encoder;
 import com.github.dakusui.jcunit8.pipeline.stages.Generator;
 import com.github.dakusui.jcunit8.pipeline.stages.Joiner;
+import com.github.dakusui.jcunit8.pipeline.stages.Orderer;
 import com.github.dakusui.jcunit8.pipeline.stages.Partitioner;
 import com.github.dakusui.jcunit8.testsuite.SchemafulTupleSet;
 
 import java.util.List;
 import java.util.function.BinaryOperator;
 import java.util.function.Function;
+import java.util.stream.Stream;
 
 import static java.util.Collections.singletonList;
 import static java.util.Objects.requireNonNull;
@@ -34,13 +36,57 @@ public interface Config {
 
   BinaryOperator<SchemafulTupleSet> joiner();
 
+  /**
+   * Returns a joiner used by an execution of a pipeline, whose budget is given
+   * by {@code requirement}.
+   *
+   * @param requirement A requirement for the execution.
+   * @return A joiner.
+   */
+  default BinaryOperator<SchemafulTupleSet> joiner(Requirement requirement) {
+    return joiner();
+  }
+
   Function<? super FactorSpace, ? extends FactorSpace> optimizer();
 
+  /**
+   * Returns an instrumentation to which a pipeline reports events.
+   *
+   * @return An instrumentation.
+   */
+  default Instrumentation instrumentation() {
+    return Instrumentation.NONE;
+  }
+
+  /**
+   * Returns an orderer that decides the order in which test cases in a generated
+   * test suite are run.
+   *
+   * @return An orderer.
+   */
+  default Orderer orderer() {
+    return Orderer.NONE;
+  }
+
+  /**
+   * Returns an execution profile to which a runner records execution times of
+   * test cases. The generator factory is given the same profile so that it can
+   * prefer levels cheaper to execute.
+   *
+   * @return An execution profile.
+   */
+  default ExecutionProfile executionProfile() {
+    return ExecutionProfile.NONE;
+  }
+
   class Builder {
     private final Requirement       requirement;
     private       Generator.Factory generatorFactory;
     private       Joiner            joiner;
     private       Partitioner       partitioner;
+    private       Instrumentation   instrumentation;
+    private       Orderer           orderer;
+    private       ExecutionProfile  executionProfile;
 
     public static Builder forTuple(Requirement requirement) {
       return new Builder(requirement);
@@ -49,8 +95,10 @@ public interface Config {
     public Builder(Requirement requirement) {
       this.requirement = requirement;
       this.withGeneratorFactory(new Generator.Factory.Standard());
-      this.withJoiner(new Joiner.Standard(requirement));
       this.withPartitioner(new Partitioner.Standard());
+      this.withInstrumentation(Instrumentation.NONE);
+      this.withOrderer(Orderer.NONE);
+      this.withExecutionProfile(ExecutionProfile.NONE);
     }
 
     public Builder withGeneratorFactory(Generator.Factory generatorFactory) {
@@ -68,24 +116,65 @@ public interface Config {
       return this;
     }
 
+    public Builder withInstrumentation(Instrumentation instrumentation) {
+      this.instrumentation = instrumentation;
+      return this;
+    }
+
+    public Builder withOrderer(Orderer orderer) {
+      this.orderer = orderer;
+      return this;
+    }
+
+    public Builder withExecutionProfile(ExecutionProfile executionProfile) {
+      this.executionProfile = executionProfile;
+      return this;
+    }
+
     public Config build() {
-      return new Impl(requirement, generatorFactory, joiner, partitioner);
+      return new Impl(this);
     }
   }
 
   class Impl implements Config {
     private final Generator.Factory generatorFactory;
+    /**
+     * A joiner given explicitly, or {@code null} if {@link Joiner.Standard} is
+     * created for each requirement.
+     */
     private final Joiner            joiner;
     private final Partitioner       partitioner;
     private final Requirement       requirement;
     private final Encoder           encoder;
+    private final Instrumentation   instrumentation;
+    private final Orderer           orderer;
+    private final ExecutionProfile  executionProfile;
 
     public Impl(Requirement requirement, Generator.Factory generatorFactory, Joiner joiner, Partitioner partitioner) {
+      this(requirement, generatorFactory, requireNonNull(joiner), partitioner, Instrumentation.NONE, Orderer.NONE, ExecutionProfile.NONE);
+    }
+
+    private Impl(Builder builder) {
+      this(
+          builder.requirement,
+          builder.generatorFactory,
+          builder.joiner,
+          builder.partitioner,
+          builder.instrumentation,
+          builder.orderer,
+          builder.executionProfile
+      );
+    }
+
+    private Impl(Requirement requirement, Generator.Factory generatorFactory, Joiner joiner, Partitioner partitioner, Instrumentation instrumentation, Orderer orderer, ExecutionProfile executionProfile) {
       this.generatorFactory = requireNonNull(generatorFactory);
       this.encoder = new Encoder.Standard();
-      this.joiner = requireNonNull(joiner);
+      this.joiner = joiner;
       this.partitioner = requireNonNull(partitioner);
       this.requirement = requireNonNull(requirement);
+      this.instrumentation = requireNonNull(instrumentation);
+      this.orderer = requireNonNull(orderer);
+      this.executionProfile = requireNonNull(executionProfile);
     }
 
     @Override
@@ -100,6 +189,13 @@ public interface Config {
 
     @Override
     public Function<FactorSpace, SchemafulTupleSet> generator(ParameterSpace parameterSpace, Requirement requirement) {
+      ////
+      // Encoded once here rather than for each partition, since there can be
+      // many seeds and precovered tuples.
+      List<Tuple> encodedSeeds = ParameterSpace.encodeSeedTuples(
+          parameterSpace,
+          Stream.concat(requirement.seeds().stream(), requirement.precovered().stream()).collect(toList())
+      );
       return (FactorSpace factorSpace) -> new SchemafulTupleSet.Builder(
           factorSpace.getFactors().stream(
           ).map(
@@ -111,14 +207,23 @@ public interface Config {
           generatorFactory.create(
               factorSpace,
               requirement,
-              ParameterSpace.encodeSeedTuples(parameterSpace, requirement.seeds())
+              encodedSeeds,
+              instrumentation,
+              executionProfile
           ).generate()
       ).build();
     }
 
     @Override
     public BinaryOperator<SchemafulTupleSet> joiner() {
-      return joiner;
+      return joiner(this.requirement);
+    }
+
+    @Override
+    public BinaryOperator<SchemafulTupleSet> joiner(Requirement requirement) {
+      return this.joiner != null ?
+          this.joiner :
+          new Joiner.Standard(requirement, this.instrumentation);
     }
 
     @Override
@@ -126,6 +231,21 @@ public interface Config {
       return requirement;
     }
 
+    @Override
+    public Instrumentation instrumentation() {
+      return instrumentation;
+    }
+
+    @Override
+    public Orderer orderer() {
+      return orderer;
+    }
+
+    @Override
+    public ExecutionProfile executionProfile() {
+      return executionProfile;
+    }
+
     /**
      * Returns a function that removes levels that cannot be valid because single
      * parameter constraints invalidate them.
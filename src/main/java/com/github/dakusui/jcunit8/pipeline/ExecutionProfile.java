@@ -0,0 +1,289 @@
+package com.github.dakusui.jcunit8.pipeline;
+
+import com.github.dakusui.jcunit.core.tuples.Tuple;
+import com.github.dakusui.jcunit8.exceptions.FrameworkException;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.OptionalDouble;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.github.dakusui.jcunit8.exceptions.TestDefinitionException.checkValue;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Execution times of test cases, which are recorded by a runner and fed back to
+ * test suite generation so that levels that make test cases slow can be avoided
+ * where coverage doesn't require them.
+ * <p>
+ * The cost of a level is estimated as the mean execution time of test cases in
+ * which a factor has the level. Levels are identified by their string
+ * representations so that a profile can be stored and loaded across runs. Since
+ * a simple parameter is encoded into a factor of the same name, the costs of
+ * its values are available to generators.
+ * Since factors of the same name in different test classes usually cost
+ * differently, a runner records and reads execution times through a view given
+ * by {@link #scopedTo(String)} for its test class.
+ * Implementations must be thread safe since test cases may run in parallel.
+ *
+ * @see Config#executionProfile()
+ * @see com.github.dakusui.jcunit8.pipeline.stages.ConfigFactory#create(Class)
+ */
+public interface ExecutionProfile {
+  ExecutionProfile NONE = new ExecutionProfile() {
+    @Override
+    public void record(Tuple testInput, long nanos) {
+    }
+
+    @Override
+    public OptionalDouble costOf(String factorName, Object level) {
+      return OptionalDouble.empty();
+    }
+  };
+
+  /**
+   * Records that a test case whose input is {@code testInput} took {@code nanos}.
+   *
+   * @param testInput An input of an executed test case.
+   * @param nanos     Nanoseconds spent to execute it.
+   */
+  void record(Tuple testInput, long nanos);
+
+  /**
+   * Returns the estimated cost of {@code level} of a factor {@code factorName}
+   * in nanoseconds, or an empty value if it has never been recorded.
+   *
+   * @param factorName A name of a factor.
+   * @param level      A level of the factor.
+   * @return Estimated cost of the level.
+   */
+  OptionalDouble costOf(String factorName, Object level);
+
+  /**
+   * Called by a runner after all test cases in a test class are executed.
+   */
+  default void flush() {
+  }
+
+  /**
+   * Returns a view of this profile whose execution times are kept apart from
+   * ones recorded through views of other scopes. By default, this profile itself
+   * is returned, that is, execution times are not scoped.
+   *
+   * @param scope A name of a scope, e.g., a name of a test class.
+   * @return A view of this profile for {@code scope}.
+   */
+  default ExecutionProfile scopedTo(String scope) {
+    return this;
+  }
+
+  /**
+   * Keeps execution times in memory.
+   */
+  class InMemory implements ExecutionProfile {
+    private static final String UNSCOPED = "";
+
+    /**
+     * Maps a scope to a map from a factor name to a map from a string
+     * representation of a level to {count, total nanoseconds} of test cases in
+     * which the factor has the level.
+     */
+    private final ConcurrentMap<String, ConcurrentMap<String, ConcurrentMap<String, LongAdder[]>>> stats = new ConcurrentHashMap<>();
+
+    @Override
+    public void record(Tuple testInput, long nanos) {
+      record(UNSCOPED, testInput, nanos);
+    }
+
+    @Override
+    public OptionalDouble costOf(String factorName, Object level) {
+      return costOf(UNSCOPED, factorName, level);
+    }
+
+    @Override
+    public ExecutionProfile scopedTo(String scope) {
+      return new Scoped(this, keyOf(requireNonNull(scope)));
+    }
+
+    void record(String scope, Tuple testInput, long nanos) {
+      testInput.forEach((factorName, level) -> add(scope, factorName, keyOf(level), 1, nanos));
+    }
+
+    OptionalDouble costOf(String scope, String factorName, Object level) {
+      Map<String, ConcurrentMap<String, LongAdder[]>> factors = this.stats.get(scope);
+      Map<String, LongAdder[]> levels = factors != null ? factors.get(factorName) : null;
+      LongAdder[] stat = levels != null ? levels.get(keyOf(level)) : null;
+      if (stat == null || stat[0].sum() == 0)
+        return OptionalDouble.empty();
+      return OptionalDouble.of((double) stat[1].sum() / stat[0].sum());
+    }
+
+    void add(String scope, String factorName, String level, long count, long nanos) {
+      LongAdder[] stat = this.stats.computeIfAbsent(scope, k -> new ConcurrentHashMap<>())
+          .computeIfAbsent(factorName, k -> new ConcurrentHashMap<>())
+          .computeIfAbsent(level, k -> new LongAdder[] { new LongAdder(), new LongAdder() });
+      stat[0].add(count);
+      stat[1].add(nanos);
+    }
+
+    void addAll(InMemory another) {
+      another.stats.forEach(
+          (scope, factors) -> factors.forEach(
+              (factorName, levels) -> levels.forEach(
+                  (level, stat) -> add(scope, factorName, level, stat[0].sum(), stat[1].sum())
+              )
+          )
+      );
+    }
+
+    /**
+     * Returns tab separated lines of a scope, a factor name, a level, a number of
+     * test cases, and total nanoseconds spent by them, sorted by scopes, factor
+     * names, and levels. The scope of execution times recorded without a view
+     * given by {@link #scopedTo(String)} is an empty string.
+     */
+    @Override
+    public String toString() {
+      StringBuilder b = new StringBuilder();
+      new TreeMap<>(this.stats).forEach(
+          (scope, factors) -> new TreeMap<>(factors).forEach(
+              (factorName, levels) -> new TreeMap<>(levels).forEach(
+                  (level, stat) -> b.append(String.format("%s\t%s\t%s\t%d\t%d%n", scope, factorName, level, stat[0].sum(), stat[1].sum()))
+              )
+          )
+      );
+      return b.toString();
+    }
+
+    private static String keyOf(Object level) {
+      return String.valueOf(level).replaceAll("[\\t\\r\\n]", " ");
+    }
+  }
+
+  /**
+   * A view of an {@link InMemory} profile for a scope.
+   */
+  class Scoped implements ExecutionProfile {
+    private final InMemory base;
+    private final String   scope;
+
+    private Scoped(InMemory base, String scope) {
+      this.base = base;
+      this.scope = scope;
+    }
+
+    @Override
+    public void record(Tuple testInput, long nanos) {
+      this.base.record(this.scope, testInput, nanos);
+    }
+
+    @Override
+    public OptionalDouble costOf(String factorName, Object level) {
+      return this.base.costOf(this.scope, factorName, level);
+    }
+
+    @Override
+    public void flush() {
+      this.base.flush();
+    }
+
+    @Override
+    public ExecutionProfile scopedTo(String scope) {
+      return this.base.scopedTo(scope);
+    }
+  }
+
+  /**
+   * Loads execution times from a file when it is created, if the file exists,
+   * and adds ones recorded since then to the file when it is flushed. The file
+   * consists of lines of {@link InMemory#toString()}.
+   * <p>
+   * On flush, the file is read again and merged with execution times recorded
+   * since the last flush, holding a lock, so that profiles sharing a file, e.g.,
+   * ones created for different test classes with the default path, don't
+   * overwrite each other's execution times.
+   */
+  class FileBacked extends InMemory {
+    private static final Path                        DEFAULT_PATH = Paths.get("target", "jcunit-execution-profile.tsv");
+    private static final ConcurrentMap<Path, Object> LOCKS        = new ConcurrentHashMap<>();
+
+    private final Path     path;
+    /**
+     * Execution times recorded since the last flush.
+     */
+    private       InMemory unflushed = new InMemory();
+
+    public FileBacked() {
+      this(DEFAULT_PATH);
+    }
+
+    public FileBacked(Path path) {
+      this.path = requireNonNull(path);
+      if (Files.exists(path))
+        load(path, this);
+    }
+
+    public Path path() {
+      return this.path;
+    }
+
+    @Override
+    synchronized void record(String scope, Tuple testInput, long nanos) {
+      super.record(scope, testInput, nanos);
+      this.unflushed.record(scope, testInput, nanos);
+    }
+
+    @Override
+    public synchronized void flush() {
+      Path lockPath = Paths.get(this.path.toAbsolutePath() + ".lock");
+      synchronized (LOCKS.computeIfAbsent(lockPath.normalize(), k -> new Object())) {
+        try {
+          Path parent = lockPath.getParent();
+          if (parent != null)
+            Files.createDirectories(parent);
+          try (FileChannel channel = FileChannel.open(lockPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            FileLock lock = channel.lock();
+            try {
+              InMemory merged = new InMemory();
+              if (Files.exists(this.path))
+                load(this.path, merged);
+              merged.addAll(this.unflushed);
+              try (Writer writer = Files.newBufferedWriter(this.path, StandardCharsets.UTF_8)) {
+                writer.write(merged.toString());
+              }
+              this.unflushed = new InMemory();
+            } finally {
+              lock.release();
+            }
+          }
+        } catch (IOException e) {
+          throw FrameworkException.unexpectedByDesign(e);
+        }
+      }
+    }
+
+    private static void load(Path path, InMemory profile) {
+      try {
+        for (String each : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+          if (each.isEmpty())
+            continue;
+          String[] fields = checkValue(each.split("\t", -1), v -> v.length == 5, "Malformed line in '%s': '%s'", path, each);
+          profile.add(fields[0], fields[1], fields[2], Long.parseLong(fields[3]), Long.parseLong(fields[4]));
+        }
+      } catch (IOException e) {
+        throw FrameworkException.unexpectedByDesign(e);
+      }
+    }
+  }
+}
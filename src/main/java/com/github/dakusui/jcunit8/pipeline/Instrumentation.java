@@ -0,0 +1,401 @@
+package com.github.dakusui.jcunit8.pipeline;
+
+import com.github.dakusui.jcunit.core.tuples.Tuple;
+import com.github.dakusui.jcunit8.core.JfrEvents;
+import com.github.dakusui.jcunit8.exceptions.FrameworkException;
+import com.github.dakusui.jcunit8.factorspace.Constraint;
+import com.github.dakusui.jcunit8.factorspace.FactorSpace;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static java.util.Arrays.asList;
+import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * An SPI to observe where test suite generation spends its time.
+ * <p>
+ * A pipeline reports an {@link Event} for each stage it executes through the
+ * instrumentation given by {@link Config#instrumentation()}, and calls
+ * {@link Instrumentation#flush()} when it finishes executing.
+ * Implementations must be thread safe since generators may report events from
+ * multiple threads.
+ *
+ * @see InMemory
+ * @see JsonReport
+ * @see Jfr
+ */
+public interface Instrumentation {
+  /**
+   * An instrumentation that discards all events.
+   */
+  Instrumentation NONE = event -> {
+  };
+
+  enum Stage {
+    /**
+     * Whole execution of a pipeline.
+     */
+    PIPELINE,
+    PREPROCESS,
+    ENCODE,
+    PARTITION,
+    OPTIMIZE,
+    /**
+     * Generation of a covering array for a partition.
+     */
+    GENERATE,
+    /**
+     * An iteration of IPOG, where a factor is added to a covering array.
+     */
+    IPOG_ITERATION,
+    /**
+     * Removal of duplicated rows generated by a generator.
+     */
+    DEDUPLICATE,
+    JOIN,
+    /**
+     * Composition of parameter values from a joined covering array.
+     */
+    COMPOSE,
+    NEGATIVE_GENERATION,
+    /**
+     * Usage of a memoization cache, reported when its owner finishes using it.
+     */
+    CACHE,
+    /**
+     * Outcome of a generation budget, reported when a pipeline with a limited
+     * budget finishes executing.
+     *
+     * @see Budget#report()
+     */
+    BUDGET
+  }
+
+  void record(Event event);
+
+  /**
+   * Called when a pipeline finishes executing.
+   */
+  default void flush() {
+  }
+
+  /**
+   * Executes {@code action} and records an event with its elapsed time and
+   * metrics computed from its result.
+   * If this instrumentation is {@link Instrumentation#NONE}, {@code action} is
+   * just executed.
+   *
+   * @param stage   A stage of {@code action}.
+   * @param subject A subject of {@code action}, e.g., names of involved factors.
+   * @param action  An action to be measured.
+   * @param metrics A function to compute metrics from the result.
+   * @param <T>     Type of the result.
+   */
+  default <T> T measure(Stage stage, String subject, Supplier<T> action, Function<? super T, Map<String, Long>> metrics) {
+    if (this == NONE)
+      return action.get();
+    long before = System.nanoTime();
+    T ret = action.get();
+    this.record(new Event(stage, subject, System.nanoTime() - before, metrics.apply(ret)));
+    return ret;
+  }
+
+  /**
+   * Creates metrics from alternating names and values, e.g.,
+   * {@code metrics("rows", 10, "factors", 3)}.
+   *
+   * @param namesAndValues Alternating metric names and numbers.
+   */
+  static Map<String, Long> metrics(Object... namesAndValues) {
+    FrameworkException.checkCondition(namesAndValues.length % 2 == 0);
+    Map<String, Long> ret = new LinkedHashMap<>();
+    for (int i = 0; i < namesAndValues.length; i += 2)
+      ret.put((String) namesAndValues[i], ((Number) namesAndValues[i + 1]).longValue());
+    return ret;
+  }
+
+  /**
+   * Returns an instrumentation that passes events to all of {@code instrumentations}.
+   *
+   * @param instrumentations Instrumentations to which events are passed.
+   */
+  static Instrumentation compose(Instrumentation... instrumentations) {
+    List<Instrumentation> work = asList(instrumentations);
+    return new Instrumentation() {
+      @Override
+      public void record(Event event) {
+        work.forEach(each -> each.record(event));
+      }
+
+      @Override
+      public void flush() {
+        work.forEach(Instrumentation::flush);
+      }
+    };
+  }
+
+  final class Event {
+    private final Stage             stage;
+    private final String            subject;
+    private final long              nanos;
+    private final Map<String, Long> metrics;
+
+    public Event(Stage stage, String subject, long nanos, Map<String, Long> metrics) {
+      this.stage = requireNonNull(stage);
+      this.subject = requireNonNull(subject);
+      this.nanos = nanos;
+      this.metrics = Collections.unmodifiableMap(new LinkedHashMap<>(metrics));
+    }
+
+    public Stage stage() {
+      return this.stage;
+    }
+
+    public String subject() {
+      return this.subject;
+    }
+
+    /**
+     * Returns elapsed time of this event in nanoseconds.
+     */
+    public long nanos() {
+      return this.nanos;
+    }
+
+    public Map<String, Long> metrics() {
+      return this.metrics;
+    }
+
+    /**
+     * Returns a value of a metric specified by {@code name}, or {@code 0} if
+     * this event doesn't have it.
+     *
+     * @param name A name of a metric.
+     */
+    public long metric(String name) {
+      return this.metrics.getOrDefault(name, 0L);
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%s(%s):%dns%s", this.stage, this.subject, this.nanos, this.metrics);
+    }
+  }
+
+  /**
+   * Counts lookups and misses of memoization caches created by
+   * {@link CacheCounter#memoize(Function)}, and time spent to compute missed
+   * values.
+   */
+  final class CacheCounter {
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder misses  = new LongAdder();
+    private final LongAdder nanos   = new LongAdder();
+
+    /**
+     * Works the same as {@link com.github.dakusui.jcunit8.core.Utils#memoize(Function)}
+     * while counting lookups and misses.
+     *
+     * @param function A function to be memoized.
+     */
+    public <T, R> Function<T, R> memoize(Function<T, R> function) {
+      Map<T, R> memo = new ConcurrentHashMap<>();
+      return t -> {
+        this.lookups.increment();
+        return memo.computeIfAbsent(t, key -> {
+          long before = System.nanoTime();
+          try {
+            return function.apply(key);
+          } finally {
+            this.misses.increment();
+            this.nanos.add(System.nanoTime() - before);
+          }
+        });
+      };
+    }
+
+    /**
+     * Records a {@link Stage#CACHE} event, whose elapsed time is the time spent
+     * to compute missed values.
+     *
+     * @param instrumentation An instrumentation to which the event is reported.
+     * @param subject         An owner of caches.
+     */
+    public void reportTo(Instrumentation instrumentation, String subject) {
+      if (instrumentation == NONE)
+        return;
+      instrumentation.record(new Event(
+          Stage.CACHE,
+          subject,
+          this.nanos.sum(),
+          metrics("lookups", this.lookups.sum(), "misses", this.misses.sum())
+      ));
+    }
+  }
+
+  /**
+   * Counts evaluations of constraints in factor spaces created by
+   * {@link ConstraintCounter#instrument(FactorSpace)}.
+   */
+  final class ConstraintCounter {
+    private final LongAdder evaluations = new LongAdder();
+
+    /**
+     * Returns a factor space whose constraints are counted when evaluated.
+     *
+     * @param factorSpace A factor space to be instrumented.
+     */
+    public FactorSpace instrument(FactorSpace factorSpace) {
+      List<Constraint> constraints = new ArrayList<>(factorSpace.getConstraints().size());
+      for (Constraint each : factorSpace.getConstraints())
+        constraints.add(new Constraint() {
+          @Override
+          public String getName() {
+            return each.getName();
+          }
+
+          @Override
+          public boolean test(Tuple tuple) {
+            evaluations.increment();
+            return each.test(tuple);
+          }
+
+          @Override
+          public List<String> involvedKeys() {
+            return each.involvedKeys();
+          }
+
+          @Override
+          public String toString() {
+            return each.toString();
+          }
+        });
+      return FactorSpace.create(factorSpace.getFactors(), constraints);
+    }
+
+    public long evaluations() {
+      return this.evaluations.sum();
+    }
+  }
+
+  /**
+   * Keeps events in memory.
+   */
+  class InMemory implements Instrumentation {
+    private final List<Event> events = Collections.synchronizedList(new LinkedList<>());
+
+    @Override
+    public void record(Event event) {
+      this.events.add(event);
+    }
+
+    public List<Event> events() {
+      synchronized (this.events) {
+        return new ArrayList<>(this.events);
+      }
+    }
+
+    public List<Event> events(Stage stage) {
+      return events().stream().filter(each -> each.stage() == stage).collect(toList());
+    }
+
+    /**
+     * Returns total elapsed time of events of {@code stage} in nanoseconds.
+     *
+     * @param stage A stage whose elapsed time is summed up.
+     */
+    public long totalNanos(Stage stage) {
+      return events(stage).stream().mapToLong(Event::nanos).sum();
+    }
+  }
+
+  /**
+   * Writes events to a JSON file when flushed. The file is overwritten on each
+   * flush, and contains an array of objects each of which has {@code stage},
+   * {@code subject}, {@code nanos}, and {@code metrics} attributes.
+   */
+  class JsonReport extends InMemory {
+    private static final Path DEFAULT_PATH = Paths.get("target", "jcunit-instrumentation.json");
+
+    private final Path path;
+
+    public JsonReport() {
+      this(DEFAULT_PATH);
+    }
+
+    public JsonReport(Path path) {
+      this.path = requireNonNull(path);
+    }
+
+    public Path path() {
+      return this.path;
+    }
+
+    @Override
+    public synchronized void flush() {
+      try {
+        Path parent = this.path.toAbsolutePath().getParent();
+        if (parent != null)
+          Files.createDirectories(parent);
+        try (Writer writer = Files.newBufferedWriter(this.path, StandardCharsets.UTF_8)) {
+          writer.write(events().stream().map(JsonReport::toJson).collect(joining(",\n  ", "[\n  ", "\n]\n")));
+        }
+      } catch (IOException e) {
+        throw FrameworkException.unexpectedByDesign(e);
+      }
+    }
+
+    private static String toJson(Event event) {
+      return String.format(
+          "{\"stage\":%s,\"subject\":%s,\"nanos\":%d,\"metrics\":{%s}}",
+          quote(event.stage().name()),
+          quote(event.subject()),
+          event.nanos(),
+          event.metrics().entrySet().stream()
+              .map(each -> quote(each.getKey()) + ":" + each.getValue())
+              .collect(joining(","))
+      );
+    }
+
+    private static String quote(String s) {
+      StringBuilder b = new StringBuilder("\"");
+      for (char c : s.toCharArray()) {
+        if (c == '"' || c == '\\')
+          b.append('\\').append(c);
+        else if (c < 0x20)
+          b.append(String.format("\\u%04x", (int) c));
+        else
+          b.append(c);
+      }
+      return b.append('"').toString();
+    }
+  }
+
+  /**
+   * Commits events to Java Flight Recorder as {@code jcunit.Stage} events
+   * through {@link JfrEvents}. If JFR is not available, events are just
+   * discarded ({@link Jfr#isAvailable()}).
+   */
+  class Jfr implements Instrumentation {
+    public static boolean isAvailable() {
+      return JfrEvents.isAvailable();
+    }
+
+    @Override
+    public void record(Event event) {
+      JfrEvents.stage(event.stage().name(), event.subject(), event.nanos(), event.metrics().toString());
+    }
+  }
+}
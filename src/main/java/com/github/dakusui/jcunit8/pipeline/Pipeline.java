@@ -1,26 +1,28 @@
 package com.github.dakusui.jcunit8.pipeline;
 
 import com.github.dakusui.jcunit.core.tuples.Tuple;
+import com.github.dakusui.jcunit.core.tuples.TupleUtils;
 import com.github.dakusui.jcunit.exceptions.InvalidTestException;
+import com.github.dakusui.jcunit8.core.JfrEvents;
 import com.github.dakusui.jcunit8.core.Utils;
 import com.github.dakusui.jcunit8.exceptions.TestDefinitionException;
 import com.github.dakusui.jcunit8.factorspace.*;
 import com.github.dakusui.jcunit8.pipeline.stages.Generator;
-import com.github.dakusui.jcunit8.pipeline.stages.generators.Negative;
+import com.github.dakusui.jcunit8.pipeline.stages.Orderer;
+import com.github.dakusui.jcunit8.pipeline.stages.generators.IndexedNegative;
 import com.github.dakusui.jcunit8.pipeline.stages.generators.Passthrough;
 import com.github.dakusui.jcunit8.testsuite.SchemafulTupleSet;
 import com.github.dakusui.jcunit8.testsuite.TestScenario;
 import com.github.dakusui.jcunit8.testsuite.TestSuite;
 
-import java.util.ArrayList;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Objects;
+import java.util.*;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
 
-import static java.util.Arrays.asList;
+import static com.github.dakusui.jcunit8.pipeline.Instrumentation.metrics;
 import static java.util.stream.Collectors.toList;
 
 /**
@@ -31,62 +33,192 @@ public interface Pipeline {
   TestSuite execute(Config config, ParameterSpace parameterSpace, TestScenario testScenarioFactory);
 
   class Standard implements Pipeline {
+    /**
+     * Executes this pipeline. A budget is created from
+     * {@link Requirement#budgetLimits()} for each execution, and stages of it
+     * see the budget through {@link Requirement#budget()}. Its outcome is
+     * available from {@link TestSuite#budgetReport()} of the returned test suite.
+     */
     @Override
     public TestSuite execute(Config config, ParameterSpace parameterSpace, TestScenario testScenario) {
-      return generateTestSuite(config, preprocess(config, parameterSpace), testScenario);
+      Instrumentation instrumentation = config.instrumentation();
+      Budget budget = config.getRequirement().budgetLimits().newBudget();
+      Config configForExecution = new ForExecution(config, Requirement.withBudget(config.getRequirement(), budget));
+      JfrEvents.Span span = JfrEvents.pipeline(parameterSpace.getParameterNames(), config.getRequirement().strength());
+      TestSuite ret = null;
+      try {
+        TestSuite generated = instrumentation.measure(
+            Instrumentation.Stage.PIPELINE,
+            String.join(",", parameterSpace.getParameterNames()),
+            () -> generateTestSuite(
+                configForExecution,
+                instrumentation.measure(
+                    Instrumentation.Stage.PREPROCESS,
+                    String.join(",", parameterSpace.getParameterNames()),
+                    () -> preprocess(configForExecution, parameterSpace),
+                    preprocessed -> metrics("parameters", preprocessed.getParameterNames().size(), "constraints", preprocessed.getConstraints().size())
+                ),
+                testScenario
+            ),
+            testSuite -> metrics("testCases", testSuite.size())
+        );
+        return ret = budget == Budget.UNLIMITED ?
+            generated :
+            new TestSuite.Builder<>(parameterSpace, testScenario).addAll(generated).withBudgetReport(budget.report()).build();
+      } finally {
+        span.end(ret != null ? ret.size() : -1);
+        if (budget != Budget.UNLIMITED)
+          report(instrumentation, parameterSpace, ret != null ? ret.budgetReport() : budget.report());
+        instrumentation.flush();
+      }
     }
 
     public TestSuite generateTestSuite(Config config, ParameterSpace parameterSpace, TestScenario testScenario) {
-      validateSeeds(config.getRequirement().seeds(), parameterSpace);
-      TestSuite.Builder builder = new TestSuite.Builder(parameterSpace, testScenario);
+      validateSeeds("seeds", config.getRequirement().seeds(), parameterSpace, config.getRequirement().evaluateInParallel());
+      validateSeeds("precovered tuples", config.getRequirement().precovered(), parameterSpace, config.getRequirement().evaluateInParallel());
+      TestSuite.Builder<?> builder = new TestSuite.Builder<>(parameterSpace, testScenario);
       builder = builder.addAllToSeedTuples(config.getRequirement().seeds());
-      List<Tuple> regularTestTuples = engine(config, parameterSpace);
+      List<Tuple> regularTestTuples = limitRows(config.getRequirement(), parameterSpace, engine(config, parameterSpace));
       builder = builder.addAllToRegularTuples(regularTestTuples);
-      if (config.getRequirement().generateNegativeTests())
+      if (config.getRequirement().generateNegativeTests()) {
+        Instrumentation.ConstraintCounter constraintCounter = new Instrumentation.ConstraintCounter();
+        FactorSpace factorSpace = instrument(config, toFactorSpaceForNegativeTestGeneration(parameterSpace), constraintCounter);
         builder = builder.addAllToNegativeTuples(
-            negativeTestGenerator(
-                config.getRequirement().generateNegativeTests(),
-                toFactorSpaceForNegativeTestGeneration(parameterSpace),
-                regularTestTuples,
-                config.getRequirement().seeds(),
-                config.getRequirement()
-            ).generate()
+            config.instrumentation().measure(
+                Instrumentation.Stage.NEGATIVE_GENERATION,
+                String.join(",", factorSpace.getFactorNames()),
+                () -> negativeTestGenerator(
+                    config.getRequirement().generateNegativeTests(),
+                    factorSpace,
+                    regularTestTuples,
+                    config.getRequirement().seeds(),
+                    config.getRequirement()
+                ).generate(),
+                negativeTestTuples -> metrics(
+                    "rows", negativeTestTuples.size(),
+                    "constraints", factorSpace.getConstraints().size(),
+                    "constraintEvaluations", constraintCounter.evaluations()
+                )
+            )
         );
-      return builder.build();
-    }
-
-    private void validateSeeds(List<Tuple> seeds, ParameterSpace parameterSpace) {
-      List<Function<Tuple, String>> checks = asList(
-          (Tuple tuple) -> !parameterSpace.getParameterNames().containsAll(tuple.keySet()) ?
-              String.format("Unknown parameter(s) were found: %s in tuple: %s",
-                  new LinkedList<String>() {{
-                    addAll(tuple.keySet());
-                    removeAll(parameterSpace.getParameterNames());
-                  }},
-                  tuple
-              ) :
-              null,
-          (Tuple tuple) -> !tuple.keySet().containsAll(parameterSpace.getParameterNames()) ?
-              String.format("Parameter(s) were not found: %s in tuple: %s",
-                  new LinkedList<String>() {{
-                    addAll(parameterSpace.getParameterNames());
-                    removeAll(tuple.keySet());
-                  }},
-                  tuple
-              ) :
-              null
+      }
+      return order(config.orderer(), builder.build(), parameterSpace, testScenario);
+    }
+
+    private static TestSuite order(Orderer orderer, TestSuite testSuite, ParameterSpace parameterSpace, TestScenario testScenario) {
+      if (orderer == Orderer.NONE)
+        return testSuite;
+      return new TestSuite.Builder<>(parameterSpace, testScenario).addAll(orderer.apply(testSuite)).build();
+    }
+
+    /**
+     * Records {@code report} as a {@link Instrumentation.Stage#BUDGET} event.
+     * A limit by which the budget was exhausted is recorded as a metric named
+     * {@code exhaustedBy.} followed by its name, e.g., {@code exhaustedBy.TIME},
+     * whose value is {@code 1}.
+     */
+    private static void report(Instrumentation instrumentation, ParameterSpace parameterSpace, Budget.Report report) {
+      Map<String, Long> metrics = metrics(
+          "exhausted", report.exhaustedBy().isPresent() ? 1 : 0,
+          "constraintEvaluations", report.constraintEvaluations(),
+          "interruptions", report.interruptions().size(),
+          "uncovered", report.uncovered()
       );
-      List<String> errors = seeds.stream(
+      report.exhaustedBy().ifPresent(limit -> metrics.put("exhaustedBy." + limit.name(), 1L));
+      instrumentation.record(new Instrumentation.Event(
+          Instrumentation.Stage.BUDGET,
+          String.join(",", parameterSpace.getParameterNames()),
+          report.elapsedNanos(),
+          metrics
+      ));
+    }
+
+    /**
+     * Truncates {@code tuples} if they have more rows than the budget of
+     * {@code requirement} allows, since joining partitions can produce more rows
+     * than each generator does. Interactions covered only by rows cut off are
+     * reported as uncovered.
+     * <p>
+     * Only regular rows are limited. Seeds and negative test cases are added to
+     * a test suite regardless of {@link Budget.Limits#maxRows()}, since they are
+     * required explicitly.
+     */
+    private static List<Tuple> limitRows(Requirement requirement, ParameterSpace parameterSpace, List<Tuple> tuples) {
+      Budget budget = requirement.budget();
+      if (budget.canAddRow(tuples.size() - 1))
+        return tuples;
+      List<Tuple> ret = tuples.subList(0, budget.limits().maxRows());
+      Set<Tuple> covered = new HashSet<>();
+      ret.forEach(each -> forEachInteractionOf(each, requirement, covered::add));
+      Set<Tuple> uncovered = new HashSet<>();
+      tuples.subList(ret.size(), tuples.size()).forEach(
+          each -> forEachInteractionOf(each, requirement, interaction -> {
+            if (!covered.contains(interaction))
+              uncovered.add(interaction);
+          }));
+      budget.interrupted(Pipeline.class.getSimpleName(), String.join(",", parameterSpace.getParameterNames()), uncovered.size());
+      return ret;
+    }
+
+    /**
+     * Passes interactions in {@code tuple} required to be covered by
+     * {@code requirement}, including ones of its strength groups, to {@code consumer}.
+     */
+    private static void forEachInteractionOf(Tuple tuple, Requirement requirement, Consumer<Tuple> consumer) {
+      TupleUtils.forEachSubtupleOf(tuple, Math.min(requirement.strength(), tuple.size()), consumer);
+      for (Requirement.StrengthGroup each : requirement.strengthGroups()) {
+        Tuple projected = TupleUtils.project(tuple, each.factorNames());
+        if (projected.size() >= each.strength())
+          TupleUtils.forEachSubtupleOf(projected, each.strength(), consumer);
+      }
+    }
+
+    private static void validateStrengthGroups(List<Requirement.StrengthGroup> strengthGroups, FactorSpace factorSpace) {
+      Set<String> factorNames = new HashSet<>(factorSpace.getFactorNames());
+      for (Requirement.StrengthGroup each : strengthGroups)
+        TestDefinitionException.checkValue(
+            each,
+            group -> factorNames.containsAll(group.factorNames()),
+            "Unknown factor(s) %s were found in strength group: %s. Only simple parameters can be grouped by their names. Factors: %s",
+            each.factorNames().stream().filter(name -> !factorNames.contains(name)).collect(toList()),
+            each,
+            factorSpace.getFactorNames()
+        );
+    }
+
+    /**
+     * Validates {@code seeds}, in parallel if {@code parallel} is {@code true}.
+     * Names of parameters are compared as a set, and lists of differences are
+     * built only for invalid seeds, since there can be thousands of seeds
+     * imported in bulk.
+     */
+    private void validateSeeds(String kind, List<Tuple> seeds, ParameterSpace parameterSpace, boolean parallel) {
+      Set<String> parameterNames = new HashSet<>(parameterSpace.getParameterNames());
+      List<String> errors = (parallel ? seeds.parallelStream() : seeds.stream()).filter(
+          seed -> seed.size() != parameterNames.size() || !parameterNames.containsAll(seed.keySet())
       ).flatMap(
-          seed -> checks.stream(
-          ).map(each -> each.apply(seed))
+          seed -> Stream.of(
+              !parameterNames.containsAll(seed.keySet()) ?
+                  String.format("Unknown parameter(s) were found: %s in tuple: %s",
+                      seed.keySet().stream().filter(each -> !parameterNames.contains(each)).collect(toList()),
+                      seed
+                  ) :
+                  null,
+              !seed.keySet().containsAll(parameterNames) ?
+                  String.format("Parameter(s) were not found: %s in tuple: %s",
+                      parameterSpace.getParameterNames().stream().filter(each -> !seed.containsKey(each)).collect(toList()),
+                      seed
+                  ) :
+                  null
+          )
       ).filter(
           Objects::nonNull
       ).collect(toList());
       if (!errors.isEmpty())
         throw new InvalidTestException(
             String.format(
-                "Error(s) are found in seeds: %s",
+                "Error(s) are found in %s: %s",
+                kind,
                 errors
             ));
     }
@@ -106,32 +238,97 @@ public interface Pipeline {
     }
 
     public SchemafulTupleSet engine(Config config, ParameterSpace parameterSpace) {
-      return config.partitioner().apply(
-          config.encoder().apply(
-              parameterSpace
-          )
+      return engine(config, parameterSpace, true);
+    }
+
+    /**
+     * Generates tuples for {@code parameterSpace}. If {@code validateStrengthGroups}
+     * is {@code true}, factor names in strength groups of the requirement are
+     * checked against the encoded factor space, since partitions and joins only
+     * see the names they have and would silently ignore unknown ones. This is
+     * {@code false} when a single non-simple parameter is generated during
+     * preprocessing, whose factor space can't contain the others.
+     */
+    private SchemafulTupleSet engine(Config config, ParameterSpace parameterSpace, boolean validateStrengthGroups) {
+      Instrumentation instrumentation = config.instrumentation();
+      FactorSpace encoded = instrumentation.measure(
+          Instrumentation.Stage.ENCODE,
+          String.join(",", parameterSpace.getParameterNames()),
+          () -> config.encoder().apply(parameterSpace),
+          factorSpace -> metrics("factors", factorSpace.getFactors().size(), "constraints", factorSpace.getConstraints().size())
+      );
+      if (validateStrengthGroups)
+        validateStrengthGroups(config.getRequirement().strengthGroups(), encoded);
+      Function<FactorSpace, SchemafulTupleSet> generator = config.generator(parameterSpace, config.getRequirement());
+      BinaryOperator<SchemafulTupleSet> joiner = config.joiner(config.getRequirement());
+      return instrumentation.measure(
+          Instrumentation.Stage.PARTITION,
+          String.join(",", encoded.getFactorNames()),
+          () -> config.partitioner().apply(encoded),
+          partitions -> metrics("partitions", partitions.size())
       ).stream()
-          .map(config.optimizer())
+          .map((FactorSpace factorSpace) -> instrumentation.measure(
+              Instrumentation.Stage.OPTIMIZE,
+              String.join(",", factorSpace.getFactorNames()),
+              () -> config.optimizer().apply(factorSpace),
+              optimized -> metrics("levels", optimized.getFactors().stream().mapToInt(factor -> factor.getLevels().size()).sum())
+          ))
           .filter((Predicate<FactorSpace>) factorSpace -> !factorSpace.getFactors().isEmpty())
-          .map(config.generator(parameterSpace, config.getRequirement()))
-          .reduce(config.<SchemafulTupleSet>joiner())
+          .map((FactorSpace factorSpace) -> {
+            Instrumentation.ConstraintCounter constraintCounter = new Instrumentation.ConstraintCounter();
+            FactorSpace instrumented = instrument(config, factorSpace, constraintCounter);
+            return instrumentation.measure(
+                Instrumentation.Stage.GENERATE,
+                String.join(",", factorSpace.getFactorNames()),
+                () -> generator.apply(instrumented),
+                tuples -> metrics(
+                    "factors", factorSpace.getFactors().size(),
+                    "constraints", factorSpace.getConstraints().size(),
+                    "rows", tuples.size(),
+                    "constraintEvaluations", constraintCounter.evaluations()
+                )
+            );
+          })
+          .reduce((SchemafulTupleSet lhs, SchemafulTupleSet rhs) -> instrumentation.measure(
+              Instrumentation.Stage.JOIN,
+              String.join(",", lhs.getAttributeNames()) + "|" + String.join(",", rhs.getAttributeNames()),
+              () -> joiner.apply(lhs, rhs),
+              joined -> metrics("lhsRows", lhs.size(), "rhsRows", rhs.size(), "rows", joined.size())
+          ))
           .map(
-              (SchemafulTupleSet tuples) -> new SchemafulTupleSet.Builder(parameterSpace.getParameterNames()).addAll(
-                  tuples.stream()
-                      .map((Tuple tuple) -> {
-                        Tuple.Builder builder = new Tuple.Builder();
-                        for (String parameterName : parameterSpace.getParameterNames()) {
-                          builder.put(parameterName, parameterSpace.getParameter(parameterName).composeValue(tuple));
-                        }
-                        return builder.build();
-                      })
-                      .collect(toList())
-              ).build()
+              (SchemafulTupleSet tuples) -> instrumentation.measure(
+                  Instrumentation.Stage.COMPOSE,
+                  String.join(",", parameterSpace.getParameterNames()),
+                  () -> new SchemafulTupleSet.Builder(parameterSpace.getParameterNames()).addAll(
+                      tuples.stream()
+                          .map((Tuple tuple) -> {
+                            Tuple.Builder builder = new Tuple.Builder();
+                            for (String parameterName : parameterSpace.getParameterNames()) {
+                              builder.put(parameterName, parameterSpace.getParameter(parameterName).composeValue(tuple));
+                            }
+                            return builder.build();
+                          })
+                          .collect(toList())
+                  ).build(),
+                  composed -> metrics("rows", composed.size())
+              )
           )
           .orElseThrow(TestDefinitionException::noParameterFound);
     }
 
 
+    /**
+     * Returns a factor space whose constraint evaluations are counted by
+     * {@code constraintCounter}, only if the pipeline is instrumented, and by
+     * the budget, only if it limits them.
+     */
+    private static FactorSpace instrument(Config config, FactorSpace factorSpace, Instrumentation.ConstraintCounter constraintCounter) {
+      FactorSpace ret = config.getRequirement().budget().instrument(factorSpace);
+      return config.instrumentation() == Instrumentation.NONE ?
+          ret :
+          constraintCounter.instrument(ret);
+    }
+
     /**
      * This method should be used for a parameter space that does not contain a
      * constraint involving a non-simple parameter.
@@ -154,7 +351,7 @@ public interface Pipeline {
 
     private Generator negativeTestGenerator(boolean generateNegativeTests, FactorSpace factorSpace, List<Tuple> tuplesForRegularTests, List<Tuple> encodedSeeds, Requirement requirement) {
       return generateNegativeTests ?
-          new Negative(tuplesForRegularTests, encodedSeeds, factorSpace, requirement) :
+          new IndexedNegative(tuplesForRegularTests, encodedSeeds, factorSpace, requirement) :
           new Passthrough(tuplesForRegularTests, factorSpace, requirement);
     }
 
@@ -165,7 +362,7 @@ public interface Pipeline {
             Utils.unique(
                 Stream.<Object>concat(
                     parameter.getKnownValues().stream(),
-                    engine(config, new ParameterSpace.Builder().addParameter(parameter).build()).stream()
+                    engine(config, new ParameterSpace.Builder().addParameter(parameter).build(), false).stream()
                         .map(tuple -> tuple.get(parameter.getName())) // Extraction
                 ).collect(toList())
             ))
@@ -200,5 +397,69 @@ public interface Pipeline {
     public static Pipeline create() {
       return new Standard();
     }
+
+    /**
+     * A config for an execution of a pipeline, whose requirement has a budget
+     * for the execution.
+     */
+    private static class ForExecution implements Config {
+      private final Config      base;
+      private final Requirement requirement;
+
+      private ForExecution(Config base, Requirement requirement) {
+        this.base = base;
+        this.requirement = requirement;
+      }
+
+      @Override
+      public Requirement getRequirement() {
+        return this.requirement;
+      }
+
+      @Override
+      public Function<ParameterSpace, FactorSpace> encoder() {
+        return this.base.encoder();
+      }
+
+      @Override
+      public Function<FactorSpace, List<FactorSpace>> partitioner() {
+        return this.base.partitioner();
+      }
+
+      @Override
+      public Function<FactorSpace, SchemafulTupleSet> generator(ParameterSpace parameterSpace, Requirement requirement) {
+        return this.base.generator(parameterSpace, requirement);
+      }
+
+      @Override
+      public BinaryOperator<SchemafulTupleSet> joiner() {
+        return this.base.joiner(this.requirement);
+      }
+
+      @Override
+      public BinaryOperator<SchemafulTupleSet> joiner(Requirement requirement) {
+        return this.base.joiner(requirement);
+      }
+
+      @Override
+      public Function<? super FactorSpace, ? extends FactorSpace> optimizer() {
+        return this.base.optimizer();
+      }
+
+      @Override
+      public Instrumentation instrumentation() {
+        return this.base.instrumentation();
+      }
+
+      @Override
+      public Orderer orderer() {
+        return this.base.orderer();
+      }
+
+      @Override
+      public ExecutionProfile executionProfile() {
+        return this.base.executionProfile();
+      }
+    }
   }
 }
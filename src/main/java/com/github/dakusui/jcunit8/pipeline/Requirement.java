@@ -2,11 +2,14 @@ package com.github.dakusui.jcunit8.pipeline;
 
 import com.github.dakusui.jcunit.core.tuples.Tuple;
 
-import java.util.Collections;
-import java.util.LinkedList;
-import java.util.List;
+import com.github.dakusui.jcunit8.exceptions.TestDefinitionException;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongUnaryOperator;
 
 import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.toList;
 
 public interface Requirement {
   int strength();
@@ -15,10 +18,216 @@ public interface Requirement {
 
   List<Tuple> seeds();
 
+  /**
+   * Returns tuples whose interactions are considered already covered, e.g.,
+   * rows of a suite exercised elsewhere. Unlike seeds, they are not included in
+   * a generated test suite.
+   *
+   * @return Tuples whose interactions need not be covered again.
+   */
+  default List<Tuple> precovered() {
+    return Collections.emptyList();
+  }
+
+  /**
+   * Returns limits of a budget for test suite generation.
+   *
+   * @return Limits of a budget, which are {@link Budget.Limits#NONE} unless any limit is given.
+   */
+  default Budget.Limits budgetLimits() {
+    return Budget.Limits.NONE;
+  }
+
+  /**
+   * Returns a budget consumed by stages of a pipeline. A requirement itself
+   * doesn't hold a budget, since it can be cached and shared. Instead,
+   * {@link Pipeline.Standard#execute} creates one from {@link #budgetLimits()}
+   * for each execution and gives stages a requirement returned by
+   * {@link #withBudget(Requirement, Budget)}.
+   *
+   * @return A budget for the current execution of a pipeline.
+   */
+  default Budget budget() {
+    return Budget.UNLIMITED;
+  }
+
+  /**
+   * Returns a seed from which arbitrary choices made during test suite
+   * generation, e.g., levels assigned to "don't care" factors, are derived.
+   * Generation with the same seed produces the same test suite regardless of
+   * how its stages are scheduled.
+   *
+   * @return A seed, or an empty value to make the choices in the default, fixed way.
+   */
+  default OptionalLong randomSeed() {
+    return OptionalLong.empty();
+  }
+
+  /**
+   * Returns a seed for a stage identified by {@code stage} and names of factors
+   * it works on, which is derived from {@link #randomSeed()}. Stages working on
+   * different factors, e.g., generators for different partitions and joiners
+   * for different pairs of them, make choices independent of each other, while
+   * each of them is still reproducible.
+   *
+   * @param stage A name of a stage, e.g., {@code "generation"} or {@code "join"}.
+   * @param names Names of factors the stage works on.
+   * @return A derived seed, or an empty value if {@link #randomSeed()} is empty.
+   */
+  default OptionalLong randomSeedFor(String stage, Collection<String> names) {
+    OptionalLong seed = randomSeed();
+    if (!seed.isPresent())
+      return seed;
+    ////
+    // The finalizer of SplitMix64, so that similar names give unrelated seeds.
+    LongUnaryOperator mix = z -> {
+      z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+      z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+      return z ^ (z >>> 31);
+    };
+    long ret = mix.applyAsLong(seed.getAsLong() ^ stage.hashCode());
+    for (String each : new TreeSet<>(names))
+      ret = mix.applyAsLong(ret ^ each.hashCode());
+    return OptionalLong.of(ret);
+  }
+
+  /**
+   * Returns groups of factors whose interactions need to be covered with
+   * strengths higher than {@link #strength()}. Interactions among factors in a
+   * group are covered with the group's strength, while the rest are covered
+   * with {@link #strength()}.
+   *
+   * @return Groups of factors to be covered with higher strengths.
+   */
+  default List<StrengthGroup> strengthGroups() {
+    return Collections.emptyList();
+  }
+
+  /**
+   * Returns {@code true} if user code, e.g., constraints, may be evaluated
+   * concurrently during test suite generation to make it faster. Since such
+   * code is usually not written to be thread safe, it is {@code false} by default.
+   *
+   * @return {@code true} if user code may be evaluated in parallel.
+   */
+  default boolean evaluateInParallel() {
+    return false;
+  }
+
+  /**
+   * A group of factors, whose interactions are covered with a specific strength.
+   * Since simple parameters are encoded into factors of the same names, names of
+   * such parameters can be used as factor names. A name not found in the encoded
+   * factor space is rejected by {@link Pipeline.Standard#engine(Config, com.github.dakusui.jcunit8.factorspace.ParameterSpace)}.
+   */
+  interface StrengthGroup {
+    int strength();
+
+    List<String> factorNames();
+
+    /**
+     * Returns a group of factors in this group that are also in {@code factorNames},
+     * whose strength is lowered to the number of them if necessary.
+     *
+     * @param factorNames Names of factors available.
+     * @return A group restricted to {@code factorNames}.
+     */
+    default StrengthGroup restrictTo(Collection<String> factorNames) {
+      List<String> restricted = factorNames().stream().filter(factorNames::contains).collect(toList());
+      return create(Math.min(strength(), restricted.size()), restricted);
+    }
+
+    static StrengthGroup create(int strength, List<String> factorNames) {
+      List<String> names = Collections.unmodifiableList(new ArrayList<>(factorNames));
+      return new StrengthGroup() {
+        @Override
+        public int strength() {
+          return strength;
+        }
+
+        @Override
+        public List<String> factorNames() {
+          return names;
+        }
+
+        @Override
+        public String toString() {
+          return String.format("%s(t=%d)", names, strength);
+        }
+      };
+    }
+  }
+
+  /**
+   * Returns a requirement same as {@code requirement} except that its budget is
+   * {@code budget}.
+   *
+   * @param requirement A requirement.
+   * @param budget      A budget for an execution of a pipeline.
+   * @return A requirement whose budget is {@code budget}.
+   */
+  static Requirement withBudget(Requirement requirement, Budget budget) {
+    requireNonNull(requirement);
+    requireNonNull(budget);
+    return new Requirement() {
+      @Override
+      public int strength() {
+        return requirement.strength();
+      }
+
+      @Override
+      public boolean generateNegativeTests() {
+        return requirement.generateNegativeTests();
+      }
+
+      @Override
+      public List<Tuple> seeds() {
+        return requirement.seeds();
+      }
+
+      @Override
+      public List<Tuple> precovered() {
+        return requirement.precovered();
+      }
+
+      @Override
+      public Budget.Limits budgetLimits() {
+        return requirement.budgetLimits();
+      }
+
+      @Override
+      public Budget budget() {
+        return budget;
+      }
+
+      @Override
+      public OptionalLong randomSeed() {
+        return requirement.randomSeed();
+      }
+
+      @Override
+      public List<StrengthGroup> strengthGroups() {
+        return requirement.strengthGroups();
+      }
+
+      @Override
+      public boolean evaluateInParallel() {
+        return requirement.evaluateInParallel();
+      }
+    };
+  }
+
   class Builder {
     private int strength = 2;
     private boolean negativeTestGeneration;
-    private final List<Tuple> seeds = new LinkedList<>();
+    private final List<Tuple> seeds      = new ArrayList<>();
+    private final List<Tuple> precovered = new ArrayList<>();
+    private final List<StrengthGroup> strengthGroups = new ArrayList<>();
+    private long timeLimitMillis          = Long.MAX_VALUE;
+    private int  maxRows                  = Integer.MAX_VALUE;
+    private long maxConstraintEvaluations = Long.MAX_VALUE;
+    private OptionalLong randomSeed       = OptionalLong.empty();
+    private boolean      parallelEvaluation;
 
     public Builder withStrength(int strength) {
       this.strength = strength;
@@ -35,7 +244,84 @@ public interface Requirement {
       return this;
     }
 
+    public Builder addAllSeeds(Collection<? extends Tuple> seeds) {
+      seeds.forEach(this::addSeed);
+      return this;
+    }
+
+    public Builder addPrecovered(Tuple tuple) {
+      this.precovered.add(requireNonNull(tuple));
+      return this;
+    }
+
+    public Builder addAllPrecovered(Collection<? extends Tuple> tuples) {
+      tuples.forEach(this::addPrecovered);
+      return this;
+    }
+
+    public Builder withTimeLimit(long duration, TimeUnit unit) {
+      this.timeLimitMillis = unit.toMillis(duration);
+      return this;
+    }
+
+    /**
+     * Limits the number of regular test cases. Seeds and negative test cases are
+     * not counted, and therefore a test suite can have more test cases than
+     * {@code maxRows}.
+     */
+    public Builder withMaxRows(int maxRows) {
+      this.maxRows = maxRows;
+      return this;
+    }
+
+    public Builder withMaxConstraintEvaluations(long maxConstraintEvaluations) {
+      this.maxConstraintEvaluations = maxConstraintEvaluations;
+      return this;
+    }
+
+    /**
+     * Requires interactions among {@code factorNames} to be covered with
+     * {@code strength}, which is typically higher than the one given by
+     * {@link #withStrength(int)}.
+     *
+     * @param strength    A strength for the factors.
+     * @param factorNames Names of factors in a group.
+     * @return This object.
+     */
+    public Builder addStrengthGroup(int strength, List<String> factorNames) {
+      TestDefinitionException.checkValue(
+          factorNames,
+          names -> new HashSet<>(names).size() == names.size(),
+          "Factor names in a strength group must be unique: %s", factorNames);
+      TestDefinitionException.checkValue(
+          strength,
+          t -> t > 0 && t <= factorNames.size(),
+          "Strength of a group must be between 1 and the number of its factors (%s): %s", factorNames.size(), strength);
+      this.strengthGroups.add(StrengthGroup.create(strength, factorNames));
+      return this;
+    }
+
+    public Builder withRandomSeed(long randomSeed) {
+      this.randomSeed = OptionalLong.of(randomSeed);
+      return this;
+    }
+
+    /**
+     * Allows user code, e.g., constraints, to be evaluated concurrently during
+     * test suite generation. Enable it only if such code is thread safe.
+     *
+     * @param enable {@code true} to allow parallel evaluation.
+     * @return This object.
+     */
+    public Builder withParallelEvaluation(boolean enable) {
+      this.parallelEvaluation = enable;
+      return this;
+    }
+
     public Requirement build() {
+      OptionalLong randomSeed = this.randomSeed;
+      boolean parallelEvaluation = this.parallelEvaluation;
+      Budget.Limits budgetLimits = new Budget.Limits(timeLimitMillis, maxRows, maxConstraintEvaluations);
       return new Requirement() {
         @Override
         public int strength() {
@@ -51,6 +337,31 @@ public interface Requirement {
         public List<Tuple> seeds() {
           return Collections.unmodifiableList(seeds);
         }
+
+        @Override
+        public List<Tuple> precovered() {
+          return Collections.unmodifiableList(precovered);
+        }
+
+        @Override
+        public Budget.Limits budgetLimits() {
+          return budgetLimits;
+        }
+
+        @Override
+        public OptionalLong randomSeed() {
+          return randomSeed;
+        }
+
+        @Override
+        public List<StrengthGroup> strengthGroups() {
+          return Collections.unmodifiableList(strengthGroups);
+        }
+
+        @Override
+        public boolean evaluateInParallel() {
+          return parallelEvaluation;
+        }
       };
     }
   }
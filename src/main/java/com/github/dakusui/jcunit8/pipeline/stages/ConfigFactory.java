@@ -1,11 +1,24 @@
 package com.github.dakusui.jcunit8.pipeline.stages;
 
 import com.github.dakusui.jcunit8.pipeline.Config;
+import com.github.dakusui.jcunit8.pipeline.ExecutionProfile;
+import com.github.dakusui.jcunit8.pipeline.Instrumentation;
 import com.github.dakusui.jcunit8.pipeline.Requirement;
 
 public interface ConfigFactory {
   Config create();
 
+  /**
+   * Creates a config for {@code testClass}. By default, this is the same as
+   * {@link #create()}.
+   *
+   * @param testClass A test class whose test suite is generated by the config.
+   * @return A config.
+   */
+  default Config create(Class<?> testClass) {
+    return create();
+  }
+
   abstract class Base implements ConfigFactory {
     protected Requirement requirement() {
       return defineRequirement(defaultValues());
@@ -13,7 +26,27 @@ public interface ConfigFactory {
 
     @Override
     public Config create() {
-      return Config.Builder.forTuple(requirement()).withGeneratorFactory(generatorFactory()).build();
+      return create(executionProfile());
+    }
+
+    /**
+     * Creates a config whose execution profile is a view of {@link #executionProfile()}
+     * scoped to {@code testClass}, so that its execution times are not mixed
+     * with ones of other test classes.
+     */
+    @Override
+    public Config create(Class<?> testClass) {
+      return create(executionProfile().scopedTo(testClass.getName()));
+    }
+
+    private Config create(ExecutionProfile executionProfile) {
+      return Config.Builder.forTuple(requirement())
+          .withGeneratorFactory(generatorFactory())
+          .withPartitioner(partitioner())
+          .withInstrumentation(instrumentation())
+          .withOrderer(orderer())
+          .withExecutionProfile(executionProfile)
+          .build();
     }
 
     abstract protected Requirement defineRequirement(Requirement.Builder defaultValues);
@@ -24,6 +57,32 @@ public interface ConfigFactory {
       return new Generator.Factory.Standard();
     }
 
+    @SuppressWarnings("WeakerAccess")
+    // To allow users to override, keep this method 'protected'.
+    protected Partitioner partitioner() {
+      return new Partitioner.Standard();
+    }
+
+    @SuppressWarnings("WeakerAccess")
+    // To allow users to override, keep this method 'protected'.
+    protected Instrumentation instrumentation() {
+      return Instrumentation.NONE;
+    }
+
+    @SuppressWarnings("WeakerAccess")
+    // To allow users to override, keep this method 'protected'.
+    protected Orderer orderer() {
+      return Orderer.NONE;
+    }
+
+    @SuppressWarnings("WeakerAccess")
+    // To allow users to override, keep this method 'protected'.
+    // This is called once for a config, and the returned profile is used both
+    // to generate a test suite and to record execution times of its test cases.
+    protected ExecutionProfile executionProfile() {
+      return ExecutionProfile.NONE;
+    }
+
     Requirement.Builder defaultValues() {
       return new Requirement.Builder()
           .withStrength(2)
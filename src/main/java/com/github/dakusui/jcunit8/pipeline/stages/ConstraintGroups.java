@@ -0,0 +1,104 @@
+package com.github.dakusui.jcunit8.pipeline.stages;
+
+import com.github.dakusui.jcunit8.factorspace.Constraint;
+
+import java.util.*;
+
+/**
+ * Groups constraints into connected components of a hypergraph whose vertices
+ * are keys and whose hyperedges are constraints. Two constraints belong to the
+ * same group if and only if they are connected through shared keys.
+ * <p>
+ * Keys are merged with a union-find (disjoint-set) structure with path halving
+ * and union by size, so grouping takes nearly linear time in the total number
+ * of involved keys of all constraints.
+ */
+final class ConstraintGroups {
+  private final Map<String, Integer>              keyIds = new HashMap<>();
+  private       int[]                             parents;
+  private       int[]                             sizes;
+  private final List<List<Constraint>>            groups;
+  private final Map<Constraint, List<Constraint>> groupOf;
+
+  ConstraintGroups(List<Constraint> constraints) {
+    this.parents = new int[16];
+    this.sizes = new int[16];
+    for (Constraint each : constraints) {
+      int first = -1;
+      for (String key : each.involvedKeys()) {
+        int id = idOf(key);
+        if (first < 0)
+          first = id;
+        else
+          union(first, id);
+      }
+    }
+    Map<Object, List<Constraint>> byRoot = new LinkedHashMap<>();
+    this.groupOf = new IdentityHashMap<>();
+    for (Constraint each : constraints) {
+      ////
+      // A constraint that involves no key forms a group by itself.
+      Object root = each.involvedKeys().isEmpty() ?
+          new Object() :
+          find(this.keyIds.get(each.involvedKeys().get(0)));
+      List<Constraint> group = byRoot.computeIfAbsent(root, k -> new ArrayList<>());
+      group.add(each);
+      this.groupOf.put(each, group);
+    }
+    this.groups = new ArrayList<>(byRoot.values());
+  }
+
+  /**
+   * Returns groups of constraints. Groups are ordered by their first constraints'
+   * positions in the original list, and so are constraints in each group.
+   */
+  List<List<Constraint>> groups() {
+    return this.groups;
+  }
+
+  /**
+   * Returns a group to which {@code constraint} belongs.
+   *
+   * @param constraint A constraint given to the constructor.
+   */
+  List<Constraint> groupOf(Constraint constraint) {
+    return this.groupOf.get(constraint);
+  }
+
+  private int idOf(String key) {
+    Integer ret = this.keyIds.get(key);
+    if (ret != null)
+      return ret;
+    int id = this.keyIds.size();
+    if (id == this.parents.length) {
+      this.parents = Arrays.copyOf(this.parents, id * 2);
+      this.sizes = Arrays.copyOf(this.sizes, id * 2);
+    }
+    this.parents[id] = id;
+    this.sizes[id] = 1;
+    this.keyIds.put(key, id);
+    return id;
+  }
+
+  private int find(int id) {
+    while (this.parents[id] != id) {
+      this.parents[id] = this.parents[this.parents[id]];
+      id = this.parents[id];
+    }
+    return id;
+  }
+
+  private void union(int a, int b) {
+    int rootA = find(a);
+    int rootB = find(b);
+    if (rootA == rootB)
+      return;
+    if (this.sizes[rootA] < this.sizes[rootB]) {
+      int tmp = rootA;
+      rootA = rootB;
+      rootB = tmp;
+    }
+    this.parents[rootB] = rootA;
+    this.sizes[rootA] += this.sizes[rootB];
+  }
+}
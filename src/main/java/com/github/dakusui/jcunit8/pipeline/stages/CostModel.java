@@ -0,0 +1,298 @@
+package com.github.dakusui.jcunit8.pipeline.stages;
+
+import com.github.dakusui.jcunit8.factorspace.Factor;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static com.github.dakusui.jcunit8.exceptions.TestDefinitionException.checkValue;
+import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Estimates time to generate a covering array for a factor space and time to
+ * join two covering arrays. Used by {@link Partitioner.CostAware} to decide how
+ * factors should be partitioned.
+ */
+public interface CostModel {
+  int strength();
+
+  /**
+   * Returns estimated cost to generate a covering array for {@code factors}.
+   *
+   * @param factors Factors in a factor space.
+   */
+  double generationCost(List<Factor> factors);
+
+  /**
+   * Returns estimated cost to join covering arrays generated for {@code lhs} and
+   * {@code rhs}.
+   *
+   * @param lhs Factors of a left hand side covering array.
+   * @param rhs Factors of a right hand side covering array.
+   */
+  double joinCost(List<Factor> lhs, List<Factor> rhs);
+
+  /**
+   * A cost model derived from the structure of the IPOG algorithm and the joiner.
+   * <p>
+   * The size of a covering array is estimated as {@code v1*...*vt*ln(k)},
+   * where {@code v1...vt} are the {@code t} largest level counts, {@code k} is
+   * the number of factors, and {@code t} is the strength. Generation work is
+   * estimated as the size times the number of {@code t}-way interactions times
+   * {@code k}, and join work as the sum of both sides' sizes times the number of
+   * interactions that span both sides. Each work is multiplied by a coefficient,
+   * which can be given to {@link Standard#Standard(int, double, double)} or
+   * fitted to timing samples from earlier runs by {@link Standard#calibrate(int, List)}.
+   * Since partitions are chosen by comparing generation costs with join costs,
+   * only the ratio between the coefficients affects the result.
+   */
+  class Standard implements CostModel {
+    private final int    strength;
+    private final double generationCoefficient;
+    private final double joinCoefficient;
+
+    /**
+     * A coefficient for generation work used unless one is given. This and
+     * {@link #DEFAULT_JOIN_COEFFICIENT} were obtained by {@link #calibrate(int, List)}
+     * from samples of {@link com.github.dakusui.jcunit8.pipeline.stages.generators.IpoGplus}
+     * for 3 to 14 factors with 2 to 5 levels, and of {@link Joiner.Standard} for
+     * two such covering arrays of 3 to 10 factors with 2 to 4 levels each, all
+     * with strength 2, on a single core of a JDK 17 machine. Fitted values
+     * ranged 72-85 and 1220-1420 respectively over runs, and are rounded here.
+     * Estimations are therefore roughly in nanoseconds for such a machine.
+     */
+    public static final double DEFAULT_GENERATION_COEFFICIENT = 80;
+    /**
+     * A coefficient for join work used unless one is given.
+     *
+     * @see #DEFAULT_GENERATION_COEFFICIENT
+     */
+    public static final double DEFAULT_JOIN_COEFFICIENT       = 1300;
+
+    public Standard(int strength) {
+      this(strength, DEFAULT_GENERATION_COEFFICIENT, DEFAULT_JOIN_COEFFICIENT);
+    }
+
+    public Standard(int strength, double generationCoefficient, double joinCoefficient) {
+      this.strength = checkValue(strength, (Integer value) -> value > 0);
+      this.generationCoefficient = checkValue(generationCoefficient, (Double value) -> value > 0);
+      this.joinCoefficient = checkValue(joinCoefficient, (Double value) -> value > 0);
+    }
+
+    /**
+     * Creates a cost model whose coefficients are fitted to {@code samples} by
+     * the least squares method. If no sample is available for generation or
+     * join, its default coefficient is scaled by the ratio between the other's
+     * fitted and default coefficients.
+     *
+     * @param strength Strength of covering arrays.
+     * @param samples  Timing samples from earlier runs.
+     */
+    public static Standard calibrate(int strength, List<Sample> samples) {
+      Standard base = new Standard(strength);
+      double[] generation = fit(samples.stream()
+          .filter(each -> each.kind() == Sample.Kind.GENERATION)
+          .map(each -> new double[] { base.generationWork(Shape.of(each.lhsLevels(), strength)), each.nanos() }));
+      double[] join = fit(samples.stream()
+          .filter(each -> each.kind() == Sample.Kind.JOIN)
+          .map(each -> new double[] { base.joinWork(Shape.of(each.lhsLevels(), strength), Shape.of(each.rhsLevels(), strength)), each.nanos() }));
+      double generationCoefficient = generation[1] > 0 ? generation[0] / generation[1] : 0;
+      double joinCoefficient = join[1] > 0 ? join[0] / join[1] : 0;
+      return new Standard(
+          strength,
+          generationCoefficient > 0 ? generationCoefficient :
+              joinCoefficient > 0 ? joinCoefficient * DEFAULT_GENERATION_COEFFICIENT / DEFAULT_JOIN_COEFFICIENT : DEFAULT_GENERATION_COEFFICIENT,
+          joinCoefficient > 0 ? joinCoefficient :
+              generationCoefficient > 0 ? generationCoefficient * DEFAULT_JOIN_COEFFICIENT / DEFAULT_GENERATION_COEFFICIENT : DEFAULT_JOIN_COEFFICIENT
+      );
+    }
+
+    /**
+     * Returns sums of {@code work*nanos} and {@code work^2} over samples.
+     */
+    private static double[] fit(Stream<double[]> workAndNanos) {
+      return workAndNanos.reduce(
+          new double[] { 0, 0 },
+          (acc, each) -> new double[] { acc[0] + each[0] * each[1], acc[1] + each[0] * each[0] },
+          (a, b) -> new double[] { a[0] + b[0], a[1] + b[1] }
+      );
+    }
+
+    @Override
+    public int strength() {
+      return this.strength;
+    }
+
+    @Override
+    public double generationCost(List<Factor> factors) {
+      return this.generationCoefficient * generationWork(Shape.of(levelsOf(factors), this.strength));
+    }
+
+    @Override
+    public double joinCost(List<Factor> lhs, List<Factor> rhs) {
+      return this.joinCoefficient * joinWork(Shape.of(levelsOf(lhs), this.strength), Shape.of(levelsOf(rhs), this.strength));
+    }
+
+    private double generationWork(Shape shape) {
+      if (shape.numFactors <= this.strength)
+        return shape.estimatedSize();
+      return shape.estimatedSize() * shape.interactions(combinations(shape.numFactors, this.strength)) * shape.numFactors;
+    }
+
+    private double joinWork(Shape lhs, Shape rhs) {
+      if (lhs.numFactors == 0 || rhs.numFactors == 0)
+        return 0;
+      Shape union = lhs.merge(rhs, this.strength);
+      double crossing = combinations(union.numFactors, this.strength)
+          - combinations(lhs.numFactors, this.strength)
+          - combinations(rhs.numFactors, this.strength);
+      return (lhs.estimatedSize() + rhs.estimatedSize()) * union.interactions(crossing);
+    }
+
+    private static double combinations(int n, int k) {
+      if (k > n)
+        return 0;
+      double ret = 1;
+      for (int i = 0; i < k; i++)
+        ret = ret * (n - i) / (i + 1);
+      return ret;
+    }
+
+    private static List<Integer> levelsOf(List<Factor> factors) {
+      return factors.stream().map(factor -> factor.getLevels().size()).collect(toList());
+    }
+
+    /**
+     * A summary of a factor space that is sufficient to estimate its costs.
+     */
+    private static final class Shape {
+      final int    numFactors;
+      final double sumOfLevels;
+      /**
+       * Largest {@code strength} level counts in descending order, or all of
+       * them if there are fewer factors than the strength.
+       */
+      final int[]  largestLevels;
+
+      private Shape(int numFactors, double sumOfLevels, int[] largestLevels) {
+        this.numFactors = numFactors;
+        this.sumOfLevels = sumOfLevels;
+        this.largestLevels = largestLevels;
+      }
+
+      static Shape of(List<Integer> levels, int strength) {
+        int[] largest = levels.stream()
+            .sorted(Collections.reverseOrder())
+            .limit(strength)
+            .mapToInt(each -> each)
+            .toArray();
+        return new Shape(levels.size(), levels.stream().mapToDouble(each -> each).sum(), largest);
+      }
+
+      Shape merge(Shape another, int strength) {
+        int[] largest = new int[Math.min(strength, this.largestLevels.length + another.largestLevels.length)];
+        int i = 0, j = 0;
+        for (int k = 0; k < largest.length; k++)
+          largest[k] = j >= another.largestLevels.length || (i < this.largestLevels.length && this.largestLevels[i] >= another.largestLevels[j]) ?
+              this.largestLevels[i++] :
+              another.largestLevels[j++];
+        return new Shape(this.numFactors + another.numFactors, this.sumOfLevels + another.sumOfLevels, largest);
+      }
+
+      double estimatedSize() {
+        if (this.numFactors == 0)
+          return 0;
+        double ret = 1;
+        for (int each : this.largestLevels)
+          ret *= each;
+        return this.numFactors > this.largestLevels.length ?
+            ret * Math.max(1, Math.log(this.numFactors)) :
+            ret;
+      }
+
+      double interactions(double numCombinations) {
+        return numCombinations * Math.pow(this.sumOfLevels / this.numFactors, this.largestLevels.length);
+      }
+    }
+  }
+
+  /**
+   * Time actually spent to generate a covering array or to join two of them.
+   */
+  final class Sample {
+    public enum Kind {
+      GENERATION,
+      JOIN
+    }
+
+    private final Kind          kind;
+    private final List<Integer> lhsLevels;
+    private final List<Integer> rhsLevels;
+    private final long          nanos;
+
+    private Sample(Kind kind, List<Integer> lhsLevels, List<Integer> rhsLevels, long nanos) {
+      this.kind = requireNonNull(kind);
+      this.lhsLevels = Collections.unmodifiableList(requireNonNull(lhsLevels));
+      this.rhsLevels = Collections.unmodifiableList(requireNonNull(rhsLevels));
+      this.nanos = nanos;
+    }
+
+    public static Sample generation(List<Factor> factors, long nanos) {
+      return new Sample(Kind.GENERATION, Standard.levelsOf(factors), Collections.emptyList(), nanos);
+    }
+
+    public static Sample join(List<Factor> lhs, List<Factor> rhs, long nanos) {
+      return new Sample(Kind.JOIN, Standard.levelsOf(lhs), Standard.levelsOf(rhs), nanos);
+    }
+
+    /**
+     * Parses a string created by {@link Sample#toString()}.
+     *
+     * @param sample A string that represents a sample.
+     */
+    public static Sample parse(String sample) {
+      String[] fields = sample.split("\t", -1);
+      checkValue(fields.length, (Integer value) -> value == 4);
+      return new Sample(Kind.valueOf(fields[0]), parseLevels(fields[1]), parseLevels(fields[2]), Long.parseLong(fields[3]));
+    }
+
+    public Kind kind() {
+      return this.kind;
+    }
+
+    public List<Integer> lhsLevels() {
+      return this.lhsLevels;
+    }
+
+    public List<Integer> rhsLevels() {
+      return this.rhsLevels;
+    }
+
+    public long nanos() {
+      return this.nanos;
+    }
+
+    /**
+     * Returns a tab separated line of kind, levels of left hand side factors,
+     * levels of right hand side factors, and nanoseconds spent.
+     */
+    @Override
+    public String toString() {
+      return String.format("%s\t%s\t%s\t%d", this.kind, formatLevels(this.lhsLevels), formatLevels(this.rhsLevels), this.nanos);
+    }
+
+    private static String formatLevels(List<Integer> levels) {
+      return levels.stream().map(String::valueOf).collect(joining(","));
+    }
+
+    private static List<Integer> parseLevels(String levels) {
+      if (levels.isEmpty())
+        return Collections.emptyList();
+      return Arrays.stream(levels.split(",")).map(Integer::parseInt).collect(toList());
+    }
+  }
+}
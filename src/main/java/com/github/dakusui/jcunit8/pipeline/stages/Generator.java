@@ -1,8 +1,11 @@
 package com.github.dakusui.jcunit8.pipeline.stages;
 
 import com.github.dakusui.jcunit.core.tuples.Tuple;
+import com.github.dakusui.jcunit8.core.JfrEvents;
 import com.github.dakusui.jcunit8.core.Utils;
 import com.github.dakusui.jcunit8.factorspace.FactorSpace;
+import com.github.dakusui.jcunit8.pipeline.ExecutionProfile;
+import com.github.dakusui.jcunit8.pipeline.Instrumentation;
 import com.github.dakusui.jcunit8.pipeline.Requirement;
 import com.github.dakusui.jcunit8.pipeline.stages.generators.Cartesian;
 import com.github.dakusui.jcunit8.pipeline.stages.generators.IpoGplus;
@@ -10,6 +13,8 @@ import com.github.dakusui.jcunit8.pipeline.stages.generators.IpoGplus;
 import java.util.Collections;
 import java.util.List;
 
+import static java.util.Objects.requireNonNull;
+
 /**
  */
 public interface Generator {
@@ -29,19 +34,37 @@ public interface Generator {
   List<Tuple> generate();
 
   abstract class Base implements Generator {
-    protected final FactorSpace factorSpace;
-    protected final Requirement requirement;
+    protected final FactorSpace     factorSpace;
+    protected final Requirement     requirement;
+    protected final Instrumentation instrumentation;
 
     protected Base(FactorSpace factorSpace, Requirement requirement) {
+      this(factorSpace, requirement, Instrumentation.NONE);
+    }
+
+    protected Base(FactorSpace factorSpace, Requirement requirement, Instrumentation instrumentation) {
       this.factorSpace = factorSpace;
       this.requirement = requirement;
+      this.instrumentation = instrumentation;
     }
 
     public final List<Tuple> generate() {
       this.validate();
       if (this.factorSpace.getFactors().stream().anyMatch(each -> each.getLevels().isEmpty()))
         return Collections.emptyList();
-      return Utils.unique(generateCore());
+      JfrEvents.Span span = JfrEvents.generation(getClass().getSimpleName(), this.factorSpace.getFactorNames(), this.requirement.strength());
+      List<Tuple> ret = null;
+      try {
+        List<Tuple> generated = generateCore();
+        return ret = this.instrumentation.measure(
+            Instrumentation.Stage.DEDUPLICATE,
+            String.join(",", this.factorSpace.getFactorNames()),
+            () -> Utils.unique(generated),
+            deduplicated -> Instrumentation.metrics("rows", generated.size(), "uniqueRows", deduplicated.size())
+        );
+      } finally {
+        span.end(ret != null ? ret.size() : -1);
+      }
     }
 
     protected void validate() {
@@ -53,13 +76,74 @@ public interface Generator {
   interface Factory {
     Generator create(FactorSpace factorSpace, Requirement requirement, List<Tuple> encodedSeeds);
 
+    /**
+     * Creates a generator that reports events to {@code instrumentation}.
+     * By default, {@code instrumentation} is ignored.
+     */
+    default Generator create(FactorSpace factorSpace, Requirement requirement, List<Tuple> encodedSeeds, Instrumentation instrumentation) {
+      return create(factorSpace, requirement, encodedSeeds);
+    }
+
+    /**
+     * Creates a generator that reports events to {@code instrumentation} and
+     * may prefer levels cheaper to execute according to {@code executionProfile}.
+     * By default, {@code executionProfile} is ignored.
+     */
+    default Generator create(FactorSpace factorSpace, Requirement requirement, List<Tuple> encodedSeeds, Instrumentation instrumentation, ExecutionProfile executionProfile) {
+      return create(factorSpace, requirement, encodedSeeds, instrumentation);
+    }
+
+    /**
+     * Uses an execution profile given by {@link com.github.dakusui.jcunit8.pipeline.Config#executionProfile()},
+     * if any, in the same way as {@link CostAware}.
+     */
     class Standard implements Factory {
       @Override
       public Generator create(FactorSpace factorSpace, Requirement requirement, List<Tuple> encodedSeeds) {
+        return create(factorSpace, requirement, encodedSeeds, Instrumentation.NONE);
+      }
+
+      @Override
+      public Generator create(FactorSpace factorSpace, Requirement requirement, List<Tuple> encodedSeeds, Instrumentation instrumentation) {
+        return create(factorSpace, requirement, encodedSeeds, instrumentation, ExecutionProfile.NONE);
+      }
+
+      @Override
+      public Generator create(FactorSpace factorSpace, Requirement requirement, List<Tuple> encodedSeeds, Instrumentation instrumentation, ExecutionProfile executionProfile) {
         if (requirement.strength() < factorSpace.getFactors().size()) {
-          return new IpoGplus(factorSpace, requirement, encodedSeeds);
+          return new IpoGplus(factorSpace, requirement, encodedSeeds, instrumentation, executionProfile);
         }
-        return new Cartesian(factorSpace, requirement);
+        return new Cartesian(factorSpace, requirement, instrumentation);
+      }
+    }
+
+    /**
+     * Creates generators that prefer levels cheaper to execute according to an
+     * execution profile, where coverage doesn't tell which level should be chosen.
+     * The coverage of generated test suites is the same as {@link Standard}'s.
+     * Unlike {@link Standard}, the profile given to the constructor is used
+     * regardless of one given by a config.
+     */
+    class CostAware implements Factory {
+      private final ExecutionProfile executionProfile;
+
+      public CostAware(ExecutionProfile executionProfile) {
+        this.executionProfile = requireNonNull(executionProfile);
+      }
+
+      @Override
+      public Generator create(FactorSpace factorSpace, Requirement requirement, List<Tuple> encodedSeeds) {
+        return create(factorSpace, requirement, encodedSeeds, Instrumentation.NONE);
+      }
+
+      @Override
+      public Generator create(FactorSpace factorSpace, Requirement requirement, List<Tuple> encodedSeeds, Instrumentation instrumentation) {
+        return new Standard().create(factorSpace, requirement, encodedSeeds, instrumentation, this.executionProfile);
+      }
+
+      @Override
+      public Generator create(FactorSpace factorSpace, Requirement requirement, List<Tuple> encodedSeeds, Instrumentation instrumentation, ExecutionProfile executionProfile) {
+        return create(factorSpace, requirement, encodedSeeds, instrumentation);
       }
     }
   }
@@ -1,7 +1,11 @@
 package com.github.dakusui.jcunit8.pipeline.stages;
 
 import com.github.dakusui.jcunit.core.tuples.Tuple;
+import com.github.dakusui.jcunit.core.tuples.TupleUtils;
+import com.github.dakusui.jcunit8.core.JfrEvents;
 import com.github.dakusui.jcunit8.exceptions.FrameworkException;
+import com.github.dakusui.jcunit8.pipeline.Budget;
+import com.github.dakusui.jcunit8.pipeline.Instrumentation;
 import com.github.dakusui.jcunit8.pipeline.Requirement;
 import com.github.dakusui.jcunit8.testsuite.SchemafulTupleSet;
 import com.github.dakusui.jcunit8.testsuite.TupleSet;
@@ -14,7 +18,6 @@ import java.util.stream.Stream;
 import static com.github.dakusui.jcunit.core.tuples.TupleUtils.connectingSubtuplesOf;
 import static com.github.dakusui.jcunit.core.tuples.TupleUtils.project;
 import static com.github.dakusui.jcunit.core.utils.Checks.checkcond;
-import static com.github.dakusui.jcunit8.core.Utils.memoize;
 import static com.github.dakusui.jcunit8.core.Utils.sizeOfIntersection;
 import static java.util.Objects.requireNonNull;
 import static java.util.stream.Collectors.toList;
@@ -26,9 +29,15 @@ public interface Joiner extends BinaryOperator<SchemafulTupleSet> {
       FrameworkException.checkCondition(Collections.disjoint(lhs.getAttributeNames(), rhs.getAttributeNames()));
       if (lhs.isEmpty() || rhs.isEmpty())
         return emptyTupleSet(lhs, rhs);
-      if (lhs.size() > rhs.size())
-        return doJoin(lhs, rhs);
-      return doJoin(rhs, lhs);
+      JfrEvents.Span span = JfrEvents.join(lhs.size(), rhs.size());
+      SchemafulTupleSet ret = null;
+      try {
+        return ret = lhs.size() > rhs.size() ?
+            doJoin(lhs, rhs) :
+            doJoin(rhs, lhs);
+      } finally {
+        span.end(ret != null ? ret.size() : -1);
+      }
     }
 
     private SchemafulTupleSet emptyTupleSet(SchemafulTupleSet lhs, SchemafulTupleSet rhs) {
@@ -42,26 +51,34 @@ public interface Joiner extends BinaryOperator<SchemafulTupleSet> {
   }
 
   class Standard extends Base {
-    private final Requirement requirement;
+    private final Requirement     requirement;
+    private final Instrumentation instrumentation;
 
     public Standard(Requirement requirement) {
+      this(requirement, Instrumentation.NONE);
+    }
+
+    public Standard(Requirement requirement, Instrumentation instrumentation) {
       this.requirement = requireNonNull(requirement);
+      this.instrumentation = requireNonNull(instrumentation);
     }
 
     @Override
     protected SchemafulTupleSet doJoin(SchemafulTupleSet lhs, SchemafulTupleSet rhs) {
+      Instrumentation.CacheCounter cacheCounter = new Instrumentation.CacheCounter();
+      List<Requirement.StrengthGroup> groups = strengthGroupsAcross(lhs, rhs);
       class Session {
-        final private Function<Tuple, List<Tuple>>                                    coveredByLhs          = memoize(
+        final private Function<Tuple, List<Tuple>>                                    coveredByLhs          = cacheCounter.memoize(
             tuple -> findCoveringTuplesIn(project(tuple, lhs.getAttributeNames()), lhs)
         );
-        final private Function<Tuple, List<Tuple>>                                    coveredByRhs          = memoize(
+        final private Function<Tuple, List<Tuple>>                                    coveredByRhs          = cacheCounter.memoize(
             tuple -> findCoveringTuplesIn(project(tuple, rhs.getAttributeNames()), rhs)
         );
         final private Function<Integer, Function<Tuple, Function<Tuple, Set<Tuple>>>> connectingSubtuplesOf =
-            memoize(
-                strength -> memoize(
-                    (Function<Tuple, Function<Tuple, Set<Tuple>>>) lhsTuple -> memoize(
-                        rhsTuple -> connectingSubtuplesOf(lhsTuple, rhsTuple, strength)
+            cacheCounter.memoize(
+                strength -> cacheCounter.memoize(
+                    (Function<Tuple, Function<Tuple, Set<Tuple>>>) lhsTuple -> cacheCounter.memoize(
+                        rhsTuple -> connectingSubtuples(lhsTuple, rhsTuple, strength, groups)
                     )
                 )
             );
@@ -111,7 +128,7 @@ public interface Joiner extends BinaryOperator<SchemafulTupleSet> {
 
       Session session = new Session();
 
-      TupleSet remainingTuplesToBeCovered = computeTuplesToBeCovered(lhs, rhs, this.requirement.strength());
+      TupleSet remainingTuplesToBeCovered = computeTuplesToBeCovered(lhs, rhs, this.requirement.strength(), groups);
       List<Tuple> work = new LinkedList<>();
       ////
       // If there are tuples in lhs not used in work, they should be added to the
@@ -120,20 +137,29 @@ public interface Joiner extends BinaryOperator<SchemafulTupleSet> {
       //
       // Modified HG (horizontal growth) procedure
       checkcond(lhs.size() >= rhs.size());
+      Budget budget = this.requirement.budget();
+      int[] pairing = pairing(lhs, rhs);
       for (int i = 0; i < lhs.size(); i++) {
         Tuple lhsTuple = lhs.get(i);
-        Tuple rhsTuple = i < rhs.size() ?
-            rhs.get(i) :
+        ////
+        // Even if the budget is exhausted, every tuple in lhs needs to be used
+        // but searching for the best one in rhs is skipped.
+        Tuple rhsTuple = i < rhs.size() || budget.isExhausted() ?
+            rhs.get(pairing[i % rhs.size()]) :
             session.findBestRhsFor(lhsTuple, rhs, work, remainingTuplesToBeCovered).orElse(
-                rhs.get(i % rhs.size())
+                rhs.get(pairing[i % rhs.size()])
             );
         Tuple tuple = connect(lhsTuple, rhsTuple);
         work.add(tuple);
-        remainingTuplesToBeCovered.removeAll(connectingSubtuplesOf(lhsTuple, rhsTuple, this.requirement.strength()));
+        remainingTuplesToBeCovered.removeAll(connectingSubtuples(lhsTuple, rhsTuple, this.requirement.strength(), groups));
       }
       ////
       // Modified VG (vertical growth) procedure
       while (!remainingTuplesToBeCovered.isEmpty()) {
+        if (budget.isExhausted() || !budget.canAddRow(work.size())) {
+          budget.interrupted("Joiner", String.join(",", lhs.getAttributeNames()) + "|" + String.join(",", rhs.getAttributeNames()), remainingTuplesToBeCovered.size());
+          break;
+        }
         Tuple bestTuple = session.findBestCombinationFor(
             remainingTuplesToBeCovered.stream().findFirst().orElseThrow(
                 IllegalStateException::new
@@ -145,12 +171,14 @@ public interface Joiner extends BinaryOperator<SchemafulTupleSet> {
         );
 
         work.add(bestTuple);
-        remainingTuplesToBeCovered.removeAll(connectingSubtuplesOf(
+        remainingTuplesToBeCovered.removeAll(connectingSubtuples(
             project(bestTuple, lhs.getAttributeNames()),
             project(bestTuple, rhs.getAttributeNames()),
-            requirement.strength()
+            requirement.strength(),
+            groups
         ));
       }
+      cacheCounter.reportTo(this.instrumentation, "Joiner");
       return new SchemafulTupleSet.Builder(
           Stream.concat(
               lhs.getAttributeNames().stream(),
@@ -160,6 +188,32 @@ public interface Joiner extends BinaryOperator<SchemafulTupleSet> {
           .build();
     }
 
+    /**
+     * Returns indices of tuples in rhs to be connected with tuples in lhs in
+     * order, which are shuffled by a seed derived for this join from the one
+     * given by the requirement, if any.
+     */
+    private int[] pairing(SchemafulTupleSet lhs, SchemafulTupleSet rhs) {
+      int size = rhs.size();
+      int[] ret = new int[size];
+      for (int i = 0; i < size; i++)
+        ret[i] = i;
+      OptionalLong seed = this.requirement.randomSeedFor(
+          "join",
+          Stream.concat(lhs.getAttributeNames().stream(), rhs.getAttributeNames().stream()).collect(toList())
+      );
+      if (seed.isPresent()) {
+        SplittableRandom random = new SplittableRandom(seed.getAsLong());
+        for (int i = size - 1; i > 0; i--) {
+          int j = random.nextInt(i + 1);
+          int tmp = ret[i];
+          ret[i] = ret[j];
+          ret[j] = tmp;
+        }
+      }
+      return ret;
+    }
+
     private List<Tuple> findCoveringTuplesIn(Tuple aTuple, SchemafulTupleSet tuples) {
       Tuple inConcern = project(aTuple, tuples.getAttributeNames());
       return tuples.stream(
@@ -174,16 +228,65 @@ public interface Joiner extends BinaryOperator<SchemafulTupleSet> {
       return new Tuple.Builder().putAll(tuple1).putAll(tuple2).build();
     }
 
-    private static TupleSet computeTuplesToBeCovered(SchemafulTupleSet lhs, SchemafulTupleSet rhs, int strength) {
+    private static TupleSet computeTuplesToBeCovered(SchemafulTupleSet lhs, SchemafulTupleSet rhs, int strength, List<Requirement.StrengthGroup> groups) {
       TupleSet.Builder builder = new TupleSet.Builder();
       for (int i = 1; i < strength; i++) {
         TupleSet lhsTupleSet = lhs.subtuplesOf(strength - i);
         TupleSet rhsTupleSet = rhs.subtuplesOf(i);
         builder.addAll(lhsTupleSet.cartesianProduct(rhsTupleSet));
       }
+      for (Requirement.StrengthGroup each : groups) {
+        List<String> lhsFactorNames = each.restrictTo(lhs.getAttributeNames()).factorNames();
+        List<String> rhsFactorNames = each.restrictTo(rhs.getAttributeNames()).factorNames();
+        for (int i = 1; i < each.strength(); i++) {
+          if (each.strength() - i > lhsFactorNames.size() || i > rhsFactorNames.size())
+            continue;
+          TupleSet lhsTupleSet = subtuplesOf(lhs, lhsFactorNames, each.strength() - i);
+          TupleSet rhsTupleSet = subtuplesOf(rhs, rhsFactorNames, i);
+          builder.addAll(lhsTupleSet.cartesianProduct(rhsTupleSet));
+        }
+      }
       return builder.build();
     }
 
+    /**
+     * Returns groups of factors whose interactions across {@code lhs} and
+     * {@code rhs} need to be covered with strengths higher than the one of the
+     * requirement.
+     */
+    private List<Requirement.StrengthGroup> strengthGroupsAcross(SchemafulTupleSet lhs, SchemafulTupleSet rhs) {
+      List<String> attributeNames = new ArrayList<String>(lhs.getAttributeNames()) {{
+        addAll(rhs.getAttributeNames());
+      }};
+      return this.requirement.strengthGroups().stream()
+          .map(each -> each.restrictTo(attributeNames))
+          .filter(each -> each.strength() > this.requirement.strength())
+          .filter(each -> !Collections.disjoint(each.factorNames(), lhs.getAttributeNames()))
+          .filter(each -> !Collections.disjoint(each.factorNames(), rhs.getAttributeNames()))
+          .collect(toList());
+    }
+
+    /**
+     * Returns t-way tuples that connect {@code lhsTuple} and {@code rhsTuple},
+     * and ones of each group's strength among factors in the group.
+     */
+    private static Set<Tuple> connectingSubtuples(Tuple lhsTuple, Tuple rhsTuple, int strength, List<Requirement.StrengthGroup> groups) {
+      Set<Tuple> ret = connectingSubtuplesOf(lhsTuple, rhsTuple, strength);
+      for (Requirement.StrengthGroup each : groups)
+        ret.addAll(connectingSubtuplesOf(
+            project(lhsTuple, each.factorNames()),
+            project(rhsTuple, each.factorNames()),
+            each.strength()
+        ));
+      return ret;
+    }
+
+    private static TupleSet subtuplesOf(SchemafulTupleSet tuples, List<String> factorNames, int strength) {
+      TupleSet.Builder builder = new TupleSet.Builder();
+      for (Tuple each : tuples)
+        builder.addAll(TupleUtils.subtuplesOf(project(each, factorNames), strength));
+      return builder.build();
+    }
   }
 }
 
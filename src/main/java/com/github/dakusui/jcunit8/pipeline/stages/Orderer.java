@@ -0,0 +1,177 @@
+package com.github.dakusui.jcunit8.pipeline.stages;
+
+import com.github.dakusui.jcunit8.testsuite.TestCase;
+
+import java.util.*;
+import java.util.function.UnaryOperator;
+
+import static com.github.dakusui.jcunit8.exceptions.TestDefinitionException.checkValue;
+import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Decides the order in which test cases in a test suite are run.
+ * <p>
+ * If a test class shares fixtures among test cases, runners group test cases
+ * that share them after this is applied, keeping the order given by this
+ * within and among the groups. See {@link com.github.dakusui.jcunit8.runners.junit4.SharedFixtures#order(List, com.github.dakusui.jcunit8.testsuite.TestScenario)}.
+ */
+public interface Orderer extends UnaryOperator<List<TestCase>> {
+  /**
+   * An orderer that keeps the order in which test cases are generated.
+   */
+  Orderer NONE = testCases -> testCases;
+
+  /**
+   * Orders test cases so that the total cost to switch values of parameters
+   * between consecutive test cases is small, which is useful when some
+   * parameters, e.g., a JDK version or a database engine, are expensive to
+   * switch.
+   * <p>
+   * The cost between two test cases is the sum of the switching costs of the
+   * parameters whose values differ, i.e., a weighted Hamming distance. Test cases
+   * are first chained from the first one by always choosing the nearest one not
+   * yet chosen, and then the chain is improved by 2-opt moves, each of which
+   * reverses a segment of it, until no move improves it or the number of passes
+   * reaches a limit. The first test case stays first.
+   */
+  class CostAware implements Orderer {
+    private final Map<String, Double> switchingCosts;
+    private final int                 maxPasses;
+
+    /**
+     * Creates an orderer with switching costs of parameters. A parameter not in
+     * {@code switchingCosts} is considered free to switch.
+     *
+     * @param switchingCosts Costs to switch values of parameters.
+     */
+    public CostAware(Map<String, Double> switchingCosts) {
+      this(switchingCosts, 16);
+    }
+
+    public CostAware(Map<String, Double> switchingCosts, int maxPasses) {
+      requireNonNull(switchingCosts).values().forEach(each -> checkValue(each, v -> v >= 0));
+      this.switchingCosts = new LinkedHashMap<>(switchingCosts);
+      this.maxPasses = checkValue(maxPasses, v -> v >= 0);
+    }
+
+    @Override
+    public List<TestCase> apply(List<TestCase> testCases) {
+      if (testCases.size() < 3)
+        return testCases;
+      Rows rows = new Rows(testCases, this.switchingCosts);
+      int[] path = nearestNeighbours(rows);
+      improve(rows, path, this.maxPasses);
+      return Arrays.stream(path).mapToObj(testCases::get).collect(toList());
+    }
+
+    /**
+     * Returns the total cost to run {@code testCases} in the given order.
+     *
+     * @param testCases Test cases.
+     */
+    public double costOf(List<TestCase> testCases) {
+      Rows rows = new Rows(testCases, this.switchingCosts);
+      double ret = 0;
+      for (int i = 1; i < testCases.size(); i++)
+        ret += rows.distance(i - 1, i);
+      return ret;
+    }
+
+    private static int[] nearestNeighbours(Rows rows) {
+      int n = rows.size();
+      int[] ret = new int[n];
+      boolean[] chosen = new boolean[n];
+      chosen[0] = true;
+      for (int i = 1; i < n; i++) {
+        int last = ret[i - 1];
+        int best = -1;
+        double bestDistance = Double.MAX_VALUE;
+        for (int j = 0; j < n; j++) {
+          if (chosen[j])
+            continue;
+          double distance = rows.distance(last, j);
+          if (distance < bestDistance) {
+            best = j;
+            bestDistance = distance;
+            if (distance == 0)
+              break;
+          }
+        }
+        ret[i] = best;
+        chosen[best] = true;
+      }
+      return ret;
+    }
+
+    /**
+     * Applies 2-opt moves to {@code path}, which is an open path starting from
+     * a fixed element.
+     */
+    private static void improve(Rows rows, int[] path, int maxPasses) {
+      int n = path.length;
+      for (int pass = 0; pass < maxPasses; pass++) {
+        boolean improved = false;
+        for (int i = 0; i < n - 2; i++) {
+          for (int j = i + 2; j < n; j++) {
+            ////
+            // Reversing path[i+1..j] replaces edges (i, i+1) and (j, j+1) with
+            // (i, j) and (i+1, j+1). The latter edges don't exist at the end.
+            double before = rows.distance(path[i], path[i + 1]) + (j + 1 < n ? rows.distance(path[j], path[j + 1]) : 0);
+            double after = rows.distance(path[i], path[j]) + (j + 1 < n ? rows.distance(path[i + 1], path[j + 1]) : 0);
+            if (after < before - 1e-9) {
+              reverse(path, i + 1, j);
+              improved = true;
+            }
+          }
+        }
+        if (!improved)
+          break;
+      }
+    }
+
+    private static void reverse(int[] path, int from, int to) {
+      for (int i = from, j = to; i < j; i++, j--) {
+        int tmp = path[i];
+        path[i] = path[j];
+        path[j] = tmp;
+      }
+    }
+
+    /**
+     * Test inputs encoded into value indices, only for parameters whose switching
+     * costs are positive.
+     */
+    private static class Rows {
+      private final int[][]  rows;
+      private final double[] costs;
+
+      Rows(List<TestCase> testCases, Map<String, Double> switchingCosts) {
+        List<String> parameters = switchingCosts.keySet().stream()
+            .filter(each -> switchingCosts.get(each) > 0)
+            .collect(toList());
+        this.costs = parameters.stream().mapToDouble(switchingCosts::get).toArray();
+        this.rows = new int[testCases.size()][parameters.size()];
+        for (int j = 0; j < parameters.size(); j++) {
+          Map<Object, Integer> values = new HashMap<>();
+          for (int i = 0; i < testCases.size(); i++)
+            this.rows[i][j] = values.computeIfAbsent(testCases.get(i).getTestInput().get(parameters.get(j)), k -> values.size());
+        }
+      }
+
+      int size() {
+        return this.rows.length;
+      }
+
+      double distance(int i, int j) {
+        int[] a = this.rows[i];
+        int[] b = this.rows[j];
+        double ret = 0;
+        for (int k = 0; k < a.length; k++)
+          if (a[k] != b[k])
+            ret += this.costs[k];
+        return ret;
+      }
+    }
+  }
+}
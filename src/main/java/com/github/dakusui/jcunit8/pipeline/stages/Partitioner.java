@@ -8,6 +8,10 @@ import com.github.dakusui.jcunit8.factorspace.FactorSpace;
 import java.util.*;
 import java.util.function.Function;
 
+import static com.github.dakusui.jcunit8.exceptions.TestDefinitionException.checkValue;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static java.util.Objects.requireNonNull;
 import static java.util.stream.Collectors.toList;
 
 public interface Partitioner extends Function<FactorSpace, List<FactorSpace>> {
@@ -75,17 +79,218 @@ public interface Partitioner extends Function<FactorSpace, List<FactorSpace>> {
 
   }
 
+  /**
+   * A partitioner that groups constraints by connectivity through shared keys
+   * with a union-find structure ({@link ConstraintGroups}), which takes nearly
+   * linear time in the total number of involved keys, and returns a factor space
+   * for each group just like {@link Standard} does.
+   * <p>
+   * Factors not involved in any constraint are placed in trailing factor spaces.
+   * If {@code maxUnconstrainedFactorsPerPartition} is given, they are split into
+   * the least number of factor spaces each of which has that many factors at most.
+   * Factors are distributed so that the sizes of the Cartesian products of the
+   * factor spaces are as even as possible, which lets them be generated
+   * independently and then joined.
+   */
+  class UnionFind implements Partitioner {
+    private final int maxUnconstrainedFactorsPerPartition;
+
+    public UnionFind() {
+      this(Integer.MAX_VALUE);
+    }
+
+    public UnionFind(int maxUnconstrainedFactorsPerPartition) {
+      this.maxUnconstrainedFactorsPerPartition = checkValue(maxUnconstrainedFactorsPerPartition, (Integer value) -> value > 0);
+    }
+
+    @Override
+    public List<FactorSpace> apply(FactorSpace factorSpace) {
+      List<FactorSpace> ret = constrainedPartitions(factorSpace);
+      ret.addAll(splitUnconstrainedFactors(unconstrainedFactors(factorSpace, ret), this.maxUnconstrainedFactorsPerPartition));
+      return ret;
+    }
+
+    private static List<FactorSpace> constrainedPartitions(FactorSpace factorSpace) {
+      List<FactorSpace> ret = new LinkedList<>();
+      for (List<Constraint> eachConstraintGroup : new ConstraintGroups(factorSpace.getConstraints()).groups()) {
+        Set<String> involvedKeys = new HashSet<>();
+        eachConstraintGroup.forEach(constraint -> involvedKeys.addAll(constraint.involvedKeys()));
+        List<Factor> involvedFactors = factorSpace.getFactors().stream()
+            .filter(factor -> involvedKeys.contains(factor.getName()))
+            .collect(toList());
+        if (involvedFactors.isEmpty())
+          continue;
+        ret.add(FactorSpace.create(involvedFactors, eachConstraintGroup));
+      }
+      return ret;
+    }
+
+    private static List<Factor> unconstrainedFactors(FactorSpace factorSpace, List<FactorSpace> constrainedPartitions) {
+      Set<String> constrainedFactorNames = new HashSet<>();
+      constrainedPartitions.forEach(each -> constrainedFactorNames.addAll(each.getFactorNames()));
+      return factorSpace.getFactors().stream()
+          .filter(factor -> !constrainedFactorNames.contains(factor.getName()))
+          .collect(toList());
+    }
+
+    private static List<FactorSpace> splitUnconstrainedFactors(List<Factor> factors, int maxFactorsPerPartition) {
+      int numPartitions = Math.max(1, (factors.size() + maxFactorsPerPartition - 1) / maxFactorsPerPartition);
+      if (numPartitions == 1)
+        return singletonList(FactorSpace.create(factors, emptyList()));
+      ////
+      // Assigns factors with more levels first to the partition whose Cartesian
+      // product is the smallest so far (LPT scheduling on log of level counts).
+      double[] weights = new double[numPartitions];
+      List<Set<Factor>> partitions = new ArrayList<>(numPartitions);
+      for (int i = 0; i < numPartitions; i++)
+        partitions.add(Collections.newSetFromMap(new IdentityHashMap<>()));
+      factors.stream()
+          .sorted(Comparator.comparingInt((Factor factor) -> factor.getLevels().size()).reversed())
+          .forEach(factor -> {
+            int chosen = -1;
+            for (int i = 0; i < numPartitions; i++) {
+              if (partitions.get(i).size() >= maxFactorsPerPartition)
+                continue;
+              if (chosen < 0 || weights[i] < weights[chosen])
+                chosen = i;
+            }
+            partitions.get(chosen).add(factor);
+            weights[chosen] += Math.log(Math.max(1, factor.getLevels().size()));
+          });
+      return partitions.stream()
+          .map(partition -> FactorSpace.create(
+              factors.stream().filter(partition::contains).collect(toList()),
+              emptyList()
+          ))
+          .collect(toList());
+    }
+  }
+
+  /**
+   * A partitioner that chooses partition boundaries so that the total cost to
+   * generate covering arrays for partitions and to join them, estimated by a
+   * {@link CostModel}, becomes the least.
+   * <p>
+   * Constraints are grouped the same way as {@link UnionFind}. Factors not
+   * involved in any constraint are tried to be split into 1 to {@code k/t}
+   * partitions, where {@code k} is the number of such factors and {@code t} is
+   * the strength. Then, for each candidate, adjacent partitions are merged as
+   * long as it reduces the estimated cost, because generating a covering array
+   * for a small factor space is often cheaper than joining it. The candidate
+   * whose estimated cost is the least is returned.
+   * <p>
+   * To make estimations reflect the actual environment, give a cost model
+   * calibrated with timing samples from earlier runs
+   * ({@link CostModel.Standard#calibrate(int, List)}).
+   */
+  class CostAware implements Partitioner {
+    private final CostModel costModel;
+
+    public CostAware(int strength) {
+      this(new CostModel.Standard(strength));
+    }
+
+    public CostAware(CostModel costModel) {
+      this.costModel = requireNonNull(costModel);
+    }
+
+    @Override
+    public List<FactorSpace> apply(FactorSpace factorSpace) {
+      List<FactorSpace> constrainedPartitions = UnionFind.constrainedPartitions(factorSpace);
+      List<Factor> unconstrainedFactors = UnionFind.unconstrainedFactors(factorSpace, constrainedPartitions);
+      List<FactorSpace> ret = null;
+      double leastCost = Double.POSITIVE_INFINITY;
+      int maxPartitions = Math.max(1, unconstrainedFactors.size() / this.costModel.strength());
+      int lastMaxFactorsPerPartition = -1;
+      for (int numPartitions = 1; numPartitions <= maxPartitions; numPartitions++) {
+        int maxFactorsPerPartition = Math.max(1, (unconstrainedFactors.size() + numPartitions - 1) / numPartitions);
+        if (maxFactorsPerPartition == lastMaxFactorsPerPartition)
+          continue;
+        lastMaxFactorsPerPartition = maxFactorsPerPartition;
+        List<FactorSpace> candidate = new ArrayList<>(constrainedPartitions);
+        candidate.addAll(UnionFind.splitUnconstrainedFactors(unconstrainedFactors, maxFactorsPerPartition));
+        candidate.removeIf(each -> each.getFactors().isEmpty());
+        candidate = mergeAdjacentPartitions(candidate);
+        double cost = costOf(candidate);
+        if (ret == null || cost < leastCost) {
+          ret = candidate;
+          leastCost = cost;
+        }
+      }
+      return ret;
+    }
+
+    /**
+     * Merges adjacent partitions while doing so reduces the estimated cost.
+     * Since partitions are joined from the first one to the last, merging
+     * {@code i}-th and {@code (i+1)}-th partitions only affects costs to generate
+     * them and to join them with preceding ones.
+     */
+    private List<FactorSpace> mergeAdjacentPartitions(List<FactorSpace> partitions) {
+      List<FactorSpace> ret = new ArrayList<>(partitions);
+      List<Factor> preceding = new ArrayList<>();
+      int i = 0;
+      while (i + 1 < ret.size()) {
+        List<Factor> current = ret.get(i).getFactors();
+        List<Factor> next = ret.get(i + 1).getFactors();
+        FactorSpace merged = merge(ret.get(i), ret.get(i + 1));
+        double costBeforeMerge = this.costModel.generationCost(current)
+            + this.costModel.generationCost(next)
+            + this.costModel.joinCost(preceding, current)
+            + this.costModel.joinCost(concat(preceding, current), next);
+        double costAfterMerge = this.costModel.generationCost(merged.getFactors())
+            + this.costModel.joinCost(preceding, merged.getFactors());
+        if (costAfterMerge < costBeforeMerge) {
+          ret.set(i, merged);
+          ret.remove(i + 1);
+        } else {
+          preceding.addAll(current);
+          i++;
+        }
+      }
+      return ret;
+    }
+
+    private double costOf(List<FactorSpace> partitions) {
+      double ret = 0;
+      List<Factor> preceding = new ArrayList<>();
+      for (FactorSpace each : partitions) {
+        ret += this.costModel.generationCost(each.getFactors());
+        ret += this.costModel.joinCost(preceding, each.getFactors());
+        preceding.addAll(each.getFactors());
+      }
+      return ret;
+    }
+
+    private static FactorSpace merge(FactorSpace a, FactorSpace b) {
+      return FactorSpace.create(
+          concat(a.getFactors(), b.getFactors()),
+          concat(a.getConstraints(), b.getConstraints())
+      );
+    }
+
+    private static <T> List<T> concat(List<T> a, List<T> b) {
+      List<T> ret = new ArrayList<>(a.size() + b.size());
+      ret.addAll(a);
+      ret.addAll(b);
+      return ret;
+    }
+  }
+
   class ConnectedConstraintFinder {
     private final List<Constraint> allConstraints;
+    private final ConstraintGroups groups;
 
     public ConnectedConstraintFinder(List<Constraint> constraints) {
       this.allConstraints = constraints;
+      this.groups = new ConstraintGroups(constraints);
     }
 
     private List<Constraint> find(Constraint constraint) {
-      return Standard.findConnectedConstraints(constraint, new ArrayList<Constraint>(this.allConstraints) {{
-        remove(constraint);
-      }});
+      List<Constraint> group = this.groups.groupOf(constraint);
+      if (group != null)
+        return group.stream().filter(each -> each != constraint).collect(toList());
+      return Standard.findConnectedConstraints(constraint, new ArrayList<>(this.allConstraints));
     }
 
     public List<Constraint> findAll(List<Constraint> constraints) {
@@ -3,6 +3,7 @@ package com.github.dakusui.jcunit8.pipeline.stages.generators;
 import com.github.dakusui.jcunit.core.tuples.Tuple;
 import com.github.dakusui.jcunit8.factorspace.Constraint;
 import com.github.dakusui.jcunit8.factorspace.FactorSpace;
+import com.github.dakusui.jcunit8.pipeline.Instrumentation;
 import com.github.dakusui.jcunit8.pipeline.Requirement;
 import com.github.dakusui.jcunit8.pipeline.stages.Generator;
 
@@ -11,7 +12,11 @@ import java.util.stream.Collectors;
 
 public class Cartesian extends Generator.Base {
   public Cartesian(FactorSpace factorSpace, Requirement requirement) {
-    super(factorSpace, requirement);
+    this(factorSpace, requirement, Instrumentation.NONE);
+  }
+
+  public Cartesian(FactorSpace factorSpace, Requirement requirement, Instrumentation instrumentation) {
+    super(factorSpace, requirement, instrumentation);
   }
 
   @Override
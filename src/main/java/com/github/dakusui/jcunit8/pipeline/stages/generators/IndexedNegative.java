@@ -0,0 +1,215 @@
+package com.github.dakusui.jcunit8.pipeline.stages.generators;
+
+import com.github.dakusui.combinatoradix.Cartesianator;
+import com.github.dakusui.jcunit.core.tuples.Tuple;
+import com.github.dakusui.jcunit.core.tuples.TupleUtils;
+import com.github.dakusui.jcunit8.factorspace.Constraint;
+import com.github.dakusui.jcunit8.factorspace.Factor;
+import com.github.dakusui.jcunit8.factorspace.FactorSpace;
+import com.github.dakusui.jcunit8.pipeline.Requirement;
+import com.github.dakusui.jcunit8.pipeline.stages.Generator;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+import static java.util.Collections.disjoint;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
+
+/**
+ * A negative test generator that produces the same test cases as {@link Negative}
+ * with less constraint evaluations.
+ * <p>
+ * Assuming that a constraint only looks at values of its involved keys,
+ * <ul>
+ * <li>assignments of involved keys that violate each constraint are computed
+ * only once, instead of for every regular test case,</li>
+ * <li>every constraint is evaluated only once for each regular test case and seed,
+ * and</li>
+ * <li>when values of a constraint's involved keys are modified, only constraints
+ * that share any key with it are evaluated again to find collateral violations.</li>
+ * </ul>
+ * If {@link Requirement#evaluateInParallel()} is {@code true}, negative test
+ * cases for constraints are searched for in parallel, while the order of the
+ * returned test cases is the same as {@link Negative}'s. Constraints must be
+ * safe to evaluate concurrently in that case.
+ * <p>
+ * When the budget of the requirement is exhausted, a constraint for which no
+ * negative test case is found yet is reported as uncovered.
+ */
+public class IndexedNegative extends Generator.Base {
+  private final List<Tuple> regularTestCases;
+  private final List<Tuple> seeds;
+
+  public IndexedNegative(List<Tuple> regularTestCases, List<Tuple> seeds, FactorSpace factorSpace, Requirement requirement) {
+    super(factorSpace, requirement);
+    this.regularTestCases = regularTestCases;
+    this.seeds = seeds;
+  }
+
+  @Override
+  public List<Tuple> generateCore() {
+    List<Constraint> constraints = this.factorSpace.getConstraints();
+    Map<String, List<Object>> parameters = composeFactorMap(this.factorSpace);
+    boolean parallel = this.requirement.evaluateInParallel();
+    boolean[] coveredBySeeds = constraintsCoveredBySeeds(constraints, this.seeds, parallel);
+    boolean[][] violationsByRegularTestCases = violations(constraints, this.regularTestCases, parallel);
+    int[][] neighbours = neighbours(constraints);
+    return parallelIf(IntStream.range(0, constraints.size()), parallel)
+        ////
+        //   If there exists any seed which violates one and only one constraint,
+        // a (negative) test case to violate the constraint doesn't need to be generated.
+        //   Such a constraint is filtered out here.
+        .filter(i -> !coveredBySeeds[i])
+        .mapToObj(i -> createNegativeTestForConstraint(
+            i,
+            constraints,
+            neighbours[i],
+            violatingAssignments(constraints.get(i), parameters),
+            violationsByRegularTestCases
+        ))
+        .filter(Optional::isPresent)
+        .map(Optional::get)
+        .collect(toList());
+  }
+
+  private Optional<Tuple> createNegativeTestForConstraint(
+      int target,
+      List<Constraint> constraints,
+      int[] neighbours,
+      List<Tuple> violatingAssignments,
+      boolean[][] violationsByRegularTestCases) {
+    long leastCollateralConstraints = constraints.size() - 1;
+    Optional<Tuple> ret = Optional.empty();
+    for (int i = 0; i < this.regularTestCases.size(); i++) {
+      if (this.requirement.budget().isExhausted()) {
+        this.requirement.budget().interrupted(getClass().getSimpleName(), constraints.get(target).getName(), ret.isPresent() ? 0 : 1);
+        return ret;
+      }
+      Tuple base = this.regularTestCases.get(i);
+      long violationsOutsideNeighbourhood = countViolationsOutsideNeighbourhood(target, neighbours, violationsByRegularTestCases[i]);
+      if (violationsOutsideNeighbourhood != 0 && violationsOutsideNeighbourhood >= leastCollateralConstraints)
+        ////
+        // No test case derived from this base can be better than the one already found.
+        continue;
+      for (Tuple assignment : violatingAssignments) {
+        Tuple modified = modifyTupleWithValues(base, assignment);
+        long numCollaterals = violationsOutsideNeighbourhood;
+        for (int j = 0; j < neighbours.length && numCollaterals < leastCollateralConstraints; j++)
+          if (!constraints.get(neighbours[j]).test(modified))
+            numCollaterals++;
+        if (numCollaterals != 0) {
+          if (numCollaterals < leastCollateralConstraints) {
+            leastCollateralConstraints = numCollaterals;
+            ret = Optional.of(modified);
+          }
+          continue;
+        }
+        return Optional.of(modified);
+      }
+    }
+    return ret;
+  }
+
+  private static long countViolationsOutsideNeighbourhood(int target, int[] neighbours, boolean[] violations) {
+    long ret = 0;
+    for (boolean each : violations)
+      if (each)
+        ret++;
+    if (violations[target])
+      ret--;
+    for (int each : neighbours)
+      if (violations[each])
+        ret--;
+    return ret;
+  }
+
+  /**
+   * Returns {@code ret}, where {@code ret[i]} is {@code true} if and only if
+   * exactly one seed violates {@code i}-th constraint and nothing else.
+   */
+  private static boolean[] constraintsCoveredBySeeds(List<Constraint> constraints, List<Tuple> seeds, boolean parallel) {
+    int[] numSeedsViolatingOnlyOne = new int[constraints.size()];
+    for (boolean[] each : violations(constraints, seeds, parallel)) {
+      int violated = -1;
+      for (int i = 0; i < each.length; i++) {
+        if (!each[i])
+          continue;
+        if (violated >= 0) {
+          violated = -1;
+          break;
+        }
+        violated = i;
+      }
+      if (violated >= 0)
+        numSeedsViolatingOnlyOne[violated]++;
+    }
+    boolean[] ret = new boolean[constraints.size()];
+    for (int i = 0; i < ret.length; i++)
+      ret[i] = numSeedsViolatingOnlyOne[i] == 1;
+    return ret;
+  }
+
+  /**
+   * Returns {@code ret}, where {@code ret[i][j]} is {@code true} if and only if
+   * {@code i}-th tuple violates {@code j}-th constraint.
+   */
+  private static boolean[][] violations(List<Constraint> constraints, List<Tuple> tuples, boolean parallel) {
+    return (parallel ? tuples.parallelStream() : tuples.stream())
+        .map(tuple -> {
+          boolean[] ret = new boolean[constraints.size()];
+          for (int i = 0; i < ret.length; i++)
+            ret[i] = !constraints.get(i).test(tuple);
+          return ret;
+        })
+        .toArray(boolean[][]::new);
+  }
+
+  private static IntStream parallelIf(IntStream stream, boolean parallel) {
+    return parallel ?
+        stream.parallel() :
+        stream;
+  }
+
+  /**
+   * Builds a constraint-interaction graph, where constraints are connected when
+   * they share any involved key, as an adjacency list.
+   */
+  private static int[][] neighbours(List<Constraint> constraints) {
+    int[][] ret = new int[constraints.size()][];
+    for (int i = 0; i < ret.length; i++) {
+      Constraint target = constraints.get(i);
+      int finalI = i;
+      ret[i] = IntStream.range(0, constraints.size())
+          .filter(j -> j != finalI)
+          .filter(j -> !disjoint(target.involvedKeys(), constraints.get(j).involvedKeys()))
+          .toArray();
+    }
+    return ret;
+  }
+
+  private static List<Tuple> violatingAssignments(Constraint target, Map<String, List<Object>> parameters) {
+    List<String> involvedKeys = target.involvedKeys();
+    List<Tuple> ret = new ArrayList<>();
+    for (List<Object> each : new Cartesianator<Object>(involvedKeys.stream().map(parameters::get).collect(toList()))) {
+      Tuple.Builder builder = new Tuple.Builder();
+      for (int i = 0; i < involvedKeys.size(); i++)
+        builder.put(involvedKeys.get(i), each.get(i));
+      Tuple assignment = builder.build();
+      if (!target.test(assignment))
+        ret.add(assignment);
+    }
+    return ret;
+  }
+
+  private static Map<String, List<Object>> composeFactorMap(FactorSpace factorSpace) {
+    return factorSpace.getFactors().stream()
+        .collect(toMap(Factor::getName, Factor::getLevels, (a, b) -> a, LinkedHashMap::new));
+  }
+
+  private static Tuple modifyTupleWithValues(Tuple in, Tuple values) {
+    Tuple ret = TupleUtils.copy(in);
+    ret.putAll(values);
+    return ret;
+  }
+}
@@ -11,6 +11,9 @@ import com.github.dakusui.jcunit8.factorspace.Constraint;
 import com.github.dakusui.jcunit8.factorspace.Factor;
 import com.github.dakusui.jcunit8.factorspace.FactorSpace;
 import com.github.dakusui.jcunit8.factorspace.FactorUtils;
+import com.github.dakusui.jcunit8.pipeline.Budget;
+import com.github.dakusui.jcunit8.pipeline.ExecutionProfile;
+import com.github.dakusui.jcunit8.pipeline.Instrumentation;
 import com.github.dakusui.jcunit8.pipeline.Requirement;
 import com.github.dakusui.jcunit8.pipeline.stages.Generator;
 import com.github.dakusui.jcunit8.testsuite.TupleSet;
@@ -19,57 +22,161 @@ import java.util.*;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
 import java.util.stream.Stream;
 
+import static com.github.dakusui.jcunit.core.tuples.TupleUtils.project;
 import static java.util.Collections.disjoint;
 import static java.util.Collections.emptyList;
+import static java.util.Collections.emptyMap;
 import static java.util.Comparator.comparingInt;
+import static java.util.Objects.requireNonNull;
 import static java.util.stream.Collectors.toList;
 
 @SuppressWarnings("NonAsciiCharacters")
 public class IpoGplus extends Generator.Base {
   public static class Session {
-    private final AtomicInteger optimizer                      = new AtomicInteger(0);
+    private final AtomicInteger                optimizer    = new AtomicInteger(0);
+    private final Instrumentation.CacheCounter cacheCounter = new Instrumentation.CacheCounter();
+    /**
+     * A random number generator from which levels for "don't care" factors are
+     * chosen. This is {@code null} if no seed is given, in which case they are
+     * chosen in a round-robin manner.
+     */
+    private final SplittableRandom             random;
+    /**
+     * A profile from which costs of levels are estimated, so that cheaper levels
+     * are preferred when coverage doesn't tell which one should be chosen.
+     */
+    private final ExecutionProfile             executionProfile;
     /**
      * A curried function to find first tuple under constraints, which is memoized.
      */
     private final Function<List<Constraint>, Function<List<Factor>, Optional<Tuple>>>
-                                findFirstTupleUnderConstraints = Utils.memoize(functionToFindFirstTupleUnderConstraints());
+                                  findFirstTupleUnderConstraints = cacheCounter.memoize(functionToFindFirstTupleUnderConstraints());
+
+    public Session() {
+      this(OptionalLong.empty());
+    }
+
+    public Session(OptionalLong randomSeed) {
+      this(randomSeed, ExecutionProfile.NONE);
+    }
+
+    public Session(OptionalLong randomSeed, ExecutionProfile executionProfile) {
+      this.random = randomSeed.isPresent() ? new SplittableRandom(randomSeed.getAsLong()) : null;
+      this.executionProfile = requireNonNull(executionProfile);
+    }
 
     private Map<String, Object> chooseAssignmentsFor(List<Factor> dontCareFactors) {
       return new HashMap<String, Object>() {{
-        dontCareFactors.forEach(factor -> put(factor.getName(), factor.getLevels().get(optimizer.getAndIncrement() % factor.getLevels().size())));
+        dontCareFactors.forEach(factor -> {
+          List<Object> levels = cheapest(factor.getLevels(), level -> costOf(factor.getName(), level));
+          put(factor.getName(), levels.get(choose(optimizer.getAndIncrement(), levels.size())));
+        });
       }};
     }
+
+    private boolean isCostAware() {
+      return this.executionProfile != ExecutionProfile.NONE;
+    }
+
+    /**
+     * Returns a cost of {@code level} of a factor. A level that has never been
+     * executed is considered cheapest, so that its cost is known after the next run.
+     */
+    private double costOf(String factorName, Object level) {
+      return this.executionProfile.costOf(factorName, level).orElse(0);
+    }
+
+    /**
+     * Returns elements of {@code candidates} whose costs are the lowest, or
+     * {@code candidates} itself if this session is not cost aware.
+     */
+    private <T> List<T> cheapest(List<T> candidates, ToDoubleFunction<T> cost) {
+      if (!isCostAware() || candidates.isEmpty())
+        return candidates;
+      double min = candidates.stream().mapToDouble(cost).min().orElseThrow(FrameworkException::unexpectedByDesign);
+      return candidates.stream().filter(each -> cost.applyAsDouble(each) == min).collect(toList());
+    }
+
+    /**
+     * Chooses an index smaller than {@code bound}, which is {@code counter}
+     * modulo {@code bound} unless a seed is given.
+     */
+    private int choose(int counter, int bound) {
+      return random == null ?
+          counter % bound :
+          random.nextInt(bound);
+    }
   }
 
   private final Session session;
 
-  private final TupleSet precovered;
+  /**
+   * An index of seeds that cover all the factors, which maps a factor name and a
+   * level to a bit set of seeds that have the level. A t-way interaction is
+   * covered by seeds if the bit sets of its levels intersect. Seeds are indexed
+   * instead of expanding them into all their sub-tuples, or marking them in a bit
+   * set over all the interactions, so that the memory needed is proportional
+   * to the number of seeds and levels, not to {@code C(n, t)}. This is
+   * {@code null} if no seed covers anything.
+   */
+  private final Map<String, Map<Object, BitSet>> precovered;
+
+  /**
+   * Groups of factors in this factor space, whose interactions are covered with
+   * strengths higher than the one of the requirement. Interactions of these
+   * strengths are not considered covered by seeds.
+   */
+  private final List<Requirement.StrengthGroup> strengthGroups;
 
   public IpoGplus(FactorSpace factorSpace, Requirement requirement, List<Tuple> seeds) {
-    super(factorSpace, requirement);
-    this.session = new Session();
-    this.precovered = new TupleSet.Builder().addAll(
-        seeds.stream(
-        ).filter(
-            tuple -> tuple.keySet().containsAll(factorSpace.getFactorNames())
-        ).filter(
-            ////
-            // tuples covered by negative tests should not be considered
-            // covered.
-            tuple -> factorSpace.getConstraints().stream()
-                .allMatch(
-                    constraint -> constraint.test(tuple)
-                )
-        ).map(
-            tuple -> TupleUtils.project(tuple, factorSpace.getFactorNames())
-        ).flatMap(
-            tuple -> TupleUtils.subtuplesOf(tuple, requirement.strength()).stream()
-        ).collect(
-            toList()
-        )
-    ).build();
+    this(factorSpace, requirement, seeds, Instrumentation.NONE);
+  }
+
+  public IpoGplus(FactorSpace factorSpace, Requirement requirement, List<Tuple> seeds, Instrumentation instrumentation) {
+    this(factorSpace, requirement, seeds, instrumentation, ExecutionProfile.NONE);
+  }
+
+  /**
+   * Creates a generator that prefers cheaper levels according to
+   * {@code executionProfile} when it assigns levels to "don't care" factors and
+   * when levels of a factor cover the same number of tuples.
+   */
+  public IpoGplus(FactorSpace factorSpace, Requirement requirement, List<Tuple> seeds, Instrumentation instrumentation, ExecutionProfile executionProfile) {
+    super(factorSpace, requirement, instrumentation);
+    this.session = new Session(requirement.randomSeedFor("generation", factorSpace.getFactorNames()), executionProfile);
+    this.strengthGroups = requirement.strengthGroups().stream()
+        .map(each -> each.restrictTo(factorSpace.getFactorNames()))
+        .filter(each -> each.strength() > requirement.strength())
+        .collect(toList());
+    List<Tuple> coveringSeeds = seeds.stream(
+    ).filter(
+        tuple -> tuple.keySet().containsAll(factorSpace.getFactorNames())
+    ).filter(
+        ////
+        // tuples covered by negative tests should not be considered
+        // covered.
+        tuple -> factorSpace.getConstraints().stream()
+            .allMatch(
+                constraint -> constraint.test(tuple)
+            )
+    ).collect(
+        toList()
+    );
+    if (coveringSeeds.isEmpty() || factorSpace.getFactors().size() < requirement.strength()) {
+      this.precovered = null;
+    } else {
+      this.precovered = new HashMap<>();
+      for (int i = 0; i < coveringSeeds.size(); i++) {
+        Tuple seed = coveringSeeds.get(i);
+        for (String each : factorSpace.getFactorNames())
+          this.precovered.computeIfAbsent(each, k -> new HashMap<>())
+              .computeIfAbsent(seed.get(each), k -> new BitSet())
+              .set(i);
+      }
+    }
   }
 
   /**
@@ -130,13 +237,14 @@ public class IpoGplus extends Generator.Base {
      *         t parameters (*1)
      */
     int t = this.requirement.strength();
+    Budget budget = this.requirement.budget();
     List<Factor> allFactors = this.factorSpace.getFactors().stream()
         .sorted(comparingInt(o -> -o.getLevels().size()))
         .collect(toList());
     List<Constraint> allConstraints = this.factorSpace.getConstraints();
     List<Tuple> ts = streamAllPossibleTuples(allFactors.subList(0, t), t)
         .filter(isAllowedTuple(allFactors, allConstraints, session)) // (*1)
-        .filter(tuple -> !this.precovered.contains(tuple))
+        .filter(tuple -> !isPrecovered(tuple))
         .collect(toList());
     if (ts.isEmpty())
       return emptyList();
@@ -147,27 +255,34 @@ public class IpoGplus extends Generator.Base {
      *         * t; strength
      *         * 0-origin
      */
-    TupleSet π;
+    TupleSet π = null;
     for (int i = t + 1; i <= n; i++) {
+      if (budget.isExhausted())
+        return completeInterruptedTests(ts, allFactors, allConstraints, π, budget);
+      long startedAt = System.nanoTime();
       /*     5.    let π be the set of t -way combinations of values involving parameter
        *            Pi and t -1 parameters among the first i – 1 parameters (*2)
        */
       Factor Pi = allFactors.get(i - 1);
       processedFactors.add(Pi);
-      π = prepare_π(processedFactors, allFactors, allConstraints, t);
+      π = prepare_π(processedFactors, allFactors, allConstraints, t, budget);
+      if (budget.isExhausted())
+        return completeInterruptedTests(ts, allFactors, allConstraints, π, budget);
+      int sizeOfπ = π.size();
       /*     6.     // horizontal extension for parameter Pi
        *     7.     for (each test τ = (v 1 , v 2 , ..., v i-1 ) in test set ts ) {
        */
       for (Tuple τ : ts) {
+        if (budget.isExhausted())
+          return completeInterruptedTests(ts, allFactors, allConstraints, π, budget);
         /*     8.         choose a value vi of Pi and replace τ with τ’ = (v 1 , v 2 ,
          *                ..., vi-1 , vi ) so that τ’ covers the most number of
          *                combinations of values in π (*3)
          */
         Object vi = chooseLevelThatCoversMostTuples(
-            τ, Pi, π, t,
+            τ, Pi, π,
             allFactors,
-            allConstraints,
-            session
+            allConstraints
         ).orElseThrow(
             ////
             // (*3) This cannot happen
@@ -176,14 +291,22 @@ public class IpoGplus extends Generator.Base {
         τ.put(Pi.getName(), vi);
         /*  9.         remove from π the combinations of values covered by τ’
          */
-        π.removeAll(TupleUtils.subtuplesOf(τ, t));
+        TupleUtils.forEachSubtupleOf(τ, t, π::remove);
+        for (Requirement.StrengthGroup each : strengthGroupsInvolving(Pi)) {
+          Tuple projected = project(τ, each.factorNames());
+          if (projected.size() >= each.strength())
+            TupleUtils.forEachSubtupleOf(projected, each.strength(), π::remove);
+        }
       }
+      int sizeOfπAfterHorizontalExtension = π.size();
 
       /* 10.
        * 11.    // vertical extension for parameter P i
        * 12.    for (each combination σ in set π ) {
        */
       for (Tuple σ : new LinkedList<>(π)) {
+        if (budget.isExhausted())
+          return completeInterruptedTests(ts, allFactors, allConstraints, π, budget);
         /* 13.      if (there exists a test that already covers σ ) {
          * 14.          remove σ from π
          * 15.      } else {
@@ -213,6 +336,8 @@ public class IpoGplus extends Generator.Base {
            *     to cover σ (*a)
            * </pre>
            */
+          if (!ts.contains(chosenTest) && !budget.canAddRow(ts.size()))
+            return completeInterruptedTests(ts, allFactors, allConstraints, π, budget);
           chosenTest.putAll(σ);
           if (!ts.contains(chosenTest))
             ts.add(chosenTest);
@@ -227,10 +352,41 @@ public class IpoGplus extends Generator.Base {
                   session
               )
           ).collect(toList());
+      this.instrumentation.record(new Instrumentation.Event(
+          Instrumentation.Stage.IPOG_ITERATION,
+          Pi.getName(),
+          System.nanoTime() - startedAt,
+          Instrumentation.metrics(
+              "factors", i,
+              "pi", sizeOfπ,
+              "piAfterHorizontalExtension", sizeOfπAfterHorizontalExtension,
+              "rows", ts.size()
+          )
+      ));
     }
+    this.session.cacheCounter.reportTo(this.instrumentation, "IpoGplus");
     return ts;
   }
 
+  /**
+   * Completes tests in {@code ts} when the budget is exhausted during an
+   * iteration, by assigning levels to factors not yet processed in the same way
+   * as "don't care" values are replaced.
+   * Tuples remaining in {@code π} are reported as uncovered.
+   */
+  private List<Tuple> completeInterruptedTests(List<Tuple> ts, List<Factor> allFactors, List<Constraint> allConstraints, TupleSet π, Budget budget) {
+    budget.interrupted(getClass().getSimpleName(), String.join(",", this.factorSpace.getFactorNames()), π != null ? π.size() : 0);
+    this.session.cacheCounter.reportTo(this.instrumentation, "IpoGplus");
+    return ts.stream()
+        .map((Tuple tuple) -> {
+          Tuple.Builder builder = new Tuple.Builder();
+          allFactors.forEach((Factor factor) -> builder.put(factor.getName(), tuple.getOrDefault(factor.getName(), DontCare)));
+          return builder.build();
+        })
+        .map(replaceDontCareValuesWithActualLevels(allFactors, allConstraints, session))
+        .collect(toList());
+  }
+
   @SuppressWarnings("WeakerAccess")
   protected void validate() {
     FrameworkException.checkCondition(
@@ -245,21 +401,94 @@ public class IpoGplus extends Generator.Base {
     );
   }
 
-  private TupleSet prepare_π(List<Factor> alreadyProcessedFactors, List<Factor> allFactors, List<Constraint> allConstraints, int strength) {
+  private boolean isPrecovered(Tuple tuple) {
+    if (this.precovered == null || tuple.size() != this.requirement.strength())
+      return false;
+    BitSet seeds = null;
+    for (Map.Entry<String, Object> each : tuple.entrySet()) {
+      BitSet seedsWithLevel = this.precovered.getOrDefault(each.getKey(), emptyMap()).get(each.getValue());
+      if (seedsWithLevel == null)
+        return false;
+      if (seeds == null)
+        seeds = (BitSet) seedsWithLevel.clone();
+      else
+        seeds.and(seedsWithLevel);
+      if (seeds.isEmpty())
+        return false;
+    }
+    return seeds != null;
+  }
+
+  private TupleSet prepare_π(List<Factor> alreadyProcessedFactors, List<Factor> allFactors, List<Constraint> allConstraints, int strength, Budget budget) {
     /*     5.     let π be the set of t -way combinations of values involving parameter
      *            Pi and t -1 parameters among the first i – 1 parameters (*2)
      *
      */
-    return new TupleSet.Builder().addAll(
+    TupleSet.Builder builder = new TupleSet.Builder();
+    if (!addAllowedTuples(
+        builder,
         new StreamableCombinator<>(
             alreadyProcessedFactors,
             strength
         ).stream()
             .flatMap((List<Factor> factors) -> new StreamableTupleCartesianator(factors).stream())
-            .filter((Tuple tuple) -> !precovered.contains(tuple))
-            .filter(isAllowedTuple(allFactors, allConstraints, session)) // (*2)
-            .collect(toList()))
-        .build();
+            .filter((Tuple tuple) -> !isPrecovered(tuple)),
+        allFactors,
+        allConstraints,
+        budget))
+      return builder.build();
+    ////
+    // For each group that involves Pi, combinations of values of Pi and
+    // (strength of the group - 1) factors in the group among the first i - 1
+    // ones are also added.
+    Factor Pi = alreadyProcessedFactors.get(alreadyProcessedFactors.size() - 1);
+    for (Requirement.StrengthGroup each : strengthGroupsInvolving(Pi)) {
+      List<Factor> processedFactorsInGroup = alreadyProcessedFactors.subList(0, alreadyProcessedFactors.size() - 1).stream()
+          .filter((Factor factor) -> each.factorNames().contains(factor.getName()))
+          .collect(toList());
+      if (processedFactorsInGroup.size() < each.strength() - 1)
+        continue;
+      if (!addAllowedTuples(
+          builder,
+          new StreamableCombinator<>(
+              processedFactorsInGroup,
+              each.strength() - 1
+          ).stream()
+              .map((List<Factor> factors) -> new ArrayList<Factor>(factors) {{
+                add(Pi);
+              }})
+              .flatMap((List<Factor> factors) -> new StreamableTupleCartesianator(factors).stream()),
+          allFactors,
+          allConstraints,
+          budget))
+        break;
+    }
+    return builder.build();
+  }
+
+  /**
+   * Adds tuples in {@code candidates} allowed by the constraints to {@code builder}
+   * until the budget is exhausted (*2). Since π is incomplete in that case,
+   * {@code false} is returned and the caller needs to stop the iteration.
+   */
+  private boolean addAllowedTuples(TupleSet.Builder builder, Stream<Tuple> candidates, List<Factor> allFactors, List<Constraint> allConstraints, Budget budget) {
+    Predicate<Tuple> isAllowed = isAllowedTuple(allFactors, allConstraints, session);
+    for (Iterator<Tuple> i = candidates.iterator(); i.hasNext(); ) {
+      if (budget.isExhausted())
+        return false;
+      Tuple each = i.next();
+      if (isAllowed.test(each))
+        builder.add(each);
+    }
+    return true;
+  }
+
+  private List<Requirement.StrengthGroup> strengthGroupsInvolving(Factor factor) {
+    if (this.strengthGroups.isEmpty())
+      return emptyList();
+    return this.strengthGroups.stream()
+        .filter(each -> each.factorNames().contains(factor.getName()))
+        .collect(toList());
   }
 
   /*
@@ -267,13 +496,18 @@ public class IpoGplus extends Generator.Base {
    *             ..., vi-1 , vi ) so that τ’ covers the most number of
    *             combinations of values in π (*3)
    */
-  private static Optional<Object> chooseLevelThatCoversMostTuples(Tuple τ, Factor fi, TupleSet π, int t, List<Factor> allFactors, List<Constraint> allConstraints, Session session) {
+  private Optional<Object> chooseLevelThatCoversMostTuples(Tuple τ, Factor fi, TupleSet π, List<Factor> allFactors, List<Constraint> allConstraints) {
+    int t = this.requirement.strength();
+    List<Requirement.StrengthGroup> groups = strengthGroupsInvolving(fi);
+    Comparator<Tuple> byCoverage = (Tuple t1, Tuple t2) ->
+        (int) (countCoveredTuplesBy(t1, π, t, groups) - countCoveredTuplesBy(t2, π, t, groups));
     return fi.getLevels().stream()
         .map((Object eachLevel) -> modifyTupleWith(τ, fi.getName(), eachLevel))
         .filter(isAllowedTuple(allFactors, allConstraints, session)) // (*3)
         .max(
-            (Tuple t1, Tuple t2) ->
-                (int) (countCoveredTuplesBy(t1, π, t) - countCoveredTuplesBy(t2, π, t))
+            session.isCostAware() ?
+                byCoverage.thenComparingDouble((Tuple tuple) -> -session.costOf(fi.getName(), tuple.get(fi.getName()))) :
+                byCoverage
         )
         .map((Tuple tuple) -> tuple.get(fi.getName()));
   }
@@ -285,14 +519,19 @@ public class IpoGplus extends Generator.Base {
   /**
    * Counts number of tuples in {@code π} covered by {@code τ$}.
    *
-   * @param τ$ A tuple to cover tuples in π.
-   * @param π  A set of tuples to be covered by {@code τ$}.
-   * @param t  strength
+   * @param τ$     A tuple to cover tuples in π.
+   * @param π      A set of tuples to be covered by {@code τ$}.
+   * @param t      strength
+   * @param groups Groups of factors covered with higher strengths.
    */
-  private static long countCoveredTuplesBy(Tuple τ$, final TupleSet π, int t) {
-    return TupleUtils.subtuplesOf(τ$, t).stream()
-        .filter(π::contains)
-        .count();
+  private static long countCoveredTuplesBy(Tuple τ$, final TupleSet π, int t, List<Requirement.StrengthGroup> groups) {
+    long ret = TupleUtils.countSubtuplesOf(τ$, t, π::contains);
+    for (Requirement.StrengthGroup each : groups) {
+      Tuple projected = project(τ$, each.factorNames());
+      if (projected.size() >= each.strength())
+        ret += TupleUtils.countSubtuplesOf(projected, each.strength(), π::contains);
+    }
+    return ret;
   }
 
   /**
@@ -334,13 +573,19 @@ public class IpoGplus extends Generator.Base {
                         allConstraints,
                         session
                     ), // (*a)
-                    i++
+                    dontCareFactors,
+                    session.choose(i++, maxReadAheadSize)
                 ).orElseThrow(() -> TestDefinitionException.impossibleConstraint(allConstraints))
             ).build();
       }
 
-      private Optional<Tuple> chooseAssignment(Stream<Tuple> tupleStream, int index) {
-        List<Tuple> work = tupleStream.limit(index + 1).collect(toList());
+      private Optional<Tuple> chooseAssignment(Stream<Tuple> tupleStream, List<Factor> dontCareFactors, int index) {
+        List<Tuple> work = session.isCostAware() ?
+            session.cheapest(
+                tupleStream.limit(maxReadAheadSize).collect(toList()),
+                (Tuple tuple) -> dontCareFactors.stream().mapToDouble(factor -> session.costOf(factor.getName(), tuple.get(factor.getName()))).sum()
+            ) :
+            tupleStream.limit(index + 1).collect(toList());
         return work.isEmpty() ?
             Optional.empty() :
             Optional.of(work.get(index % work.size()));
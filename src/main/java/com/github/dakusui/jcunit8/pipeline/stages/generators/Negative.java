@@ -5,6 +5,7 @@ import com.github.dakusui.jcunit.core.tuples.Tuple;
 import com.github.dakusui.jcunit8.factorspace.Constraint;
 import com.github.dakusui.jcunit8.factorspace.Factor;
 import com.github.dakusui.jcunit8.factorspace.FactorSpace;
+import com.github.dakusui.jcunit8.pipeline.Budget;
 import com.github.dakusui.jcunit8.pipeline.Requirement;
 import com.github.dakusui.jcunit8.pipeline.stages.Generator;
 
@@ -25,10 +26,10 @@ public class Negative extends Generator.Base {
 
   @Override
   public List<Tuple> generateCore() {
-    return generateNegativeTests(this.regularTestCases, factorSpace, seeds);
+    return generateNegativeTests(this.regularTestCases, factorSpace, seeds, requirement.budget());
   }
 
-  private static List<Tuple> generateNegativeTests(List<Tuple> tuples, FactorSpace factorSpace, List<Tuple> seeds) {
+  private static List<Tuple> generateNegativeTests(List<Tuple> tuples, FactorSpace factorSpace, List<Tuple> seeds, Budget budget) {
     return new LinkedList<Tuple>() {{
       //noinspection SimplifiableConditionalExpression
       factorSpace.getConstraints(
@@ -58,7 +59,8 @@ public class Negative extends Generator.Base {
                       factorSpace.getConstraints()
                   ),
                   composeFactorMap(factorSpace),
-                  tuples
+                  tuples,
+                  budget
               ).ifPresent(
                   this::add
               )
@@ -78,11 +80,15 @@ public class Negative extends Generator.Base {
     }};
   }
 
-  private static Optional<Tuple> createNegativeTestForConstraint(Constraint target, List<Constraint> rest, Map<String, List<Object>> parameters, List<Tuple> tuples) {
+  private static Optional<Tuple> createNegativeTestForConstraint(Constraint target, List<Constraint> rest, Map<String, List<Object>> parameters, List<Tuple> tuples, Budget budget) {
     long leastCollateralConstraints = rest.size();
     Optional<Tuple> ret = Optional.empty();
     OUTER:
     for (Tuple base : tuples) {
+      if (budget.isExhausted()) {
+        budget.interrupted(Negative.class.getSimpleName(), target.getName(), ret.isPresent() ? 0 : 1);
+        break;
+      }
       for (List<Object> each : createCartesianator(target, parameters)) {
         Tuple modified = modifyTupleWithValues(base, composeValues(target.involvedKeys(), each));
         if (target.test(modified))
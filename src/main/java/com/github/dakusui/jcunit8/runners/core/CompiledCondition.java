@@ -0,0 +1,157 @@
+package com.github.dakusui.jcunit8.runners.core;
+
+import com.github.dakusui.jcunit.core.tuples.Tuple;
+import com.github.dakusui.jcunit8.factorspace.Constraint;
+import com.github.dakusui.jcunit8.factorspace.TestPredicate;
+import com.github.dakusui.jcunit8.runners.junit4.utils.BindingPlan;
+import org.junit.runners.model.FrameworkMethod;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.util.List;
+
+import static com.github.dakusui.jcunit8.exceptions.FrameworkException.unexpectedByDesign;
+
+/**
+ * A test predicate backed by a method annotated with {@code @Condition}.
+ * <p>
+ * The method is compiled into a {@link BindingPlan} and the source of each of
+ * its arguments (a key in a tuple or a position in arguments given by a leaf of
+ * a {@code @Given} expression) is computed only once, when an object of this
+ * class is created. Evaluation, which happens very frequently during test suite
+ * generation, therefore doesn't involve reflection, string formatting, or
+ * copying a tuple.
+ */
+class CompiledCondition implements TestPredicate {
+  private static final String       ARG_KEY = "@arg";
+  private final        String       name;
+  private final        Class<?>     declaringClass;
+  private final        Object       testObject;
+  private final        BindingPlan  bindingPlan;
+  private final        List<String> involvedKeys;
+  /**
+   * For each parameter of the method, an index of an argument of a leaf from
+   * which its value is taken, or -1 if it is taken from a tuple.
+   */
+  private final        int[]        argIndices;
+  private final        int          varargsIndex;
+  private final        Class<?>     varargsComponentType;
+
+  private CompiledCondition(Object testObject, FrameworkMethod frameworkMethod) {
+    Method method = frameworkMethod.getMethod();
+    this.name = frameworkMethod.getName();
+    this.declaringClass = method.getDeclaringClass();
+    this.testObject = testObject;
+    this.bindingPlan = BindingPlan.compile(frameworkMethod);
+    this.involvedKeys = this.bindingPlan.names();
+    this.argIndices = new int[this.involvedKeys.size()];
+    int argIndex = 0;
+    for (int i = 0; i < this.argIndices.length; i++)
+      this.argIndices[i] = ARG_KEY.equals(this.involvedKeys.get(i)) ?
+          argIndex++ :
+          -1;
+    this.varargsIndex = method.isVarArgs() && this.argIndices[this.argIndices.length - 1] >= 0 ?
+        this.argIndices.length - 1 :
+        -1;
+    this.varargsComponentType = method.isVarArgs() ?
+        method.getParameterTypes()[this.argIndices.length - 1].getComponentType() :
+        null;
+  }
+
+  static CompiledCondition compile(Object testObject, FrameworkMethod frameworkMethod, boolean constraint) {
+    return constraint ?
+        new AsConstraint(testObject, frameworkMethod) :
+        new CompiledCondition(testObject, frameworkMethod);
+  }
+
+  @Override
+  public String getName() {
+    return this.name;
+  }
+
+  /**
+   * Returns the class that declares the method of this predicate.
+   */
+  Class<?> declaringClass() {
+    return this.declaringClass;
+  }
+
+  /**
+   * Evaluates this predicate. Arguments of a leaf, if any, are looked up in
+   * {@code tuple} with keys {@code @arg[0]}, {@code @arg[1]}, and so on.
+   *
+   * @param tuple A tuple to be tested.
+   */
+  @Override
+  public boolean test(Tuple tuple) {
+    return test(tuple, null);
+  }
+
+  /**
+   * Evaluates this predicate with arguments given by a leaf of a {@code @Given}
+   * expression.
+   *
+   * @param tuple A tuple from which values of factors are taken.
+   * @param args  Arguments of a leaf. If {@code null}, they are looked up in {@code tuple}.
+   */
+  boolean test(Tuple tuple, Object[] args) {
+    Object[] values = this.bindingPlan.argumentsFrom(tuple);
+    for (int i = 0; i < values.length; i++) {
+      if (this.argIndices[i] >= 0)
+        values[i] = i == this.varargsIndex ?
+            varargs(tuple, args, this.argIndices[i]) :
+            arg(tuple, args, this.argIndices[i]);
+    }
+    try {
+      return (boolean) this.bindingPlan.invoke(this.testObject, values);
+    } catch (Throwable e) {
+      throw unexpectedByDesign(e);
+    }
+  }
+
+  @Override
+  public List<String> involvedKeys() {
+    return this.involvedKeys;
+  }
+
+  @Override
+  public String toString() {
+    return TestPredicate.toString(this);
+  }
+
+  private Object arg(Tuple tuple, Object[] args, int index) {
+    if (args == null)
+      return tuple.get(argKey(index));
+    return index < args.length ?
+        args[index] :
+        null;
+  }
+
+  private Object varargs(Tuple tuple, Object[] args, int from) {
+    int to = from;
+    if (args == null) {
+      while (tuple.containsKey(argKey(to)))
+        to++;
+    } else {
+      to = Math.max(from, args.length);
+    }
+    Object ret = Array.newInstance(this.varargsComponentType, to - from);
+    for (int i = from; i < to; i++)
+      Array.set(ret, i - from, arg(tuple, args, i));
+    return ret;
+  }
+
+  private static String argKey(int i) {
+    return String.format("%s[%d]", ARG_KEY, i);
+  }
+
+  /**
+   * A compiled condition used as a constraint. Since it only reads values of
+   * keys it is interested in, a given tuple doesn't need to be projected.
+   */
+  static class AsConstraint extends CompiledCondition implements Constraint {
+    private AsConstraint(Object testObject, FrameworkMethod frameworkMethod) {
+      super(testObject, frameworkMethod);
+    }
+  }
+}
@@ -0,0 +1,180 @@
+package com.github.dakusui.jcunit8.runners.core;
+
+import com.github.dakusui.jcunit.core.utils.Checks;
+import com.github.dakusui.jcunit8.factorspace.Constraint;
+import com.github.dakusui.jcunit8.pipeline.Requirement;
+import com.github.dakusui.jcunit8.pipeline.stages.ConfigFactory;
+import com.github.dakusui.jcunit8.testsuite.TestScenario;
+import com.github.dakusui.jcunit8.testsuite.TestSuite;
+
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.function.Supplier;
+
+import static java.util.Arrays.asList;
+import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * A cache of test suites shared by all the test classes in a JVM, so that test
+ * classes that use the same parameter space class and the same configuration
+ * do not generate the same test suite again.
+ * <p>
+ * When test suites for the same key are requested concurrently, only one of the
+ * requesters generates it and the others wait for it. A test suite that failed
+ * to be generated is not cached.
+ * <p>
+ * Test cases in a cached test suite are shared by test classes, while each of
+ * them gets a test suite with its own test scenario.
+ * <p>
+ * At most {@link #MAX_SIZE} test suites are cached, and the least recently used
+ * one is discarded when another one is added.
+ * <p>
+ * A test suite generated with an exhausted budget is not cached either, since
+ * it depends on when the budget ran out rather than only on its key.
+ */
+public enum GenerationCache {
+  ;
+
+  public static final int MAX_SIZE = 64;
+
+  private static final Map<Key, FutureTask<TestSuite>> testSuites = Collections.synchronizedMap(
+      new LinkedHashMap<Key, FutureTask<TestSuite>>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, FutureTask<TestSuite>> eldest) {
+          return size() > MAX_SIZE;
+        }
+      }
+  );
+
+  /**
+   * Returns a test suite for {@code key} with {@code testScenario}, which is
+   * generated by {@code generator} unless it is already cached.
+   *
+   * @param key          A key that identifies a test suite to be generated.
+   * @param testScenario A test scenario for the returned test suite.
+   * @param generator    Generates a test suite.
+   * @return A test suite.
+   */
+  public static TestSuite get(Key key, TestScenario testScenario, Supplier<TestSuite> generator) {
+    FutureTask<TestSuite> task = new FutureTask<>(generator::get);
+    FutureTask<TestSuite> cached = testSuites.putIfAbsent(key, task);
+    if (cached == null)
+      (cached = task).run();
+    TestSuite ret;
+    try {
+      ret = cached.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw Checks.wrap(e);
+    } catch (ExecutionException e) {
+      testSuites.remove(key, cached);
+      if (e.getCause() instanceof RuntimeException)
+        throw (RuntimeException) e.getCause();
+      if (e.getCause() instanceof Error)
+        throw (Error) e.getCause();
+      throw Checks.wrap(e.getCause());
+    }
+    if (ret.budgetReport().exhaustedBy().isPresent())
+      testSuites.remove(key, cached);
+    return ret.getScenario() == testScenario ?
+        ret :
+        new TestSuite.Builder<>(ret.getParameterSpace(), testScenario).addAll(ret).build();
+  }
+
+  /**
+   * Returns {@code true} if test suites generated with configs created by
+   * {@code configFactoryClass} can be cached. Since {@link Key} identifies a
+   * config by its factory class and requirement, a factory that overrides
+   * {@link ConfigFactory#create(Class)}, which can create a different config,
+   * e.g., with a different orderer or partitioner, for each test class, is not.
+   *
+   * @param configFactoryClass A class of a config factory.
+   * @return {@code true} if test suites can be cached.
+   */
+  public static boolean isCacheable(Class<? extends ConfigFactory> configFactoryClass) {
+    try {
+      Class<?> declaringClass = configFactoryClass.getMethod("create", Class.class).getDeclaringClass();
+      return declaringClass == ConfigFactory.class || declaringClass == ConfigFactory.Base.class;
+    } catch (NoSuchMethodException e) {
+      throw Checks.wrap(e);
+    }
+  }
+
+  /**
+   * Discards all the cached test suites.
+   */
+  public static void clear() {
+    testSuites.clear();
+  }
+
+  /**
+   * Returns the number of cached test suites.
+   */
+  public static int size() {
+    return testSuites.size();
+  }
+
+  /**
+   * A key of a cached test suite, which consists of a parameter space class,
+   * names of parameters involved in a test class, constraints, a config factory
+   * class, and a requirement.
+   * <p>
+   * A constraint defined by a {@code @Condition} method is identified by its
+   * name and the class that declares the method, so that constraints of the
+   * same name in different classes are not confused. Any other constraint is
+   * identified by itself.
+   */
+  public static final class Key {
+    private final List<Object> values;
+
+    public Key(
+        Class<?> parameterSpaceClass,
+        Collection<String> parameterNames,
+        Collection<? extends Constraint> constraints,
+        Class<? extends ConfigFactory> configFactoryClass,
+        Requirement requirement
+    ) {
+      this.values = asList(
+          requireNonNull(parameterSpaceClass),
+          new ArrayList<>(new TreeSet<>(parameterNames)),
+          constraints.stream()
+              .sorted(Comparator.comparing(Constraint::getName))
+              .map(Key::identityOf)
+              .collect(toList()),
+          requireNonNull(configFactoryClass),
+          requirement.strength(),
+          requirement.generateNegativeTests(),
+          new ArrayList<>(requirement.seeds()),
+          new ArrayList<>(requirement.precovered()),
+          requirement.budgetLimits(),
+          requirement.randomSeed(),
+          requirement.strengthGroups().stream()
+              .map(each -> asList(each.strength(), each.factorNames()))
+              .collect(toList())
+      );
+    }
+
+    private static Object identityOf(Constraint constraint) {
+      return constraint instanceof CompiledCondition ?
+          asList(constraint.getName(), ((CompiledCondition) constraint).declaringClass()) :
+          constraint;
+    }
+
+    @Override
+    public int hashCode() {
+      return this.values.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object anotherObject) {
+      return anotherObject instanceof Key && this.values.equals(((Key) anotherObject).values);
+    }
+
+    @Override
+    public String toString() {
+      return this.values.toString();
+    }
+  }
+}
@@ -6,20 +6,15 @@ import com.github.dakusui.jcunit8.factorspace.Constraint;
 import com.github.dakusui.jcunit8.factorspace.TestPredicate;
 import com.github.dakusui.jcunit8.runners.junit4.annotations.Condition;
 import com.github.dakusui.jcunit8.runners.junit4.annotations.ConfigureWith;
-import com.github.dakusui.jcunit8.runners.junit4.annotations.From;
 import org.junit.runners.model.FrameworkMethod;
 import org.junit.runners.model.TestClass;
 
-import java.lang.reflect.Method;
 import java.util.*;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static com.github.dakusui.jcunit8.core.Utils.createInstanceOf;
-import static com.github.dakusui.jcunit8.exceptions.FrameworkException.unexpectedByDesign;
 import static java.util.stream.Collectors.toList;
 
 public enum NodeUtils {
@@ -38,10 +33,19 @@ public enum NodeUtils {
         involvedKeys.addAll(predicate.involvedKeys());
         if (leaf.args().length == 0)
           result = predicate;
+        else if (predicate instanceof CompiledCondition)
+          result = tuple -> ((CompiledCondition) predicate).test(tuple, expandArgs(tuple, leaf.args()));
         else
           result = tuple -> predicate.test(appendArgs(tuple, leaf));
       }
 
+      private Object[] expandArgs(Tuple tuple, String[] args) {
+        Object[] ret = new Object[args.length];
+        for (int i = 0; i < args.length; i++)
+          ret[i] = expandFactorValueIfNecessary(tuple, args[i]);
+        return ret;
+      }
+
       private Tuple appendArgs(Tuple tuple, Node.Leaf leaf) {
         return new Tuple.Builder() {{
           putAll(tuple);
@@ -158,80 +162,11 @@ public enum NodeUtils {
   }
 
   public static TestPredicate createTestPredicate(Object testObject, FrameworkMethod frameworkMethod) {
-    Method method = frameworkMethod.getMethod();
-    //noinspection RedundantTypeArguments (to suppress a compilation error)
-    List<String> involvedKeys = Stream.of(method.getParameterAnnotations())
-        .map(annotations -> Stream.of(annotations)
-            .filter(annotation -> annotation instanceof From)
-            .map(From.class::cast)
-            .map(From::value)
-            .findFirst()
-            .<FrameworkException>orElseThrow(FrameworkException::unexpectedByDesign))
-        .collect(toList());
-    int varargsIndex = method.isVarArgs() ?
-        frameworkMethod.getMethod().getParameterCount() - 1 :
-        -1;
-    Predicate<Tuple> predicate = (Tuple tuple) -> {
-      try {
-        return (boolean) frameworkMethod.invokeExplosively(
-            testObject,
-            involvedKeys.stream()
-                .map(new Function<String, Object>() {
-                  AtomicInteger cur = new AtomicInteger(0);
-
-                  @Override
-                  public Object apply(String key) {
-                    if (key.equals("@arg"))
-                      return isVarArgs(cur.get()) ?
-                          getVarArgs() :
-                          getArg();
-                    return tuple.get(key);
-                  }
-
-                  private Object getArg() {
-                    return tuple.get(key(cur.getAndIncrement()));
-                  }
-
-                  @SuppressWarnings("unchecked")
-                  private Object getVarArgs() {
-                    List work = new LinkedList();
-                    while (tuple.containsKey(key(cur.get()))) {
-                      work.add(getArg());
-                    }
-                    return work.toArray(new String[work.size()]);
-                  }
-
-                  private boolean isVarArgs(int argIndex) {
-                    return argIndex == varargsIndex;
-                  }
-
-                  private String key(int i) {
-                    return String.format("@arg[%d]", i);
-                  }
-                })
-                .toArray());
-      } catch (Throwable e) {
-        throw unexpectedByDesign(e);
-      }
-    };
-    return frameworkMethod.getAnnotation(Condition.class).constraint() ?
-        Constraint.create(frameworkMethod.getName(), predicate, involvedKeys) :
-        new TestPredicate() {
-          @Override
-          public String getName() {
-            return frameworkMethod.getName();
-          }
-
-          @Override
-          public boolean test(Tuple tuple) {
-            return predicate.test(tuple);
-          }
-
-          @Override
-          public List<String> involvedKeys() {
-            return involvedKeys;
-          }
-        };
+    return CompiledCondition.compile(
+        testObject,
+        frameworkMethod,
+        frameworkMethod.getAnnotation(Condition.class).constraint()
+    );
   }
 
   public static Node parse(String[] values) {
@@ -2,13 +2,16 @@ package com.github.dakusui.jcunit8.runners.junit4;
 
 import com.github.dakusui.jcunit.core.tuples.Tuple;
 import com.github.dakusui.jcunit.core.utils.Checks;
+import com.github.dakusui.jcunit8.core.JfrEvents;
 import com.github.dakusui.jcunit8.core.Utils;
 import com.github.dakusui.jcunit8.exceptions.TestDefinitionException;
 import com.github.dakusui.jcunit8.factorspace.Constraint;
 import com.github.dakusui.jcunit8.factorspace.ParameterSpace;
 import com.github.dakusui.jcunit8.pipeline.Config;
+import com.github.dakusui.jcunit8.pipeline.ExecutionProfile;
 import com.github.dakusui.jcunit8.pipeline.Pipeline;
 import com.github.dakusui.jcunit8.pipeline.stages.ConfigFactory;
+import com.github.dakusui.jcunit8.runners.core.GenerationCache;
 import com.github.dakusui.jcunit8.runners.core.NodeUtils;
 import com.github.dakusui.jcunit8.runners.junit4.annotations.*;
 import com.github.dakusui.jcunit8.runners.junit4.utils.InternalUtils;
@@ -16,8 +19,11 @@ import com.github.dakusui.jcunit8.testsuite.*;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.junit.internal.runners.ErrorReportingRunner;
 import org.junit.runner.Description;
 import org.junit.runner.Runner;
+import org.junit.runner.manipulation.Filter;
+import org.junit.runner.manipulation.NoTestsRemainException;
 import org.junit.runner.notification.RunNotifier;
 import org.junit.runners.ParentRunner;
 import org.junit.runners.model.FrameworkMethod;
@@ -34,17 +40,46 @@ import java.lang.reflect.Method;
 import java.util.*;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import static com.github.dakusui.jcunit8.core.Utils.createTestClassMock;
 import static com.github.dakusui.jcunit8.exceptions.FrameworkException.unexpectedByDesign;
 import static java.lang.String.format;
+import static java.util.Collections.singletonList;
 import static java.util.stream.Collectors.toList;
 
+/**
+ * A runner for JCUnit8 test classes.
+ * <p>
+ * A test suite is built only when it is needed first, e.g., when a filter is
+ * applied or children are described or run, and runners for test cases are
+ * created only for ones that pass a filter. If building the test suite fails,
+ * the failure is reported as an initialization error of the test class, in the
+ * same way as {@link ParentRunner} reports one thrown on its construction.
+ */
 public class JCUnit8 extends org.junit.runners.Parameterized {
-  private final List<Runner> runners;
-  private final TestSuite    testSuite;
+  private TestSuite        testSuite;
+  /**
+   * Fixtures shared among test cases, or {@code null} if no procedure run
+   * before or after a test case is shared.
+   */
+  private SharedFixtures   sharedFixtures;
+  /**
+   * Indices of test cases to be run in the order they are run.
+   */
+  private List<Integer>    testCaseIds;
+  private List<Runner>     runners;
+  /**
+   * A profile to which execution times of test cases are recorded.
+   */
+  private ExecutionProfile executionProfile;
+  /**
+   * A failure thrown while building the test suite, or {@code null} if it has
+   * not failed.
+   */
+  private Throwable        buildFailure;
 
   /**
    * Only called reflectively. Do not use programmatically.
@@ -53,11 +88,6 @@ public class JCUnit8 extends org.junit.runners.Parameterized {
    */
   public JCUnit8(Class<?> klass) throws Throwable {
     super(klass);
-    this.runners = createRunners(this.testSuite = buildTestSuite(
-        getTestClass(),
-        createParameterSpaceDefinitionTestClass(),
-        getConfigFactory()
-    ));
   }
 
   private static TestClassValidator[] createValidatorsFor(TestClass parameterSpaceDefinitionClass) {
@@ -155,45 +185,188 @@ public class JCUnit8 extends org.junit.runners.Parameterized {
   }
 
   @Override
-  protected List<Runner> getChildren() {
+  protected synchronized List<Runner> getChildren() {
+    if (this.runners == null)
+      this.runners = isTestSuiteAvailable() ?
+          createRunners(testSuite(), testCaseIds()) :
+          singletonList(new ErrorReportingRunner(getTestClass().getJavaClass(), this.buildFailure));
     return this.runners;
   }
 
+  /**
+   * Narrows down test cases with descriptions composed from their indices
+   * before creating runners for them, so that only ones that pass {@code filter}
+   * are instantiated.
+   */
+  @Override
+  public void filter(Filter filter) throws NoTestsRemainException {
+    synchronized (this) {
+      if (this.runners == null && isTestSuiteAvailable()) {
+        TestSuite testSuite = testSuite();
+        this.testCaseIds = testCaseIds().stream()
+            .filter(i -> filter.shouldRun(describeTestCase(testSuite, i)))
+            .collect(toList());
+      }
+    }
+    super.filter(filter);
+  }
+
   @Override
   protected void collectInitializationErrors(List<Throwable> errors) {
     this.applyValidators(errors);
   }
 
   protected Statement withBeforeClasses(Statement statement) {
-    return this.testSuite.getScenario().preSuiteProcedures().isEmpty() ?
+    if (!isTestSuiteAvailable())
+      return statement;
+    TestSuite testSuite = testSuite();
+    return testSuite.getScenario().preSuiteProcedures().isEmpty() ?
         statement :
         InternalUtils.createRunBeforesForTestInput(
             statement,
-            this.testSuite.getScenario().preSuiteProcedures(),
-            Tuple.builder().put("@suite", this.testSuite).build()
+            testSuite.getScenario().preSuiteProcedures(),
+            Tuple.builder().put("@suite", testSuite).build()
         );
   }
 
 
   protected Statement withAfterClasses(Statement statement) {
-    return this.testSuite.getScenario().preSuiteProcedures().isEmpty() ?
+    if (!isTestSuiteAvailable())
+      return statement;
+    TestSuite testSuite = testSuite();
+    if (this.sharedFixtures != null)
+      statement = releasingSharedFixtures(statement);
+    if (this.executionProfile != ExecutionProfile.NONE)
+      statement = flushingExecutionProfile(statement);
+    return testSuite.getScenario().postSuiteProcedures().isEmpty() ?
         statement :
         InternalUtils.createRunAftersForTestInput(
             statement,
-            this.testSuite.getScenario().postSuiteProcedures(),
-            Tuple.builder().put("@suite", this.testSuite).build()
+            testSuite.getScenario().postSuiteProcedures(),
+            Tuple.builder().put("@suite", testSuite).build()
         );
   }
 
 
+  private Statement flushingExecutionProfile(Statement statement) {
+    return new Statement() {
+      @Override
+      public void evaluate() throws Throwable {
+        try {
+          statement.evaluate();
+        } finally {
+          executionProfile.flush();
+        }
+      }
+    };
+  }
+
+  private Statement releasingSharedFixtures(Statement statement) {
+    return new Statement() {
+      @Override
+      public void evaluate() throws Throwable {
+        try {
+          statement.evaluate();
+        } finally {
+          sharedFixtures.release();
+        }
+      }
+    };
+  }
+
+  /**
+   * Builds a test suite for {@code testClass}, whose parameters are defined by
+   * a class given by {@link ConfigureWith#parameterSpace()}, or by {@code testClass}
+   * itself if it is not given.
+   *
+   * @param testClass A test class.
+   * @return A test suite.
+   */
+  public static TestSuite buildTestSuite(TestClass testClass) {
+    return buildTestSuite(testClass, configOf(testClass));
+  }
+
+  /**
+   * Builds a test suite for {@code testClass} with {@code config}, which should
+   * be created by {@link #configOf(TestClass)}. A runner records execution times
+   * of test cases to {@link Config#executionProfile()} of the same config so
+   * that the generator reads them.
+   *
+   * @param testClass A test class.
+   * @param config    A config for {@code testClass}.
+   * @return A test suite.
+   */
+  public static TestSuite buildTestSuite(TestClass testClass, Config config) {
+    return buildTestSuite(
+        testClass,
+        createParameterSpaceDefinitionTestClass(testClass),
+        getConfigureWithAnnotation(testClass).value(),
+        config
+    );
+  }
+
+  /**
+   * Creates a config for {@code testClass} with a config factory given by
+   * {@link ConfigureWith#value()}.
+   *
+   * @param testClass A test class.
+   * @return A config for {@code testClass}.
+   */
+  public static Config configOf(TestClass testClass) {
+    return getConfigFactory(testClass).create(testClass.getJavaClass());
+  }
+
+  /**
+   * Validates {@code testClass} and returns errors found in it.
+   *
+   * @param testClass A test class.
+   * @return Errors found in {@code testClass}.
+   */
+  public static List<Throwable> validate(TestClass testClass) {
+    List<Throwable> ret = new LinkedList<>();
+    for (TestClassValidator each : createValidatorsFor(createParameterSpaceDefinitionTestClass(testClass)))
+      ret.addAll(each.validateTestClass(testClass));
+    return ret;
+  }
+
+  /**
+   * Builds a test suite for {@code testClass}. If parameters are defined by
+   * another class, which can be shared by other test classes, the test suite
+   * is looked up in {@link GenerationCache} first.
+   */
   public static TestSuite buildTestSuite(
       TestClass testClass,
       TestClass parameterSpaceDefinitionTestClass,
       ConfigFactory configFactory
   ) {
-    Collection<String> involvedParameterNames = InternalUtils.involvedParameters(testClass);
     return buildTestSuite(
-        configFactory.create(),
+        testClass,
+        parameterSpaceDefinitionTestClass,
+        configFactory.getClass(),
+        configFactory.create(testClass.getJavaClass())
+    );
+  }
+
+  /**
+   * A test suite generated with an execution profile depends on execution times
+   * recorded for {@code testClass}, and therefore it is not looked up in
+   * {@link GenerationCache}. Neither is one generated with a config created by
+   * a factory for which {@link GenerationCache#isCacheable(Class)} is {@code false}.
+   */
+  private static TestSuite buildTestSuite(
+      TestClass testClass,
+      TestClass parameterSpaceDefinitionTestClass,
+      Class<? extends ConfigFactory> configFactoryClass,
+      Config config
+  ) {
+    Collection<String> involvedParameterNames = InternalUtils.involvedParameters(testClass);
+    List<Constraint> constraints = NodeUtils.allTestPredicates(testClass).values().stream()
+        .filter(each -> each instanceof Constraint)
+        .map(Constraint.class::cast)
+        .collect(toList());
+    TestScenario testScenario = TestScenarioFactoryForJUnit4.create(testClass);
+    Supplier<TestSuite> generator = () -> buildTestSuite(
+        config,
         buildParameterSpace(
             new ArrayList<>(
                 buildParameterMap(parameterSpaceDefinitionTestClass).values()
@@ -203,22 +376,88 @@ public class JCUnit8 extends org.junit.runners.Parameterized {
             ).collect(
                 toList()
             ),
-            NodeUtils.allTestPredicates(testClass).values().stream()
-                .filter(each -> each instanceof Constraint)
-                .map(Constraint.class::cast)
-                .collect(toList())
+            constraints
         ),
-        TestScenarioFactoryForJUnit4.create(testClass)
+        testScenario
     );
+    if (Objects.equals(testClass.getJavaClass(), parameterSpaceDefinitionTestClass.getJavaClass())
+        || config.executionProfile() != ExecutionProfile.NONE
+        || !GenerationCache.isCacheable(configFactoryClass))
+      return generator.get();
+    return GenerationCache.get(
+        new GenerationCache.Key(
+            parameterSpaceDefinitionTestClass.getJavaClass(),
+            involvedParameterNames,
+            constraints,
+            configFactoryClass,
+            config.getRequirement()
+        ),
+        testScenario,
+        generator
+    );
+  }
+
+  /**
+   * Builds the test suite if it is not built yet and returns {@code true} if it
+   * is available. A failure on building it is kept to be reported by a child
+   * runner rather than thrown, since JUnit does not expect one from
+   * {@link #getDescription()} or {@link #run(RunNotifier)}.
+   */
+  private synchronized boolean isTestSuiteAvailable() {
+    if (this.testSuite == null && this.buildFailure == null) {
+      try {
+        testSuite();
+      } catch (Throwable e) {
+        this.buildFailure = e;
+      }
+    }
+    return this.buildFailure == null;
+  }
+
+  private synchronized TestSuite testSuite() {
+    if (this.testSuite == null) {
+      Config config = configOf(getTestClass());
+      this.testSuite = buildTestSuite(getTestClass(), config);
+      this.sharedFixtures = SharedFixtures.isUsedBy(this.testSuite.getScenario()) ?
+          new SharedFixtures() :
+          null;
+      this.executionProfile = config.executionProfile();
+    }
+    return this.testSuite;
+  }
+
+  /**
+   * Returns indices of test cases to be run. If any fixture is shared, test
+   * cases are reordered so that the ones sharing it run consecutively, keeping
+   * the order given by the orderer otherwise. See {@link SharedFixtures#order(List, com.github.dakusui.jcunit8.testsuite.TestScenario)}.
+   */
+  private synchronized List<Integer> testCaseIds() {
+    if (this.testCaseIds == null) {
+      TestSuite testSuite = testSuite();
+      this.testCaseIds = this.sharedFixtures != null ?
+          SharedFixtures.order(testSuite, testSuite.getScenario()) :
+          IntStream.range(0, testSuite.size()).boxed().collect(toList());
+    }
+    return this.testCaseIds;
   }
 
-  private List<Runner> createRunners(TestSuite testSuite) {
-    return IntStream.range(
-        0, testSuite.size()
-    ).mapToObj(
+  /**
+   * Returns a description equivalent to the one a runner for a test case whose
+   * index is {@code id} would give, without creating the runner.
+   */
+  private Description describeTestCase(TestSuite testSuite, int id) {
+    Description ret = Description.createSuiteDescription(TestCaseRunner.nameOf(id), getTestClass().getAnnotations());
+    testSuite.getScenario().oracles().forEach(
+        each -> ret.addChild(TestCaseRunner.describeOracle(getTestClass().getJavaClass(), each, id))
+    );
+    return ret;
+  }
+
+  private List<Runner> createRunners(TestSuite testSuite, List<Integer> testCaseIds) {
+    return testCaseIds.stream().map(
         i -> {
           try {
-            return new TestCaseRunner(this.getTestClass().getJavaClass(), i, testSuite);
+            return new TestCaseRunner(this.getTestClass().getJavaClass(), i, testSuite, this.sharedFixtures, this.executionProfile);
           } catch (InitializationError initializationError) {
             throw Checks.wrap(initializationError);
           }
@@ -229,30 +468,27 @@ public class JCUnit8 extends org.junit.runners.Parameterized {
   }
 
   private void applyValidators(List<Throwable> errors) {
-    if (getTestClass().getJavaClass() != null) {
-      for (TestClassValidator each : createValidatorsFor(createParameterSpaceDefinitionTestClass())) {
-        errors.addAll(each.validateTestClass(getTestClass()));
-      }
-    }
+    if (getTestClass().getJavaClass() != null)
+      errors.addAll(validate(getTestClass()));
   }
 
-  private ConfigFactory getConfigFactory() {
+  private static ConfigFactory getConfigFactory(TestClass testClass) {
     try {
-      return getConfigureWithAnnotation().value().newInstance();
+      return getConfigureWithAnnotation(testClass).value().newInstance();
     } catch (InstantiationException | IllegalAccessException e) {
       throw TestDefinitionException.wrap(e);
     }
   }
 
-  private TestClass createParameterSpaceDefinitionTestClass() {
-    Class parameterSpaceClass = getConfigureWithAnnotation().parameterSpace();
+  private static TestClass createParameterSpaceDefinitionTestClass(TestClass testClass) {
+    Class parameterSpaceClass = getConfigureWithAnnotation(testClass).parameterSpace();
     return Objects.equals(parameterSpaceClass, ConfigureWith.DEFAULT_INSTANCE.parameterSpace()) ?
-        this.getTestClass() :
+        testClass :
         new TestClass(parameterSpaceClass);
   }
 
-  private ConfigureWith getConfigureWithAnnotation() {
-    ConfigureWith ret = this.getTestClass().getAnnotation(ConfigureWith.class);
+  private static ConfigureWith getConfigureWithAnnotation(TestClass testClass) {
+    ConfigureWith ret = testClass.getAnnotation(ConfigureWith.class);
     if (ret == null)
       ret = ConfigureWith.DEFAULT_INSTANCE;
     return ret;
@@ -260,23 +496,27 @@ public class JCUnit8 extends org.junit.runners.Parameterized {
 
   private static class TestCaseRunner extends ParentRunner<TestOracle> implements ITestCaseRunner {
 
-    private final int       id;
-    private final TestSuite testSuite;
+    private final int              id;
+    private final TestSuite        testSuite;
+    private final SharedFixtures   sharedFixtures;
+    private final ExecutionProfile executionProfile;
 
     /**
      * Constructs a new {@code ParentRunner} that will run {@code @TestClass}
      *
      * @param javaClass A class that defines a test suite to be run.
      */
-    private TestCaseRunner(Class<?> javaClass, int id, TestSuite testSuite) throws InitializationError {
+    private TestCaseRunner(Class<?> javaClass, int id, TestSuite testSuite, SharedFixtures sharedFixtures, ExecutionProfile executionProfile) throws InitializationError {
       super(javaClass);
       this.id = id;
       this.testSuite = testSuite;
+      this.sharedFixtures = sharedFixtures;
+      this.executionProfile = executionProfile;
     }
 
     @Override
     protected String getName() {
-      return format("[%d]", this.id);
+      return nameOf(this.id);
     }
 
     @Override
@@ -286,9 +526,17 @@ public class JCUnit8 extends org.junit.runners.Parameterized {
 
     @Override
     protected Description describeChild(TestOracle child) {
+      return describeOracle(getTestClass().getJavaClass(), child, this.id);
+    }
+
+    private static String nameOf(int id) {
+      return format("[%d]", id);
+    }
+
+    private static Description describeOracle(Class<?> javaClass, TestOracle oracle, int id) {
       return Description.createTestDescription(
-          getTestClass().getJavaClass(),
-          String.format("%s[%s]", child.getName(), this.id),
+          javaClass,
+          String.format("%s[%s]", oracle.getName(), id),
           new Annotation[0]
       );
     }
@@ -300,7 +548,12 @@ public class JCUnit8 extends org.junit.runners.Parameterized {
       TestCase testCase = this.testSuite.get(this.id);
       Tuple testInput = composeTestInput(testCase.getTestInput());
       if (child.shouldInvoke().test(testInput)) {
-        runLeaf(oracleBlock(child, testInput), description, notifier);
+        JfrEvents.Span span = JfrEvents.testCase(getTestClass().getName(), child.getName(), this.id);
+        try {
+          runLeaf(oracleBlock(child, testInput), description, notifier);
+        } finally {
+          span.end();
+        }
       } else {
         notifier.fireTestIgnored(description);
       }
@@ -316,19 +569,41 @@ public class JCUnit8 extends org.junit.runners.Parameterized {
       if (!checkIfAllChildrenAreIgnored()) {
         statement = withBeforeTestCases(statement);
         statement = withAfterTestCases(statement);
+        statement = recordingExecutionTime(statement);
       }
       return statement;
     }
 
+    private Statement recordingExecutionTime(Statement statement) {
+      if (this.executionProfile == ExecutionProfile.NONE)
+        return statement;
+      return new Statement() {
+        @Override
+        public void evaluate() throws Throwable {
+          long startedAt = System.nanoTime();
+          try {
+            statement.evaluate();
+          } finally {
+            executionProfile.record(getTestCase().getTestInput(), System.nanoTime() - startedAt);
+          }
+        }
+      };
+    }
+
     private Statement withBeforeTestCases(Statement statement) {
-      return testSuite.getScenario().preTestInputProcedures().isEmpty() ?
-          statement :
+      if (testSuite.getScenario().preTestInputProcedures().isEmpty())
+        return statement;
+      return this.sharedFixtures != null ?
+          this.sharedFixtures.withBefores(statement, testSuite.getScenario().preTestInputProcedures(), this.getTestCase().getTestInput()) :
           InternalUtils.createRunBeforesForTestInput(statement, testSuite.getScenario().preTestInputProcedures(), this.getTestCase().getTestInput());
     }
 
     private Statement withAfterTestCases(Statement statement) {
       List<FrameworkMethod> afters = getTestClass().getAnnotatedMethods(AfterTestCase.class);
-      return afters.isEmpty() ? statement :
+      if (afters.isEmpty())
+        return statement;
+      return this.sharedFixtures != null ?
+          this.sharedFixtures.withAfters(statement, testSuite.getScenario().postTestInputProcedures(), this.getTestCase().getTestInput()) :
           InternalUtils.createRunAftersForTestInput(statement, testSuite.getScenario().postTestInputProcedures(), this.getTestCase().getTestInput());
     }
 
@@ -347,13 +622,18 @@ public class JCUnit8 extends org.junit.runners.Parameterized {
       }
     }
 
+    /**
+     * Extends {@code tuple} with {@code @ins} and {@code @suite}. Since test
+     * inputs share a schema, the extended schema is shared among test cases too,
+     * which lets oracles reuse positions of their arguments.
+     */
     private Tuple composeTestInput(Tuple tuple) {
       try {
-        return Tuple.builder()
-            .putAll(tuple)
-            .put("@ins", getTestClass().getOnlyConstructor().newInstance())
-            .put("@suite", testSuite)
-            .build();
+        Tuple ret = new Tuple.Compact();
+        ret.putAll(tuple);
+        ret.put("@ins", getTestClass().getOnlyConstructor().newInstance());
+        ret.put("@suite", testSuite);
+        return ret;
       } catch (InstantiationException | InvocationTargetException | IllegalAccessException e) {
         throw Checks.wrap(e);
       }
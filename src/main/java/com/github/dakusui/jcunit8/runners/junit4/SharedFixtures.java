@@ -0,0 +1,163 @@
+package com.github.dakusui.jcunit8.runners.junit4;
+
+import com.github.dakusui.jcunit.core.tuples.Tuple;
+import com.github.dakusui.jcunit.core.tuples.TupleUtils;
+import com.github.dakusui.jcunit8.testsuite.TestCase;
+import com.github.dakusui.jcunit8.testsuite.TestScenario;
+import com.github.dakusui.jcunit8.testsuite.TupleConsumer;
+import org.junit.runners.model.MultipleFailureException;
+import org.junit.runners.model.Statement;
+
+import java.util.*;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Keeps track of fixtures set up by {@link TupleConsumer.Shared} procedures run
+ * before test cases, so that they are not set up again while values of the
+ * parameters they depend on stay the same.
+ * <p>
+ * Tear-down procedures that are {@link TupleConsumer.Shared} are deferred until
+ * a test case that has different values for their parameters is about to run,
+ * or until {@link #release()} is called at the end of a suite. Since they are
+ * not tied to the order in which test cases are run, fixtures are handled
+ * correctly even if some test cases are filtered out.
+ * <p>
+ * Runners other than {@link JCUnit8} use this class too, and they should run
+ * test cases one by one while it is in use.
+ */
+public class SharedFixtures {
+  private final Map<TupleConsumer, Tuple> established = new HashMap<>();
+  private final Map<TupleConsumer, Tuple> pending     = new LinkedHashMap<>();
+
+  public static boolean isUsedBy(TestScenario scenario) {
+    return !involvedKeys(scenario).isEmpty();
+  }
+
+  /**
+   * Returns indices of {@code testCases} reordered so that test cases having
+   * the same values for parameters on which shared procedures depend are
+   * adjacent. Groups are ordered by their first appearances, and the original
+   * order is kept within each group.
+   * <p>
+   * Runners apply this to a test suite already ordered by {@link com.github.dakusui.jcunit8.pipeline.stages.Orderer},
+   * so the two are composed rather than one replacing the other: keeping shared
+   * fixtures set up takes precedence, and the order given by the orderer decides
+   * the order of groups and the order of test cases within each group.
+   */
+  public static List<Integer> order(List<TestCase> testCases, TestScenario scenario) {
+    List<String> involvedKeys = involvedKeys(scenario);
+    Map<Tuple, List<Integer>> groups = new LinkedHashMap<>();
+    IntStream.range(0, testCases.size()).forEach(
+        i -> groups.computeIfAbsent(
+            TupleUtils.project(testCases.get(i).getTestInput(), involvedKeys),
+            k -> new ArrayList<>()
+        ).add(i)
+    );
+    return groups.values().stream().flatMap(List::stream).collect(toList());
+  }
+
+  Statement withBefores(Statement statement, List<TupleConsumer> befores, Tuple testInput) {
+    return new Statement() {
+      @Override
+      public void evaluate() throws Throwable {
+        prepare(befores, testInput);
+        statement.evaluate();
+      }
+    };
+  }
+
+  Statement withAfters(Statement statement, List<TupleConsumer> afters, Tuple testInput) {
+    return new Statement() {
+      @Override
+      public void evaluate() throws Throwable {
+        List<Throwable> errors = new ArrayList<>();
+        try {
+          statement.evaluate();
+        } catch (Throwable e) {
+          errors.add(e);
+        } finally {
+          errors.addAll(finish(afters, testInput));
+        }
+        MultipleFailureException.assertEmpty(errors);
+      }
+    };
+  }
+
+  /**
+   * Runs deferred tear-down procedures, whose parameters are going to change,
+   * and then set-up procedures unless fixtures set up by them can be reused.
+   */
+  public synchronized void prepare(List<TupleConsumer> befores, Tuple testInput) throws Throwable {
+    for (Iterator<Map.Entry<TupleConsumer, Tuple>> i = this.pending.entrySet().iterator(); i.hasNext(); ) {
+      Map.Entry<TupleConsumer, Tuple> each = i.next();
+      if (!projectionOf(each.getKey(), each.getValue()).equals(projectionOf(each.getKey(), testInput))) {
+        i.remove();
+        each.getKey().accept(each.getValue());
+      }
+    }
+    for (TupleConsumer each : befores) {
+      if (!(each instanceof TupleConsumer.Shared)) {
+        each.accept(testInput);
+        continue;
+      }
+      Tuple projection = projectionOf(each, testInput);
+      if (projection.equals(this.established.get(each)))
+        continue;
+      this.established.remove(each);
+      each.accept(testInput);
+      this.established.put(each, projection);
+    }
+  }
+
+  /**
+   * Runs tear-down procedures after a test case, deferring {@link TupleConsumer.Shared}
+   * ones, and returns errors thrown by them.
+   */
+  public synchronized List<Throwable> finish(List<TupleConsumer> afters, Tuple testInput) {
+    List<Throwable> ret = new ArrayList<>();
+    for (TupleConsumer each : afters) {
+      if (each instanceof TupleConsumer.Shared) {
+        this.pending.put(each, testInput);
+        continue;
+      }
+      try {
+        each.accept(testInput);
+      } catch (Throwable e) {
+        ret.add(e);
+      }
+    }
+    return ret;
+  }
+
+  /**
+   * Runs all the deferred tear-down procedures.
+   */
+  public synchronized void release() throws Throwable {
+    List<Throwable> errors = new ArrayList<>();
+    for (Map.Entry<TupleConsumer, Tuple> each : this.pending.entrySet()) {
+      try {
+        each.getKey().accept(each.getValue());
+      } catch (Throwable e) {
+        errors.add(e);
+      }
+    }
+    this.pending.clear();
+    this.established.clear();
+    MultipleFailureException.assertEmpty(errors);
+  }
+
+  private static Tuple projectionOf(TupleConsumer consumer, Tuple testInput) {
+    return TupleUtils.project(testInput, ((TupleConsumer.Shared) consumer).involvedKeys());
+  }
+
+  private static List<String> involvedKeys(TestScenario scenario) {
+    return Stream.concat(scenario.preTestInputProcedures().stream(), scenario.postTestInputProcedures().stream())
+        .filter(each -> each instanceof TupleConsumer.Shared)
+        .flatMap(each -> ((TupleConsumer.Shared) each).involvedKeys().stream())
+        .distinct()
+        .collect(toList());
+  }
+}
@@ -13,66 +13,83 @@ import org.junit.runners.model.FrameworkMethod;
 import org.junit.runners.model.TestClass;
 
 import java.lang.annotation.Annotation;
+import java.util.Collections;
 import java.util.List;
 import java.util.SortedMap;
 
 import static com.github.dakusui.jcunit8.runners.junit4.utils.InternalUtils.toTestOracle;
+import static java.util.stream.Collectors.collectingAndThen;
 import static java.util.stream.Collectors.toList;
 
 public enum TestScenarioFactoryForJUnit4 {
   ;
 
+  /**
+   * Creates a test scenario for {@code testClass}. Procedures and oracles are
+   * created only once, so that each of them can keep what it prepared for a
+   * method, e.g., how to bind arguments, across test cases.
+   *
+   * @param testClass A test class.
+   * @return A test scenario.
+   */
   public static TestScenario create(TestClass testClass) {
     SortedMap<String, TestPredicate> predicates = NodeUtils.allTestPredicates(testClass);
+    List<TupleConsumer> preSuiteProcedures = toTupleConsumer(testClass, BeforeClass.class);
+    List<TupleConsumer> preTestInputProcedures = toTupleConsumer(testClass, BeforeTestCase.class);
+    List<TupleConsumer> preOracleProcedures = toTupleConsumer(testClass, Before.class);
+    List<TestOracle> oracles = testClass.getAnnotatedMethods(Test.class).stream(
+    ).map(
+        (FrameworkMethod method) -> toTestOracle(method, predicates)
+    ).collect(
+        collectingAndThen(toList(), Collections::unmodifiableList)
+    );
+    List<TupleConsumer> postOracleProcedures = toTupleConsumer(testClass, After.class);
+    List<TupleConsumer> postTestInputProcedures = toTupleConsumer(testClass, AfterTestCase.class);
+    List<TupleConsumer> postSuiteProcedures = toTupleConsumer(testClass, AfterClass.class);
     return new TestScenario() {
       @Override
       public List<TupleConsumer> preSuiteProcedures() {
-        return toTupleConsumer(testClass, BeforeClass.class);
+        return preSuiteProcedures;
       }
 
       @Override
       public List<TupleConsumer> preTestInputProcedures() {
-        return toTupleConsumer(testClass, BeforeTestCase.class);
+        return preTestInputProcedures;
       }
 
       @Override
       public List<TupleConsumer> preOracleProcedures() {
-        return toTupleConsumer(testClass, Before.class);
+        return preOracleProcedures;
       }
 
       @Override
       public List<TestOracle> oracles() {
-        return testClass.getAnnotatedMethods(Test.class).stream(
-        ).map(
-            (FrameworkMethod method) -> toTestOracle(method, predicates)
-        ).collect(
-            toList()
-        );
+        return oracles;
       }
 
       @Override
       public List<TupleConsumer> postOracleProcedures() {
-        return toTupleConsumer(testClass, After.class);
+        return postOracleProcedures;
       }
 
       @Override
       public List<TupleConsumer> postTestInputProcedures() {
-        return toTupleConsumer(testClass, AfterTestCase.class);
+        return postTestInputProcedures;
       }
 
       @Override
       public List<TupleConsumer> postSuiteProcedures() {
-        return toTupleConsumer(testClass, AfterClass.class);
+        return postSuiteProcedures;
       }
     };
   }
 
   private static List<TupleConsumer> toTupleConsumer(TestClass testClass, Class<? extends Annotation> annotationClass) {
-    return testClass.getAnnotatedMethods(annotationClass).stream(
+    return Collections.unmodifiableList(testClass.getAnnotatedMethods(annotationClass).stream(
     ).map(
         InternalUtils::toTupleConsumer
     ).collect(
         toList()
-    );
+    ));
   }
 }
@@ -5,4 +5,14 @@ import java.lang.annotation.RetentionPolicy;
 
 @Retention(RetentionPolicy.RUNTIME)
 public @interface AfterTestCase {
+  /**
+   * If {@code true}, the annotated method is deferred until a test case that
+   * has different values for parameters specified by its {@link From} annotations
+   * is about to run, or until the suite finishes. It is invoked with the input
+   * of the last test case that ran.
+   *
+   * @return {@code true} if the method tears down a fixture shared among test cases.
+   * @see BeforeTestCase#shared()
+   */
+  boolean shared() default false;
 }
@@ -5,4 +5,14 @@ import java.lang.annotation.RetentionPolicy;
 
 @Retention(RetentionPolicy.RUNTIME)
 public @interface BeforeTestCase {
+  /**
+   * If {@code true}, the effect of the annotated method is shared among test
+   * cases that have the same values for parameters specified by its {@link From}
+   * annotations, and the method is invoked only when any of them changes. Test
+   * cases are reordered so that those having the same values run consecutively.
+   *
+   * @return {@code true} if the fixture set up by the method can be shared.
+   * @see AfterTestCase#shared()
+   */
+  boolean shared() default false;
 }
@@ -0,0 +1,173 @@
+package com.github.dakusui.jcunit8.runners.junit4.utils;
+
+import com.github.dakusui.jcunit.core.tuples.Tuple;
+import com.github.dakusui.jcunit.core.utils.Checks;
+import com.github.dakusui.jcunit8.runners.junit4.annotations.From;
+import org.junit.runners.model.FrameworkMethod;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.unmodifiableList;
+
+/**
+ * A plan to invoke a method with arguments taken from a test input, which is
+ * compiled once for each method.
+ * <p>
+ * Names given by {@link From} annotations, types to be verified, and a
+ * {@link MethodHandle} to invoke the method are resolved on compilation. Since
+ * test inputs of a suite are usually {@link Tuple.Compact} tuples sharing one
+ * schema, positions of arguments in a schema are also resolved once and reused
+ * as long as the same schema is given.
+ * <p>
+ * Methods annotated with {@code @Condition} are evaluated through this class,
+ * too.
+ */
+public final class BindingPlan {
+  private static final String INSTANCE = "@ins";
+
+  private final FrameworkMethod method;
+  private final String[]        names;
+  private final Class<?>[]      types;
+  private final boolean[]       primitive;
+  private final MethodHandle    invoker;
+  private volatile Slots        slots;
+
+  private BindingPlan(FrameworkMethod method) {
+    Class<?>[] parameterTypes = method.getMethod().getParameterTypes();
+    this.method = method;
+    this.names = InternalUtils.getParameterAnnotationsFrom(method, From.class).stream()
+        .map(From::value)
+        .toArray(String[]::new);
+    this.types = new Class<?>[parameterTypes.length];
+    this.primitive = new boolean[parameterTypes.length];
+    for (int i = 0; i < parameterTypes.length; i++) {
+      this.primitive[i] = parameterTypes[i].isPrimitive();
+      this.types[i] = InternalUtils.wrapperOf(parameterTypes[i]);
+    }
+    this.invoker = invokerFor(method.getMethod());
+  }
+
+  public static BindingPlan compile(FrameworkMethod method) {
+    return new BindingPlan(method);
+  }
+
+  /**
+   * Invokes the method on {@code @ins} in {@code testInput} with arguments
+   * taken from it.
+   *
+   * @param testInput A test input.
+   * @return A value returned by the method.
+   * @throws IllegalArgumentException An argument is not compatible with its parameter.
+   * @throws Throwable                Thrown by the method.
+   */
+  public Object invoke(Tuple testInput) throws Throwable {
+    Object target = testInput instanceof Tuple.Compact ?
+        valueAt((Tuple.Compact) testInput, slotsFor(((Tuple.Compact) testInput).schema()).target) :
+        testInput.get(INSTANCE);
+    return invoke(target, argumentsFrom(testInput));
+  }
+
+  /**
+   * Invokes the method on {@code target} with {@code arguments}.
+   *
+   * @param target    An object on which the method is invoked. Ignored if the method is static.
+   * @param arguments Arguments given to the method.
+   * @return A value returned by the method.
+   * @throws IllegalArgumentException An argument is not compatible with its parameter.
+   * @throws Throwable                Thrown by the method.
+   */
+  public Object invoke(Object target, Object[] arguments) throws Throwable {
+    verify(arguments);
+    return (Object) this.invoker.invokeExact(target, arguments);
+  }
+
+  /**
+   * Returns values in {@code testInput} for names given by {@link From}
+   * annotations of the method. A value for a name not in {@code testInput} is
+   * {@code null}.
+   *
+   * @param testInput A test input.
+   * @return A new array of arguments.
+   */
+  public Object[] argumentsFrom(Tuple testInput) {
+    Object[] ret = new Object[this.names.length];
+    if (testInput instanceof Tuple.Compact) {
+      Tuple.Compact compact = (Tuple.Compact) testInput;
+      Slots slots = slotsFor(compact.schema());
+      for (int i = 0; i < ret.length; i++)
+        ret[i] = valueAt(compact, slots.arguments[i]);
+    } else {
+      for (int i = 0; i < ret.length; i++)
+        ret[i] = testInput.get(this.names[i]);
+    }
+    return ret;
+  }
+
+  /**
+   * Returns names given by {@link From} annotations of the method.
+   */
+  public List<String> names() {
+    return unmodifiableList(asList(this.names));
+  }
+
+  private void verify(Object[] arguments) {
+    for (int i = 0; i < arguments.length; i++) {
+      Object each = arguments[i];
+      if (each == null ? this.primitive[i] : !this.types[i].isInstance(each))
+        throw new IllegalArgumentException(InternalUtils.composeErrorMessageForTypeMismatch(each, this.method, i));
+    }
+  }
+
+  private Slots slotsFor(Tuple.Compact.Schema schema) {
+    Slots ret = this.slots;
+    if (ret == null || ret.schema != schema)
+      this.slots = ret = new Slots(schema, this.names);
+    return ret;
+  }
+
+  private static Object valueAt(Tuple.Compact tuple, int slot) {
+    return slot < 0 ?
+        null :
+        tuple.valueAt(slot);
+  }
+
+  /**
+   * Returns a method handle of type {@code (Object, Object[])Object}, which
+   * ignores the first argument if {@code method} is static.
+   */
+  private static MethodHandle invokerFor(Method method) {
+    try {
+      if (!Modifier.isPublic(method.getModifiers()) || !Modifier.isPublic(method.getDeclaringClass().getModifiers()))
+        method.setAccessible(true);
+      MethodHandle ret = MethodHandles.lookup().unreflect(method);
+      if (Modifier.isStatic(method.getModifiers()))
+        ret = MethodHandles.dropArguments(ret, 0, Object.class);
+      return ret
+          .asFixedArity()
+          .asSpreader(Object[].class, method.getParameterCount())
+          .asType(MethodType.methodType(Object.class, Object.class, Object[].class));
+    } catch (IllegalAccessException e) {
+      throw Checks.wrap(e);
+    }
+  }
+
+  private static final class Slots {
+    final Tuple.Compact.Schema schema;
+    final int                  target;
+    final int[]                arguments;
+
+    Slots(Tuple.Compact.Schema schema, String[] names) {
+      this.schema = schema;
+      this.target = schema.indexOf(INSTANCE);
+      this.arguments = new int[names.length];
+      for (int i = 0; i < names.length; i++)
+        this.arguments[i] = schema.indexOf(names[i]);
+    }
+  }
+}
@@ -135,6 +135,12 @@ public enum InternalUtils {
     return argumentValues;
   }
 
+  static Class<?> wrapperOf(Class<?> type) {
+    return type.isPrimitive() ?
+        PRIMITIVE_TO_WRAPPER.get(type) :
+        type;
+  }
+
   static String composeErrorMessageForTypeMismatch(Object argumentValue, FrameworkMethod method, int parameterIndex) {
     return String.format("'%s' is not compatible with parameter %s of '%s(%s)'",
         argumentValue,
@@ -147,7 +153,43 @@ public enum InternalUtils {
   }
 
   public static TupleConsumer toTupleConsumer(FrameworkMethod method) {
+    TupleConsumer ret = toPlainTupleConsumer(method);
+    if (!isShared(method))
+      return ret;
+    return new TupleConsumer.Shared() {
+      private volatile List<String> involvedKeys;
+
+      @Override
+      public List<String> involvedKeys() {
+        if (this.involvedKeys == null)
+          this.involvedKeys = getParameterAnnotationsFrom(method, From.class).stream()
+              .map(From::value)
+              .collect(toList());
+        return this.involvedKeys;
+      }
+
+      @Override
+      public String getName() {
+        return ret.getName();
+      }
+
+      @Override
+      public void accept(Tuple testInput) {
+        ret.accept(testInput);
+      }
+    };
+  }
+
+  private static boolean isShared(FrameworkMethod method) {
+    BeforeTestCase beforeTestCase = method.getAnnotation(BeforeTestCase.class);
+    AfterTestCase afterTestCase = method.getAnnotation(AfterTestCase.class);
+    return (beforeTestCase != null && beforeTestCase.shared()) || (afterTestCase != null && afterTestCase.shared());
+  }
+
+  private static TupleConsumer toPlainTupleConsumer(FrameworkMethod method) {
     return new TupleConsumer() {
+      private volatile BindingPlan bindingPlan;
+
       @Override
       public String getName() {
         return method.getName();
@@ -156,7 +198,9 @@ public enum InternalUtils {
       @Override
       public void accept(Tuple testInput) {
         try {
-          InternalUtils.invokeExplosivelyWithArgumentsFromTestInput(method, testInput);
+          if (this.bindingPlan == null)
+            this.bindingPlan = BindingPlan.compile(method);
+          this.bindingPlan.invoke(testInput);
         } catch (Throwable throwable) {
           throw Checks.wrap(throwable);
         }
@@ -166,6 +210,9 @@ public enum InternalUtils {
 
   public static TestOracle toTestOracle(FrameworkMethod method, SortedMap<String, TestPredicate> predicates) {
     return new TestOracle() {
+      private volatile Predicate<Tuple> shouldInvoke;
+      private volatile BindingPlan      bindingPlan;
+
       @Override
       public String getName() {
         return method.getName();
@@ -173,7 +220,9 @@ public enum InternalUtils {
 
       @Override
       public Predicate<Tuple> shouldInvoke() {
-        return InternalUtils.shouldInvoke(method, predicates);
+        if (this.shouldInvoke == null)
+          this.shouldInvoke = InternalUtils.shouldInvoke(method, predicates);
+        return this.shouldInvoke;
       }
 
       @Override
@@ -182,7 +231,9 @@ public enum InternalUtils {
           @Override
           public Result apply(Tuple tuple) {
             try {
-              return Result.returned(InternalUtils.invokeExplosivelyWithArgumentsFromTestInput(method, tuple));
+              if (bindingPlan == null)
+                bindingPlan = BindingPlan.compile(method);
+              return Result.returned(bindingPlan.invoke(tuple));
             } catch (Throwable throwable) {
               return Result.thrown(throwable);
             }
@@ -197,10 +248,10 @@ public enum InternalUtils {
 
       @Override
       public Predicate<Result> then() {
+        Class<? extends Throwable> expectedExceptionClass = method.getAnnotation(Test.class).expected();
         return new Predicate<Result>() {
           @Override
           public boolean test(Result result) {
-            Class<? extends Throwable> expectedExceptionClass = method.getAnnotation(Test.class).expected();
             if (expectedExceptionClass.equals(Test.None.class)) {
               if (Objects.equals(result.exitedWith(), Result.Exit.RETURNING_VALUE))
                 return true;
@@ -216,7 +267,7 @@ public enum InternalUtils {
 
           @Override
           public String toString() {
-            return String.format("thrown%s", method.getAnnotation(Test.class).expected().getSimpleName());
+            return String.format("thrown%s", expectedExceptionClass.getSimpleName());
           }
         };
       }
@@ -224,17 +275,12 @@ public enum InternalUtils {
   }
 
   public static Predicate<Tuple> shouldInvoke(FrameworkMethod method, SortedMap<String, TestPredicate> predicates) {
-    return tuple -> {
-      //noinspection SimplifiableIfStatement
-      if (method.getAnnotation(Given.class) == null)
-        return true;
-      return NodeUtils.buildPredicate(
-          method.getAnnotation(Given.class).value(),
-          predicates
-      ).test(
-          tuple
-      );
-    };
+    if (method.getAnnotation(Given.class) == null)
+      return tuple -> true;
+    return NodeUtils.buildPredicate(
+        method.getAnnotation(Given.class).value(),
+        predicates
+    );
   }
 
   @SuppressWarnings("unchecked")
@@ -0,0 +1,471 @@
+package com.github.dakusui.jcunit8.runners.platform;
+
+import com.github.dakusui.jcunit.core.tuples.Tuple;
+import com.github.dakusui.jcunit8.core.Utils;
+import com.github.dakusui.jcunit8.pipeline.Config;
+import com.github.dakusui.jcunit8.pipeline.ExecutionProfile;
+import com.github.dakusui.jcunit8.runners.junit4.JCUnit8;
+import com.github.dakusui.jcunit8.runners.junit4.SharedFixtures;
+import com.github.dakusui.jcunit8.runners.junit4.annotations.Condition;
+import com.github.dakusui.jcunit8.runners.junit4.annotations.ConfigureWith;
+import com.github.dakusui.jcunit8.runners.junit4.annotations.ParameterSource;
+import com.github.dakusui.jcunit8.testsuite.TestOracle;
+import com.github.dakusui.jcunit8.testsuite.TestSuite;
+import com.github.dakusui.jcunit8.testsuite.TupleConsumer;
+import org.junit.Test;
+import org.junit.platform.commons.support.ReflectionSupport;
+import org.junit.platform.engine.*;
+import org.junit.platform.engine.discovery.*;
+import org.junit.platform.engine.support.config.PrefixedConfigurationParameters;
+import org.junit.platform.engine.support.descriptor.AbstractTestDescriptor;
+import org.junit.platform.engine.support.descriptor.ClassSource;
+import org.junit.platform.engine.support.descriptor.EngineDescriptor;
+import org.junit.platform.engine.support.descriptor.MethodSource;
+import org.junit.platform.engine.support.hierarchical.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.model.InitializationError;
+import org.junit.runners.model.TestClass;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static java.lang.String.format;
+
+/**
+ * A JUnit Platform test engine that runs test classes of JCUnit8 without JUnit
+ * 4's runners.
+ * <p>
+ * Classes that have methods annotated with {@link ParameterSource} or {@link Condition},
+ * or are annotated with {@link ConfigureWith}, and have {@link Test} methods are
+ * discovered. Classes annotated with {@link RunWith} are left to JUnit 4. Nested
+ * classes, which are usually fixtures of other tests, are discovered only when
+ * they are selected explicitly, e.g., by a class or a method selector. A test
+ * suite is built once for each class when it is executed, and then each test case
+ * and each oracle for it are registered as dynamic tests, whose unique ids look
+ * like {@code [engine:jcunit8]/[class:Example]/[test-case:3]/[oracle:test]}.
+ * <p>
+ * Test classes, test cases, and oracles are run concurrently if {@value #PARALLEL_EXECUTION_ENABLED}
+ * is {@code true}, which can be tuned by configuration parameters prefixed with
+ * {@value #PARALLEL_EXECUTION_CONFIG_PREFIX} in the same way as JUnit Jupiter's.
+ * Test cases of a class using shared fixtures are still run one by one.
+ * <p>
+ * This engine is registered as a service, so that it is available to any build
+ * that has this library and the JUnit Platform launcher on its classpath. Set
+ * {@value #ENABLED} to {@code false} to keep it from discovering anything, e.g.,
+ * when JCUnit8's classes should be run only by JUnit 4's runners.
+ */
+public class JCUnit8Engine extends HierarchicalTestEngine<JCUnit8Engine.Context> {
+  public static final String ENGINE_ID                        = "jcunit8";
+  public static final String ENABLED                          = "jcunit8.engine.enabled";
+  public static final String PARALLEL_EXECUTION_ENABLED       = "jcunit8.execution.parallel.enabled";
+  public static final String PARALLEL_EXECUTION_CONFIG_PREFIX = "jcunit8.execution.parallel.config.";
+
+  private static final String CLASS     = "class";
+  private static final String TEST_CASE = "test-case";
+  private static final String ORACLE    = "oracle";
+
+  @Override
+  public String getId() {
+    return ENGINE_ID;
+  }
+
+  @Override
+  public TestDescriptor discover(EngineDiscoveryRequest request, UniqueId uniqueId) {
+    EngineDescriptor ret = new EngineDescriptor(uniqueId, "JCUnit8");
+    if (!request.getConfigurationParameters().getBoolean(ENABLED).orElse(true))
+      return ret;
+    Map<Class<?>, TestClassDescriptor> classes = new LinkedHashMap<>();
+    Predicate<String> classNameFilter = Filter.composeFilters(request.getFiltersByType(ClassNameFilter.class)).toPredicate();
+    request.getSelectorsByType(ClasspathRootSelector.class).forEach(
+        each -> ReflectionSupport.findAllClassesInClasspathRoot(each.getClasspathRoot(), JCUnit8Engine::isScannedTestClass, classNameFilter)
+            .forEach(klass -> resolve(classes, uniqueId, klass).selectAll())
+    );
+    request.getSelectorsByType(PackageSelector.class).forEach(
+        each -> ReflectionSupport.findAllClassesInPackage(each.getPackageName(), JCUnit8Engine::isScannedTestClass, classNameFilter)
+            .forEach(klass -> resolve(classes, uniqueId, klass).selectAll())
+    );
+    request.getSelectorsByType(ClassSelector.class).stream()
+        .map(ClassSelector::getJavaClass)
+        .filter(JCUnit8Engine::isTestClass)
+        .forEach(klass -> resolve(classes, uniqueId, klass).selectAll());
+    request.getSelectorsByType(MethodSelector.class).stream()
+        .filter(each -> isTestClass(each.getJavaClass()))
+        .forEach(each -> resolve(classes, uniqueId, each.getJavaClass()).selectOracle(each.getMethodName()));
+    request.getSelectorsByType(UniqueIdSelector.class).stream()
+        .map(UniqueIdSelector::getUniqueId)
+        .forEach(each -> resolve(classes, uniqueId, each));
+    classes.values().forEach(ret::addChild);
+    return ret;
+  }
+
+  @Override
+  protected HierarchicalTestExecutorService createExecutorService(ExecutionRequest request) {
+    ConfigurationParameters parameters = request.getConfigurationParameters();
+    return parameters.getBoolean(PARALLEL_EXECUTION_ENABLED).orElse(false) ?
+        new ForkJoinPoolHierarchicalTestExecutorService(new PrefixedConfigurationParameters(parameters, PARALLEL_EXECUTION_CONFIG_PREFIX)) :
+        super.createExecutorService(request);
+  }
+
+  @Override
+  protected Context createExecutionContext(ExecutionRequest request) {
+    return new Context(null, null, null, ExecutionProfile.NONE, null);
+  }
+
+  /**
+   * Returns {@code true} if {@code klass} should be discovered by scanning a
+   * classpath root or a package. Only top level test classes are.
+   */
+  static boolean isScannedTestClass(Class<?> klass) {
+    return !klass.isMemberClass() && isTestClass(klass);
+  }
+
+  static boolean isTestClass(Class<?> klass) {
+    int modifiers = klass.getModifiers();
+    if (!Modifier.isPublic(modifiers) || Modifier.isAbstract(modifiers) || klass.isInterface())
+      return false;
+    if (klass.isMemberClass() && !Modifier.isStatic(modifiers))
+      return false;
+    if (klass.isAnnotationPresent(RunWith.class))
+      return false;
+    Method[] methods = klass.getMethods();
+    return Stream.of(methods).anyMatch(each -> each.isAnnotationPresent(Test.class)) &&
+        (klass.isAnnotationPresent(ConfigureWith.class) ||
+            Stream.of(methods).anyMatch(each -> each.isAnnotationPresent(ParameterSource.class) || each.isAnnotationPresent(Condition.class)));
+  }
+
+  private static TestClassDescriptor resolve(Map<Class<?>, TestClassDescriptor> classes, UniqueId engineId, Class<?> klass) {
+    return classes.computeIfAbsent(klass, k -> new TestClassDescriptor(engineId.append(CLASS, k.getName()), k));
+  }
+
+  private static void resolve(Map<Class<?>, TestClassDescriptor> classes, UniqueId engineId, UniqueId selected) {
+    List<UniqueId.Segment> segments = selected.getSegments();
+    if (!selected.hasPrefix(engineId) || segments.size() < 2 || !CLASS.equals(segments.get(1).getType()))
+      return;
+    ReflectionSupport.tryToLoadClass(segments.get(1).getValue()).toOptional()
+        .filter(JCUnit8Engine::isTestClass)
+        .map(klass -> resolve(classes, engineId, klass))
+        .ifPresent(each -> {
+          if (segments.size() == 2)
+            each.selectAll();
+          else
+            each.select(selected);
+        });
+  }
+
+  /**
+   * A context passed from a descriptor to its children while being executed.
+   */
+  public static class Context implements EngineExecutionContext {
+    final TestClass        testClass;
+    final TestSuite        testSuite;
+    /**
+     * Fixtures shared among test cases, or {@code null} if no procedure run
+     * before or after a test case is shared.
+     */
+    final SharedFixtures   sharedFixtures;
+    final ExecutionProfile executionProfile;
+    final Tuple            testInput;
+
+    private Context(TestClass testClass, TestSuite testSuite, SharedFixtures sharedFixtures, ExecutionProfile executionProfile, Tuple testInput) {
+      this.testClass = testClass;
+      this.testSuite = testSuite;
+      this.sharedFixtures = sharedFixtures;
+      this.executionProfile = executionProfile;
+      this.testInput = testInput;
+    }
+
+    Context withTestInput(Tuple testInput) {
+      return new Context(this.testClass, this.testSuite, this.sharedFixtures, this.executionProfile, testInput);
+    }
+  }
+
+  static class TestClassDescriptor extends AbstractTestDescriptor implements Node<Context> {
+    private final Class<?>      javaClass;
+    private final Set<UniqueId> selectedIds     = new HashSet<>();
+    private final Set<String>   selectedOracles = new HashSet<>();
+    private       boolean       all;
+
+    TestClassDescriptor(UniqueId uniqueId, Class<?> javaClass) {
+      super(uniqueId, javaClass.getSimpleName(), ClassSource.from(javaClass));
+      this.javaClass = javaClass;
+    }
+
+    @Override
+    public Type getType() {
+      return Type.CONTAINER;
+    }
+
+    @Override
+    public boolean mayRegisterTests() {
+      return true;
+    }
+
+    @Override
+    public Context before(Context context) throws Exception {
+      TestClass testClass = new TestClass(this.javaClass);
+      List<Throwable> errors = JCUnit8.validate(testClass);
+      if (!errors.isEmpty())
+        throw new InitializationError(errors);
+      Config config = JCUnit8.configOf(testClass);
+      TestSuite testSuite = JCUnit8.buildTestSuite(testClass, config);
+      Context ret = new Context(
+          testClass,
+          testSuite,
+          SharedFixtures.isUsedBy(testSuite.getScenario()) ?
+              new SharedFixtures() :
+              null,
+          config.executionProfile(),
+          Tuple.builder().put("@suite", testSuite).build()
+      );
+      runAll(testSuite.getScenario().preSuiteProcedures(), ret.testInput);
+      return ret;
+    }
+
+    @Override
+    public Context execute(Context context, DynamicTestExecutor dynamicTestExecutor) throws Exception {
+      TestSuite testSuite = context.testSuite;
+      (context.sharedFixtures != null ?
+          SharedFixtures.order(testSuite, testSuite.getScenario()).stream() :
+          IntStream.range(0, testSuite.size()).boxed()
+      ).map(
+          i -> new TestCaseDescriptor(this, i, context.sharedFixtures != null)
+      ).filter(
+          each -> isSelected(each.getUniqueId(), null)
+      ).forEach(
+          each -> {
+            addChild(each);
+            dynamicTestExecutor.execute(each);
+          }
+      );
+      dynamicTestExecutor.awaitFinished();
+      return context;
+    }
+
+    @Override
+    public void after(Context context) throws Exception {
+      List<Throwable> errors = new ArrayList<>();
+      if (context.sharedFixtures != null) {
+        try {
+          context.sharedFixtures.release();
+        } catch (Throwable e) {
+          errors.add(e);
+        }
+      }
+      try {
+        runAll(context.testSuite.getScenario().postSuiteProcedures(), context.testInput);
+      } catch (Throwable e) {
+        errors.add(e);
+      }
+      try {
+        context.executionProfile.flush();
+      } catch (Throwable e) {
+        errors.add(e);
+      }
+      throwIfAny(errors);
+    }
+
+    void selectAll() {
+      this.all = true;
+    }
+
+    void selectOracle(String name) {
+      this.selectedOracles.add(name);
+    }
+
+    void select(UniqueId uniqueId) {
+      this.selectedIds.add(uniqueId);
+    }
+
+    /**
+     * Checks if a test case, or an oracle if {@code oracleName} is not {@code null},
+     * is selected, or any of its descendants is.
+     */
+    boolean isSelected(UniqueId uniqueId, String oracleName) {
+      if (this.all)
+        return true;
+      if (!this.selectedOracles.isEmpty() && (oracleName == null || this.selectedOracles.contains(oracleName)))
+        return true;
+      return this.selectedIds.stream().anyMatch(each -> uniqueId.hasPrefix(each) || (oracleName == null && each.hasPrefix(uniqueId)));
+    }
+  }
+
+  static class TestCaseDescriptor extends AbstractTestDescriptor implements Node<Context> {
+    private final TestClassDescriptor parent;
+    private final int                 id;
+    private final boolean             usesSharedFixtures;
+
+    TestCaseDescriptor(TestClassDescriptor parent, int id, boolean usesSharedFixtures) {
+      super(parent.getUniqueId().append(TEST_CASE, Integer.toString(id)), format("[%d]", id), ClassSource.from(parent.javaClass));
+      this.parent = parent;
+      this.id = id;
+      this.usesSharedFixtures = usesSharedFixtures;
+    }
+
+    @Override
+    public Type getType() {
+      return Type.CONTAINER;
+    }
+
+    @Override
+    public boolean mayRegisterTests() {
+      return true;
+    }
+
+    @Override
+    public ExecutionMode getExecutionMode() {
+      return this.usesSharedFixtures ?
+          ExecutionMode.SAME_THREAD :
+          ExecutionMode.CONCURRENT;
+    }
+
+    /**
+     * Records time spent for this test case, including procedures run before
+     * and after it, to the execution profile.
+     */
+    @Override
+    public void around(Context context, Invocation<Context> invocation) throws Exception {
+      if (context.executionProfile == ExecutionProfile.NONE) {
+        invocation.invoke(context);
+        return;
+      }
+      long startedAt = System.nanoTime();
+      try {
+        invocation.invoke(context);
+      } finally {
+        context.executionProfile.record(context.testSuite.get(this.id).getTestInput(), System.nanoTime() - startedAt);
+      }
+    }
+
+    @Override
+    public Context before(Context context) throws Exception {
+      Context ret = context.withTestInput(context.testSuite.get(this.id).getTestInput());
+      List<TupleConsumer> befores = context.testSuite.getScenario().preTestInputProcedures();
+      if (context.sharedFixtures != null) {
+        try {
+          context.sharedFixtures.prepare(befores, ret.testInput);
+        } catch (Exception | Error e) {
+          throw e;
+        } catch (Throwable e) {
+          throw new RuntimeException(e);
+        }
+      } else
+        runAll(befores, ret.testInput);
+      return ret;
+    }
+
+    @Override
+    public Context execute(Context context, DynamicTestExecutor dynamicTestExecutor) throws Exception {
+      context.testSuite.getScenario().oracles().stream()
+          .map(each -> new TestOracleDescriptor(this, each))
+          .filter(each -> this.parent.isSelected(each.getUniqueId(), each.oracle.getName()))
+          .forEach(each -> {
+            addChild(each);
+            dynamicTestExecutor.execute(each);
+          });
+      dynamicTestExecutor.awaitFinished();
+      return context;
+    }
+
+    @Override
+    public void after(Context context) throws Exception {
+      List<TupleConsumer> afters = context.testSuite.getScenario().postTestInputProcedures();
+      throwIfAny(context.sharedFixtures != null ?
+          context.sharedFixtures.finish(afters, context.testInput) :
+          runEach(afters, context.testInput));
+    }
+  }
+
+  static class TestOracleDescriptor extends AbstractTestDescriptor implements Node<Context> {
+    private final TestOracle oracle;
+
+    TestOracleDescriptor(TestCaseDescriptor parent, TestOracle oracle) {
+      super(
+          parent.getUniqueId().append(ORACLE, oracle.getName()),
+          format("%s[%d]", oracle.getName(), parent.id),
+          MethodSource.from(parent.parent.javaClass.getName(), oracle.getName())
+      );
+      this.oracle = oracle;
+    }
+
+    @Override
+    public Type getType() {
+      return Type.TEST;
+    }
+
+    /**
+     * Extends the test input with {@code @ins}, a new instance of the test class,
+     * and {@code @suite}.
+     */
+    @Override
+    public Context prepare(Context context) {
+      Tuple testInput = new Tuple.Compact();
+      testInput.putAll(context.testInput);
+      testInput.put("@ins", Utils.createInstanceOf(context.testClass));
+      testInput.put("@suite", context.testSuite);
+      return context.withTestInput(testInput);
+    }
+
+    @Override
+    public SkipResult shouldBeSkipped(Context context) {
+      return this.oracle.shouldInvoke().test(context.testInput) ?
+          SkipResult.doNotSkip() :
+          SkipResult.skip(format("Conditions given to '%s' are not satisfied", this.oracle.getName()));
+    }
+
+    /**
+     * Runs the oracle between procedures run before and after it. Procedures
+     * after the oracle are run even if the oracle or a procedure before it fails,
+     * and errors thrown by any of them are reported together.
+     */
+    @Override
+    public Context execute(Context context, DynamicTestExecutor dynamicTestExecutor) throws Exception {
+      List<Throwable> errors = new ArrayList<>();
+      try {
+        runAll(context.testSuite.getScenario().preOracleProcedures(), context.testInput);
+        this.oracle.accept(context.testInput);
+      } catch (Throwable e) {
+        errors.add(e);
+      } finally {
+        errors.addAll(runEach(context.testSuite.getScenario().postOracleProcedures(), context.testInput));
+      }
+      throwIfAny(errors);
+      return context;
+    }
+  }
+
+  private static void runAll(List<TupleConsumer> procedures, Tuple testInput) {
+    procedures.forEach(each -> each.accept(testInput));
+  }
+
+  /**
+   * Runs all the procedures even if some of them fail, and returns errors thrown
+   * by them.
+   */
+  private static List<Throwable> runEach(List<TupleConsumer> procedures, Tuple testInput) {
+    List<Throwable> ret = new ArrayList<>();
+    for (TupleConsumer each : procedures) {
+      try {
+        each.accept(testInput);
+      } catch (Throwable e) {
+        ret.add(e);
+      }
+    }
+    return ret;
+  }
+
+  private static void throwIfAny(List<Throwable> errors) throws Exception {
+    if (errors.isEmpty())
+      return;
+    Throwable first = errors.get(0);
+    errors.subList(1, errors.size()).forEach(first::addSuppressed);
+    if (first instanceof Exception)
+      throw (Exception) first;
+    if (first instanceof Error)
+      throw (Error) first;
+    throw new RuntimeException(first);
+  }
+}
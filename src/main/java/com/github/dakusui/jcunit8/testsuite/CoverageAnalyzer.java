@@ -0,0 +1,250 @@
+package com.github.dakusui.jcunit8.testsuite;
+
+import com.github.dakusui.jcunit.core.tuples.Tuple;
+import com.github.dakusui.jcunit.core.tuples.TupleUtils;
+import com.github.dakusui.jcunit8.core.StreamableTupleCartesianator;
+import com.github.dakusui.jcunit8.factorspace.Constraint;
+import com.github.dakusui.jcunit8.factorspace.Factor;
+import com.github.dakusui.jcunit8.factorspace.FactorSpace;
+import com.github.dakusui.jcunit8.pipeline.stages.Partitioner;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Analyzes t-way combinatorial coverage of a list of tuples, e.g., a
+ * {@link SchemafulTupleSet}, against a factor space.
+ * <p>
+ * Interactions covered by the tuples are recorded in a bit set indexed by an
+ * {@link InteractionSpace}. Combinations of factors are processed in parallel
+ * only if it is requested on construction, since examining feasibility
+ * evaluates constraints, which are user code. An interaction not covered is counted as missing only if it is
+ * feasible, i.e., it can be extended to a tuple that satisfies all the
+ * constraints. Feasibility is examined for each group of constraints connected
+ * through shared factors, only on the factors of the group, and memoized.
+ * <p>
+ * Tuples that violate any constraint don't cover anything, since they are not
+ * regular test cases. A value not among the levels of its factor doesn't cover
+ * any interaction either.
+ */
+public class CoverageAnalyzer {
+  private final InteractionSpace          interactionSpace;
+  private final List<Constraint>          constraints;
+  private final List<FactorSpace>         constraintGroups;
+  private final int[]                     constraintGroupOf;
+  private final List<Map<Tuple, Boolean>> feasibility;
+  private final boolean                   parallel;
+
+  public CoverageAnalyzer(FactorSpace factorSpace, int strength) {
+    this(factorSpace, strength, false);
+  }
+
+  /**
+   * Creates an analyzer.
+   *
+   * @param factorSpace A factor space against which coverage is analyzed.
+   * @param strength    A strength of interactions.
+   * @param parallel    {@code true} to process combinations of factors in
+   *                    parallel. Constraints of {@code factorSpace} must be
+   *                    thread safe then.
+   */
+  public CoverageAnalyzer(FactorSpace factorSpace, int strength, boolean parallel) {
+    requireNonNull(factorSpace);
+    this.parallel = parallel;
+    this.interactionSpace = new InteractionSpace(factorSpace.getFactors(), strength);
+    this.constraints = factorSpace.getConstraints();
+    this.constraintGroups = new Partitioner.UnionFind().apply(factorSpace).stream()
+        .filter(each -> !each.getConstraints().isEmpty())
+        .collect(toList());
+    this.constraintGroupOf = new int[factorSpace.getFactors().size()];
+    Arrays.fill(this.constraintGroupOf, -1);
+    for (int i = 0; i < this.constraintGroups.size(); i++)
+      for (String each : this.constraintGroups.get(i).getFactorNames())
+        this.constraintGroupOf[factorSpace.getFactorNames().indexOf(each)] = i;
+    this.feasibility = new ArrayList<>(this.constraintGroups.size());
+    for (int i = 0; i < this.constraintGroups.size(); i++)
+      this.feasibility.add(new ConcurrentHashMap<>());
+  }
+
+  public InteractionSpace interactionSpace() {
+    return this.interactionSpace;
+  }
+
+  /**
+   * Analyzes coverage of {@code tuples}.
+   *
+   * @param tuples Tuples to be analyzed.
+   * @return A report of coverage.
+   */
+  public Report analyze(List<Tuple> tuples) {
+    List<int[]> rows = tuples.stream()
+        .filter(tuple -> this.constraints.stream().allMatch(constraint -> constraint.test(tuple)))
+        .map(this.interactionSpace::encode)
+        .collect(toList());
+    int[][] columns = new int[this.interactionSpace.factors().size()][rows.size()];
+    for (int i = 0; i < rows.size(); i++)
+      for (int j = 0; j < columns.length; j++)
+        columns[j][i] = rows.get(i)[j];
+    long[] covered = this.interactionSpace.newBitSet();
+    IntStream ranks = IntStream.range(0, this.interactionSpace.numCombinations());
+    long[] counts = (this.parallel ? ranks.parallel() : ranks)
+        .mapToObj(rank -> analyzeBlock(rank, columns, covered))
+        .reduce(new long[3], (a, b) -> new long[] { a[0] + b[0], a[1] + b[1], a[2] + b[2] });
+    return new Report(this, tuples.size(), tuples.size() - rows.size(), counts[0], counts[1], counts[2], covered);
+  }
+
+  /**
+   * Returns {@code {covered, missing, infeasible}} for a combination identified
+   * by {@code rank}.
+   */
+  private long[] analyzeBlock(int rank, int[][] columns, long[] covered) {
+    int[] combination = this.interactionSpace.combination(rank);
+    long offset = this.interactionSpace.offset(rank);
+    long blockSize = this.interactionSpace.blockSize(rank);
+    this.interactionSpace.addAll(covered, rank, columns);
+    long numCovered = 0;
+    for (int i = (int) (offset >>> 6); i < (int) (this.interactionSpace.offset(rank + 1) >>> 6); i++)
+      numCovered += Long.bitCount(covered[i]);
+    if (!involvesConstraints(combination))
+      return new long[] { numCovered, blockSize - numCovered, 0 };
+    long numMissing = 0;
+    for (long local = 0; local < blockSize; local++)
+      if (!InteractionSpace.contains(covered, offset + local) && isFeasible(this.interactionSpace.interaction(rank, local)))
+        numMissing++;
+    return new long[] { numCovered, numMissing, blockSize - numCovered - numMissing };
+  }
+
+  private boolean involvesConstraints(int[] combination) {
+    for (int each : combination)
+      if (this.constraintGroupOf[each] >= 0)
+        return true;
+    return false;
+  }
+
+  private Stream<Tuple> streamMissingInteractions(long[] covered) {
+    return IntStream.range(0, this.interactionSpace.numCombinations())
+        .boxed()
+        .flatMap(rank -> LongStream.range(0, this.interactionSpace.blockSize(rank))
+            .filter(local -> !InteractionSpace.contains(covered, this.interactionSpace.offset(rank) + local))
+            .mapToObj(local -> this.interactionSpace.interaction(rank, local))
+            .filter(this::isFeasible));
+  }
+
+  /**
+   * Checks if {@code interaction} can be extended to a tuple that satisfies
+   * every group of constraints it involves.
+   */
+  private boolean isFeasible(Tuple interaction) {
+    for (int i = 0; i < this.constraintGroups.size(); i++) {
+      FactorSpace group = this.constraintGroups.get(i);
+      Tuple projected = TupleUtils.project(interaction, group.getFactorNames().stream().filter(interaction::containsKey).collect(toList()));
+      if (projected.isEmpty())
+        continue;
+      if (!this.feasibility.get(i).computeIfAbsent(projected, tuple -> isFeasibleIn(group, tuple)))
+        return false;
+    }
+    return true;
+  }
+
+  private static boolean isFeasibleIn(FactorSpace group, Tuple projected) {
+    List<Factor> freeFactors = group.getFactors().stream()
+        .filter(factor -> !projected.containsKey(factor.getName()))
+        .collect(toList());
+    if (freeFactors.isEmpty())
+      return group.getConstraints().stream().allMatch(constraint -> constraint.test(projected));
+    return new StreamableTupleCartesianator(freeFactors).stream()
+        .map(tuple -> Tuple.builder().putAll(projected).putAll(tuple).build())
+        .anyMatch(tuple -> group.getConstraints().stream().allMatch(constraint -> constraint.test(tuple)));
+  }
+
+  public static class Report {
+    private final CoverageAnalyzer analyzer;
+    private final int              rows;
+    private final int              ignoredRows;
+    private final long             covered;
+    private final long             missing;
+    private final long             infeasible;
+    private final long[]           coveredInteractions;
+
+    private Report(CoverageAnalyzer analyzer, int rows, int ignoredRows, long covered, long missing, long infeasible, long[] coveredInteractions) {
+      this.analyzer = analyzer;
+      this.rows = rows;
+      this.ignoredRows = ignoredRows;
+      this.covered = covered;
+      this.missing = missing;
+      this.infeasible = infeasible;
+      this.coveredInteractions = coveredInteractions;
+    }
+
+    public int strength() {
+      return this.analyzer.interactionSpace.strength();
+    }
+
+    public int rows() {
+      return this.rows;
+    }
+
+    /**
+     * Returns the number of rows that didn't cover anything because they violate
+     * a constraint.
+     */
+    public int ignoredRows() {
+      return this.ignoredRows;
+    }
+
+    public long covered() {
+      return this.covered;
+    }
+
+    /**
+     * Returns the number of feasible interactions not covered.
+     */
+    public long missing() {
+      return this.missing;
+    }
+
+    /**
+     * Returns the number of interactions that no tuple satisfying the constraints
+     * can cover.
+     */
+    public long infeasible() {
+      return this.infeasible;
+    }
+
+    /**
+     * Returns the ratio of covered interactions to feasible ones, or {@code 1.0}
+     * if there is no feasible interaction.
+     */
+    public double coverage() {
+      return this.covered + this.missing == 0 ?
+          1.0 :
+          (double) this.covered / (this.covered + this.missing);
+    }
+
+    public boolean isComplete() {
+      return this.missing == 0;
+    }
+
+    /**
+     * Returns feasible interactions not covered, ordered by the ranks of their
+     * combinations of factors.
+     */
+    public Stream<Tuple> missingInteractions() {
+      return this.analyzer.streamMissingInteractions(this.coveredInteractions);
+    }
+
+    @Override
+    public String toString() {
+      return String.format(
+          "strength=%d, rows=%d, ignoredRows=%d, covered=%d, missing=%d, infeasible=%d, coverage=%.4f",
+          strength(), rows, ignoredRows, covered, missing, infeasible, coverage()
+      );
+    }
+  }
+}
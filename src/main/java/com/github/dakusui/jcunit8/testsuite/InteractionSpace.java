@@ -0,0 +1,355 @@
+package com.github.dakusui.jcunit8.testsuite;
+
+import com.github.dakusui.jcunit.core.tuples.Tuple;
+import com.github.dakusui.jcunit8.exceptions.TestDefinitionException;
+import com.github.dakusui.jcunit8.factorspace.Factor;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A space of all t-way interactions among given factors, where each interaction
+ * is identified by a dense index so that a set of interactions can be represented
+ * as a bit set.
+ * <p>
+ * A combination of t factors, {@code c[0] < c[1] < ... < c[t-1]} by their
+ * positions, is ranked in colexicographic order, i.e., its rank is
+ * {@code C(c[0], 1) + C(c[1], 2) + ... + C(c[t-1], t)}. Each combination owns a
+ * block of indices, whose size is the product of the numbers of levels of its
+ * factors, and the position of an interaction in the block is the mixed radix
+ * number of its level indices, where {@code c[0]}'s level is the least significant
+ * digit. Blocks are aligned to 64 bits so that blocks of different combinations
+ * never share a word of a bit set, which lets them be updated concurrently.
+ */
+public class InteractionSpace {
+  private final List<Factor>               factors;
+  private final int                        strength;
+  private final int[]                      radices;
+  private final Map<String, Integer>       factorIndices;
+  private final List<Map<Object, Integer>> levelIndices;
+  private final long[][]                   binomials;
+  private final long[]                     blockSizes;
+  private final long[]                     offsets;
+
+  public InteractionSpace(List<Factor> factors, int strength) {
+    this.factors = Collections.unmodifiableList(new ArrayList<>(requireNonNull(factors)));
+    this.strength = TestDefinitionException.checkValue(strength, v -> v > 0);
+    this.radices = new int[factors.size()];
+    this.factorIndices = new HashMap<>();
+    this.levelIndices = new ArrayList<>(factors.size());
+    for (int i = 0; i < factors.size(); i++) {
+      Factor factor = factors.get(i);
+      this.radices[i] = factor.getLevels().size();
+      this.factorIndices.put(factor.getName(), i);
+      Map<Object, Integer> levels = new HashMap<>();
+      for (int j = 0; j < factor.getLevels().size(); j++)
+        levels.putIfAbsent(factor.getLevels().get(j), j);
+      this.levelIndices.add(levels);
+    }
+    this.binomials = binomials(factors.size(), strength);
+    long numCombinations = this.binomials[factors.size()][strength];
+    int n = TestDefinitionException.checkValue(
+        numCombinations,
+        v -> v < Integer.MAX_VALUE,
+        "Too many combinations of %d factors with strength %d",
+        factors.size(),
+        strength
+    ).intValue();
+    this.blockSizes = new long[n];
+    this.offsets = new long[n + 1];
+    int[] combination = firstCombination();
+    for (int rank = 0; rank < n; rank++) {
+      long blockSize = 1;
+      for (int each : combination)
+        blockSize = Math.multiplyExact(blockSize, this.radices[each]);
+      this.blockSizes[rank] = blockSize;
+      this.offsets[rank + 1] = Math.addExact(this.offsets[rank], (blockSize + 63) & ~63L);
+      nextCombination(combination);
+    }
+    TestDefinitionException.checkValue(
+        this.offsets[n] >>> 6,
+        v -> v < Integer.MAX_VALUE,
+        "Too many interactions of %d factors with strength %d",
+        factors.size(),
+        strength
+    );
+  }
+
+  public List<Factor> factors() {
+    return this.factors;
+  }
+
+  public int strength() {
+    return this.strength;
+  }
+
+  public int numCombinations() {
+    return this.blockSizes.length;
+  }
+
+  /**
+   * Returns the number of all interactions in this space.
+   */
+  public long numInteractions() {
+    long ret = 0;
+    for (long each : this.blockSizes)
+      ret += each;
+    return ret;
+  }
+
+  /**
+   * Returns the number of bits required to represent a set of interactions in
+   * this space, which includes padding between blocks.
+   */
+  public long size() {
+    return this.offsets[this.offsets.length - 1];
+  }
+
+  /**
+   * Returns a bit set, in which no interaction in this space is contained.
+   */
+  public long[] newBitSet() {
+    return new long[(int) (size() >>> 6)];
+  }
+
+  public long offset(int rank) {
+    return this.offsets[rank];
+  }
+
+  public long blockSize(int rank) {
+    return this.blockSizes[rank];
+  }
+
+  /**
+   * Returns positions of factors in a combination identified by {@code rank}.
+   *
+   * @param rank A rank of a combination.
+   */
+  public int[] combination(int rank) {
+    int[] ret = new int[this.strength];
+    long remaining = rank;
+    int c = this.factors.size();
+    for (int i = this.strength - 1; i >= 0; i--) {
+      do {
+        c--;
+      } while (this.binomials[c][i + 1] > remaining);
+      ret[i] = c;
+      remaining -= this.binomials[c][i + 1];
+    }
+    return ret;
+  }
+
+  /**
+   * Returns a rank of a combination given by ascending positions of factors.
+   *
+   * @param combination Positions of factors in ascending order.
+   */
+  public int rank(int[] combination) {
+    long ret = 0;
+    for (int i = 0; i < combination.length; i++)
+      ret += this.binomials[combination[i]][i + 1];
+    return (int) ret;
+  }
+
+  /**
+   * Returns level indices of values in {@code tuple}, where the {@code i}-th
+   * element is for the {@code i}-th factor. If a factor is missing in {@code tuple}
+   * or its value is not a level of the factor, the element will be {@code -1}.
+   *
+   * @param tuple A tuple to be encoded.
+   */
+  public int[] encode(Tuple tuple) {
+    int[] ret = new int[this.factors.size()];
+    for (int i = 0; i < ret.length; i++) {
+      String name = this.factors.get(i).getName();
+      ret[i] = tuple.containsKey(name) ?
+          this.levelIndices.get(i).getOrDefault(tuple.get(name), -1) :
+          -1;
+    }
+    return ret;
+  }
+
+  /**
+   * Returns an index of an interaction of factors in {@code combination}, whose
+   * levels are taken from {@code encoded}, or {@code -1} if any of them is unknown.
+   *
+   * @param rank        A rank of {@code combination}.
+   * @param combination Positions of factors.
+   * @param encoded     Level indices returned by {@link #encode(Tuple)}.
+   */
+  public long indexOf(int rank, int[] combination, int[] encoded) {
+    long local = 0;
+    long multiplier = 1;
+    for (int each : combination) {
+      int level = encoded[each];
+      if (level < 0)
+        return -1;
+      local += level * multiplier;
+      multiplier *= this.radices[each];
+    }
+    return this.offsets[rank] + local;
+  }
+
+  /**
+   * Returns an index of {@code interaction}, or {@code -1} if it is not in this
+   * space, i.e., it doesn't consist of exactly t factors or has an unknown level.
+   *
+   * @param interaction A t-way tuple.
+   */
+  public long indexOf(Tuple interaction) {
+    if (interaction.size() != this.strength)
+      return -1;
+    int[] combination = new int[this.strength];
+    int i = 0;
+    for (String each : interaction.keySet()) {
+      Integer index = this.factorIndices.get(each);
+      if (index == null)
+        return -1;
+      combination[i++] = index;
+    }
+    Arrays.sort(combination);
+    long local = 0;
+    long multiplier = 1;
+    for (int each : combination) {
+      Integer level = this.levelIndices.get(each).get(interaction.get(this.factors.get(each).getName()));
+      if (level == null)
+        return -1;
+      local += level * multiplier;
+      multiplier *= this.radices[each];
+    }
+    return this.offsets[rank(combination)] + local;
+  }
+
+  /**
+   * Returns an interaction identified by {@code index}.
+   *
+   * @param index An index of an interaction.
+   */
+  public Tuple interaction(long index) {
+    int found = Arrays.binarySearch(this.offsets, index);
+    if (found < 0)
+      found = -found - 2;
+    else
+      while (found + 1 < this.offsets.length && this.offsets[found + 1] == index)
+        found++;
+    int rank = found;
+    TestDefinitionException.checkValue(index, v -> v >= 0 && rank < this.blockSizes.length && v - this.offsets[rank] < this.blockSizes[rank]);
+    return interaction(rank, index - this.offsets[rank]);
+  }
+
+  /**
+   * Returns an interaction at {@code local} in a block of a combination identified
+   * by {@code rank}.
+   *
+   * @param rank  A rank of a combination.
+   * @param local A position in the block of the combination.
+   */
+  public Tuple interaction(int rank, long local) {
+    Tuple.Builder builder = new Tuple.Builder();
+    long remaining = local;
+    for (int each : combination(rank)) {
+      Factor factor = this.factors.get(each);
+      builder.put(factor.getName(), factor.getLevels().get((int) (remaining % this.radices[each])));
+      remaining /= this.radices[each];
+    }
+    return builder.build();
+  }
+
+  /**
+   * Adds every interaction covered by {@code rows} to {@code bitSet}, where
+   * combinations of factors are processed in parallel.
+   *
+   * @param bitSet A bit set returned by {@link #newBitSet()}.
+   * @param rows   Rows encoded by {@link #encode(Tuple)}.
+   */
+  public void addAll(long[] bitSet, List<int[]> rows) {
+    int[][] columns = new int[this.factors.size()][rows.size()];
+    for (int i = 0; i < rows.size(); i++)
+      for (int j = 0; j < columns.length; j++)
+        columns[j][i] = rows.get(i)[j];
+    IntStream.range(0, numCombinations())
+        .parallel()
+        .forEach(rank -> addAll(bitSet, rank, columns));
+  }
+
+  /**
+   * Adds interactions of a combination identified by {@code rank} covered by
+   * rows to {@code bitSet}. Since blocks are aligned to 64 bits, this can be
+   * called for different combinations concurrently.
+   *
+   * @param bitSet  A bit set returned by {@link #newBitSet()}.
+   * @param rank    A rank of a combination.
+   * @param columns Level indices of rows, where {@code columns[i][j]} is for
+   *                the {@code i}-th factor of the {@code j}-th row.
+   */
+  public void addAll(long[] bitSet, int rank, int[][] columns) {
+    int[] combination = combination(rank);
+    long offset = this.offsets[rank];
+    long[] multipliers = new long[combination.length];
+    long multiplier = 1;
+    for (int i = 0; i < combination.length; i++) {
+      multipliers[i] = multiplier;
+      multiplier *= this.radices[combination[i]];
+    }
+    int numRows = columns.length == 0 ? 0 : columns[0].length;
+    ROWS:
+    for (int row = 0; row < numRows; row++) {
+      long local = 0;
+      for (int i = 0; i < combination.length; i++) {
+        int level = columns[combination[i]][row];
+        if (level < 0)
+          continue ROWS;
+        local += level * multipliers[i];
+      }
+      add(bitSet, offset + local);
+    }
+  }
+
+  public static boolean contains(long[] bitSet, long index) {
+    return (bitSet[(int) (index >>> 6)] & (1L << index)) != 0;
+  }
+
+  public static void add(long[] bitSet, long index) {
+    bitSet[(int) (index >>> 6)] |= 1L << index;
+  }
+
+  private int[] firstCombination() {
+    int[] ret = new int[this.strength];
+    for (int i = 0; i < ret.length; i++)
+      ret[i] = i;
+    return ret;
+  }
+
+  /**
+   * Advances {@code combination} to the next one in colexicographic order.
+   */
+  private void nextCombination(int[] combination) {
+    for (int i = 0; i < combination.length; i++) {
+      int limit = i + 1 < combination.length ? combination[i + 1] : this.factors.size();
+      if (combination[i] + 1 < limit) {
+        combination[i]++;
+        for (int j = 0; j < i; j++)
+          combination[j] = j;
+        return;
+      }
+    }
+  }
+
+  /**
+   * Returns {@code ret}, where {@code ret[n][k]} is {@code C(n, k)} for
+   * {@code n <= maxN} and {@code k <= maxK}, saturated at {@code Long.MAX_VALUE}.
+   */
+  private static long[][] binomials(int maxN, int maxK) {
+    long[][] ret = new long[maxN + 1][maxK + 1];
+    for (int n = 0; n <= maxN; n++) {
+      ret[n][0] = 1;
+      for (int k = 1; k <= Math.min(n, maxK); k++) {
+        long sum = ret[n - 1][k - 1] + ret[n - 1][k];
+        ret[n][k] = sum < 0 ? Long.MAX_VALUE : sum;
+      }
+    }
+    return ret;
+  }
+}
@@ -0,0 +1,199 @@
+package com.github.dakusui.jcunit8.testsuite;
+
+import com.github.dakusui.jcunit.core.tuples.Tuple;
+import com.github.dakusui.jcunit8.factorspace.Constraint;
+import com.github.dakusui.jcunit8.factorspace.FactorSpace;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Minimizes an existing list of tuples, e.g., a historical test suite, into a
+ * subset of it that covers the same t-way interactions as the whole list does.
+ * <p>
+ * Tuples are chosen by greedy set cover, i.e., a tuple that covers the most
+ * interactions not yet covered is chosen one by one, where ties are broken by
+ * positions in the list. Since the number of interactions newly covered by a
+ * tuple never increases as others are chosen, gains are kept in a priority
+ * queue and recomputed only when they reach its head (lazy greedy). Interactions
+ * are recorded in bit sets indexed by an {@link InteractionSpace}.
+ * <p>
+ * As in {@link CoverageAnalyzer}, tuples that violate any constraint don't cover
+ * anything and are never chosen. If it is requested on construction and inputs
+ * have {@link #PARALLEL_THRESHOLD} tuples or more, tuples are examined, encoded,
+ * and ranked first in parallel. Since examining tuples evaluates constraints,
+ * which are user code, this is not done by default.
+ */
+public class Minimizer {
+  public static final int PARALLEL_THRESHOLD = 1024;
+
+  private final InteractionSpace interactionSpace;
+  private final List<Constraint> constraints;
+  private final int[][]          combinations;
+  private final boolean          parallel;
+
+  public Minimizer(FactorSpace factorSpace, int strength) {
+    this(factorSpace, strength, false);
+  }
+
+  /**
+   * Creates a minimizer.
+   *
+   * @param factorSpace A factor space whose interactions are to be covered.
+   * @param strength    A strength of interactions.
+   * @param parallel    {@code true} to examine large inputs in parallel.
+   *                    Constraints of {@code factorSpace} must be thread safe then.
+   */
+  public Minimizer(FactorSpace factorSpace, int strength, boolean parallel) {
+    requireNonNull(factorSpace);
+    this.parallel = parallel;
+    this.interactionSpace = new InteractionSpace(factorSpace.getFactors(), strength);
+    this.constraints = factorSpace.getConstraints();
+    this.combinations = new int[this.interactionSpace.numCombinations()][];
+    for (int rank = 0; rank < this.combinations.length; rank++)
+      this.combinations[rank] = this.interactionSpace.combination(rank);
+  }
+
+  /**
+   * Returns a subset of {@code tuples} that covers the same interactions, in the
+   * same order as they are in {@code tuples}.
+   *
+   * @param tuples Tuples to be minimized.
+   * @return Chosen tuples.
+   */
+  public List<Tuple> minimize(List<Tuple> tuples) {
+    return IntStream.of(choose(tuples))
+        .mapToObj(tuples::get)
+        .collect(toList());
+  }
+
+  /**
+   * Returns a subset of {@code tuples} that covers the same interactions.
+   *
+   * @param tuples Tuples to be minimized.
+   * @return A tuple set that consists of chosen tuples.
+   */
+  public SchemafulTupleSet minimize(SchemafulTupleSet tuples) {
+    return new SchemafulTupleSet.Builder(tuples.getAttributeNames())
+        .addAll(minimize((List<Tuple>) tuples))
+        .build();
+  }
+
+  /**
+   * Returns a test suite that consists of test cases in {@code testSuite} whose
+   * inputs are chosen by {@link #minimize(List)}. Negative test cases are kept
+   * as they are since they are not for t-way coverage.
+   * <p>
+   * Test inputs hold values of parameters, while this minimizer works on factors.
+   * Therefore, inputs are encoded by {@link com.github.dakusui.jcunit8.factorspace.ParameterSpace#encodeTuple(Tuple)}
+   * of the test suite's parameter space, and this minimizer needs to be created
+   * with a factor space that the parameter space is encoded into, e.g., by
+   * {@link com.github.dakusui.jcunit8.pipeline.Config#encoder()}. A value of a
+   * non-simple parameter that can't be decomposed into levels of its factors
+   * covers nothing.
+   *
+   * @param testSuite A test suite to be minimized.
+   * @return A minimized test suite.
+   */
+  public TestSuite minimize(TestSuite testSuite) {
+    List<TestCase> others = testSuite.stream()
+        .filter(each -> each.getCategory() != TestCase.Category.NEGATIVE)
+        .collect(toList());
+    Set<Integer> chosen = new HashSet<>();
+    for (int each : choose(others.stream()
+        .map(TestCase::getTestInput)
+        .map(testSuite.getParameterSpace()::encodeTuple)
+        .collect(toList())))
+      chosen.add(each);
+    List<TestCase> testCases = new ArrayList<>(testSuite.size());
+    int i = 0;
+    for (TestCase each : testSuite) {
+      if (each.getCategory() == TestCase.Category.NEGATIVE)
+        testCases.add(each);
+      else if (chosen.contains(i++))
+        testCases.add(each);
+    }
+    return new TestSuite.Builder<>(testSuite.getParameterSpace(), testSuite.getScenario())
+        .addAll(testCases)
+        .build();
+  }
+
+  /**
+   * Returns positions of chosen tuples in ascending order.
+   */
+  private int[] choose(List<Tuple> tuples) {
+    int[] candidates = parallelIfLarge(IntStream.range(0, tuples.size()), tuples.size())
+        .filter(i -> this.constraints.stream().allMatch(constraint -> constraint.test(tuples.get(i))))
+        .toArray();
+    int[][] rows = parallelIfLarge(IntStream.of(candidates), candidates.length)
+        .mapToObj(i -> this.interactionSpace.encode(tuples.get(i)))
+        .toArray(int[][]::new);
+    long[] covered = this.interactionSpace.newBitSet();
+    int[] gains = parallelIfLarge(IntStream.range(0, rows.length), rows.length)
+        .map(i -> gainOf(rows[i], covered))
+        .toArray();
+    long remaining = numInteractionsCoveredBy(rows);
+    ////
+    // Each element is {gain, position in candidates}, where a gain can be
+    // stale, i.e., larger than the actual one.
+    Comparator<int[]> byGain = Comparator.<int[]>comparingInt(each -> -each[0]).thenComparingInt(each -> each[1]);
+    PriorityQueue<int[]> queue = new PriorityQueue<>(Math.max(1, rows.length), byGain);
+    for (int i = 0; i < rows.length; i++)
+      queue.add(new int[] { gains[i], i });
+    List<Integer> ret = new ArrayList<>();
+    while (remaining > 0 && !queue.isEmpty()) {
+      int[] head = queue.poll();
+      head[0] = gainOf(rows[head[1]], covered);
+      if (head[0] == 0)
+        continue;
+      if (!queue.isEmpty() && byGain.compare(head, queue.peek()) > 0) {
+        queue.add(head);
+        continue;
+      }
+      addAll(covered, rows[head[1]]);
+      remaining -= head[0];
+      ret.add(candidates[head[1]]);
+    }
+    return ret.stream().mapToInt(each -> each).sorted().toArray();
+  }
+
+  private IntStream parallelIfLarge(IntStream stream, int size) {
+    return this.parallel && size >= PARALLEL_THRESHOLD ?
+        stream.parallel() :
+        stream;
+  }
+
+  private long numInteractionsCoveredBy(int[][] rows) {
+    long[] bitSet = this.interactionSpace.newBitSet();
+    this.interactionSpace.addAll(bitSet, Arrays.asList(rows));
+    long ret = 0;
+    for (long each : bitSet)
+      ret += Long.bitCount(each);
+    return ret;
+  }
+
+  /**
+   * Returns the number of interactions covered by {@code row} but not in
+   * {@code covered}.
+   */
+  private int gainOf(int[] row, long[] covered) {
+    int ret = 0;
+    for (int rank = 0; rank < this.combinations.length; rank++) {
+      long index = this.interactionSpace.indexOf(rank, this.combinations[rank], row);
+      if (index >= 0 && !InteractionSpace.contains(covered, index))
+        ret++;
+    }
+    return ret;
+  }
+
+  private void addAll(long[] covered, int[] row) {
+    for (int rank = 0; rank < this.combinations.length; rank++) {
+      long index = this.interactionSpace.indexOf(rank, this.combinations[rank], row);
+      if (index >= 0)
+        InteractionSpace.add(covered, index);
+    }
+  }
+}
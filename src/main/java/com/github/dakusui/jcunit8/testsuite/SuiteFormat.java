@@ -0,0 +1,509 @@
+package com.github.dakusui.jcunit8.testsuite;
+
+import com.github.dakusui.jcunit.core.tuples.Tuple;
+import com.github.dakusui.jcunit.core.utils.Checks;
+import com.github.dakusui.jcunit8.exceptions.TestDefinitionException;
+import com.github.dakusui.jcunit8.factorspace.Constraint;
+import com.github.dakusui.jcunit8.factorspace.ParameterSpace;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * A compact binary format to save a {@link SchemafulTupleSet} or a {@link TestSuite}
+ * and to read it back.
+ * <p>
+ * A file consists of a header and rows.
+ * <pre>
+ *   magic             : 4 bytes, "JCTS"
+ *   version           : short
+ *   header length     : int
+ *   header
+ *     kind            : byte, ordinal of {@link Kind}
+ *     number of rows  : long
+ *     number of columns : int
+ *     for each column
+ *       name          : modified UTF-8
+ *       number of values : int
+ *       for each value
+ *         length      : int
+ *         value       : Java serialization of the value
+ *   rows
+ *     category        : byte, ordinal of {@link TestCase.Category}, only for {@link Kind#TEST_SUITE}
+ *     for each column : index of the value in the column's dictionary, in 1, 2, or 4 bytes
+ * </pre>
+ * The number of bytes used for each column depends on its number of values, so
+ * that all rows have the same width. This lets {@link Reader} read any row from
+ * a memory-mapped file without loading the others, which makes it possible to
+ * open a huge suite quickly. Values must be serializable, and are compared by
+ * {@code equals} to build the dictionaries.
+ * <p>
+ * Since the header needs the dictionaries, {@link Writer} iterates rows twice,
+ * first to build the dictionaries and then to write the rows one by one, without
+ * holding the encoded rows in memory. {@link Reader} deserializes only values of
+ * classes it is allowed to, and validates lengths in the header before
+ * allocating anything for them.
+ */
+public interface SuiteFormat {
+  byte[] MAGIC   = { 'J', 'C', 'T', 'S' };
+  short  VERSION = 1;
+
+  enum Kind {
+    TUPLE_SET,
+    TEST_SUITE
+  }
+
+  class Writer implements Closeable {
+    private final DataOutputStream out;
+
+    public Writer(OutputStream out) {
+      this.out = new DataOutputStream(new BufferedOutputStream(requireNonNull(out)));
+    }
+
+    public Writer(Path path) throws IOException {
+      this(Files.newOutputStream(path));
+    }
+
+    public void write(SchemafulTupleSet tupleSet) throws IOException {
+      write(tupleSet.getAttributeNames(), tupleSet);
+    }
+
+    /**
+     * Writes {@code rows} as a tuple set whose columns are {@code columns}.
+     * {@code rows} is iterated twice, and therefore it can be backed by a source
+     * that doesn't hold all the rows in memory.
+     *
+     * @param columns Names of columns.
+     * @param rows    Rows to be written.
+     */
+    public void write(List<String> columns, Iterable<? extends Tuple> rows) throws IOException {
+      write(Kind.TUPLE_SET, columns, rows, tuple -> tuple, null);
+    }
+
+    public void write(TestSuite testSuite) throws IOException {
+      write(
+          Kind.TEST_SUITE,
+          testSuite.getParameterSpace().getParameterNames(),
+          testSuite,
+          TestCase::getTestInput,
+          TestCase::getCategory
+      );
+    }
+
+    @Override
+    public void close() throws IOException {
+      this.out.close();
+    }
+
+    /**
+     * Writes {@code rows} iterating them twice, first to build dictionaries and
+     * then to write each row.
+     *
+     * @param category A function that returns a category of a row, or {@code null}
+     *                 if rows don't have categories.
+     */
+    private <T> void write(Kind kind, List<String> columns, Iterable<T> rows, Function<? super T, ? extends Tuple> input, Function<? super T, TestCase.Category> category) throws IOException {
+      List<Map<Object, Integer>> dictionaries = new ArrayList<>(columns.size());
+      for (String ignored : columns)
+        dictionaries.add(new LinkedHashMap<>());
+      long numRows = 0;
+      for (T each : rows) {
+        Tuple row = input.apply(each);
+        for (int j = 0; j < columns.size(); j++) {
+          String column = columns.get(j);
+          TestDefinitionException.checkValue(row, r -> r.containsKey(column), "Column '%s' was not found in row: %s", column, row);
+          Map<Object, Integer> dictionary = dictionaries.get(j);
+          dictionary.putIfAbsent(row.get(column), dictionary.size());
+        }
+        numRows++;
+      }
+      ByteArrayOutputStream header = new ByteArrayOutputStream();
+      try (DataOutputStream headerOut = new DataOutputStream(header)) {
+        headerOut.writeByte(kind.ordinal());
+        headerOut.writeLong(numRows);
+        headerOut.writeInt(columns.size());
+        for (int j = 0; j < columns.size(); j++) {
+          headerOut.writeUTF(columns.get(j));
+          headerOut.writeInt(dictionaries.get(j).size());
+          for (Object each : dictionaries.get(j).keySet()) {
+            byte[] serialized = serialize(each);
+            headerOut.writeInt(serialized.length);
+            headerOut.write(serialized);
+          }
+        }
+      }
+      this.out.write(MAGIC);
+      this.out.writeShort(VERSION);
+      this.out.writeInt(header.size());
+      header.writeTo(this.out);
+      int[] widths = dictionaries.stream().mapToInt(each -> widthOf(each.size())).toArray();
+      long numWrittenRows = 0;
+      for (T each : rows) {
+        Tuple row = input.apply(each);
+        if (category != null)
+          this.out.writeByte(category.apply(each).ordinal());
+        for (int j = 0; j < widths.length; j++) {
+          Integer index = dictionaries.get(j).get(row.get(columns.get(j)));
+          TestDefinitionException.checkValue(index, Objects::nonNull, "Rows were changed while being written: %s", row);
+          writeIndex(this.out, widths[j], index);
+        }
+        numWrittenRows++;
+      }
+      long expectedNumRows = numRows;
+      TestDefinitionException.checkValue(numWrittenRows, n -> n == expectedNumRows, "Rows were changed while being written");
+      this.out.flush();
+    }
+
+    private static void writeIndex(DataOutputStream out, int width, int index) throws IOException {
+      switch (width) {
+      case 1:
+        out.writeByte(index);
+        break;
+      case 2:
+        out.writeShort(index);
+        break;
+      default:
+        out.writeInt(index);
+      }
+    }
+
+    private static byte[] serialize(Object value) throws IOException {
+      ByteArrayOutputStream ret = new ByteArrayOutputStream();
+      try (ObjectOutputStream out = new ObjectOutputStream(ret)) {
+        out.writeObject(value);
+      }
+      return ret.toByteArray();
+    }
+  }
+
+  /**
+   * Reads a file written by {@link Writer}. Rows are decoded from a memory-mapped
+   * file only when they are accessed.
+   * <p>
+   * Values in the header are deserialized only when their classes are allowed.
+   * Boxed primitives, {@link String}, {@link java.math.BigInteger}, {@link java.math.BigDecimal},
+   * enums, and arrays of them are always allowed. Other classes need to be given
+   * to {@link #open(Path, Collection)} explicitly.
+   */
+  class Reader implements Closeable {
+    private static final int SEGMENT_SIZE = Integer.MAX_VALUE;
+
+    private static final List<Class<?>> DEFAULT_ALLOWED_CLASSES = Collections.unmodifiableList(Arrays.asList(
+        String.class,
+        Boolean.class,
+        Character.class,
+        Byte.class,
+        Short.class,
+        Integer.class,
+        Long.class,
+        Float.class,
+        Double.class,
+        java.math.BigInteger.class,
+        java.math.BigDecimal.class
+    ));
+
+    private final FileChannel        channel;
+    private final Kind               kind;
+    private final long               numRows;
+    private final List<String>       columns;
+    private final List<List<Object>> dictionaries;
+    private final int[]              widths;
+    private final int                rowWidth;
+    private final long               rowsOffset;
+    private final long               rowsPerSegment;
+    private final MappedByteBuffer[] segments;
+
+    private Reader(FileChannel channel, Collection<Class<?>> allowedClasses) throws IOException {
+      this.channel = channel;
+      ByteBuffer preamble = ByteBuffer.allocate(MAGIC.length + 2 + 4);
+      readFully(channel, preamble, 0);
+      byte[] magic = new byte[MAGIC.length];
+      preamble.get(magic);
+      short version = preamble.getShort();
+      TestDefinitionException.checkValue(magic, m -> Arrays.equals(m, MAGIC), "Not a suite file");
+      TestDefinitionException.checkValue(version, v -> v == VERSION, "Unsupported version: %s", version);
+      ByteBuffer header = ByteBuffer.allocate(checkLength(preamble.getInt(), channel.size() - preamble.capacity(), "header length"));
+      readFully(channel, header, preamble.capacity());
+      try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(header.array()))) {
+        int kind = in.readByte();
+        this.kind = Kind.values()[checkLength(kind, Kind.values().length - 1, "kind")];
+        this.numRows = in.readLong();
+        TestDefinitionException.checkValue(this.numRows, n -> n >= 0, "Corrupted header: number of rows=%s", this.numRows);
+        // A column takes at least 6 bytes, its name's length and its number of values.
+        int numColumns = checkLength(in.readInt(), in.available() / 6, "number of columns");
+        this.columns = new ArrayList<>(numColumns);
+        this.dictionaries = new ArrayList<>(numColumns);
+        for (int j = 0; j < numColumns; j++) {
+          this.columns.add(in.readUTF());
+          // A value takes at least 4 bytes, its length.
+          int numValues = checkLength(in.readInt(), in.available() / 4, "number of values");
+          List<Object> dictionary = new ArrayList<>(numValues);
+          for (int k = 0; k < numValues; k++) {
+            byte[] serialized = new byte[checkLength(in.readInt(), in.available(), "value length")];
+            in.readFully(serialized);
+            dictionary.add(deserialize(serialized, allowedClasses));
+          }
+          this.dictionaries.add(dictionary);
+        }
+      }
+      this.widths = this.dictionaries.stream().mapToInt(each -> widthOf(each.size())).toArray();
+      this.rowWidth = (this.kind == Kind.TEST_SUITE ? 1 : 0) + Arrays.stream(this.widths).sum();
+      this.rowsOffset = preamble.capacity() + header.capacity();
+      this.rowsPerSegment = this.rowWidth == 0 ? Long.MAX_VALUE : SEGMENT_SIZE / this.rowWidth;
+      this.segments = new MappedByteBuffer[this.numRows == 0 ? 0 : (int) ((this.numRows - 1) / this.rowsPerSegment + 1)];
+      TestDefinitionException.checkValue(
+          channel.size(),
+          size -> size >= this.rowsOffset + this.numRows * this.rowWidth,
+          "File is truncated"
+      );
+    }
+
+    public static Reader open(Path path) throws IOException {
+      return open(path, Collections.emptyList());
+    }
+
+    /**
+     * Opens a file allowing values of {@code allowedClasses} to be deserialized
+     * in addition to the ones allowed by default.
+     *
+     * @param path           A file written by {@link Writer}.
+     * @param allowedClasses Classes of values in the file not allowed by default.
+     */
+    public static Reader open(Path path, Collection<Class<?>> allowedClasses) throws IOException {
+      List<Class<?>> allowed = new ArrayList<>(DEFAULT_ALLOWED_CLASSES);
+      allowed.addAll(allowedClasses);
+      FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+      try {
+        return new Reader(channel, allowed);
+      } catch (IOException | RuntimeException e) {
+        channel.close();
+        throw e;
+      }
+    }
+
+    public Kind kind() {
+      return this.kind;
+    }
+
+    public List<String> columns() {
+      return Collections.unmodifiableList(this.columns);
+    }
+
+    public long numRows() {
+      return this.numRows;
+    }
+
+    public Tuple get(long index) {
+      ByteBuffer segment = segmentOf(index);
+      int position = (int) ((index % this.rowsPerSegment) * this.rowWidth) + (this.kind == Kind.TEST_SUITE ? 1 : 0);
+      Tuple.Builder builder = new Tuple.Builder();
+      for (int j = 0; j < this.widths.length; j++) {
+        builder.put(this.columns.get(j), this.dictionaries.get(j).get(readIndex(segment, position, this.widths[j])));
+        position += this.widths[j];
+      }
+      return builder.build();
+    }
+
+    public TestCase.Category category(long index) {
+      return this.kind == Kind.TEST_SUITE ?
+          TestCase.Category.values()[segmentOf(index).get((int) ((index % this.rowsPerSegment) * this.rowWidth))] :
+          TestCase.Category.REGULAR;
+    }
+
+    public Stream<Tuple> stream() {
+      return LongStream.range(0, this.numRows).mapToObj(this::get);
+    }
+
+    /**
+     * Returns a {@link SchemafulTupleSet} backed by this reader.
+     */
+    public SchemafulTupleSet asSchemafulTupleSet() {
+      int size = checkSize();
+      class Impl extends AbstractList<Tuple> implements SchemafulTupleSet {
+        @Override
+        public Tuple get(int index) {
+          return Reader.this.get(index);
+        }
+
+        @Override
+        public int size() {
+          return size;
+        }
+
+        @Override
+        public List<String> getAttributeNames() {
+          return columns();
+        }
+
+        @Override
+        public int width() {
+          return columns.size();
+        }
+
+        @Override
+        public TupleSet subtuplesOf(int strength) {
+          return SchemafulTupleSet.fromTuples(this).subtuplesOf(strength);
+        }
+      }
+      return new Impl();
+    }
+
+    /**
+     * Returns a {@link TestSuite} backed by this reader. Constraints violated by
+     * each test case are examined when it is accessed.
+     *
+     * @param parameterSpace A parameter space whose parameter names must be the
+     *                       same as columns of this reader.
+     * @param testScenario   A test scenario of the test suite.
+     */
+    public TestSuite asTestSuite(ParameterSpace parameterSpace, TestScenario testScenario) {
+      TestDefinitionException.checkValue(
+          parameterSpace.getParameterNames(),
+          names -> names.equals(this.columns),
+          "Parameters %s don't match columns %s",
+          parameterSpace.getParameterNames(),
+          this.columns
+      );
+      int size = checkSize();
+      class Impl extends AbstractList<TestCase> implements TestSuite {
+        @Override
+        public TestCase get(int index) {
+          Tuple testInput = Reader.this.get(index);
+          return category(index).createTestCase(
+              testInput,
+              parameterSpace.getConstraints().stream()
+                  .filter((Constraint constraint) -> !constraint.test(testInput))
+                  .collect(toList())
+          );
+        }
+
+        @Override
+        public int size() {
+          return size;
+        }
+
+        @Override
+        public ParameterSpace getParameterSpace() {
+          return parameterSpace;
+        }
+
+        @Override
+        public TestScenario getScenario() {
+          return testScenario;
+        }
+      }
+      return new Impl();
+    }
+
+    @Override
+    public void close() throws IOException {
+      this.channel.close();
+    }
+
+    private int checkSize() {
+      return TestDefinitionException.checkValue(this.numRows, n -> n <= Integer.MAX_VALUE, "Too many rows to be a list: %s", this.numRows).intValue();
+    }
+
+    private synchronized ByteBuffer segmentOf(long index) {
+      if (index < 0 || index >= this.numRows)
+        throw new IndexOutOfBoundsException(String.format("%d (size=%d)", index, this.numRows));
+      int i = (int) (index / this.rowsPerSegment);
+      if (this.segments[i] == null) {
+        try {
+          long first = i * this.rowsPerSegment;
+          this.segments[i] = this.channel.map(
+              FileChannel.MapMode.READ_ONLY,
+              this.rowsOffset + first * this.rowWidth,
+              Math.min(this.rowsPerSegment, this.numRows - first) * this.rowWidth
+          );
+        } catch (IOException e) {
+          throw Checks.wrap(e);
+        }
+      }
+      return this.segments[i];
+    }
+
+    private static int readIndex(ByteBuffer buffer, int position, int width) {
+      switch (width) {
+      case 1:
+        return buffer.get(position) & 0xff;
+      case 2:
+        return buffer.getShort(position) & 0xffff;
+      default:
+        return buffer.getInt(position);
+      }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+      while (buffer.hasRemaining()) {
+        if (channel.read(buffer, position + buffer.position()) < 0)
+          throw new EOFException();
+      }
+      buffer.flip();
+    }
+
+    /**
+     * Checks if {@code length} read from a header is between 0 and {@code max},
+     * so that nothing is allocated for a corrupted or a malicious length.
+     */
+    private static int checkLength(int length, long max, String name) {
+      return TestDefinitionException.checkValue(length, l -> l >= 0 && l <= max, "Corrupted header: %s=%s (max=%s)", name, length, max);
+    }
+
+    private static Object deserialize(byte[] serialized, Collection<Class<?>> allowedClasses) throws IOException {
+      try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(serialized)) {
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+          Class<?> ret = super.resolveClass(desc);
+          if (!isAllowed(ret, allowedClasses))
+            throw new InvalidClassException(desc.getName(), "Not allowed to be deserialized");
+          return ret;
+        }
+
+        @Override
+        protected Class<?> resolveProxyClass(String[] interfaces) throws InvalidClassException {
+          throw new InvalidClassException(Arrays.toString(interfaces), "Proxies are not allowed to be deserialized");
+        }
+      }) {
+        return in.readObject();
+      } catch (ClassNotFoundException e) {
+        throw new InvalidClassException(e.getMessage());
+      }
+    }
+
+    /**
+     * A class is allowed if it is an enum, an array of allowed classes, or a
+     * super class of an allowed class. The last is necessary because a super
+     * class is also resolved when an instance of its sub class is deserialized.
+     */
+    private static boolean isAllowed(Class<?> klass, Collection<Class<?>> allowedClasses) {
+      if (klass.isArray())
+        return klass.getComponentType().isPrimitive() || isAllowed(klass.getComponentType(), allowedClasses);
+      return Enum.class.isAssignableFrom(klass) || allowedClasses.stream().anyMatch(klass::isAssignableFrom);
+    }
+  }
+
+  /**
+   * Returns the number of bytes to store an index in a dictionary of {@code size}
+   * values.
+   */
+  static int widthOf(int size) {
+    return size <= 0x100 ?
+        1 :
+        size <= 0x10000 ?
+            2 :
+            4;
+  }
+}
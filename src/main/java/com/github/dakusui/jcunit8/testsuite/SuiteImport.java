@@ -0,0 +1,323 @@
+package com.github.dakusui.jcunit8.testsuite;
+
+import com.github.dakusui.jcunit.core.tuples.Tuple;
+import com.github.dakusui.jcunit.exceptions.InvalidTestException;
+import com.github.dakusui.jcunit8.exceptions.TestDefinitionException;
+import com.github.dakusui.jcunit8.factorspace.ParameterSpace;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Imports a suite in a tabular format, e.g., one exported by another tool or
+ * collected from production incidents, as tuples of a parameter space.
+ * <p>
+ * The first record of the input is a header, whose columns are mapped onto
+ * parameters by names, and each of the following records becomes a tuple. A
+ * value is resolved by a function given to {@link Builder#withValueResolver(String, Function)}
+ * for its parameter, or otherwise by looking up the known values of the parameter
+ * by their string representations.
+ * <p>
+ * Records are read in batches. Records in a batch are resolved in parallel only
+ * if {@link Builder#withParallelResolution(boolean)} is enabled, since value
+ * resolvers are user code that may not be thread safe.
+ * Since all the records are validated here, imported tuples can be given to
+ * {@link com.github.dakusui.jcunit8.pipeline.Requirement.Builder#addAllSeeds(Collection)}
+ * or {@link com.github.dakusui.jcunit8.pipeline.Requirement.Builder#addAllPrecovered(Collection)}
+ * as they are.
+ */
+public class SuiteImport {
+  public enum Format {
+    /**
+     * Comma separated values, where a value can be quoted with {@code "}.
+     */
+    CSV(',', true, false),
+    /**
+     * Tab separated values without quotation.
+     */
+    TSV('\t', false, false),
+    /**
+     * Output of PICT, which is tab separated values, where a value prefixed
+     * with {@code ~} is an invalid one.
+     */
+    PICT('\t', false, true);
+
+    private final char    separator;
+    private final boolean quoted;
+    private final boolean negativePrefixed;
+
+    Format(char separator, boolean quoted, boolean negativePrefixed) {
+      this.separator = separator;
+      this.quoted = quoted;
+      this.negativePrefixed = negativePrefixed;
+    }
+
+    String value(String field) {
+      return this.negativePrefixed && field.startsWith("~") ?
+          field.substring(1) :
+          field;
+    }
+  }
+
+  private final ParameterSpace                        parameterSpace;
+  private final Format                                format;
+  private final Map<String, Function<String, Object>> resolvers;
+  private final int                                   batchSize;
+  private final boolean                               parallel;
+
+  private SuiteImport(ParameterSpace parameterSpace, Format format, Map<String, Function<String, Object>> resolvers, int batchSize, boolean parallel) {
+    this.parameterSpace = parameterSpace;
+    this.format = format;
+    this.resolvers = resolvers;
+    this.batchSize = batchSize;
+    this.parallel = parallel;
+  }
+
+  public List<Tuple> read(Path path) throws IOException {
+    try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+      return read(reader);
+    }
+  }
+
+  /**
+   * Reads tuples from {@code reader}.
+   *
+   * @param reader A reader from which a suite is read.
+   * @return Tuples in the order they appear.
+   * @throws InvalidTestException The header or any record is invalid. All the
+   *                              errors found are reported at once.
+   */
+  public List<Tuple> read(Reader reader) throws IOException {
+    RecordReader records = new RecordReader(reader, this.format);
+    List<String> errors = new ArrayList<>();
+    List<Tuple> ret = new ArrayList<>();
+    Record header = records.next();
+    if (header == null)
+      return ret;
+    List<Column> columns = columns(header, errors);
+    if (!errors.isEmpty())
+      throw invalidRows(errors);
+    List<Record> batch = new ArrayList<>(this.batchSize);
+    for (Record each = records.next(); each != null; each = records.next()) {
+      batch.add(each);
+      if (batch.size() == this.batchSize) {
+        resolve(batch, columns, ret, errors);
+        batch.clear();
+      }
+    }
+    resolve(batch, columns, ret, errors);
+    if (!errors.isEmpty())
+      throw invalidRows(errors);
+    return ret;
+  }
+
+  private List<Column> columns(Record header, List<String> errors) {
+    List<String> parameterNames = this.parameterSpace.getParameterNames();
+    List<String> unknown = header.fields.stream().filter(each -> !parameterNames.contains(each)).collect(toList());
+    if (!unknown.isEmpty())
+      errors.add(String.format("Unknown parameter(s) were found: %s in header: %s", unknown, header.fields));
+    List<String> missing = parameterNames.stream().filter(each -> !header.fields.contains(each)).collect(toList());
+    if (!missing.isEmpty())
+      errors.add(String.format("Parameter(s) were not found: %s in header: %s", missing, header.fields));
+    if (new HashSet<>(header.fields).size() != header.fields.size())
+      errors.add(String.format("Duplicated column(s) were found in header: %s", header.fields));
+    return header.fields.stream()
+        .map(each -> new Column(
+            each,
+            this.resolvers.containsKey(each) ?
+                this.resolvers.get(each) :
+                knownValueResolverFor(each)))
+        .collect(toList());
+  }
+
+  private Function<String, Object> knownValueResolverFor(String parameterName) {
+    if (!this.parameterSpace.getParameterNames().contains(parameterName))
+      return value -> null;
+    Map<String, Object> knownValues = new HashMap<>();
+    this.parameterSpace.getParameter(parameterName).getKnownValues()
+        .forEach(each -> knownValues.putIfAbsent(String.valueOf(each), each));
+    return value -> {
+      Object ret = knownValues.get(value);
+      if (ret == null && !knownValues.containsKey(value))
+        throw new NoSuchElementException(String.format("Unknown value '%s' for parameter '%s'", value, parameterName));
+      return ret;
+    };
+  }
+
+  /**
+   * Resolves {@code batch}, in parallel if enabled, and appends tuples to
+   * {@code out} and errors to {@code errors}, both in the order of records.
+   */
+  private void resolve(List<Record> batch, List<Column> columns, List<Tuple> out, List<String> errors) {
+    IntStream indices = IntStream.range(0, batch.size());
+    Object[] resolved = (this.parallel ? indices.parallel() : indices)
+        .mapToObj(i -> resolve(batch.get(i), columns))
+        .toArray();
+    for (Object each : resolved) {
+      if (each instanceof Tuple)
+        out.add((Tuple) each);
+      else
+        errors.add((String) each);
+    }
+  }
+
+  /**
+   * Returns a tuple for {@code record}, or an error message if it is invalid.
+   */
+  private Object resolve(Record record, List<Column> columns) {
+    if (record.fields.size() != columns.size())
+      return String.format("%d field(s) were found while %d were expected at line %d", record.fields.size(), columns.size(), record.line);
+    Tuple.Builder builder = new Tuple.Builder();
+    for (int i = 0; i < columns.size(); i++) {
+      Column column = columns.get(i);
+      try {
+        builder.put(column.name, column.resolver.apply(this.format.value(record.fields.get(i))));
+      } catch (RuntimeException e) {
+        return String.format("%s at line %d", e.getMessage(), record.line);
+      }
+    }
+    return builder.build();
+  }
+
+  private static InvalidTestException invalidRows(List<String> errors) {
+    return new InvalidTestException(String.format("Error(s) are found in imported rows: %s", errors));
+  }
+
+  public static class Builder {
+    private final ParameterSpace                        parameterSpace;
+    private final Format                                format;
+    private final Map<String, Function<String, Object>> resolvers = new HashMap<>();
+    private       int                                   batchSize = 4096;
+    private       boolean                               parallel;
+
+    public Builder(ParameterSpace parameterSpace, Format format) {
+      this.parameterSpace = requireNonNull(parameterSpace);
+      this.format = requireNonNull(format);
+    }
+
+    /**
+     * Sets a function to resolve a field in a column for {@code parameterName}
+     * into a value. It should throw an exception whose message describes the
+     * error if the field is invalid.
+     *
+     * @param parameterName A name of a parameter.
+     * @param resolver      A function to resolve a field.
+     */
+    @SuppressWarnings("unchecked")
+    public Builder withValueResolver(String parameterName, Function<String, ?> resolver) {
+      this.resolvers.put(requireNonNull(parameterName), (Function<String, Object>) requireNonNull(resolver));
+      return this;
+    }
+
+    public Builder withBatchSize(int batchSize) {
+      this.batchSize = TestDefinitionException.checkValue(batchSize, v -> v > 0);
+      return this;
+    }
+
+    /**
+     * Allows records in a batch to be resolved concurrently. Enable it only if
+     * value resolvers given to this builder are thread safe.
+     *
+     * @param enable {@code true} to resolve records in parallel.
+     */
+    public Builder withParallelResolution(boolean enable) {
+      this.parallel = enable;
+      return this;
+    }
+
+    public SuiteImport build() {
+      return new SuiteImport(this.parameterSpace, this.format, new HashMap<>(this.resolvers), this.batchSize, this.parallel);
+    }
+  }
+
+  private static class Column {
+    final String                   name;
+    final Function<String, Object> resolver;
+
+    Column(String name, Function<String, Object> resolver) {
+      this.name = name;
+      this.resolver = resolver;
+    }
+  }
+
+  private static class Record {
+    final int          line;
+    final List<String> fields;
+
+    Record(int line, List<String> fields) {
+      this.line = line;
+      this.fields = fields;
+    }
+  }
+
+  /**
+   * Reads records one by one, skipping empty lines. A quoted field in CSV may
+   * contain separators, line breaks, and quotes escaped by doubling them.
+   */
+  private static class RecordReader {
+    private final BufferedReader reader;
+    private final Format         format;
+    private       int            line;
+
+    RecordReader(Reader reader, Format format) {
+      this.reader = reader instanceof BufferedReader ?
+          (BufferedReader) reader :
+          new BufferedReader(reader);
+      this.format = format;
+    }
+
+    Record next() throws IOException {
+      String current;
+      do {
+        current = this.reader.readLine();
+        this.line++;
+        if (current == null)
+          return null;
+      } while (current.isEmpty());
+      int start = this.line;
+      List<String> fields = new ArrayList<>();
+      StringBuilder field = new StringBuilder();
+      boolean inQuotes = false;
+      for (int i = 0; ; i++) {
+        if (i == current.length()) {
+          if (!inQuotes)
+            break;
+          String following = this.reader.readLine();
+          this.line++;
+          TestDefinitionException.checkValue(following, Objects::nonNull, "Unterminated quotation starting at line %d", start);
+          field.append('\n');
+          current = following;
+          i = -1;
+          continue;
+        }
+        char c = current.charAt(i);
+        if (inQuotes) {
+          if (c != '"')
+            field.append(c);
+          else if (i + 1 < current.length() && current.charAt(i + 1) == '"')
+            field.append(current.charAt(++i));
+          else
+            inQuotes = false;
+        } else if (c == this.format.separator) {
+          fields.add(field.toString());
+          field.setLength(0);
+        } else if (c == '"' && this.format.quoted && field.length() == 0)
+          inQuotes = true;
+        else
+          field.append(c);
+      }
+      fields.add(field.toString());
+      return new Record(start, fields);
+    }
+  }
+}
@@ -4,6 +4,7 @@ import com.github.dakusui.jcunit.core.tuples.Tuple;
 import com.github.dakusui.jcunit.core.tuples.TupleUtils;
 import com.github.dakusui.jcunit8.factorspace.Constraint;
 import com.github.dakusui.jcunit8.factorspace.ParameterSpace;
+import com.github.dakusui.jcunit8.pipeline.Budget;
 
 import java.util.*;
 import java.util.stream.Collectors;
@@ -26,10 +27,23 @@ public interface TestSuite extends List<TestCase> {
 
   TestScenario getScenario();
 
+  /**
+   * Returns an outcome of the budget with which this test suite was generated.
+   * If the budget was exhausted, this test suite can be a best-effort partial one
+   * that doesn't cover everything required, which {@link Budget.Report#isComplete()}
+   * tells.
+   *
+   * @return An outcome of the budget.
+   */
+  default Budget.Report budgetReport() {
+    return Budget.UNLIMITED.report();
+  }
+
   class Builder<T> {
     private final ParameterSpace parameterSpace;
     private final List<TestCase> testCases = new LinkedList<>();
     private final TestScenario testScenario;
+    private       Budget.Report  budgetReport = Budget.UNLIMITED.report();
 
     public Builder(ParameterSpace parameterSpace, TestScenario testScenario) {
       this.parameterSpace = requireNonNull(parameterSpace);
@@ -51,6 +65,20 @@ public interface TestSuite extends List<TestCase> {
       return this;
     }
 
+    /**
+     * Adds test cases that are already created, e.g., ones in another test suite
+     * in a different order.
+     */
+    public Builder<T> addAll(Collection<? extends TestCase> collection) {
+      testCases.addAll(collection);
+      return this;
+    }
+
+    public Builder<T> withBudgetReport(Budget.Report budgetReport) {
+      this.budgetReport = requireNonNull(budgetReport);
+      return this;
+    }
+
     private TestCase toTestCase(TestCase.Category category, Tuple testCaseTuple) {
       Tuple tuple = TupleUtils.copy(testCaseTuple);
       return category.createTestCase(
@@ -66,12 +94,11 @@ public interface TestSuite extends List<TestCase> {
 
         private Impl(
         ) {
+          Set<Tuple> registered = new HashSet<>();
           this.testCases = new ArrayList<TestCase>(Builder.this.testCases.size()) {{
             Builder.this.testCases.stream(
             ).filter(
-                testCase -> stream().noneMatch(
-                    registered -> registered.getTestInput().equals(testCase.getTestInput())
-                )
+                testCase -> registered.add(testCase.getTestInput())
             ).forEach(
                 this::add
             );
@@ -97,6 +124,11 @@ public interface TestSuite extends List<TestCase> {
         public TestScenario getScenario() {
           return testScenario;
         }
+
+        @Override
+        public Budget.Report budgetReport() {
+          return budgetReport;
+        }
       }
       return new Impl();
     }
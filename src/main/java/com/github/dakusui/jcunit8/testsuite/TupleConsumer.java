@@ -6,9 +6,19 @@ import com.github.dakusui.jcunit.core.utils.Checks;
 import java.io.IOException;
 import java.util.Formattable;
 import java.util.Formatter;
+import java.util.List;
 import java.util.function.Consumer;
 
 public interface TupleConsumer extends Consumer<Tuple>, Formattable {
+  /**
+   * A procedure whose effect depends only on values of {@link #involvedKeys()}
+   * and therefore can be shared among test cases that have the same values for
+   * them.
+   */
+  interface Shared extends TupleConsumer {
+    List<String> involvedKeys();
+  }
+
   String getName();
 
   @Override
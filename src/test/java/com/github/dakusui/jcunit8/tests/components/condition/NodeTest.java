@@ -1,7 +1,10 @@
 package com.github.dakusui.jcunit8.tests.components.condition;
 
+import com.github.dakusui.jcunit.core.tuples.Tuple;
+import com.github.dakusui.jcunit8.examples.parameterizedconstraint.ParameterizedConstraintExample;
 import com.github.dakusui.jcunit8.examples.quadraticequation.QuadraticEquationExample;
 import com.github.dakusui.jcunit8.factorspace.Constraint;
+import com.github.dakusui.jcunit8.factorspace.TestPredicate;
 import com.github.dakusui.jcunit8.runners.core.NodeUtils;
 import com.github.dakusui.jcunit8.testutils.UTUtils;
 import org.junit.Before;
@@ -41,4 +44,20 @@ public class NodeTest {
         )
     );
   }
+
+  @Test
+  public void givenParameterizedConstraintExampleClass$whenBuildPredicateWithArguments$thenEvaluatedCorrectly() {
+    TestPredicate predicate = NodeUtils.buildPredicate(
+        new String[] { "isOneOf @a 2 3&&littleThan @b 2" },
+        NodeUtils.allTestPredicates(new TestClass(ParameterizedConstraintExample.class))
+    );
+    assertThat(
+        asList(
+            predicate.test(Tuple.builder().put("a", 2).put("b", 1).build()),
+            predicate.test(Tuple.builder().put("a", 1).put("b", 1).build()),
+            predicate.test(Tuple.builder().put("a", 3).put("b", 2).build())
+        ),
+        equalTo(asList(true, false, false))
+    );
+  }
 }
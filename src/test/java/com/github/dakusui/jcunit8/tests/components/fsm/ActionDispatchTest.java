@@ -0,0 +1,88 @@
+package com.github.dakusui.jcunit8.tests.components.fsm;
+
+import com.github.dakusui.jcunit.fsm.Action;
+import com.github.dakusui.jcunit.fsm.Args;
+import com.github.dakusui.jcunit.fsm.Parameters;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ActionDispatchTest {
+  public static class Sut {
+    public long widen(long value) {
+      return value * 2;
+    }
+
+    public double widenToDouble(double value) {
+      return value;
+    }
+
+    public String echo(CharSequence value) {
+      return value == null ? null : value.toString();
+    }
+
+    public void fail(int value) throws IOException {
+      throw new IOException("fail:" + value);
+    }
+  }
+
+  public static class Spec {
+    public void widen(Object expectation, long value) {
+    }
+
+    public void widenToDouble(Object expectation, double value) {
+    }
+
+    public void echo(Object expectation, CharSequence value) {
+    }
+
+    public void fail(Object expectation, int value) {
+    }
+  }
+
+  @Test
+  public void givenIntegerForLongParameter$whenPerform$thenWidened() throws Throwable {
+    assertEquals(6L, perform("widen", long.class, 3));
+  }
+
+  @Test
+  public void givenCharacterForDoubleParameter$whenPerform$thenWidened() throws Throwable {
+    assertEquals(97.0, perform("widenToDouble", double.class, 'a'));
+  }
+
+  @Test
+  public void givenSubtypeOrNullForReferenceParameter$whenPerform$thenAccepted() throws Throwable {
+    assertEquals("hello", perform("echo", CharSequence.class, new StringBuilder("hello")));
+    assertNull(perform("echo", CharSequence.class, new Object[] { null }));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void givenLongForIntParameter$whenPerform$thenRejected() throws Throwable {
+    perform("fail", int.class, 1L);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void givenNullForPrimitiveParameter$whenPerform$thenRejected() throws Throwable {
+    perform("widen", long.class, new Object[] { null });
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void givenStringForLongParameter$whenPerform$thenRejected() throws Throwable {
+    perform("widen", long.class, "3");
+  }
+
+  @Test(expected = IOException.class)
+  public void givenSutThrows$whenPerform$thenThrownAsItIs() throws Throwable {
+    perform("fail", int.class, 1);
+  }
+
+  private static Object perform(String name, Class<?> parameterType, Object... args) throws Throwable {
+    return new Action.Base<Sut>(
+        Spec.class.getMethod(name, Object.class, parameterType),
+        new Parameters.Builder(name).build()
+    ).perform(new Sut(), new Args(args));
+  }
+}
@@ -0,0 +1,21 @@
+package com.github.dakusui.jcunit8.tests.components.fsm;
+
+public class Dial {
+  boolean unlocked;
+
+  @SuppressWarnings("unused")
+  public void unlock(int digit, String direction, boolean twice) {
+    if (!unlocked)
+      unlocked = true;
+    else
+      throw new IllegalStateException();
+  }
+
+  @SuppressWarnings("unused")
+  public void lock() {
+    if (unlocked)
+      unlocked = false;
+    else
+      throw new IllegalStateException();
+  }
+}
@@ -0,0 +1,52 @@
+package com.github.dakusui.jcunit8.tests.components.fsm;
+
+import com.github.dakusui.jcunit.fsm.Expectation;
+import com.github.dakusui.jcunit.fsm.Parameters;
+import com.github.dakusui.jcunit.fsm.spec.ActionSpec;
+import com.github.dakusui.jcunit.fsm.spec.FsmSpec;
+import com.github.dakusui.jcunit.fsm.spec.ParametersSpec;
+import com.github.dakusui.jcunit.fsm.spec.StateSpec;
+
+public enum DialSpec implements FsmSpec<Dial> {
+  @StateSpec I {
+    @ActionSpec
+    @Override
+    public Expectation<Dial> unlock(Expectation.Builder<Dial> builder, int digit, String direction, boolean twice) {
+      return builder.valid(UNLOCKED).build();
+    }
+
+    @Override
+    public boolean check(Dial dial) {
+      return !dial.unlocked;
+    }
+  },
+  @StateSpec UNLOCKED {
+    @ActionSpec
+    @Override
+    public Expectation<Dial> lock(Expectation.Builder<Dial> builder) {
+      return builder.valid(I).build();
+    }
+
+    @Override
+    public boolean check(Dial dial) {
+      return dial.unlocked;
+    }
+  };
+
+  @ParametersSpec
+  public static final Parameters unlock = new Parameters.Builder("unlock")
+      .add(0, 1, 2)
+      .add("left", "right")
+      .add(true, false)
+      .build();
+
+  @ActionSpec
+  public Expectation<Dial> unlock(Expectation.Builder<Dial> builder, int digit, String direction, boolean twice) {
+    return builder.invalid(this, IllegalStateException.class).build();
+  }
+
+  @ActionSpec
+  public Expectation<Dial> lock(Expectation.Builder<Dial> builder) {
+    return builder.invalid(this, IllegalStateException.class).build();
+  }
+}
@@ -0,0 +1,199 @@
+package com.github.dakusui.jcunit8.tests.components.fsm;
+
+import com.github.dakusui.jcunit.fsm.FiniteStateMachine;
+import com.github.dakusui.jcunit.fsm.spec.FsmSpec;
+import com.github.dakusui.jcunit8.factorspace.Parameter;
+import com.github.dakusui.jcunit8.factorspace.fsm.Edge;
+import com.github.dakusui.jcunit8.factorspace.fsm.FsmScenarioGenerator;
+import com.github.dakusui.jcunit8.factorspace.fsm.Player;
+import com.github.dakusui.jcunit8.factorspace.fsm.Scenario;
+import com.github.dakusui.jcunit8.testutils.UTUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FsmScenarioGeneratorTest {
+  @Before
+  public void before() {
+    UTUtils.configureStdIOs();
+  }
+
+  @Test
+  public void givenTurnstile$whenGenerateForTransitionCoverage$thenOneScenarioCoversAllTransitions() {
+    List<Scenario<Turnstile>> scenarios = generate(TurnstileSpec.class, FsmScenarioGenerator.Criterion.TRANSITION, 2, 2);
+
+    assertEquals(1, scenarios.size());
+    assertEquals(2, scenarios.get(0).main().size());
+    assertEquals(
+        new HashSet<>(asList(
+            asList("I", "coin", "OPENED"),
+            asList("OPENED", "pass", "I")
+        )),
+        transitionsOf(scenarios)
+    );
+  }
+
+  @Test
+  public void givenTurnstile$whenGenerateForTransitionPairCoverage$thenAllPairsCovered() {
+    List<Scenario<Turnstile>> scenarios = generate(TurnstileSpec.class, FsmScenarioGenerator.Criterion.TRANSITION_PAIR, 3, 2);
+
+    assertEquals(1, scenarios.size());
+    assertEquals(3, scenarios.get(0).main().size());
+    assertEquals(
+        new HashSet<>(asList(
+            asList("I", "coin", "OPENED", "pass", "I"),
+            asList("OPENED", "pass", "I", "coin", "OPENED")
+        )),
+        transitionPairsOf(scenarios)
+    );
+  }
+
+  @Test
+  public void givenDial$whenGenerateForTransitionPairCoverage$thenAllPairsCovered() {
+    List<Scenario<Dial>> scenarios = generate(DialSpec.class, FsmScenarioGenerator.Criterion.TRANSITION_PAIR, 4, 0);
+
+    assertEquals(
+        new HashSet<>(asList(
+            asList("I", "unlock", "UNLOCKED", "lock", "I"),
+            asList("UNLOCKED", "lock", "I", "unlock", "UNLOCKED")
+        )),
+        transitionPairsOf(scenarios)
+    );
+  }
+
+  @Test
+  public void givenDial$whenGenerateWithArgStrength2$thenAllPairsOfArgumentsCovered() {
+    List<Scenario<Dial>> scenarios = generate(DialSpec.class, FsmScenarioGenerator.Criterion.TRANSITION, 4, 2);
+
+    assertEquals(allArgumentCombinationsOf(DialSpec.unlock.values(), 2), argumentCombinationsOf(scenarios, 2));
+  }
+
+  @Test
+  public void givenDial$whenGenerateWithArgStrength1$thenEachArgumentValueCoveredWithFewerEdges() {
+    List<Scenario<Dial>> strength1 = generate(DialSpec.class, FsmScenarioGenerator.Criterion.TRANSITION, 4, 1);
+    List<Scenario<Dial>> strength2 = generate(DialSpec.class, FsmScenarioGenerator.Criterion.TRANSITION, 4, 2);
+
+    assertEquals(allArgumentCombinationsOf(DialSpec.unlock.values(), 1), argumentCombinationsOf(strength1, 1));
+    assertTrue(
+        numEdgesWithArgs(strength1) + " < " + numEdgesWithArgs(strength2),
+        numEdgesWithArgs(strength1) < numEdgesWithArgs(strength2)
+    );
+  }
+
+  @Test
+  public void givenTurnstile$whenPlayGeneratedScenarios$thenPasses() {
+    generate(TurnstileSpec.class, FsmScenarioGenerator.Criterion.TRANSITION_PAIR, 2, 2).forEach(
+        each -> new Player.Simple<>(new Turnstile()).play(each)
+    );
+  }
+
+  @Test
+  public void givenDial$whenCreateParameterByCoveringFactory$thenGeneratedScenariosAreLevelsAndPlayable() {
+    Parameter<Scenario<Dial>> parameter = Parameter.Fsm.CoveringFactory.of(DialSpec.class, 4, FsmScenarioGenerator.Criterion.TRANSITION_PAIR, 2).create("dial");
+    List<Scenario<Dial>> levels = parameter.getKnownValues();
+
+    assertEquals("dial", parameter.getName());
+    assertEquals(generate(DialSpec.class, FsmScenarioGenerator.Criterion.TRANSITION_PAIR, 4, 2).size(), levels.size());
+    assertEquals(allArgumentCombinationsOf(DialSpec.unlock.values(), 2), argumentCombinationsOf(levels, 2));
+    levels.forEach(each -> new Player.Simple<>(new Dial()).play(each));
+  }
+
+  private static <SUT> List<Scenario<SUT>> generate(Class<? extends FsmSpec<SUT>> fsmSpecClass, FsmScenarioGenerator.Criterion criterion, int scenarioLength, int argStrength) {
+    return new FsmScenarioGenerator<>(
+        "fsm",
+        FiniteStateMachine.create("fsm", fsmSpecClass),
+        scenarioLength,
+        criterion,
+        argStrength
+    ).generate();
+  }
+
+  private static <SUT> Set<List<Object>> transitionsOf(List<Scenario<SUT>> scenarios) {
+    Set<List<Object>> ret = new HashSet<>();
+    scenarios.forEach(scenario -> scenario.main().forEach(
+        each -> ret.add(asList(each.from.toString(), each.action.toString(), each.to.toString()))
+    ));
+    return ret;
+  }
+
+  private static <SUT> Set<List<Object>> transitionPairsOf(List<Scenario<SUT>> scenarios) {
+    Set<List<Object>> ret = new HashSet<>();
+    scenarios.forEach(scenario -> {
+      List<Edge<SUT>> edges = scenario.main();
+      for (int i = 1; i < edges.size(); i++) {
+        Edge<SUT> first = edges.get(i - 1);
+        Edge<SUT> second = edges.get(i);
+        ret.add(asList(first.from.toString(), first.action.toString(), first.to.toString(), second.action.toString(), second.to.toString()));
+      }
+    });
+    return ret;
+  }
+
+  /**
+   * Returns combinations of {@code strength} arguments given to actions in
+   * {@code scenarios}, each of which is a list of an index of an argument and
+   * its value for each argument.
+   */
+  private static <SUT> Set<List<Object>> argumentCombinationsOf(List<Scenario<SUT>> scenarios, int strength) {
+    Set<List<Object>> ret = new HashSet<>();
+    scenarios.forEach(scenario -> scenario.main().stream()
+        .filter(each -> each.args.size() > 0)
+        .forEach(each -> ret.addAll(combinationsOf(asList(each.args.values()), strength)))
+    );
+    return ret;
+  }
+
+  /**
+   * Returns all the combinations of {@code strength} arguments whose values are
+   * given by {@code levels}, in the same form as {@link #argumentCombinationsOf(List, int)}.
+   */
+  private static Set<List<Object>> allArgumentCombinationsOf(List<List> levels, int strength) {
+    Set<List<Object>> ret = new HashSet<>();
+    allValuesOf(levels).forEach(each -> ret.addAll(combinationsOf(each, strength)));
+    return ret;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static List<List<Object>> allValuesOf(List<List> levels) {
+    if (levels.isEmpty())
+      return Collections.singletonList(Collections.emptyList());
+    List<List<Object>> ret = new ArrayList<>();
+    for (Object each : (List<Object>) levels.get(0))
+      for (List<Object> rest : allValuesOf(levels.subList(1, levels.size()))) {
+        List<Object> values = new ArrayList<>();
+        values.add(each);
+        values.addAll(rest);
+        ret.add(values);
+      }
+    return ret;
+  }
+
+  private static List<List<Object>> combinationsOf(List<Object> values, int strength) {
+    List<List<Object>> ret = new ArrayList<>();
+    combinationsOf(values, strength, 0, new ArrayList<>(), ret);
+    return ret;
+  }
+
+  private static void combinationsOf(List<Object> values, int strength, int from, List<Object> work, List<List<Object>> out) {
+    if (work.size() == strength * 2) {
+      out.add(new ArrayList<>(work));
+      return;
+    }
+    for (int i = from; i < values.size(); i++) {
+      work.add(i);
+      work.add(values.get(i));
+      combinationsOf(values, strength, i + 1, work, out);
+      work.remove(work.size() - 1);
+      work.remove(work.size() - 1);
+    }
+  }
+
+  private static <SUT> long numEdgesWithArgs(List<Scenario<SUT>> scenarios) {
+    return scenarios.stream().flatMap(each -> each.main().stream()).filter(each -> each.args.size() > 0).count();
+  }
+}
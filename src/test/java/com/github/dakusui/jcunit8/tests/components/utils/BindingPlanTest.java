@@ -0,0 +1,135 @@
+package com.github.dakusui.jcunit8.tests.components.utils;
+
+import com.github.dakusui.jcunit.core.tuples.Tuple;
+import com.github.dakusui.jcunit8.factorspace.Parameter;
+import com.github.dakusui.jcunit8.runners.junit4.JCUnit8;
+import com.github.dakusui.jcunit8.runners.junit4.annotations.From;
+import com.github.dakusui.jcunit8.runners.junit4.annotations.ParameterSource;
+import com.github.dakusui.jcunit8.runners.junit4.utils.BindingPlan;
+import org.junit.Test;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Result;
+import org.junit.runner.RunWith;
+import org.junit.runners.model.FrameworkMethod;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.*;
+
+public class BindingPlanTest {
+  public static class Target {
+    public String concat(@From("a") String a, @From("b") int b) {
+      return a + b;
+    }
+
+    public static String negate(@From("b") int b) {
+      return Integer.toString(-b);
+    }
+
+    public void fail(@From("a") String a) {
+      throw new UnsupportedOperationException(a);
+    }
+  }
+
+  @RunWith(JCUnit8.class)
+  public static class Oracles {
+    static final List<String> log = Collections.synchronizedList(new ArrayList<>());
+
+    @ParameterSource
+    public Parameter.Simple.Factory<Integer> a() {
+      return Parameter.Simple.Factory.of(asList(1, 2, 3));
+    }
+
+    @ParameterSource
+    public Parameter.Simple.Factory<String> b() {
+      return Parameter.Simple.Factory.of(asList("x", "y"));
+    }
+
+    @Test
+    public void first(@From("a") int a, @From("b") String b) {
+      log.add(a + b);
+    }
+
+    @Test
+    public void second(@From("b") String b) {
+      log.add(b);
+    }
+  }
+
+  @Test
+  public void givenCompactTuple$whenInvoke$thenArgumentsBound() throws Throwable {
+    BindingPlan plan = BindingPlan.compile(method("concat", String.class, int.class));
+
+    assertEquals("x1", plan.invoke(Tuple.builder().put("@ins", new Target()).put("a", "x").put("b", 1).build()));
+    assertEquals("y2", plan.invoke(Tuple.builder().put("@ins", new Target()).put("a", "y").put("b", 2).build()));
+    ////
+    // A different schema
+    assertEquals("z3", plan.invoke(Tuple.builder().put("@ins", new Target()).put("a", "z").put("b", 3).put("c", 0).build()));
+  }
+
+  @Test
+  public void givenNonCompactTuple$whenInvoke$thenArgumentsBound() throws Throwable {
+    Tuple tuple = new Tuple.Impl();
+    tuple.put("@ins", new Target());
+    tuple.put("a", "x");
+    tuple.put("b", 1);
+
+    assertEquals("x1", BindingPlan.compile(method("concat", String.class, int.class)).invoke(tuple));
+  }
+
+  @Test
+  public void givenStaticMethod$whenInvoke$thenInstanceIgnored() throws Throwable {
+    assertEquals("-1", BindingPlan.compile(method("negate", int.class)).invoke(Tuple.builder().put("b", 1).build()));
+  }
+
+  @Test
+  public void givenExplicitTarget$whenInvokeWithArgumentsFromTuple$thenMissingNamesAreNull() throws Throwable {
+    BindingPlan plan = BindingPlan.compile(method("concat", String.class, int.class));
+    Object[] arguments = plan.argumentsFrom(Tuple.builder().put("a", "x").build());
+
+    assertArrayEquals(new Object[] { "x", null }, arguments);
+    arguments[1] = 2;
+    assertEquals("x2", plan.invoke(new Target(), arguments));
+    assertEquals(asList("a", "b"), plan.names());
+  }
+
+  @Test
+  public void givenIncompatibleArgument$whenInvoke$thenRejected() throws Throwable {
+    BindingPlan plan = BindingPlan.compile(method("concat", String.class, int.class));
+    try {
+      plan.invoke(Tuple.builder().put("@ins", new Target()).put("a", "x").put("b", "1").build());
+      fail();
+    } catch (IllegalArgumentException e) {
+      assertEquals("'1' is not compatible with parameter 1 of 'concat(String,int)'", e.getMessage());
+    }
+    try {
+      plan.invoke(Tuple.builder().put("@ins", new Target()).put("a", "x").build());
+      fail();
+    } catch (IllegalArgumentException e) {
+      assertEquals("'null' is not compatible with parameter 1 of 'concat(String,int)'", e.getMessage());
+    }
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void givenThrowingMethod$whenInvoke$thenExceptionNotWrapped() throws Throwable {
+    BindingPlan.compile(method("fail", String.class)).invoke(Tuple.builder().put("@ins", new Target()).put("a", "x").build());
+  }
+
+  @Test
+  public void givenTestClass$whenRun$thenEveryOracleInvokedWithBoundArguments() {
+    Oracles.log.clear();
+
+    Result result = JUnitCore.runClasses(Oracles.class);
+
+    assertTrue(result.getFailures().toString(), result.wasSuccessful());
+    assertEquals(12, result.getRunCount());
+    assertTrue(Oracles.log.containsAll(asList("1x", "2x", "3x", "1y", "2y", "3y", "x", "y")));
+  }
+
+  private static FrameworkMethod method(String name, Class<?>... parameterTypes) throws NoSuchMethodException {
+    return new FrameworkMethod(Target.class.getMethod(name, parameterTypes));
+  }
+}
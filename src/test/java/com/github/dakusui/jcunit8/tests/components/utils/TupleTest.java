@@ -0,0 +1,119 @@
+package com.github.dakusui.jcunit8.tests.components.utils;
+
+import com.github.dakusui.jcunit.core.tuples.Tuple;
+import org.junit.Test;
+
+import java.io.*;
+import java.lang.ref.WeakReference;
+import java.util.*;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.*;
+
+public class TupleTest {
+  @Test
+  public void givenBuiltTuple$whenIterate$thenKeysAreInDictionaryOrder() {
+    Tuple tuple = Tuple.builder().put("c", 3).put("a", 1).put("b", 2).build();
+
+    assertEquals(asList("a", "b", "c"), new ArrayList<>(tuple.keySet()));
+    assertEquals(asList(1, 2, 3), new ArrayList<>(tuple.values()));
+  }
+
+  @Test
+  public void givenTuplesWithSameKeys$whenBuild$thenSchemaIsShared() {
+    Tuple.Compact t1 = (Tuple.Compact) Tuple.builder().put("a", 1).put("b", 2).build();
+    Tuple.Compact t2 = (Tuple.Compact) Tuple.builder().put("b", 3).put("a", 4).build();
+
+    assertSame(t1.schema(), t2.schema());
+  }
+
+  @Test
+  public void givenBuiltTuple$whenCompareWithOtherMaps$thenMapContractIsHonoured() {
+    Tuple tuple = Tuple.builder().put("a", 1).put("b", null).build();
+    Map<String, Object> hashMap = new HashMap<>();
+    hashMap.put("a", 1);
+    hashMap.put("b", null);
+    Tuple sorted = new Tuple.Sorted();
+    sorted.putAll(hashMap);
+
+    assertEquals(hashMap, tuple);
+    assertEquals(tuple, hashMap);
+    assertEquals(sorted, tuple);
+    assertEquals(tuple, sorted);
+    assertEquals(hashMap.hashCode(), tuple.hashCode());
+    assertTrue(tuple.containsKey("b"));
+    assertFalse(tuple.containsKey("c"));
+  }
+
+  @Test
+  public void givenBuiltTuple$whenModify$thenReflectedAndHashCodeUpdated() {
+    Tuple tuple = Tuple.builder().put("b", 2).build();
+    int hashCodeBefore = tuple.hashCode();
+    tuple.put("a", 1);
+    tuple.put("c", 3);
+    tuple.put("b", 20);
+
+    assertEquals(asList("a", "b", "c"), new ArrayList<>(tuple.keySet()));
+    assertEquals(20, tuple.get("b"));
+    assertNotEquals(hashCodeBefore, tuple.hashCode());
+    assertEquals(Tuple.builder().put("a", 1).put("b", 20).put("c", 3).build(), tuple);
+
+    Iterator<String> i = tuple.keySet().iterator();
+    while (i.hasNext())
+      if ("b".equals(i.next()))
+        i.remove();
+    assertEquals(Tuple.builder().put("a", 1).put("c", 3).build(), tuple);
+    assertEquals(1, tuple.remove("a"));
+    assertEquals(Tuple.builder().put("c", 3).build(), tuple);
+  }
+
+  @Test
+  public void givenSchemaNoLongerUsed$whenGc$thenDiscarded() throws InterruptedException {
+    Tuple.Compact tuple = (Tuple.Compact) Tuple.builder().put("unused-a", 1).put("unused-b", 2).build();
+    tuple.put("unused-c", 3);
+    WeakReference<Tuple.Compact.Schema> extended = new WeakReference<>(tuple.schema());
+    tuple.remove("unused-c");
+    WeakReference<Tuple.Compact.Schema> built = new WeakReference<>(tuple.schema());
+    //noinspection UnusedAssignment
+    tuple = null;
+
+    for (int i = 0; i < 100 && (built.get() != null || extended.get() != null); i++) {
+      System.gc();
+      Thread.sleep(10);
+    }
+    assertNull(built.get());
+    assertNull(extended.get());
+    assertSame(
+        ((Tuple.Compact) Tuple.builder().put("unused-a", 1).put("unused-b", 2).build()).schema(),
+        ((Tuple.Compact) Tuple.builder().put("unused-b", 3).put("unused-a", 4).build()).schema()
+    );
+  }
+
+  @Test
+  public void givenTuples$whenIsSubtupleOf$thenCorrect() {
+    Tuple tuple = Tuple.builder().put("a", 1).put("b", 2).put("c", 3).build();
+
+    assertTrue(Tuple.builder().put("a", 1).put("c", 3).build().isSubtupleOf(tuple));
+    assertTrue(Tuple.builder().build().isSubtupleOf(tuple));
+    assertTrue(tuple.isSubtupleOf(tuple));
+    assertFalse(Tuple.builder().put("a", 1).put("c", 4).build().isSubtupleOf(tuple));
+    assertFalse(Tuple.builder().put("a", 1).put("d", 3).build().isSubtupleOf(tuple));
+    assertFalse(tuple.isSubtupleOf(Tuple.builder().put("a", 1).put("b", 2).build()));
+  }
+
+  @Test
+  public void givenBuiltTuple$whenSerializeAndDeserialize$thenEqualAndSchemaIsShared() throws IOException, ClassNotFoundException {
+    Tuple tuple = Tuple.builder().put("a", 1).put("b", "B").build();
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    try (ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+      oos.writeObject(tuple);
+    }
+    Tuple deserialized;
+    try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bos.toByteArray()))) {
+      deserialized = (Tuple) ois.readObject();
+    }
+
+    assertEquals(tuple, deserialized);
+    assertSame(((Tuple.Compact) tuple).schema(), ((Tuple.Compact) deserialized).schema());
+  }
+}
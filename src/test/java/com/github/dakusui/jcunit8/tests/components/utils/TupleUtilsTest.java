@@ -0,0 +1,81 @@
+package com.github.dakusui.jcunit8.tests.components.utils;
+
+import com.github.dakusui.jcunit.core.tuples.Tuple;
+import com.github.dakusui.jcunit.core.tuples.TupleUtils;
+import org.junit.Test;
+
+import java.util.*;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TupleUtilsTest {
+  private static final Tuple TUPLE = Tuple.builder()
+      .put("a", 1)
+      .put("b", 2)
+      .put("c", 3)
+      .put("d", 4)
+      .build();
+
+  @Test
+  public void whenForEachIndexCombination$thenAllCombinationsVisitedInLexicographicOrder() {
+    List<List<Integer>> visited = new LinkedList<>();
+    TupleUtils.forEachIndexCombination(4, 2, indices -> visited.add(asList(indices[0], indices[1])));
+
+    assertEquals(
+        asList(asList(0, 1), asList(0, 2), asList(0, 3), asList(1, 2), asList(1, 3), asList(2, 3)),
+        visited
+    );
+  }
+
+  @Test
+  public void whenForEachIndexCombinationWithZeroOrTooLargeK$thenVisitedOnceOrNever() {
+    int[] count = new int[] { 0, 0 };
+    TupleUtils.forEachIndexCombination(3, 0, indices -> count[0]++);
+    TupleUtils.forEachIndexCombination(3, 4, indices -> count[1]++);
+
+    assertEquals(1, count[0]);
+    assertEquals(0, count[1]);
+  }
+
+  @Test
+  public void whenForEachSubtupleOf$thenSameSubtuplesAsSubtuplesOfAreVisited() {
+    for (int strength = 0; strength <= TUPLE.size(); strength++) {
+      Set<Tuple> visited = new HashSet<>();
+      TupleUtils.forEachSubtupleOf(TUPLE, strength, subtuple -> visited.add(TupleUtils.copy(subtuple)));
+
+      assertEquals(TupleUtils.subtuplesOf(TUPLE, strength), visited);
+    }
+  }
+
+  @Test
+  public void givenSetOfTuples$whenRemoveSubtuplesThroughViews$thenRemoved() {
+    Set<Tuple> tuples = new HashSet<>(TupleUtils.subtuplesOf(TUPLE, 2));
+    Tuple another = Tuple.builder().put("a", 1).put("b", 2).put("c", 0).put("d", 0).build();
+    TupleUtils.forEachSubtupleOf(another, 2, tuples::remove);
+
+    assertEquals(
+        new HashSet<>(asList(
+            Tuple.builder().put("a", 1).put("c", 3).build(),
+            Tuple.builder().put("a", 1).put("d", 4).build(),
+            Tuple.builder().put("b", 2).put("c", 3).build(),
+            Tuple.builder().put("b", 2).put("d", 4).build(),
+            Tuple.builder().put("c", 3).put("d", 4).build()
+        )),
+        tuples
+    );
+  }
+
+  @Test
+  public void givenSetOfTuples$whenCountSubtuplesContained$thenCorrect() {
+    Set<Tuple> tuples = new HashSet<>(asList(
+        Tuple.builder().put("a", 1).put("c", 3).build(),
+        Tuple.builder().put("b", 2).put("d", 5).build(),
+        Tuple.builder().put("c", 3).put("d", 4).build()
+    ));
+
+    assertEquals(2, TupleUtils.countSubtuplesOf(TUPLE, 2, tuples::contains));
+    assertTrue(TupleUtils.countSubtuplesOf(TUPLE, 3, tuples::contains) == 0);
+  }
+}
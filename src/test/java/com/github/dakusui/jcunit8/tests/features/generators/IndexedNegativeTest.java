@@ -0,0 +1,201 @@
+package com.github.dakusui.jcunit8.tests.features.generators;
+
+import com.github.dakusui.jcunit.core.tuples.Tuple;
+import com.github.dakusui.jcunit8.examples.seed.QuadraticEquationExampleWithSeeds;
+import com.github.dakusui.jcunit8.factorspace.Constraint;
+import com.github.dakusui.jcunit8.factorspace.Factor;
+import com.github.dakusui.jcunit8.factorspace.FactorSpace;
+import com.github.dakusui.jcunit8.factorspace.Parameter;
+import com.github.dakusui.jcunit8.factorspace.ParameterSpace;
+import com.github.dakusui.jcunit8.pipeline.Config;
+import com.github.dakusui.jcunit8.pipeline.Pipeline;
+import com.github.dakusui.jcunit8.pipeline.Requirement;
+import com.github.dakusui.jcunit8.pipeline.stages.generators.IndexedNegative;
+import com.github.dakusui.jcunit8.pipeline.stages.generators.IpoGplus;
+import com.github.dakusui.jcunit8.pipeline.stages.generators.Negative;
+import com.github.dakusui.jcunit8.runners.junit4.JCUnit8;
+import com.github.dakusui.jcunit8.tests.features.seed.SeedFeatureTestBase;
+import org.junit.Test;
+import org.junit.runners.model.TestClass;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singleton;
+import static java.util.Collections.singletonList;
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class IndexedNegativeTest {
+  private static final Requirement REQUIREMENT = new Requirement.Builder().withStrength(2).build();
+
+  @Test
+  public void givenOverlappingConstraints$whenGenerate$thenSameAsNegative() {
+    FactorSpace factorSpace = factorSpace(asList(
+        Constraint.create("a!=b", (Tuple t) -> !t.get("a").equals(t.get("b")), "a", "b"),
+        Constraint.create("b<=c", (Tuple t) -> (int) t.get("b") <= (int) t.get("c"), "b", "c"),
+        Constraint.create("c!=2||d==0", (Tuple t) -> !t.get("c").equals(2) || t.get("d").equals(0), "c", "d"),
+        Constraint.create("e!=1", (Tuple t) -> !t.get("e").equals(1), "e"),
+        Constraint.create("a+e<4", (Tuple t) -> (int) t.get("a") + (int) t.get("e") < 4, "a", "e")
+    ));
+    List<Tuple> regularTestCases = new IpoGplus(factorSpace, REQUIREMENT, emptyList()).generate();
+
+    List<Tuple> negativeTestCases = new IndexedNegative(regularTestCases, emptyList(), factorSpace, REQUIREMENT).generate();
+
+    assertFalse(negativeTestCases.isEmpty());
+    assertEquals(
+        new Negative(regularTestCases, emptyList(), factorSpace, REQUIREMENT).generate(),
+        negativeTestCases
+    );
+  }
+
+  @Test
+  public void givenSeedViolatingOnlyOneConstraint$whenGenerate$thenSameAsNegative() {
+    FactorSpace factorSpace = factorSpace(asList(
+        Constraint.create("a!=b", (Tuple t) -> !t.get("a").equals(t.get("b")), "a", "b"),
+        Constraint.create("b!=c", (Tuple t) -> !t.get("b").equals(t.get("c")), "b", "c")
+    ));
+    List<Tuple> regularTestCases = new IpoGplus(factorSpace, REQUIREMENT, emptyList()).generate();
+    List<Tuple> seeds = singletonList(
+        Tuple.builder().put("a", 0).put("b", 0).put("c", 1).put("d", 0).put("e", 0).build()
+    );
+
+    List<Tuple> negativeTestCases = new IndexedNegative(regularTestCases, seeds, factorSpace, REQUIREMENT).generate();
+
+    assertEquals(1, negativeTestCases.size());
+    assertEquals(
+        new Negative(regularTestCases, seeds, factorSpace, REQUIREMENT).generate(),
+        negativeTestCases
+    );
+  }
+
+  @Test
+  public void givenDefaultRequirement$whenGenerate$thenConstraintsEvaluatedOnCallingThread() {
+    Set<Thread> threads = ConcurrentHashMap.newKeySet();
+    FactorSpace factorSpace = factorSpace(asList(
+        Constraint.create("a!=b", (Tuple t) -> {
+          threads.add(Thread.currentThread());
+          return !t.get("a").equals(t.get("b"));
+        }, "a", "b"),
+        Constraint.create("b!=c", (Tuple t) -> {
+          threads.add(Thread.currentThread());
+          return !t.get("b").equals(t.get("c"));
+        }, "b", "c")
+    ));
+    List<Tuple> regularTestCases = new IpoGplus(factorSpace, REQUIREMENT, emptyList()).generate();
+    threads.clear();
+
+    new IndexedNegative(regularTestCases, emptyList(), factorSpace, REQUIREMENT).generate();
+
+    assertEquals(singleton(Thread.currentThread()), threads);
+  }
+
+  @Test
+  public void givenParallelEvaluation$whenGenerate$thenSameAsNegative() {
+    Requirement requirement = new Requirement.Builder().withStrength(2).withParallelEvaluation(true).build();
+    FactorSpace factorSpace = factorSpace(asList(
+        Constraint.create("a!=b", (Tuple t) -> !t.get("a").equals(t.get("b")), "a", "b"),
+        Constraint.create("b<=c", (Tuple t) -> (int) t.get("b") <= (int) t.get("c"), "b", "c"),
+        Constraint.create("e!=1", (Tuple t) -> !t.get("e").equals(1), "e")
+    ));
+    List<Tuple> regularTestCases = new IpoGplus(factorSpace, requirement, emptyList()).generate();
+
+    assertEquals(
+        new Negative(regularTestCases, emptyList(), factorSpace, requirement).generate(),
+        new IndexedNegative(regularTestCases, emptyList(), factorSpace, requirement).generate()
+    );
+  }
+
+  @Test
+  public void givenNoConstraint$whenGenerate$thenEmpty() {
+    FactorSpace factorSpace = factorSpace(Collections.emptyList());
+
+    assertEquals(
+        emptyList(),
+        new IndexedNegative(new IpoGplus(factorSpace, REQUIREMENT, emptyList()).generate(), emptyList(), factorSpace, REQUIREMENT).generate()
+    );
+  }
+
+  @Test
+  public void givenNegativeGenerationTestFixture$whenGenerate$thenSameAsNegative() {
+    Config config = Config.Builder.forTuple(new Requirement.Builder().withNegativeTestGeneration(true).build()).build();
+    ParameterSpace parameterSpace = new Pipeline.Standard().preprocess(
+        config,
+        new ParameterSpace.Builder()
+            .addAllParameters(asList(
+                Parameter.Simple.Factory.of(asList("Hello", "world", "everyone")).create("simple1"),
+                Parameter.Simple.Factory.of(asList("Hello", "world", "everyone")).create("simple2")
+            ))
+            .addAllConstraints(singletonList(Constraint.create(
+                "simple1!=simple2",
+                (Tuple t) -> !Objects.equals(t.get("simple1"), t.get("simple2")),
+                "simple1",
+                "simple2"
+            )))
+            .build()
+    );
+
+    assertFalse(assertSameAsNegative(config, parameterSpace).isEmpty());
+  }
+
+  @Test
+  public void givenQuadraticEquationExampleWithSeeds$whenGenerate$thenSameAsNegative() {
+    assertFalse(assertSameAsNegative(QuadraticEquationExampleWithSeeds.class).isEmpty());
+  }
+
+  @Test
+  public void givenSeedFeatureTests$whenGenerate$thenSameAsNegative() {
+    assertFalse(assertSameAsNegative(SeedFeatureTestBase.T00.class).isEmpty());
+    assertSameAsNegative(SeedFeatureTestBase.T02.class);
+    assertSameAsNegative(SeedFeatureTestBase.T03.class);
+  }
+
+  private static List<Tuple> assertSameAsNegative(Class<?> testClass) {
+    TestClass tc = new TestClass(testClass);
+    Config config = JCUnit8.configOf(tc);
+    return assertSameAsNegative(config, JCUnit8.buildTestSuite(tc, config).getParameterSpace());
+  }
+
+  /**
+   * Asserts that {@link IndexedNegative} generates the same negative test cases
+   * as {@link Negative} for regular test cases and seeds that the pipeline gives
+   * them for {@code parameterSpace}, and returns them.
+   */
+  private static List<Tuple> assertSameAsNegative(Config config, ParameterSpace parameterSpace) {
+    Requirement requirement = config.getRequirement();
+    FactorSpace factorSpace = FactorSpace.create(
+        parameterSpace.getParameterNames().stream()
+            .map(each -> Factor.create(each, parameterSpace.getParameter(each).getKnownValues().toArray()))
+            .collect(toList()),
+        parameterSpace.getConstraints()
+    );
+    List<Tuple> regularTestCases = new Pipeline.Standard().engine(config, parameterSpace);
+
+    List<Tuple> ret = new IndexedNegative(regularTestCases, requirement.seeds(), factorSpace, requirement).generate();
+
+    assertEquals(
+        new Negative(regularTestCases, requirement.seeds(), factorSpace, requirement).generate(),
+        ret
+    );
+    return ret;
+  }
+
+  private static FactorSpace factorSpace(List<Constraint> constraints) {
+    return FactorSpace.create(
+        asList(
+            Factor.create("a", new Object[] { 0, 1, 2 }),
+            Factor.create("b", new Object[] { 0, 1, 2 }),
+            Factor.create("c", new Object[] { 0, 1, 2 }),
+            Factor.create("d", new Object[] { 0, 1 }),
+            Factor.create("e", new Object[] { 0, 1, 2 })
+        ),
+        constraints
+    );
+  }
+}
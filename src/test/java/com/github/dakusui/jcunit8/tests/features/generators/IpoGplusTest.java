@@ -1,10 +1,13 @@
 package com.github.dakusui.jcunit8.tests.features.generators;
 
 import com.github.dakusui.jcunit.core.tuples.Tuple;
+import com.github.dakusui.jcunit.core.tuples.TupleUtils;
 import com.github.dakusui.jcunit8.core.StreamableTupleCartesianator;
 import com.github.dakusui.jcunit8.core.Utils;
 import com.github.dakusui.jcunit8.factorspace.Constraint;
 import com.github.dakusui.jcunit8.factorspace.Factor;
+import com.github.dakusui.jcunit8.factorspace.FactorSpace;
+import com.github.dakusui.jcunit8.pipeline.Requirement;
 import com.github.dakusui.jcunit8.pipeline.stages.generators.IpoGplus;
 import org.junit.Test;
 import org.junit.experimental.runners.Enclosed;
@@ -12,6 +15,7 @@ import org.junit.runner.RunWith;
 
 import java.util.*;
 import java.util.function.Function;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import static com.github.dakusui.jcunit8.pipeline.stages.Generator.DontCare;
@@ -606,6 +610,88 @@ public class IpoGplusTest {
     }
   }
 
+  public static class Seeds {
+    List<Factor> factors = asList(
+        Factor.create("a", new Object[] { 1, 2, 3 }),
+        Factor.create("b", new Object[] { 1, 2, 3 }),
+        Factor.create("c", new Object[] { 1, 2, 3 }),
+        Factor.create("d", new Object[] { 1, 2, 3 }),
+        Factor.create("e", new Object[] { 1, 2, 3 })
+    );
+
+    @Test
+    public void givenSeeds$whenGenerate$thenInteractionsCoveredBySeedsAreNotCoveredAgain() {
+      List<Tuple> seeds = asList(
+          new Tuple.Builder().put("a", 1).put("b", 1).put("c", 1).put("d", 1).put("e", 1).put("unknown", 0).build(),
+          new Tuple.Builder().put("a", 2).put("b", 2).put("c", 2).put("d", 2).put("e", 2).build(),
+          new Tuple.Builder().put("a", 3).put("b", 3).put("c", 3).put("d", 3).build()
+      );
+
+      List<Tuple> generated = generate(emptyList(), seeds, 3);
+
+      Set<Tuple> coveredBySeeds = subtuplesOf(
+          seeds.subList(0, 2).stream().map(each -> TupleUtils.project(each, asList("a", "b", "c", "d", "e"))).collect(toList()),
+          3
+      );
+      Set<Tuple> coveredByGenerated = subtuplesOf(generated, 3);
+      assertEquals(10 * 27, Utils.unique(new ArrayList<Tuple>() {{
+        addAll(coveredBySeeds);
+        addAll(coveredByGenerated);
+      }}).size());
+      assertTrue(generated.size() < generate(emptyList(), emptyList(), 3).size());
+      ////
+      // The last seed doesn't have all the factors, so it covers nothing.
+      assertTrue(coveredByGenerated.contains(new Tuple.Builder().put("a", 3).put("b", 3).put("c", 3).build()));
+    }
+
+    @Test
+    public void givenSeedViolatingConstraint$whenGenerate$thenItCoversNothing() {
+      Constraint constraint = Constraint.create("a!=b", (Tuple tuple) -> !tuple.get("a").equals(tuple.get("b")), "a", "b");
+      List<Tuple> seeds = singletonList(
+          new Tuple.Builder().put("a", 1).put("b", 1).put("c", 2).put("d", 2).put("e", 2).build()
+      );
+
+      List<Tuple> generated = generate(singletonList(constraint), seeds, 2);
+
+      assertTrue(subtuplesOf(generated, 2).containsAll(asList(
+          new Tuple.Builder().put("c", 2).put("d", 2).build(),
+          new Tuple.Builder().put("d", 2).put("e", 2).build()
+      )));
+    }
+
+    @Test
+    public void givenSeedsAndTooManyCombinationsToEnumerate$whenCreate$thenNoError() {
+      List<Factor> manyFactors = IntStream.range(0, 2000)
+          .mapToObj(i -> Factor.create("f" + i, new Object[] { 1, 2 }))
+          .collect(toList());
+      Tuple.Builder seed = new Tuple.Builder();
+      manyFactors.forEach(each -> seed.put(each.getName(), 1));
+
+      ////
+      // C(2000, 4) interactions don't fit in a bit set over all of them, but
+      // only levels in seeds are indexed.
+      new IpoGplus(
+          FactorSpace.create(manyFactors, emptyList()),
+          new Requirement.Builder().withStrength(4).build(),
+          singletonList(seed.build())
+      );
+    }
+
+    private List<Tuple> generate(List<Constraint> constraints, List<Tuple> seeds, int strength) {
+      return new IpoGplus(
+          FactorSpace.create(factors, constraints),
+          new Requirement.Builder().withStrength(strength).build(),
+          seeds
+      ).generate();
+    }
+
+    private static Set<Tuple> subtuplesOf(List<Tuple> tuples, int strength) {
+      Set<Tuple> ret = new HashSet<>();
+      tuples.forEach(each -> ret.addAll(TupleUtils.subtuplesOf(each, strength)));
+      return ret;
+    }
+  }
+
   @SuppressWarnings("NonAsciiCharacters")
   public static class TupleTest {
     List<Tuple> ts = new LinkedList<Tuple>() {{
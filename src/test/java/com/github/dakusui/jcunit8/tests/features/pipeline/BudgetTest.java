@@ -0,0 +1,225 @@
+package com.github.dakusui.jcunit8.tests.features.pipeline;
+
+import com.github.dakusui.jcunit.core.tuples.Tuple;
+import com.github.dakusui.jcunit8.factorspace.Constraint;
+import com.github.dakusui.jcunit8.factorspace.Parameter;
+import com.github.dakusui.jcunit8.factorspace.ParameterSpace;
+import com.github.dakusui.jcunit8.pipeline.Budget;
+import com.github.dakusui.jcunit8.pipeline.Config;
+import com.github.dakusui.jcunit8.pipeline.Instrumentation;
+import com.github.dakusui.jcunit8.pipeline.Pipeline;
+import com.github.dakusui.jcunit8.pipeline.Requirement;
+import com.github.dakusui.jcunit8.testsuite.TestCase;
+import com.github.dakusui.jcunit8.testsuite.TestSuite;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static java.util.Arrays.asList;
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.*;
+
+public class BudgetTest {
+  @Test
+  public void givenNoLimit$whenBuildRequirement$thenUnlimited() {
+    Requirement requirement = new Requirement.Builder().build();
+
+    assertTrue(requirement.budgetLimits().isUnlimited());
+    assertSame(Budget.UNLIMITED, requirement.budget());
+    assertSame(Budget.UNLIMITED, requirement.budgetLimits().newBudget());
+  }
+
+  @Test
+  public void givenGenerousLimits$whenExecute$thenSameTestSuiteAsUnlimited() {
+    Requirement requirement = new Requirement.Builder()
+        .withStrength(2)
+        .withTimeLimit(1, TimeUnit.HOURS)
+        .withMaxRows(10000)
+        .withMaxConstraintEvaluations(Long.MAX_VALUE - 1)
+        .build();
+    Instrumentation.InMemory instrumentation = new Instrumentation.InMemory();
+
+    assertEquals(
+        testInputs(execute(new Requirement.Builder().withStrength(2).build(), 10, Instrumentation.NONE)),
+        testInputs(execute(requirement, 10, instrumentation))
+    );
+    Instrumentation.Event report = budgetEvent(instrumentation);
+    assertEquals(report.toString(), 0, report.metric("interruptions"));
+    assertEquals(report.toString(), 0, report.metric("exhausted"));
+  }
+
+  @Test
+  public void givenTimeLimit$whenExecuteLargeModel$thenPartialSuiteReturnedInTime() {
+    Requirement requirement = new Requirement.Builder()
+        .withStrength(3)
+        .withNegativeTestGeneration(true)
+        .withTimeLimit(200, TimeUnit.MILLISECONDS)
+        .build();
+    Instrumentation.InMemory instrumentation = new Instrumentation.InMemory();
+
+    long before = System.currentTimeMillis();
+    TestSuite testSuite = execute(requirement, 30, instrumentation);
+    long elapsed = System.currentTimeMillis() - before;
+
+    Instrumentation.Event report = budgetEvent(instrumentation);
+    assertTrue("elapsed=" + elapsed, elapsed < 10000);
+    assertEquals(Budget.Limit.TIME, exhaustedBy(report));
+    assertTrue(report.toString(), report.metric("interruptions") > 0);
+    assertValid(testSuite, 30);
+    assertEquals(1, report.metric("exhausted"));
+  }
+
+  @Test
+  public void givenMaxRows$whenExecute$thenSuiteTruncated() {
+    Requirement requirement = new Requirement.Builder()
+        .withStrength(2)
+        .withMaxRows(5)
+        .build();
+    Instrumentation.InMemory instrumentation = new Instrumentation.InMemory();
+
+    TestSuite testSuite = execute(requirement, 10, instrumentation);
+
+    Instrumentation.Event report = budgetEvent(instrumentation);
+    assertEquals(5, testSuite.size());
+    assertEquals(Budget.Limit.ROWS, exhaustedBy(report));
+    assertTrue(report.toString(), report.metric("uncovered") > 0);
+    assertValid(testSuite, 10);
+  }
+
+  @Test
+  public void givenMaxRowsAndSeedsAndNegativeTests$whenExecute$thenOnlyRegularTestCasesCounted() {
+    Tuple.Builder seed = Tuple.builder();
+    IntStream.range(0, 10).forEach(i -> seed.put("p" + i, i % 3));
+    ////
+    // Exactly as many rows as regular test cases generated without a limit are
+    // allowed, so that the budget is not exhausted.
+    int maxRows = (int) count(execute(new Requirement.Builder().withStrength(2).build(), 10, Instrumentation.NONE), TestCase.Category.REGULAR);
+    Requirement requirement = new Requirement.Builder()
+        .withStrength(2)
+        .withMaxRows(maxRows)
+        .withNegativeTestGeneration(true)
+        .addSeed(seed.build())
+        .build();
+
+    TestSuite testSuite = execute(requirement, 10, Instrumentation.NONE);
+
+    assertTrue(testSuite.budgetReport().isComplete());
+    assertEquals(1, count(testSuite, TestCase.Category.SEED));
+    assertTrue(count(testSuite, TestCase.Category.REGULAR) <= maxRows);
+    assertTrue(count(testSuite, TestCase.Category.NEGATIVE) > 0);
+    assertTrue(testSuite.size() + " > " + maxRows, testSuite.size() > maxRows);
+  }
+
+  @Test
+  public void givenExhaustedBudget$whenExecute$thenReportAvailableFromTestSuite() {
+    Requirement requirement = new Requirement.Builder()
+        .withStrength(2)
+        .withMaxRows(5)
+        .build();
+
+    TestSuite testSuite = execute(requirement, 10, Instrumentation.NONE);
+
+    assertEquals(Optional.of(Budget.Limit.ROWS), testSuite.budgetReport().exhaustedBy());
+    assertFalse(testSuite.budgetReport().isComplete());
+    assertTrue(testSuite.budgetReport().uncovered() > 0);
+  }
+
+  @Test
+  public void givenNoLimit$whenExecute$thenReportOfTestSuiteComplete() {
+    TestSuite testSuite = execute(new Requirement.Builder().withStrength(2).build(), 10, Instrumentation.NONE);
+
+    assertFalse(testSuite.budgetReport().exhaustedBy().isPresent());
+    assertTrue(testSuite.budgetReport().isComplete());
+  }
+
+  @Test
+  public void givenMaxConstraintEvaluations$whenExecute$thenStoppedAfterReachingIt() {
+    Requirement requirement = new Requirement.Builder()
+        .withStrength(2)
+        .withMaxConstraintEvaluations(300)
+        .build();
+    Instrumentation.InMemory instrumentation = new Instrumentation.InMemory();
+
+    TestSuite testSuite = execute(requirement, 10, instrumentation);
+
+    Instrumentation.Event report = budgetEvent(instrumentation);
+    assertEquals(Budget.Limit.CONSTRAINT_EVALUATIONS, exhaustedBy(report));
+    assertTrue(report.toString(), report.metric("uncovered") > 0);
+    assertFalse(testSuite.isEmpty());
+    assertValid(testSuite, 10);
+  }
+
+  @Test
+  public void givenExhaustedBudget$whenExecuteAgain$thenNewBudgetUsed() {
+    Requirement requirement = new Requirement.Builder()
+        .withStrength(2)
+        .withMaxConstraintEvaluations(300)
+        .build();
+    Instrumentation.InMemory first = new Instrumentation.InMemory();
+    Instrumentation.InMemory second = new Instrumentation.InMemory();
+
+    List<Tuple> firstTestInputs = testInputs(execute(requirement, 10, first));
+    List<Tuple> secondTestInputs = testInputs(execute(requirement, 10, second));
+
+    assertSame(Budget.UNLIMITED, requirement.budget());
+    assertEquals(firstTestInputs, secondTestInputs);
+    assertEquals(budgetEvent(first).metric("constraintEvaluations"), budgetEvent(second).metric("constraintEvaluations"));
+  }
+
+  private static Instrumentation.Event budgetEvent(Instrumentation.InMemory instrumentation) {
+    List<Instrumentation.Event> events = instrumentation.events(Instrumentation.Stage.BUDGET);
+    assertEquals(events.toString(), 1, events.size());
+    return events.get(0);
+  }
+
+  private static Budget.Limit exhaustedBy(Instrumentation.Event report) {
+    assertEquals(report.toString(), 1, report.metric("exhausted"));
+    List<Budget.Limit> limits = Stream.of(Budget.Limit.values())
+        .filter(each -> report.metric("exhaustedBy." + each.name()) == 1)
+        .collect(toList());
+    assertEquals(report.toString(), 1, limits.size());
+    return limits.get(0);
+  }
+
+  private static void assertValid(TestSuite testSuite, int numParameters) {
+    for (TestCase each : testSuite) {
+      assertEquals(numParameters, each.getTestInput().size());
+      if (each.getCategory() == TestCase.Category.REGULAR)
+        assertTrue(each.toString(), constraints().stream().allMatch(constraint -> constraint.test(each.getTestInput())));
+    }
+  }
+
+  private static long count(TestSuite testSuite, TestCase.Category category) {
+    return testSuite.stream().filter(each -> each.getCategory() == category).count();
+  }
+
+  private static List<Tuple> testInputs(TestSuite testSuite) {
+    return testSuite.stream().map(TestCase::getTestInput).collect(toList());
+  }
+
+  private static TestSuite execute(Requirement requirement, int numParameters, Instrumentation instrumentation) {
+    List<Parameter> parameters = IntStream.range(0, numParameters)
+        .mapToObj(i -> Parameter.Simple.Factory.of(asList(0, 1, 2, 3)).create("p" + i))
+        .collect(toList());
+    return new Pipeline.Standard().execute(
+        Config.Builder.forTuple(requirement).withInstrumentation(instrumentation).build(),
+        new ParameterSpace.Builder()
+            .addAllParameters(parameters)
+            .addAllConstraints(constraints())
+            .build(),
+        null
+    );
+  }
+
+  private static List<Constraint> constraints() {
+    return asList(
+        Constraint.create("p0<p1", (Tuple tuple) -> (int) tuple.get("p0") < (int) tuple.get("p1"), "p0", "p1"),
+        Constraint.create("p1<p2", (Tuple tuple) -> (int) tuple.get("p1") < (int) tuple.get("p2"), "p1", "p2"),
+        Constraint.create("p3!=p4", (Tuple tuple) -> !tuple.get("p3").equals(tuple.get("p4")), "p3", "p4")
+    );
+  }
+}
@@ -0,0 +1,202 @@
+package com.github.dakusui.jcunit8.tests.features.pipeline;
+
+import com.github.dakusui.jcunit.core.tuples.Tuple;
+import com.github.dakusui.jcunit8.factorspace.Parameter;
+import com.github.dakusui.jcunit8.factorspace.ParameterSpace;
+import com.github.dakusui.jcunit8.pipeline.Config;
+import com.github.dakusui.jcunit8.pipeline.ExecutionProfile;
+import com.github.dakusui.jcunit8.pipeline.Pipeline;
+import com.github.dakusui.jcunit8.pipeline.Requirement;
+import com.github.dakusui.jcunit8.pipeline.stages.ConfigFactory;
+import com.github.dakusui.jcunit8.pipeline.stages.Generator;
+import com.github.dakusui.jcunit8.runners.junit4.JCUnit8;
+import com.github.dakusui.jcunit8.runners.junit4.annotations.ConfigureWith;
+import com.github.dakusui.jcunit8.runners.junit4.annotations.From;
+import com.github.dakusui.jcunit8.runners.junit4.annotations.ParameterSource;
+import com.github.dakusui.jcunit8.testsuite.TestCase;
+import org.junit.Test;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Result;
+import org.junit.runner.RunWith;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static java.util.Arrays.asList;
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.*;
+
+public class ExecutionProfileTest {
+  private static final int NUM_PARAMETERS = 6;
+
+  public static class Profiled extends ConfigFactory.Base {
+    static final ExecutionProfile.InMemory PROFILE = new ExecutionProfile.InMemory();
+
+    @Override
+    protected Requirement defineRequirement(Requirement.Builder defaultValues) {
+      return defaultValues.build();
+    }
+
+    @Override
+    protected ExecutionProfile executionProfile() {
+      return PROFILE;
+    }
+  }
+
+  @RunWith(JCUnit8.class)
+  @ConfigureWith(Profiled.class)
+  public static class Slow {
+    @ParameterSource
+    public Parameter.Simple.Factory<Integer> a() {
+      return Parameter.Simple.Factory.of(asList(1, 2, 3));
+    }
+
+    @ParameterSource
+    public Parameter.Simple.Factory<Integer> b() {
+      return Parameter.Simple.Factory.of(asList(1, 2));
+    }
+
+    @Test
+    public void test(@From("a") int a, @From("b") int b) throws InterruptedException {
+      if (a == 3)
+        Thread.sleep(20);
+    }
+  }
+
+  @Test
+  public void givenRecords$whenCostOf$thenMeanOfTestCasesWithLevel() {
+    ExecutionProfile profile = new ExecutionProfile.InMemory();
+    profile.record(Tuple.builder().put("a", 1).put("b", "x").build(), 100);
+    profile.record(Tuple.builder().put("a", 1).put("b", "y").build(), 300);
+
+    assertEquals(200.0, profile.costOf("a", 1).orElseThrow(AssertionError::new), 0.0);
+    assertEquals(300.0, profile.costOf("b", "y").orElseThrow(AssertionError::new), 0.0);
+    assertFalse(profile.costOf("a", 2).isPresent());
+    assertFalse(profile.costOf("c", 1).isPresent());
+  }
+
+  @Test
+  public void givenFileBackedProfile$whenFlushAndLoad$thenSameCosts() throws Exception {
+    Path path = Files.createTempFile("jcunit-execution-profile", ".tsv");
+    try {
+      ExecutionProfile profile = new ExecutionProfile.FileBacked(path);
+      profile.record(Tuple.builder().put("a", 1).put("b", "x\ty").build(), 100);
+      profile.flush();
+
+      ExecutionProfile loaded = new ExecutionProfile.FileBacked(path);
+      loaded.record(Tuple.builder().put("a", 1).build(), 300);
+
+      assertEquals(200.0, loaded.costOf("a", 1).orElseThrow(AssertionError::new), 0.0);
+      assertEquals(100.0, loaded.costOf("b", "x\ty").orElseThrow(AssertionError::new), 0.0);
+    } finally {
+      Files.delete(path);
+    }
+  }
+
+  @Test
+  public void givenFileBackedProfilesSharingFile$whenFlushEach$thenNoneLost() throws Exception {
+    Path path = Files.createTempFile("jcunit-execution-profile", ".tsv");
+    try {
+      ExecutionProfile profile1 = new ExecutionProfile.FileBacked(path).scopedTo("A");
+      ExecutionProfile profile2 = new ExecutionProfile.FileBacked(path).scopedTo("B");
+      profile1.record(Tuple.builder().put("a", 1).build(), 100);
+      profile2.record(Tuple.builder().put("a", 1).build(), 300);
+      profile1.flush();
+      profile2.flush();
+      profile1.flush();
+
+      ExecutionProfile loaded = new ExecutionProfile.FileBacked(path);
+      assertEquals(100.0, loaded.scopedTo("A").costOf("a", 1).orElseThrow(AssertionError::new), 0.0);
+      assertEquals(300.0, loaded.scopedTo("B").costOf("a", 1).orElseThrow(AssertionError::new), 0.0);
+      assertFalse(loaded.costOf("a", 1).isPresent());
+    } finally {
+      Files.deleteIfExists(Paths.get(path + ".lock"));
+      Files.delete(path);
+    }
+  }
+
+  @Test
+  public void givenProfile$whenGenerateCostAware$thenSameCoverageAndCheaper() {
+    ExecutionProfile profile = new ExecutionProfile.InMemory();
+    for (int i = 0; i < NUM_PARAMETERS; i++)
+      for (int level = 0; level < 3; level++)
+        profile.record(Tuple.builder().put("p" + i, level).build(), level == 2 ? 1000 : 10);
+
+    List<Tuple> standard = execute(new Generator.Factory.Standard(), ExecutionProfile.NONE);
+    List<Tuple> costAware = execute(new Generator.Factory.CostAware(profile), ExecutionProfile.NONE);
+
+    assertPairwiseCovered(standard);
+    assertPairwiseCovered(costAware);
+    assertTrue(
+        costOf(costAware, profile) + " < " + costOf(standard, profile),
+        costOf(costAware, profile) < costOf(standard, profile)
+    );
+  }
+
+  @Test
+  public void givenProfileInConfig$whenGenerate$thenCheaperThanWithoutProfile() {
+    ExecutionProfile profile = new ExecutionProfile.InMemory();
+    for (int i = 0; i < NUM_PARAMETERS; i++)
+      for (int level = 0; level < 3; level++)
+        profile.record(Tuple.builder().put("p" + i, level).build(), level == 2 ? 1000 : 10);
+
+    List<Tuple> standard = execute(new Generator.Factory.Standard(), ExecutionProfile.NONE);
+    List<Tuple> profiled = execute(new Generator.Factory.Standard(), profile);
+
+    assertPairwiseCovered(profiled);
+    assertTrue(
+        costOf(profiled, profile) + " < " + costOf(standard, profile),
+        costOf(profiled, profile) < costOf(standard, profile)
+    );
+  }
+
+  @Test
+  public void givenJCUnit8Runner$whenRun$thenExecutionTimesRecordedForTestClass() {
+    Result result = JUnitCore.runClasses(Slow.class);
+
+    assertTrue(result.getFailures().toString(), result.wasSuccessful());
+    ExecutionProfile profile = Profiled.PROFILE.scopedTo(Slow.class.getName());
+    double slow = profile.costOf("a", 3).orElseThrow(AssertionError::new);
+    double fast = profile.costOf("a", 1).orElseThrow(AssertionError::new);
+    assertTrue(slow + " > " + fast, slow > fast);
+    assertTrue(profile.costOf("b", 2).isPresent());
+    assertFalse(Profiled.PROFILE.costOf("a", 3).isPresent());
+  }
+
+  private static double costOf(List<Tuple> tuples, ExecutionProfile profile) {
+    return tuples.stream()
+        .flatMap(each -> each.entrySet().stream())
+        .mapToDouble(each -> profile.costOf(each.getKey(), each.getValue()).orElse(0))
+        .sum();
+  }
+
+  private static void assertPairwiseCovered(List<Tuple> tuples) {
+    for (int i = 0; i < NUM_PARAMETERS; i++)
+      for (int j = i + 1; j < NUM_PARAMETERS; j++) {
+        Set<List<Object>> covered = new HashSet<>();
+        for (Tuple each : tuples)
+          covered.add(asList(each.get("p" + i), each.get("p" + j)));
+        assertEquals("p" + i + ",p" + j, 9, covered.size());
+      }
+  }
+
+  private static List<Tuple> execute(Generator.Factory generatorFactory, ExecutionProfile executionProfile) {
+    return new Pipeline.Standard().execute(
+        Config.Builder.forTuple(new Requirement.Builder().withStrength(2).build())
+            .withGeneratorFactory(generatorFactory)
+            .withExecutionProfile(executionProfile)
+            .build(),
+        new ParameterSpace.Builder()
+            .addAllParameters(IntStream.range(0, NUM_PARAMETERS)
+                .mapToObj(i -> Parameter.Simple.Factory.of(asList(0, 1, 2)).create("p" + i))
+                .collect(toList()))
+            .build(),
+        null
+    ).stream().map(TestCase::getTestInput).collect(toList());
+  }
+}
@@ -0,0 +1,105 @@
+package com.github.dakusui.jcunit8.tests.features.pipeline;
+
+import com.github.dakusui.jcunit.core.tuples.Tuple;
+import com.github.dakusui.jcunit8.factorspace.Constraint;
+import com.github.dakusui.jcunit8.factorspace.Parameter;
+import com.github.dakusui.jcunit8.factorspace.ParameterSpace;
+import com.github.dakusui.jcunit8.pipeline.Config;
+import com.github.dakusui.jcunit8.pipeline.Instrumentation;
+import com.github.dakusui.jcunit8.pipeline.Instrumentation.Event;
+import com.github.dakusui.jcunit8.pipeline.Instrumentation.Stage;
+import com.github.dakusui.jcunit8.pipeline.Pipeline;
+import com.github.dakusui.jcunit8.pipeline.Requirement;
+import com.github.dakusui.jcunit8.pipeline.stages.Partitioner;
+import com.github.dakusui.jcunit8.testsuite.TestSuite;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static java.util.Arrays.asList;
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.*;
+
+public class InstrumentationTest {
+  @Test
+  public void givenInMemoryInstrumentation$whenExecute$thenAllStagesRecorded() {
+    Instrumentation.InMemory instrumentation = new Instrumentation.InMemory();
+
+    TestSuite testSuite = execute(instrumentation, new Partitioner.UnionFind(3), true);
+
+    assertEquals(1, instrumentation.events(Stage.PIPELINE).size());
+    assertEquals(testSuite.size(), instrumentation.events(Stage.PIPELINE).get(0).metric("testCases"));
+    for (Stage each : asList(Stage.PREPROCESS, Stage.ENCODE, Stage.PARTITION, Stage.OPTIMIZE, Stage.GENERATE, Stage.IPOG_ITERATION, Stage.DEDUPLICATE, Stage.JOIN, Stage.COMPOSE, Stage.NEGATIVE_GENERATION, Stage.CACHE))
+      assertFalse(each.toString(), instrumentation.events(each).isEmpty());
+
+    List<Event> generations = instrumentation.events(Stage.GENERATE);
+    assertEquals(generations.size() - 1, instrumentation.events(Stage.JOIN).size());
+    assertTrue(generations.stream().anyMatch(each -> each.metric("constraintEvaluations") > 0));
+    assertTrue(instrumentation.events(Stage.NEGATIVE_GENERATION).get(0).metric("constraintEvaluations") > 0);
+    instrumentation.events(Stage.CACHE).forEach(each -> assertTrue(each.metric("lookups") >= each.metric("misses")));
+    assertEquals(
+        instrumentation.events(Stage.COMPOSE).get(0).metric("rows"),
+        instrumentation.events(Stage.JOIN).get(instrumentation.events(Stage.JOIN).size() - 1).metric("rows")
+    );
+  }
+
+  @Test
+  public void givenJsonReport$whenExecute$thenWrittenOnFlush() throws IOException {
+    Path path = Files.createTempDirectory("jcunit").resolve("instrumentation.json");
+    Instrumentation.JsonReport instrumentation = new Instrumentation.JsonReport(path);
+
+    execute(instrumentation, new Partitioner.Standard(), false);
+
+    String json = new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+    assertTrue(json, json.startsWith("[\n  {\"stage\":\"PREPROCESS\","));
+    assertTrue(json, json.contains("\"stage\":\"PIPELINE\""));
+    assertEquals(instrumentation.events().size(), json.split("\n").length - 2);
+  }
+
+  @Test
+  public void givenComposedInstrumentation$whenExecute$thenEventsPassedToAll() {
+    Instrumentation.InMemory first = new Instrumentation.InMemory();
+    Instrumentation.InMemory second = new Instrumentation.InMemory();
+
+    execute(Instrumentation.compose(first, second, new Instrumentation.Jfr()), new Partitioner.Standard(), false);
+
+    assertFalse(first.events().isEmpty());
+    assertEquals(first.events().size(), second.events().size());
+  }
+
+  @Test
+  public void givenNoInstrumentation$whenExecute$thenSameTestSuiteGenerated() {
+    Instrumentation.InMemory instrumentation = new Instrumentation.InMemory();
+
+    assertEquals(
+        execute(Instrumentation.NONE, new Partitioner.UnionFind(3), true).stream().map(each -> each.getTestInput()).collect(toList()),
+        execute(instrumentation, new Partitioner.UnionFind(3), true).stream().map(each -> each.getTestInput()).collect(toList())
+    );
+  }
+
+  private static TestSuite execute(Instrumentation instrumentation, Partitioner partitioner, boolean negativeTestGeneration) {
+    List<Parameter> parameters = IntStream.range(0, 7)
+        .mapToObj(i -> Parameter.Simple.Factory.of(asList(0, 1, 2)).create("p" + i))
+        .collect(toList());
+    Requirement requirement = new Requirement.Builder().withStrength(2).withNegativeTestGeneration(negativeTestGeneration).build();
+    return new Pipeline.Standard().execute(
+        Config.Builder.forTuple(requirement)
+            .withPartitioner(partitioner)
+            .withInstrumentation(instrumentation)
+            .build(),
+        new ParameterSpace.Builder()
+            .addAllParameters(parameters)
+            .addAllConstraints(asList(
+                Constraint.create("p0!=p1", (Tuple tuple) -> !tuple.get("p0").equals(tuple.get("p1")), "p0", "p1"),
+                Constraint.create("p1!=p2", (Tuple tuple) -> !tuple.get("p1").equals(tuple.get("p2")), "p1", "p2")
+            ))
+            .build(),
+        null
+    );
+  }
+}
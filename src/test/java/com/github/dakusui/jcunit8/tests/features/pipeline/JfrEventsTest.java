@@ -0,0 +1,89 @@
+package com.github.dakusui.jcunit8.tests.features.pipeline;
+
+import com.github.dakusui.jcunit8.core.JfrEvents;
+import com.github.dakusui.jcunit8.factorspace.Parameter;
+import com.github.dakusui.jcunit8.factorspace.ParameterSpace;
+import com.github.dakusui.jcunit8.pipeline.Config;
+import com.github.dakusui.jcunit8.pipeline.Instrumentation;
+import com.github.dakusui.jcunit8.pipeline.Pipeline;
+import com.github.dakusui.jcunit8.pipeline.Requirement;
+import com.github.dakusui.jcunit8.pipeline.stages.Partitioner;
+import com.github.dakusui.jcunit8.testsuite.TestSuite;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static java.util.Arrays.asList;
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+public class JfrEventsTest {
+  @Test
+  public void whenExecutePipelineUnderRecording$thenGenerationEventsRecorded() throws IOException {
+    assumeTrue(JfrEvents.isAvailable());
+    TestSuite testSuite;
+    List<RecordedEvent> events;
+    Path file = Files.createTempFile("jcunit", ".jfr");
+    try (Recording recording = new Recording()) {
+      recording.enable("jcunit.Pipeline");
+      recording.enable("jcunit.Generation");
+      recording.enable("jcunit.Join");
+      recording.enable("jcunit.Stage");
+      recording.start();
+      testSuite = execute();
+      recording.stop();
+      recording.dump(file);
+      events = RecordingFile.readAllEvents(file);
+    } finally {
+      Files.delete(file);
+    }
+
+    List<RecordedEvent> pipelines = eventsOf(events, "jcunit.Pipeline");
+    assertEquals(1, pipelines.size());
+    assertEquals(2, pipelines.get(0).getInt("strength"));
+    assertEquals(testSuite.size(), pipelines.get(0).getLong("rows"));
+    assertEquals("p0,p1,p2,p3,p4,p5", pipelines.get(0).getString("model"));
+    assertEquals(2, eventsOf(events, "jcunit.Generation").size());
+    eventsOf(events, "jcunit.Generation").forEach(each -> assertEquals("IpoGplus", each.getString("generator")));
+    assertEquals(1, eventsOf(events, "jcunit.Join").size());
+    assertTrue(eventsOf(events, "jcunit.Join").get(0).getLong("rows") > 0);
+    List<RecordedEvent> stages = eventsOf(events, "jcunit.Stage");
+    assertEquals(1, stages.stream().filter(each -> each.getString("stage").equals("PIPELINE")).count());
+    assertEquals(2, stages.stream().filter(each -> each.getString("stage").equals("GENERATE")).count());
+  }
+
+  @Test
+  public void whenNotRecording$thenSpanDoesNothing() {
+    assertSame(JfrEvents.Span.NONE, JfrEvents.generation("Generator", asList("a", "b"), 2));
+    assertSame(JfrEvents.Span.NONE, JfrEvents.edgePlayback("SUT", "edge", 0));
+  }
+
+  private static List<RecordedEvent> eventsOf(List<RecordedEvent> events, String name) {
+    return events.stream().filter(each -> each.getEventType().getName().equals(name)).collect(toList());
+  }
+
+  private static TestSuite execute() {
+    List<Parameter> parameters = IntStream.range(0, 6)
+        .mapToObj(i -> Parameter.Simple.Factory.of(asList(0, 1, 2)).create("p" + i))
+        .collect(toList());
+    Requirement requirement = new Requirement.Builder().withStrength(2).withNegativeTestGeneration(false).build();
+    return new Pipeline.Standard().execute(
+        Config.Builder.forTuple(requirement)
+            .withPartitioner(new Partitioner.UnionFind(3))
+            .withInstrumentation(new Instrumentation.Jfr())
+            .build(),
+        new ParameterSpace.Builder().addAllParameters(parameters).build(),
+        null
+    );
+  }
+}
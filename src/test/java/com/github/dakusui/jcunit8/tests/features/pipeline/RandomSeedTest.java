@@ -0,0 +1,143 @@
+package com.github.dakusui.jcunit8.tests.features.pipeline;
+
+import com.github.dakusui.jcunit.core.tuples.Tuple;
+import com.github.dakusui.jcunit8.factorspace.Constraint;
+import com.github.dakusui.jcunit8.factorspace.Factor;
+import com.github.dakusui.jcunit8.factorspace.FactorSpace;
+import com.github.dakusui.jcunit8.factorspace.Parameter;
+import com.github.dakusui.jcunit8.factorspace.ParameterSpace;
+import com.github.dakusui.jcunit8.pipeline.Config;
+import com.github.dakusui.jcunit8.pipeline.Pipeline;
+import com.github.dakusui.jcunit8.pipeline.Requirement;
+import com.github.dakusui.jcunit8.pipeline.stages.generators.IpoGplus;
+import com.github.dakusui.jcunit8.testsuite.TestCase;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.*;
+
+public class RandomSeedTest {
+  private static final int NUM_PARAMETERS = 10;
+
+  @Test
+  public void givenNoSeed$whenBuildRequirement$thenEmpty() {
+    assertFalse(new Requirement.Builder().build().randomSeed().isPresent());
+  }
+
+  @Test
+  public void givenSameSeed$whenExecuteTwice$thenSameTestSuite() {
+    assertEquals(
+        execute(new Requirement.Builder().withRandomSeed(42).build()),
+        execute(new Requirement.Builder().withRandomSeed(42).build())
+    );
+  }
+
+  @Test
+  public void givenSameSeed$whenExecuteConcurrently$thenSameTestSuite() throws Exception {
+    ExecutorService executorService = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<List<Tuple>>> futures = new ArrayList<>();
+      for (int i = 0; i < 8; i++)
+        futures.add(executorService.submit(() -> execute(new Requirement.Builder().withRandomSeed(42).build())));
+      for (Future<List<Tuple>> each : futures)
+        assertEquals(futures.get(0).get(), each.get());
+    } finally {
+      executorService.shutdown();
+    }
+  }
+
+  @Test
+  public void givenDifferentSeeds$whenExecute$thenDifferentButValidTestSuites() {
+    List<Tuple> first = execute(new Requirement.Builder().withRandomSeed(1).build());
+    List<Tuple> second = execute(new Requirement.Builder().withRandomSeed(2).build());
+
+    assertNotEquals(first, second);
+    assertValid(first);
+    assertValid(second);
+  }
+
+  @Test
+  public void givenNoSeed$whenExecute$thenNotAffectedBySeeds() {
+    List<Tuple> unseeded = execute(new Requirement.Builder().build());
+
+    assertEquals(unseeded, execute(new Requirement.Builder().build()));
+    assertValid(unseeded);
+  }
+
+  @Test
+  public void givenSeed$whenRandomSeedFor$thenDerivedPerStageAndFactors() {
+    Requirement requirement = new Requirement.Builder().withRandomSeed(42).build();
+
+    assertEquals(requirement.randomSeedFor("generation", asList("a", "b")), requirement.randomSeedFor("generation", asList("b", "a")));
+    assertNotEquals(requirement.randomSeedFor("generation", asList("a", "b")), requirement.randomSeedFor("generation", asList("c", "d")));
+    assertNotEquals(requirement.randomSeedFor("generation", asList("a", "b")), requirement.randomSeedFor("join", asList("a", "b")));
+    assertFalse(new Requirement.Builder().build().randomSeedFor("generation", asList("a", "b")).isPresent());
+  }
+
+  @Test
+  public void givenSameSeed$whenGenerateForFactorSpacesOfSameShape$thenDifferentChoices() {
+    Requirement requirement = new Requirement.Builder().withRandomSeed(42).build();
+
+    assertNotEquals(
+        generate(requirement, "x"),
+        generate(requirement, "y")
+    );
+  }
+
+  private static List<List<Object>> generate(Requirement requirement, String prefix) {
+    List<Factor> factors = IntStream.range(0, NUM_PARAMETERS)
+        .mapToObj(i -> Factor.create(prefix + i, new Object[] { 0, 1, 2, 3 }))
+        .collect(toList());
+    return new IpoGplus(FactorSpace.create(factors, emptyList()), requirement, emptyList()).generate().stream()
+        .map(each -> factors.stream().map(factor -> each.get(factor.getName())).collect(toList()))
+        .collect(toList());
+  }
+
+  private static void assertValid(List<Tuple> testInputs) {
+    testInputs.forEach(
+        each -> assertTrue(each.toString(), constraints().stream().allMatch(constraint -> constraint.test(each)))
+    );
+    ////
+    // Parameters not involved in any constraint should be covered pairwise.
+    for (int i = 5; i < NUM_PARAMETERS; i++)
+      for (int j = i + 1; j < NUM_PARAMETERS; j++) {
+        Set<List<Object>> covered = new HashSet<>();
+        for (Tuple each : testInputs)
+          covered.add(asList(each.get("p" + i), each.get("p" + j)));
+        assertEquals("p" + i + ",p" + j, 16, covered.size());
+      }
+  }
+
+  private static List<Tuple> execute(Requirement requirement) {
+    List<Parameter> parameters = IntStream.range(0, NUM_PARAMETERS)
+        .mapToObj(i -> Parameter.Simple.Factory.of(asList(0, 1, 2, 3)).create("p" + i))
+        .collect(toList());
+    return new Pipeline.Standard().execute(
+        Config.Builder.forTuple(requirement).build(),
+        new ParameterSpace.Builder()
+            .addAllParameters(parameters)
+            .addAllConstraints(constraints())
+            .build(),
+        null
+    ).stream().map(TestCase::getTestInput).collect(toList());
+  }
+
+  private static List<Constraint> constraints() {
+    return asList(
+        Constraint.create("p0<p1", (Tuple tuple) -> (int) tuple.get("p0") < (int) tuple.get("p1"), "p0", "p1"),
+        Constraint.create("p1<p2", (Tuple tuple) -> (int) tuple.get("p1") < (int) tuple.get("p2"), "p1", "p2"),
+        Constraint.create("p3!=p4", (Tuple tuple) -> !tuple.get("p3").equals(tuple.get("p4")), "p3", "p4")
+    );
+  }
+}
@@ -0,0 +1,129 @@
+package com.github.dakusui.jcunit8.tests.features.pipeline;
+
+import com.github.dakusui.jcunit.core.tuples.Tuple;
+import com.github.dakusui.jcunit8.exceptions.TestDefinitionException;
+import com.github.dakusui.jcunit8.factorspace.Constraint;
+import com.github.dakusui.jcunit8.factorspace.Factor;
+import com.github.dakusui.jcunit8.factorspace.FactorSpace;
+import com.github.dakusui.jcunit8.factorspace.Parameter;
+import com.github.dakusui.jcunit8.factorspace.ParameterSpace;
+import com.github.dakusui.jcunit8.pipeline.Config;
+import com.github.dakusui.jcunit8.pipeline.Pipeline;
+import com.github.dakusui.jcunit8.pipeline.Requirement;
+import com.github.dakusui.jcunit8.pipeline.stages.generators.IpoGplus;
+import com.github.dakusui.jcunit8.testsuite.TestCase;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static java.util.Arrays.asList;
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class StrengthGroupTest {
+  private static final int NUM_FACTORS = 8;
+
+  @Test
+  public void givenStrengthGroup$whenGenerate$thenGroupCovered3WayAndRestPairwise() {
+    Requirement requirement = new Requirement.Builder()
+        .withStrength(2)
+        .addStrengthGroup(3, asList("p0", "p3", "p5"))
+        .build();
+
+    List<Tuple> tuples = new IpoGplus(
+        FactorSpace.create(factors(), Collections.emptyList()),
+        requirement,
+        Collections.emptyList()
+    ).generate();
+
+    assertCovered(tuples, asList("p0", "p3", "p5"));
+    assertPairwiseCovered(tuples);
+    assertTrue(
+        tuples.size() + " rows",
+        tuples.size() < new IpoGplus(
+            FactorSpace.create(factors(), Collections.emptyList()),
+            new Requirement.Builder().withStrength(3).build(),
+            Collections.emptyList()
+        ).generate().size()
+    );
+  }
+
+  @Test
+  public void givenStrengthGroupAcrossPartitions$whenExecute$thenGroupCovered3Way() {
+    Requirement requirement = new Requirement.Builder()
+        .withStrength(2)
+        .addStrengthGroup(3, asList("p1", "p6", "p7"))
+        .build();
+
+    List<Tuple> tuples = new Pipeline.Standard().execute(
+        Config.Builder.forTuple(requirement).build(),
+        new ParameterSpace.Builder()
+            .addAllParameters(IntStream.range(0, NUM_FACTORS)
+                .mapToObj(i -> Parameter.Simple.Factory.of(asList(0, 1, 2)).create("p" + i))
+                .collect(toList()))
+            .addAllConstraints(Collections.singletonList(
+                Constraint.create("p0!=p1", (Tuple tuple) -> !tuple.get("p0").equals(tuple.get("p1")), "p0", "p1")
+            ))
+            .build(),
+        null
+    ).stream().map(TestCase::getTestInput).collect(toList());
+
+    assertCovered(tuples, asList("p1", "p6", "p7"));
+    assertTrue(tuples.stream().noneMatch(each -> each.get("p0").equals(each.get("p1"))));
+  }
+
+  @Test
+  public void givenNoStrengthGroup$whenBuildRequirement$thenEmpty() {
+    assertTrue(new Requirement.Builder().build().strengthGroups().isEmpty());
+  }
+
+  @Test(expected = TestDefinitionException.class)
+  public void givenStrengthHigherThanGroupSize$whenAdd$thenRejected() {
+    new Requirement.Builder().addStrengthGroup(3, asList("p0", "p1"));
+  }
+
+  @Test(expected = TestDefinitionException.class)
+  public void givenDuplicatedFactorNames$whenAdd$thenRejected() {
+    new Requirement.Builder().addStrengthGroup(2, asList("p0", "p0"));
+  }
+
+  @Test(expected = TestDefinitionException.class)
+  public void givenUnknownFactorNameInStrengthGroup$whenExecute$thenRejected() {
+    new Pipeline.Standard().execute(
+        Config.Builder.forTuple(new Requirement.Builder()
+            .withStrength(2)
+            .addStrengthGroup(3, asList("p1", "p6", "unknown"))
+            .build()).build(),
+        new ParameterSpace.Builder()
+            .addAllParameters(IntStream.range(0, NUM_FACTORS)
+                .mapToObj(i -> Parameter.Simple.Factory.of(asList(0, 1, 2)).create("p" + i))
+                .collect(toList()))
+            .build(),
+        null
+    );
+  }
+
+  private static void assertCovered(List<Tuple> tuples, List<String> factorNames) {
+    Set<List<Object>> covered = new HashSet<>();
+    for (Tuple each : tuples)
+      covered.add(factorNames.stream().map(each::get).collect(toList()));
+    assertEquals(factorNames.toString(), (int) Math.pow(3, factorNames.size()), covered.size());
+  }
+
+  private static void assertPairwiseCovered(List<Tuple> tuples) {
+    for (int i = 0; i < NUM_FACTORS; i++)
+      for (int j = i + 1; j < NUM_FACTORS; j++)
+        assertCovered(tuples, asList("p" + i, "p" + j));
+  }
+
+  private static List<Factor> factors() {
+    return IntStream.range(0, NUM_FACTORS)
+        .mapToObj(i -> Factor.create("p" + i, new Object[] { 0, 1, 2 }))
+        .collect(toList());
+  }
+}
@@ -0,0 +1,122 @@
+package com.github.dakusui.jcunit8.tests.features.pipeline.stages;
+
+import com.github.dakusui.jcunit.core.tuples.Tuple;
+import com.github.dakusui.jcunit.core.tuples.TupleUtils;
+import com.github.dakusui.jcunit8.factorspace.*;
+import com.github.dakusui.jcunit8.pipeline.Config;
+import com.github.dakusui.jcunit8.pipeline.Pipeline;
+import com.github.dakusui.jcunit8.pipeline.Requirement;
+import com.github.dakusui.jcunit8.pipeline.stages.CostModel;
+import com.github.dakusui.jcunit8.pipeline.stages.Partitioner;
+import com.github.dakusui.jcunit8.testsuite.TestCase;
+import com.github.dakusui.jcunit8.testsuite.TestSuite;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.*;
+
+public class CostAwarePartitionerTest {
+  @Test
+  public void givenConstraints$whenPartition$thenConstrainedFactorsStayTogether() {
+    FactorSpace factorSpace = FactorSpace.create(
+        factors(20),
+        asList(
+            constraint("f0", "f1"),
+            constraint("f1", "f2"),
+            constraint("f5", "f6")
+        )
+    );
+
+    List<FactorSpace> partitions = new Partitioner.CostAware(2).apply(factorSpace);
+
+    assertEquals(
+        factorSpace.getFactorNames().stream().sorted().collect(toList()),
+        partitions.stream().flatMap(each -> each.getFactorNames().stream()).sorted().collect(toList())
+    );
+    assertEquals(3, partitions.stream().mapToInt(each -> each.getConstraints().size()).sum());
+    partitions.forEach(
+        each -> each.getConstraints().forEach(
+            constraint -> assertTrue(each.getFactorNames().containsAll(constraint.involvedKeys()))
+        )
+    );
+  }
+
+  @Test
+  public void givenExpensiveJoin$whenPartition$thenSinglePartition() {
+    FactorSpace factorSpace = FactorSpace.create(factors(20), asList(constraint("f0", "f1")));
+
+    List<FactorSpace> partitions = new Partitioner.CostAware(new CostModel.Standard(2, 1, 1e9)).apply(factorSpace);
+
+    assertEquals(1, partitions.size());
+    assertEquals(factorSpace.getFactorNames(), partitions.get(0).getFactorNames());
+    assertEquals(1, partitions.get(0).getConstraints().size());
+  }
+
+  @Test
+  public void givenCheapJoin$whenPartition$thenSplit() {
+    FactorSpace factorSpace = FactorSpace.create(factors(20), emptyList());
+
+    List<FactorSpace> partitions = new Partitioner.CostAware(new CostModel.Standard(2, 1, 1e-9)).apply(factorSpace);
+
+    assertTrue(partitions.size() > 1);
+  }
+
+  @Test
+  public void givenCostAwarePartitioner$whenGenerateTestSuite$thenAllPairsCovered() {
+    List<Parameter> parameters = IntStream.range(0, 8)
+        .mapToObj(i -> Parameter.Simple.Factory.of(asList(0, 1, 2)).create("p" + i))
+        .collect(toList());
+    Requirement requirement = new Requirement.Builder().withStrength(2).withNegativeTestGeneration(false).build();
+    TestSuite testSuite = new Pipeline.Standard().execute(
+        Config.Builder.forTuple(requirement).withPartitioner(new Partitioner.CostAware(requirement.strength())).build(),
+        new ParameterSpace.Builder().addAllParameters(parameters).build(),
+        null
+    );
+
+    Set<Tuple> covered = new HashSet<>();
+    testSuite.stream().map(TestCase::getTestInput).forEach(each -> covered.addAll(TupleUtils.subtuplesOf(each, 2)));
+    assertEquals(28 * 9, covered.size());
+  }
+
+  @Test
+  public void givenSamplesFromKnownModel$whenCalibrate$thenSameEstimations() {
+    CostModel known = new CostModel.Standard(2, 10, 30);
+    List<CostModel.Sample> samples = new LinkedList<>();
+    for (int i = 2; i < 10; i++) {
+      samples.add(CostModel.Sample.generation(factors(i), (long) known.generationCost(factors(i))));
+      samples.add(CostModel.Sample.join(factors(i), factors(i + 1), (long) known.joinCost(factors(i), factors(i + 1))));
+    }
+
+    CostModel calibrated = CostModel.Standard.calibrate(2, samples);
+
+    assertEquals(1.0, calibrated.generationCost(factors(12)) / known.generationCost(factors(12)), 0.01);
+    assertEquals(1.0, calibrated.joinCost(factors(12), factors(5)) / known.joinCost(factors(12), factors(5)), 0.01);
+  }
+
+  @Test
+  public void givenSample$whenFormatAndParse$thenSame() {
+    CostModel.Sample sample = CostModel.Sample.join(factors(3), factors(2), 12345);
+
+    CostModel.Sample parsed = CostModel.Sample.parse(sample.toString());
+
+    assertEquals(CostModel.Sample.Kind.JOIN, parsed.kind());
+    assertEquals(asList(3, 3, 3), parsed.lhsLevels());
+    assertEquals(asList(3, 3), parsed.rhsLevels());
+    assertEquals(12345, parsed.nanos());
+  }
+
+  private static List<Factor> factors(int n) {
+    return IntStream.range(0, n)
+        .mapToObj(i -> Factor.create("f" + i, new Object[] { 0, 1, 2 }))
+        .collect(toList());
+  }
+
+  private static Constraint constraint(String... keys) {
+    return Constraint.create(String.join("-", keys), (Tuple tuple) -> true, keys);
+  }
+}
@@ -0,0 +1,197 @@
+package com.github.dakusui.jcunit8.tests.features.pipeline.stages;
+
+import com.github.dakusui.jcunit.core.tuples.Tuple;
+import com.github.dakusui.jcunit8.factorspace.Parameter;
+import com.github.dakusui.jcunit8.factorspace.ParameterSpace;
+import com.github.dakusui.jcunit8.pipeline.Config;
+import com.github.dakusui.jcunit8.pipeline.Pipeline;
+import com.github.dakusui.jcunit8.pipeline.Requirement;
+import com.github.dakusui.jcunit8.pipeline.stages.ConfigFactory;
+import com.github.dakusui.jcunit8.pipeline.stages.Orderer;
+import com.github.dakusui.jcunit8.runners.junit4.JCUnit8;
+import com.github.dakusui.jcunit8.runners.junit4.annotations.BeforeTestCase;
+import com.github.dakusui.jcunit8.runners.junit4.annotations.ConfigureWith;
+import com.github.dakusui.jcunit8.runners.junit4.annotations.From;
+import com.github.dakusui.jcunit8.runners.junit4.annotations.ParameterSource;
+import com.github.dakusui.jcunit8.testsuite.TestCase;
+import com.github.dakusui.jcunit8.testsuite.TestSuite;
+import org.junit.Test;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Result;
+import org.junit.runner.RunWith;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+import static java.util.Arrays.asList;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
+import static org.junit.Assert.*;
+
+public class OrdererTest {
+  public static class JdkFirst extends ConfigFactory.Base {
+    @Override
+    protected Requirement defineRequirement(Requirement.Builder defaultValues) {
+      return defaultValues.build();
+    }
+
+    @Override
+    protected Orderer orderer() {
+      return new Orderer.CostAware(Collections.singletonMap("jdk", 100.0));
+    }
+  }
+
+  @RunWith(JCUnit8.class)
+  @ConfigureWith(JdkFirst.class)
+  public static class Runner {
+    static final List<String> jdks = Collections.synchronizedList(new ArrayList<>());
+
+    @ParameterSource
+    public Parameter.Simple.Factory<String> jdk() {
+      return Parameter.Simple.Factory.of(asList("8", "11", "17"));
+    }
+
+    @ParameterSource
+    public Parameter.Simple.Factory<Integer> a() {
+      return Parameter.Simple.Factory.of(asList(1, 2, 3));
+    }
+
+    @ParameterSource
+    public Parameter.Simple.Factory<Integer> b() {
+      return Parameter.Simple.Factory.of(asList(1, 2, 3));
+    }
+
+    @Test
+    public void test(@From("jdk") String jdk) {
+      jdks.add(jdk);
+    }
+  }
+
+  public static class LargerAFirst extends ConfigFactory.Base {
+    @Override
+    protected Requirement defineRequirement(Requirement.Builder defaultValues) {
+      return defaultValues.build();
+    }
+
+    @Override
+    protected Orderer orderer() {
+      return testCases -> testCases.stream()
+          .sorted(Comparator.comparing((TestCase each) -> (Integer) each.getTestInput().get("a")).reversed())
+          .collect(toList());
+    }
+  }
+
+  @RunWith(JCUnit8.class)
+  @ConfigureWith(LargerAFirst.class)
+  public static class RunnerWithSharedFixture {
+    static final List<List<Object>> runs = Collections.synchronizedList(new ArrayList<>());
+
+    @ParameterSource
+    public Parameter.Simple.Factory<String> jdk() {
+      return Parameter.Simple.Factory.of(asList("8", "11", "17"));
+    }
+
+    @ParameterSource
+    public Parameter.Simple.Factory<Integer> a() {
+      return Parameter.Simple.Factory.of(asList(1, 2, 3));
+    }
+
+    @ParameterSource
+    public Parameter.Simple.Factory<Integer> b() {
+      return Parameter.Simple.Factory.of(asList(1, 2, 3));
+    }
+
+    @BeforeTestCase(shared = true)
+    public static void setUpJdk(@From("jdk") String jdk) {
+    }
+
+    @Test
+    public void test(@From("jdk") String jdk, @From("a") int a) {
+      runs.add(asList(jdk, a));
+    }
+  }
+
+  @Test
+  public void givenCostAwareOrderer$whenExecute$thenTotalCostReduced() {
+    Map<String, Double> costs = new HashMap<>();
+    costs.put("p0", 10.0);
+    costs.put("p1", 5.0);
+    costs.put("p2", 1.0);
+    Orderer.CostAware orderer = new Orderer.CostAware(costs);
+
+    TestSuite original = execute(Orderer.NONE);
+    TestSuite ordered = execute(orderer);
+
+    assertEquals(original.size(), ordered.size());
+    assertEquals(testInputsOf(original).stream().collect(toSet()), testInputsOf(ordered).stream().collect(toSet()));
+    assertEquals(original.get(0).getTestInput(), ordered.get(0).getTestInput());
+    assertTrue(orderer.costOf(ordered) < orderer.costOf(original));
+  }
+
+  @Test
+  public void givenOnlyOneCostlyParameter$whenExecute$thenSwitchedOncePerValue() {
+    TestSuite ordered = execute(new Orderer.CostAware(Collections.singletonMap("p0", 1.0)));
+
+    assertEquals(3 - 1, switchesOf(ordered.stream().map(each -> each.getTestInput().get("p0")).collect(toList())));
+  }
+
+  @Test
+  public void givenNoOrderer$whenExecute$thenSameTestSuiteGenerated() {
+    assertEquals(testInputsOf(execute(Orderer.NONE)), testInputsOf(execute(null)));
+  }
+
+  @Test
+  public void givenCostAwareOrderer$whenRun$thenTestCasesRunInThatOrder() {
+    Runner.jdks.clear();
+
+    Result result = JUnitCore.runClasses(Runner.class);
+
+    assertTrue(result.getFailures().toString(), result.wasSuccessful());
+    assertEquals(result.getRunCount(), Runner.jdks.size());
+    assertEquals(3 - 1, switchesOf(Runner.jdks));
+  }
+
+  @Test
+  public void givenOrdererAndSharedFixture$whenRun$thenGroupedByFixtureAndOrderedWithinGroups() {
+    RunnerWithSharedFixture.runs.clear();
+
+    Result result = JUnitCore.runClasses(RunnerWithSharedFixture.class);
+
+    assertTrue(result.getFailures().toString(), result.wasSuccessful());
+    assertEquals(result.getRunCount(), RunnerWithSharedFixture.runs.size());
+    ////
+    // Sharing the fixture takes precedence over the orderer, which sorts test
+    // cases by "a".
+    assertEquals(3 - 1, switchesOf(RunnerWithSharedFixture.runs.stream().map(each -> each.get(0)).collect(toList())));
+    ////
+    // Within each group, the order given by the orderer is kept.
+    for (String jdk : asList("8", "11", "17"))
+      assertEquals(
+          asList(3, 2, 1),
+          RunnerWithSharedFixture.runs.stream().filter(each -> each.get(0).equals(jdk)).map(each -> each.get(1)).collect(toList())
+      );
+  }
+
+  private static int switchesOf(List<?> values) {
+    return (int) IntStream.range(1, values.size()).filter(i -> !values.get(i - 1).equals(values.get(i))).count();
+  }
+
+  private static List<Tuple> testInputsOf(List<TestCase> testCases) {
+    return testCases.stream().map(TestCase::getTestInput).collect(toList());
+  }
+
+  private static TestSuite execute(Orderer orderer) {
+    Config.Builder builder = Config.Builder.forTuple(new Requirement.Builder().withStrength(2).build());
+    if (orderer != null)
+      builder = builder.withOrderer(orderer);
+    return new Pipeline.Standard().execute(
+        builder.build(),
+        new ParameterSpace.Builder()
+            .addAllParameters(IntStream.range(0, 5)
+                .mapToObj(i -> Parameter.Simple.Factory.of(asList(0, 1, 2)).create("p" + i))
+                .collect(toList()))
+            .build(),
+        null
+    );
+  }
+}
@@ -0,0 +1,116 @@
+package com.github.dakusui.jcunit8.tests.features.pipeline.stages;
+
+import com.github.dakusui.jcunit.core.tuples.Tuple;
+import com.github.dakusui.jcunit.core.tuples.TupleUtils;
+import com.github.dakusui.jcunit8.factorspace.*;
+import com.github.dakusui.jcunit8.pipeline.Config;
+import com.github.dakusui.jcunit8.pipeline.Pipeline;
+import com.github.dakusui.jcunit8.pipeline.Requirement;
+import com.github.dakusui.jcunit8.pipeline.stages.Partitioner;
+import com.github.dakusui.jcunit8.testsuite.TestCase;
+import com.github.dakusui.jcunit8.testsuite.TestSuite;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
+import static org.junit.Assert.*;
+
+public class UnionFindPartitionerTest {
+  @Test
+  public void givenChainedAndSeparateConstraints$whenPartition$thenGroupedSameAsStandard() {
+    FactorSpace factorSpace = FactorSpace.create(
+        factors(8),
+        asList(
+            constraint("f0", "f1"),
+            constraint("f2", "f3"),
+            constraint("f1", "f2"),
+            constraint("f5", "f6"),
+            constraint("f9")
+        )
+    );
+
+    List<FactorSpace> expected = new Partitioner.Standard().apply(factorSpace);
+    List<FactorSpace> actual = new Partitioner.UnionFind().apply(factorSpace);
+
+    assertEquals(summarize(expected), summarize(actual));
+    assertEquals(asList(
+        asList("f0", "f1", "f2", "f3"),
+        asList("f5", "f6"),
+        asList("f4", "f7")
+    ), actual.stream().map(FactorSpace::getFactorNames).collect(toList()));
+  }
+
+  @Test
+  public void givenManyChainedConstraints$whenPartition$thenSingleConstrainedGroup() {
+    int n = 1000;
+    FactorSpace factorSpace = FactorSpace.create(
+        factors(n),
+        IntStream.range(0, n - 1)
+            .map(i -> n - 2 - i)
+            .mapToObj(i -> constraint("f" + i, "f" + (i + 1)))
+            .collect(toList())
+    );
+
+    List<FactorSpace> partitions = new Partitioner.UnionFind().apply(factorSpace);
+
+    assertEquals(2, partitions.size());
+    assertEquals(n, partitions.get(0).getFactors().size());
+    assertEquals(n - 1, partitions.get(0).getConstraints().size());
+    assertTrue(partitions.get(1).getFactors().isEmpty());
+  }
+
+  @Test
+  public void givenUnconstrainedFactors$whenPartitionWithLimit$thenSplitIntoBalancedPartitions() {
+    FactorSpace factorSpace = FactorSpace.create(factors(7), emptyList());
+
+    List<FactorSpace> partitions = new Partitioner.UnionFind(3).apply(factorSpace);
+
+    assertEquals(3, partitions.size());
+    partitions.forEach(each -> assertTrue(each.getFactors().size() <= 3 && each.getFactors().size() >= 2));
+    assertEquals(
+        factorSpace.getFactorNames().stream().collect(toSet()),
+        partitions.stream().flatMap(each -> each.getFactorNames().stream()).collect(toSet())
+    );
+  }
+
+  @Test
+  public void givenPartitionerWithLimit$whenGenerateTestSuite$thenAllPairsCovered() {
+    List<Parameter> parameters = IntStream.range(0, 6)
+        .mapToObj(i -> Parameter.Simple.Factory.of(asList(0, 1, 2)).create("p" + i))
+        .collect(toList());
+    Requirement requirement = new Requirement.Builder().withStrength(2).withNegativeTestGeneration(false).build();
+    TestSuite testSuite = new Pipeline.Standard().execute(
+        Config.Builder.forTuple(requirement).withPartitioner(new Partitioner.UnionFind(2)).build(),
+        new ParameterSpace.Builder().addAllParameters(parameters).build(),
+        null
+    );
+
+    Set<Tuple> covered = new HashSet<>();
+    testSuite.stream().map(TestCase::getTestInput).forEach(each -> covered.addAll(TupleUtils.subtuplesOf(each, 2)));
+    assertEquals(15 * 9, covered.size());
+  }
+
+  private static List<Factor> factors(int n) {
+    return IntStream.range(0, n)
+        .mapToObj(i -> Factor.create("f" + i, new Object[] { 0, 1, 2 }))
+        .collect(toList());
+  }
+
+  private static Constraint constraint(String... keys) {
+    return Constraint.create(String.join("-", keys), (Tuple tuple) -> true, keys);
+  }
+
+  private static List<List<Set<String>>> summarize(List<FactorSpace> factorSpaces) {
+    return factorSpaces.stream()
+        .map(each -> asList(
+            new HashSet<>(each.getFactorNames()),
+            each.getConstraints().stream().map(Constraint::getName).collect(toSet())
+        ))
+        .collect(toList());
+  }
+}
@@ -0,0 +1,155 @@
+package com.github.dakusui.jcunit8.tests.features.testsuite;
+
+import com.github.dakusui.jcunit.core.tuples.Tuple;
+import com.github.dakusui.jcunit.core.tuples.TupleUtils;
+import com.github.dakusui.jcunit8.core.StreamableTupleCartesianator;
+import com.github.dakusui.jcunit8.factorspace.Constraint;
+import com.github.dakusui.jcunit8.factorspace.Factor;
+import com.github.dakusui.jcunit8.factorspace.FactorSpace;
+import com.github.dakusui.jcunit8.pipeline.Requirement;
+import com.github.dakusui.jcunit8.pipeline.stages.generators.IpoGplus;
+import com.github.dakusui.jcunit8.testsuite.CoverageAnalyzer;
+import com.github.dakusui.jcunit8.testsuite.InteractionSpace;
+import com.github.dakusui.jcunit8.testsuite.SchemafulTupleSet;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
+import static org.junit.Assert.*;
+
+public class CoverageAnalyzerTest {
+  @Test
+  public void givenInteractionSpace$whenRankAndUnrank$thenRoundTrips() {
+    InteractionSpace space = new InteractionSpace(createFactorSpace("f", 3, 7).getFactors(), 3);
+
+    assertEquals(35, space.numCombinations());
+    assertEquals(35 * 27, space.numInteractions());
+    for (int rank = 0; rank < space.numCombinations(); rank++) {
+      assertEquals(rank, space.rank(space.combination(rank)));
+      for (long local = 0; local < space.blockSize(rank); local++) {
+        long index = space.offset(rank) + local;
+        assertEquals(index, space.indexOf(space.interaction(index)));
+      }
+    }
+  }
+
+  @Test
+  public void givenGeneratedCoveringArray$whenAnalyze$thenComplete() {
+    FactorSpace factorSpace = createFactorSpace("f", 3, 8);
+    List<Tuple> coveringArray = new IpoGplus(factorSpace, new Requirement.Builder().withStrength(2).build(), Collections.emptyList()).generate();
+
+    CoverageAnalyzer.Report report = new CoverageAnalyzer(factorSpace, 2).analyze(SchemafulTupleSet.fromTuples(coveringArray));
+
+    assertTrue(report.toString(), report.isComplete());
+    assertEquals(28 * 9, report.covered());
+    assertEquals(1.0, report.coverage(), 0.0);
+    assertFalse(report.missingInteractions().findAny().isPresent());
+  }
+
+  @Test
+  public void givenConstrainedFactorSpace$whenAnalyzePartialSuite$thenSameAsBruteForce() {
+    List<Constraint> constraints = asList(
+        Constraint.create("a<=b", (Tuple tuple) -> (int) tuple.get("a") <= (int) tuple.get("b"), "a", "b"),
+        Constraint.create("b<=d", (Tuple tuple) -> (int) tuple.get("b") <= (int) tuple.get("d"), "b", "d"),
+        Constraint.create("c!=e", (Tuple tuple) -> !tuple.get("c").equals(tuple.get("e")), "c", "e")
+    );
+    FactorSpace factorSpace = FactorSpace.create(
+        asList(
+            Factor.create("a", new Object[] { 0, 1, 2 }),
+            Factor.create("b", new Object[] { 0, 1, 2 }),
+            Factor.create("c", new Object[] { 0, 1 }),
+            Factor.create("d", new Object[] { 0, 1, 2 }),
+            Factor.create("e", new Object[] { 0, 1 })
+        ),
+        constraints
+    );
+    List<Tuple> rows = randomRows(factorSpace.getFactors(), 12, 1);
+
+    CoverageAnalyzer.Report report = new CoverageAnalyzer(factorSpace, 3).analyze(rows);
+
+    List<Tuple> validRows = rows.stream()
+        .filter(row -> constraints.stream().allMatch(constraint -> constraint.test(row)))
+        .collect(toList());
+    Set<Tuple> covered = subtuplesOf(validRows, 3);
+    Set<Tuple> feasible = subtuplesOf(
+        new StreamableTupleCartesianator(factorSpace.getFactors()).stream()
+            .filter(row -> constraints.stream().allMatch(constraint -> constraint.test(row)))
+            .collect(toList()),
+        3
+    );
+    Set<Tuple> expectedMissing = feasible.stream().filter(tuple -> !covered.contains(tuple)).collect(toSet());
+    assertEquals(rows.size() - validRows.size(), report.ignoredRows());
+    assertEquals(covered.size(), report.covered());
+    assertEquals(expectedMissing.size(), report.missing());
+    assertEquals(new InteractionSpace(factorSpace.getFactors(), 3).numInteractions() - feasible.size(), report.infeasible());
+    assertEquals(expectedMissing, report.missingInteractions().collect(toSet()));
+  }
+
+  @Test
+  public void givenUnknownLevels$whenAnalyze$thenIgnored() {
+    FactorSpace factorSpace = createFactorSpace("f", 2, 3);
+    Tuple row = new Tuple.Builder().put("f-00", 0).put("f-01", 1).put("f-02", "unknown").build();
+
+    CoverageAnalyzer.Report report = new CoverageAnalyzer(factorSpace, 2).analyze(Collections.singletonList(row));
+
+    assertEquals(1, report.covered());
+    assertEquals(11, report.missing());
+  }
+
+  @Test(timeout = 60000)
+  public void given50FactorsAndStrength4$whenAnalyze$thenFinishes() {
+    FactorSpace factorSpace = createFactorSpace("f", 3, 50);
+    List<Tuple> rows = randomRows(factorSpace.getFactors(), 300, 2);
+
+    CoverageAnalyzer.Report report = new CoverageAnalyzer(factorSpace, 4).analyze(rows);
+
+    assertEquals(230300L * 81, report.covered() + report.missing());
+    assertTrue(report.toString(), report.covered() > 0 && report.missing() > 0);
+    assertEquals(report.missing(), report.missingInteractions().count());
+  }
+
+  @Test
+  public void givenParallel$whenAnalyze$thenSameAsSequential() {
+    FactorSpace factorSpace = FactorSpace.create(
+        createFactorSpace("f", 3, 6).getFactors(),
+        singletonList(Constraint.create("f-00!=f-01", (Tuple tuple) -> !tuple.get("f-00").equals(tuple.get("f-01")), "f-00", "f-01"))
+    );
+    List<Tuple> rows = randomRows(factorSpace.getFactors(), 10, 2);
+
+    CoverageAnalyzer.Report sequential = new CoverageAnalyzer(factorSpace, 3).analyze(rows);
+    CoverageAnalyzer.Report parallel = new CoverageAnalyzer(factorSpace, 3, true).analyze(rows);
+
+    assertEquals(sequential.covered(), parallel.covered());
+    assertEquals(sequential.missing(), parallel.missing());
+    assertEquals(sequential.infeasible(), parallel.infeasible());
+  }
+
+  private static FactorSpace createFactorSpace(String prefix, int numLevels, int numFactors) {
+    return FactorSpace.create(
+        IntStream.range(0, numFactors)
+            .mapToObj(i -> Factor.create(String.format("%s-%02d", prefix, i), IntStream.range(0, numLevels).boxed().toArray()))
+            .collect(toList()),
+        Collections.emptyList()
+    );
+  }
+
+  private static Set<Tuple> subtuplesOf(List<Tuple> rows, int strength) {
+    return rows.stream().flatMap(row -> TupleUtils.subtuplesOf(row, strength).stream()).collect(toSet());
+  }
+
+  private static List<Tuple> randomRows(List<Factor> factors, int numRows, long seed) {
+    Random random = new Random(seed);
+    return IntStream.range(0, numRows)
+        .mapToObj(i -> {
+          Tuple.Builder builder = new Tuple.Builder();
+          factors.forEach(factor -> builder.put(factor.getName(), factor.getLevels().get(random.nextInt(factor.getLevels().size()))));
+          return builder.build();
+        })
+        .collect(toList());
+  }
+}
@@ -0,0 +1,146 @@
+package com.github.dakusui.jcunit8.tests.features.testsuite;
+
+import com.github.dakusui.jcunit.core.tuples.Tuple;
+import com.github.dakusui.jcunit8.core.StreamableTupleCartesianator;
+import com.github.dakusui.jcunit8.factorspace.Constraint;
+import com.github.dakusui.jcunit8.factorspace.Factor;
+import com.github.dakusui.jcunit8.factorspace.FactorSpace;
+import com.github.dakusui.jcunit8.factorspace.Parameter;
+import com.github.dakusui.jcunit8.factorspace.ParameterSpace;
+import com.github.dakusui.jcunit8.pipeline.Config;
+import com.github.dakusui.jcunit8.pipeline.Pipeline;
+import com.github.dakusui.jcunit8.pipeline.Requirement;
+import com.github.dakusui.jcunit8.testsuite.CoverageAnalyzer;
+import com.github.dakusui.jcunit8.testsuite.Minimizer;
+import com.github.dakusui.jcunit8.testsuite.SchemafulTupleSet;
+import com.github.dakusui.jcunit8.testsuite.TestSuite;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static java.util.Arrays.asList;
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.*;
+
+public class MinimizerTest {
+  @Test
+  public void givenCartesianProduct$whenMinimize$thenSameCoverageWithFarFewerRows() {
+    FactorSpace factorSpace = createFactorSpace(3, 4, Collections.emptyList());
+    SchemafulTupleSet tuples = SchemafulTupleSet.fromTuples(allTuples(factorSpace));
+
+    SchemafulTupleSet minimized = new Minimizer(factorSpace, 2).minimize(tuples);
+
+    assertSameCoverage(factorSpace, 2, tuples, minimized);
+    assertTrue(minimized.size() + " rows", minimized.size() <= 12);
+    assertTrue(tuples.containsAll(minimized));
+    assertEquals(tuples.getAttributeNames(), minimized.getAttributeNames());
+  }
+
+  @Test
+  public void givenConstraints$whenMinimize$thenNoViolatingRowChosen() {
+    List<Constraint> constraints = Collections.singletonList(
+        Constraint.create("f-00<f-01", (Tuple tuple) -> (int) tuple.get("f-00") < (int) tuple.get("f-01"), "f-00", "f-01")
+    );
+    FactorSpace factorSpace = createFactorSpace(3, 4, constraints);
+    List<Tuple> tuples = allTuples(factorSpace);
+
+    List<Tuple> minimized = new Minimizer(factorSpace, 2).minimize(tuples);
+
+    assertSameCoverage(factorSpace, 2, tuples, minimized);
+    assertTrue(minimized.stream().allMatch(constraints.get(0)::test));
+  }
+
+  @Test
+  public void givenLargeInput$whenMinimize$thenSameCoverageAndDeterministic() {
+    FactorSpace factorSpace = createFactorSpace(4, 5, Collections.emptyList());
+    List<Tuple> tuples = allTuples(factorSpace);
+    assertTrue(tuples.size() >= Minimizer.PARALLEL_THRESHOLD);
+
+    List<Tuple> minimized = new Minimizer(factorSpace, 3).minimize(tuples);
+
+    assertSameCoverage(factorSpace, 3, tuples, minimized);
+    assertTrue(minimized.size() + " rows", minimized.size() < tuples.size() / 4);
+    assertEquals(minimized, new Minimizer(factorSpace, 3).minimize(tuples));
+  }
+
+  @Test
+  public void givenLargeInputAndParallel$whenMinimize$thenSameAsSequential() {
+    FactorSpace factorSpace = createFactorSpace(4, 5, Collections.emptyList());
+    List<Tuple> tuples = allTuples(factorSpace);
+
+    assertEquals(
+        new Minimizer(factorSpace, 3).minimize(tuples),
+        new Minimizer(factorSpace, 3, true).minimize(tuples)
+    );
+  }
+
+  @Test
+  public void givenLargeInput$whenMinimize$thenConstraintsEvaluatedOnlyInCallingThread() {
+    Thread caller = Thread.currentThread();
+    List<Constraint> constraints = Collections.singletonList(
+        Constraint.create("callingThreadOnly", (Tuple tuple) -> Thread.currentThread() == caller, "f-00")
+    );
+    FactorSpace factorSpace = createFactorSpace(4, 5, constraints);
+    List<Tuple> tuples = allTuples(factorSpace);
+
+    assertSameCoverage(factorSpace, 3, tuples, new Minimizer(factorSpace, 3).minimize(tuples));
+  }
+
+  @Test
+  public void givenTestSuiteWithNonSimpleParameter$whenMinimize$thenInputsEncodedAndSameCoverage() {
+    ParameterSpace parameterSpace = new ParameterSpace.Builder()
+        .addParameter(Parameter.Simple.Factory.of(asList(0, 1, 2)).create("x"))
+        .addParameter(Parameter.Simple.Factory.of(asList(0, 1, 2)).create("y"))
+        .addParameter(Parameter.Regex.Factory.of("(a|b|c)(d|e)").create("r"))
+        .build();
+    Config config = Config.Builder.forTuple(new Requirement.Builder().withStrength(2).build()).build();
+    TestSuite testSuite = new Pipeline.Standard().execute(config, parameterSpace, null);
+    TestSuite doubled = new TestSuite.Builder<>(parameterSpace, null)
+        .addAll(testSuite)
+        .addAllToRegularTuples(allTuples(FactorSpace.create(asList(
+            Factor.create("x", new Object[] { 0, 1, 2 }),
+            Factor.create("y", new Object[] { 0, 1, 2 })
+        ), Collections.emptyList())).stream()
+            .map(each -> Tuple.builder().putAll(each).put("r", testSuite.get(0).getTestInput().get("r")).build())
+            .collect(toList()))
+        .build();
+    FactorSpace factorSpace = config.encoder().apply(parameterSpace);
+
+    TestSuite minimized = new Minimizer(factorSpace, 2).minimize(doubled);
+
+    assertSameCoverage(factorSpace, 2, encode(parameterSpace, doubled), encode(parameterSpace, minimized));
+    assertTrue(minimized.size() + " < " + doubled.size(), minimized.size() < doubled.size());
+  }
+
+  @Test
+  public void givenSuiteAlreadyMinimal$whenMinimize$thenUnchanged() {
+    FactorSpace factorSpace = createFactorSpace(2, 2, Collections.emptyList());
+    List<Tuple> tuples = allTuples(factorSpace);
+
+    assertEquals(tuples, new Minimizer(factorSpace, 2).minimize(tuples));
+  }
+
+  private static void assertSameCoverage(FactorSpace factorSpace, int strength, List<Tuple> original, List<Tuple> minimized) {
+    CoverageAnalyzer analyzer = new CoverageAnalyzer(factorSpace, strength);
+    assertEquals(analyzer.analyze(original).covered(), analyzer.analyze(minimized).covered());
+  }
+
+  private static List<Tuple> encode(ParameterSpace parameterSpace, TestSuite testSuite) {
+    return testSuite.stream().map(each -> parameterSpace.encodeTuple(each.getTestInput())).collect(toList());
+  }
+
+  private static List<Tuple> allTuples(FactorSpace factorSpace) {
+    return new StreamableTupleCartesianator(factorSpace.getFactors()).stream().collect(toList());
+  }
+
+  private static FactorSpace createFactorSpace(int numLevels, int numFactors, List<Constraint> constraints) {
+    return FactorSpace.create(
+        IntStream.range(0, numFactors)
+            .mapToObj(i -> Factor.create(String.format("f-%02d", i), IntStream.range(0, numLevels).boxed().toArray()))
+            .collect(toList()),
+        constraints
+    );
+  }
+}
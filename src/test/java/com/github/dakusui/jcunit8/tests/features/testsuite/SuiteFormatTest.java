@@ -0,0 +1,196 @@
+package com.github.dakusui.jcunit8.tests.features.testsuite;
+
+import com.github.dakusui.jcunit.core.tuples.Tuple;
+import com.github.dakusui.jcunit8.exceptions.TestDefinitionException;
+import com.github.dakusui.jcunit8.factorspace.Constraint;
+import com.github.dakusui.jcunit8.factorspace.Parameter;
+import com.github.dakusui.jcunit8.factorspace.ParameterSpace;
+import com.github.dakusui.jcunit8.pipeline.Config;
+import com.github.dakusui.jcunit8.pipeline.Pipeline;
+import com.github.dakusui.jcunit8.pipeline.Requirement;
+import com.github.dakusui.jcunit8.testsuite.SchemafulTupleSet;
+import com.github.dakusui.jcunit8.testsuite.SuiteFormat;
+import com.github.dakusui.jcunit8.testsuite.TestCase;
+import com.github.dakusui.jcunit8.testsuite.TestSuite;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.*;
+
+public class SuiteFormatTest {
+  @Test
+  public void givenTupleSet$whenWriteAndRead$thenSameTuplesRead() throws IOException {
+    SchemafulTupleSet tupleSet = new SchemafulTupleSet.Builder(asList("id", "name", "flag"))
+        .addAll(IntStream.range(0, 1000)
+            .mapToObj(i -> new Tuple.Builder()
+                .put("id", i)
+                .put("name", "name-" + (i % 7))
+                .put("flag", i % 3 == 0 ? null : i % 2 == 0)
+                .build())
+            .collect(toList()))
+        .build();
+    Path path = Files.createTempFile("jcunit", ".suite");
+    try {
+      try (SuiteFormat.Writer writer = new SuiteFormat.Writer(path)) {
+        writer.write(tupleSet);
+      }
+
+      try (SuiteFormat.Reader reader = SuiteFormat.Reader.open(path)) {
+        assertEquals(SuiteFormat.Kind.TUPLE_SET, reader.kind());
+        assertEquals(1000, reader.numRows());
+        assertEquals(asList("id", "name", "flag"), reader.asSchemafulTupleSet().getAttributeNames());
+        assertEquals(tupleSet, reader.asSchemafulTupleSet());
+        assertEquals(tupleSet.get(999), reader.get(999));
+        assertEquals(tupleSet, reader.stream().collect(toList()));
+      }
+      ////
+      // 2 bytes for 1000 ids, 1 byte for 7 names, and 1 byte for 3 flags per row.
+      assertEquals(4 * 1000, Files.size(path) - headerSize(path));
+    } finally {
+      Files.delete(path);
+    }
+  }
+
+  @Test
+  public void givenIterableOfTuples$whenWriteAndRead$thenEachRowCreatedOnDemand() throws IOException {
+    AtomicInteger created = new AtomicInteger();
+    Iterable<Tuple> rows = () -> IntStream.range(0, 1000)
+        .peek(i -> created.incrementAndGet())
+        .mapToObj(i -> new Tuple.Builder().put("id", i % 300).put("name", "name-" + (i % 7)).build())
+        .iterator();
+    Path path = Files.createTempFile("jcunit", ".suite");
+    try {
+      try (SuiteFormat.Writer writer = new SuiteFormat.Writer(path)) {
+        writer.write(asList("id", "name"), rows);
+      }
+
+      try (SuiteFormat.Reader reader = SuiteFormat.Reader.open(path)) {
+        assertEquals(1000, reader.numRows());
+        assertEquals(
+            StreamSupport.stream(rows.spliterator(), false).collect(toList()),
+            reader.stream().collect(toList())
+        );
+      }
+      ////
+      // Rows are iterated twice on writing, once on the assertion above.
+      assertEquals(3 * 1000, created.get());
+    } finally {
+      Files.delete(path);
+    }
+  }
+
+  @Test
+  public void givenTestSuite$whenWriteAndRead$thenCategoriesAndViolationsRestored() throws IOException {
+    ParameterSpace parameterSpace = new ParameterSpace.Builder()
+        .addAllParameters(IntStream.range(0, 5)
+            .mapToObj(i -> Parameter.Simple.Factory.of(asList("a", "b", "c")).create("p" + i))
+            .collect(toList()))
+        .addAllConstraints(asList(
+            Constraint.create("p0!=p1", (Tuple tuple) -> !tuple.get("p0").equals(tuple.get("p1")), "p0", "p1")
+        ))
+        .build();
+    TestSuite testSuite = new Pipeline.Standard().execute(
+        Config.Builder.forTuple(new Requirement.Builder().withStrength(2).withNegativeTestGeneration(true).build()).build(),
+        parameterSpace,
+        null
+    );
+    Path path = Files.createTempFile("jcunit", ".suite");
+    try {
+      try (SuiteFormat.Writer writer = new SuiteFormat.Writer(path)) {
+        writer.write(testSuite);
+      }
+
+      try (SuiteFormat.Reader reader = SuiteFormat.Reader.open(path)) {
+        TestSuite read = reader.asTestSuite(parameterSpace, null);
+        assertEquals(SuiteFormat.Kind.TEST_SUITE, reader.kind());
+        assertEquals(testSuite.size(), read.size());
+        for (int i = 0; i < testSuite.size(); i++) {
+          assertEquals(testSuite.get(i).getTestInput(), read.get(i).getTestInput());
+          assertEquals(testSuite.get(i).getCategory(), read.get(i).getCategory());
+          assertEquals(testSuite.get(i).violatedConstraints(), read.get(i).violatedConstraints());
+        }
+        assertEquals(1, read.stream().filter(each -> each.getCategory() == TestCase.Category.NEGATIVE).count());
+      }
+    } finally {
+      Files.delete(path);
+    }
+  }
+
+  @Test(expected = TestDefinitionException.class)
+  public void givenDifferentParameterSpace$whenAsTestSuite$thenRejected() throws IOException {
+    Path path = Files.createTempFile("jcunit", ".suite");
+    try {
+      try (SuiteFormat.Writer writer = new SuiteFormat.Writer(path)) {
+        writer.write(SchemafulTupleSet.fromTuples(asList(new Tuple.Builder().put("x", 1).build())));
+      }
+
+      try (SuiteFormat.Reader reader = SuiteFormat.Reader.open(path)) {
+        reader.asTestSuite(
+            new ParameterSpace.Builder().addParameter(Parameter.Simple.Factory.of(asList(1, 2)).create("y")).build(),
+            null
+        );
+      }
+    } finally {
+      Files.delete(path);
+    }
+  }
+
+  @Test
+  public void givenValueOfClassNotAllowed$whenOpen$thenRejectedUnlessAllowedExplicitly() throws IOException {
+    Path path = Files.createTempFile("jcunit", ".suite");
+    try {
+      try (SuiteFormat.Writer writer = new SuiteFormat.Writer(path)) {
+        writer.write(SchemafulTupleSet.fromTuples(asList(new Tuple.Builder().put("x", new ArrayList<>(asList(1, 2))).build())));
+      }
+
+      try (SuiteFormat.Reader ignored = SuiteFormat.Reader.open(path)) {
+        fail();
+      } catch (InvalidClassException e) {
+        assertTrue(e.getMessage(), e.getMessage().contains(ArrayList.class.getName()));
+      }
+      try (SuiteFormat.Reader reader = SuiteFormat.Reader.open(path, singletonList(ArrayList.class))) {
+        assertEquals(asList(1, 2), reader.get(0).get("x"));
+      }
+    } finally {
+      Files.delete(path);
+    }
+  }
+
+  @Test(expected = TestDefinitionException.class)
+  public void givenCorruptedHeaderLength$whenOpen$thenRejectedWithoutAllocation() throws IOException {
+    Path path = Files.createTempFile("jcunit", ".suite");
+    try {
+      try (SuiteFormat.Writer writer = new SuiteFormat.Writer(path)) {
+        writer.write(SchemafulTupleSet.fromTuples(asList(new Tuple.Builder().put("x", 1).build())));
+      }
+      byte[] bytes = Files.readAllBytes(path);
+      ////
+      // Header length, which is right after the magic and the version, is set to Integer.MAX_VALUE.
+      bytes[6] = 0x7f;
+      bytes[7] = bytes[8] = bytes[9] = (byte) 0xff;
+      Files.write(path, bytes);
+
+      try (SuiteFormat.Reader ignored = SuiteFormat.Reader.open(path)) {
+        fail();
+      }
+    } finally {
+      Files.delete(path);
+    }
+  }
+
+  private static long headerSize(Path path) throws IOException {
+    byte[] bytes = Files.readAllBytes(path);
+    return 4 + 2 + 4 + (((bytes[6] & 0xff) << 24) | ((bytes[7] & 0xff) << 16) | ((bytes[8] & 0xff) << 8) | (bytes[9] & 0xff));
+  }
+}
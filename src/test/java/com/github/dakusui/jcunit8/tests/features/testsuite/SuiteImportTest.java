@@ -0,0 +1,147 @@
+package com.github.dakusui.jcunit8.tests.features.testsuite;
+
+import com.github.dakusui.jcunit.core.tuples.Tuple;
+import com.github.dakusui.jcunit.core.tuples.TupleUtils;
+import com.github.dakusui.jcunit.exceptions.InvalidTestException;
+import com.github.dakusui.jcunit8.factorspace.Parameter;
+import com.github.dakusui.jcunit8.factorspace.ParameterSpace;
+import com.github.dakusui.jcunit8.pipeline.Config;
+import com.github.dakusui.jcunit8.pipeline.Pipeline;
+import com.github.dakusui.jcunit8.pipeline.Requirement;
+import com.github.dakusui.jcunit8.testsuite.SuiteImport;
+import com.github.dakusui.jcunit8.testsuite.TestCase;
+import com.github.dakusui.jcunit8.testsuite.TestSuite;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static java.util.Arrays.asList;
+import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
+import static org.junit.Assert.*;
+
+public class SuiteImportTest {
+  @Test
+  public void givenCsv$whenRead$thenValuesResolved() throws IOException {
+    List<Tuple> tuples = new SuiteImport.Builder(parameterSpace(), SuiteImport.Format.CSV)
+        .withValueResolver("p2", value -> value.toUpperCase())
+        .build()
+        .read(new StringReader("p0,p1,p2,p3\n0,1,\"c\",2\n\n\"2\",\"0\",\"a\"\"\n\",1\n"));
+
+    assertEquals(
+        asList(
+            new Tuple.Builder().put("p0", 0).put("p1", 1).put("p2", "C").put("p3", 2).build(),
+            new Tuple.Builder().put("p0", 2).put("p1", 0).put("p2", "A\"\n").put("p3", 1).build()
+        ),
+        tuples
+    );
+  }
+
+  @Test
+  public void givenPictOutput$whenRead$thenInvalidValuePrefixIgnored() throws IOException {
+    List<Tuple> tuples = new SuiteImport.Builder(parameterSpace(), SuiteImport.Format.PICT)
+        .withValueResolver("p2", value -> value)
+        .build()
+        .read(new StringReader("p3\tp2\tp1\tp0\n1\t~x\t2\t0\n"));
+
+    assertEquals(
+        asList(new Tuple.Builder().put("p0", 0).put("p1", 2).put("p2", "x").put("p3", 1).build()),
+        tuples
+    );
+  }
+
+  @Test
+  public void givenInvalidRows$whenRead$thenAllErrorsReported() throws IOException {
+    try {
+      new SuiteImport.Builder(parameterSpace(), SuiteImport.Format.TSV)
+          .withBatchSize(2)
+          .withParallelResolution(true)
+          .build()
+          .read(new StringReader("p0\tp1\tp2\tp3\n0\t1\tA\t0\n9\t1\tA\t0\n0\t1\tA\n0\t1\tA\t0\n0\t1\tA\t3\n"));
+      fail();
+    } catch (InvalidTestException e) {
+      assertTrue(e.getMessage(), e.getMessage().contains("Unknown value '9' for parameter 'p0' at line 3"));
+      assertTrue(e.getMessage(), e.getMessage().contains("3 field(s) were found while 4 were expected at line 4"));
+      assertTrue(e.getMessage(), e.getMessage().contains("Unknown value '3' for parameter 'p3' at line 6"));
+      assertTrue(e.getMessage(), e.getMessage().indexOf("line 3") < e.getMessage().indexOf("line 6"));
+    }
+  }
+
+  @Test(expected = InvalidTestException.class)
+  public void givenUnknownColumn$whenRead$thenRejected() throws IOException {
+    new SuiteImport.Builder(parameterSpace(), SuiteImport.Format.CSV)
+        .build()
+        .read(new StringReader("p0,p1,p2,p3,p4\n"));
+  }
+
+  @Test
+  public void givenImportedRowsAsPrecovered$whenGenerate$thenTheyAreNotRepeated() throws IOException {
+    ParameterSpace parameterSpace = parameterSpace(5);
+    List<Tuple> imported = importedRows(parameterSpace);
+
+    TestSuite withPrecovered = generate(parameterSpace, new Requirement.Builder().addAllPrecovered(imported));
+    TestSuite withoutPrecovered = generate(parameterSpace, new Requirement.Builder());
+
+    Set<Tuple> covered = Stream.concat(imported.stream(), withPrecovered.stream().map(TestCase::getTestInput))
+        .flatMap(tuple -> TupleUtils.subtuplesOf(tuple, 2).stream())
+        .collect(toSet());
+    assertEquals(10 * 9, covered.size());
+    assertTrue(withPrecovered.size() < withoutPrecovered.size());
+    assertFalse(withPrecovered.stream().map(TestCase::getTestInput).anyMatch(imported::contains));
+  }
+
+  @Test
+  public void givenImportedRowsAsSeeds$whenGenerate$thenTheyComeFirst() throws IOException {
+    ParameterSpace parameterSpace = parameterSpace(5);
+    List<Tuple> imported = importedRows(parameterSpace);
+
+    TestSuite testSuite = generate(parameterSpace, new Requirement.Builder().addAllSeeds(imported));
+
+    assertEquals(imported, testSuite.subList(0, imported.size()).stream().map(TestCase::getTestInput).collect(toList()));
+  }
+
+  @Test(expected = InvalidTestException.class)
+  public void givenIncompletePrecoveredTuple$whenGenerate$thenRejected() {
+    generate(parameterSpace(), new Requirement.Builder().addPrecovered(new Tuple.Builder().put("p0", 0).build()));
+  }
+
+  private static List<Tuple> importedRows(ParameterSpace parameterSpace) throws IOException {
+    String csv = String.join(",", parameterSpace.getParameterNames()) + "\n" +
+        IntStream.range(0, 3)
+            .mapToObj(i -> parameterSpace.getParameterNames().stream().map(each -> Integer.toString(i)).collect(joining(",")))
+            .collect(joining("\n"));
+    return new SuiteImport.Builder(parameterSpace, SuiteImport.Format.CSV).build().read(new StringReader(csv));
+  }
+
+  private static TestSuite generate(ParameterSpace parameterSpace, Requirement.Builder requirement) {
+    return new Pipeline.Standard().execute(
+        Config.Builder.forTuple(requirement.withStrength(2).build()).build(),
+        parameterSpace,
+        null
+    );
+  }
+
+  private static ParameterSpace parameterSpace() {
+    return new ParameterSpace.Builder()
+        .addAllParameters(parameterSpace(4).getParameterNames().stream()
+            .map(each -> "p2".equals(each) ?
+                Parameter.Simple.Factory.of(asList("A", "B", "C")).create(each) :
+                Parameter.Simple.Factory.of(asList(0, 1, 2)).create(each))
+            .collect(toList()))
+        .build();
+  }
+
+  private static ParameterSpace parameterSpace(int numParameters) {
+    return new ParameterSpace.Builder()
+        .addAllParameters(IntStream.range(0, numParameters)
+            .mapToObj(i -> Parameter.Simple.Factory.of(asList(0, 1, 2)).create("p" + i))
+            .collect(toList()))
+        .build();
+  }
+}
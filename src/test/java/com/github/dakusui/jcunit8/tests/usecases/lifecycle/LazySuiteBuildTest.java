@@ -0,0 +1,114 @@
+package com.github.dakusui.jcunit8.tests.usecases.lifecycle;
+
+import com.github.dakusui.jcunit8.factorspace.Parameter;
+import com.github.dakusui.jcunit8.runners.junit4.JCUnit8;
+import com.github.dakusui.jcunit8.runners.junit4.JUnit4Runner;
+import com.github.dakusui.jcunit8.runners.junit4.annotations.BeforeTestCase;
+import com.github.dakusui.jcunit8.runners.junit4.annotations.From;
+import com.github.dakusui.jcunit8.runners.junit4.annotations.ParameterSource;
+import org.junit.Test;
+import org.junit.runner.Description;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Result;
+import org.junit.runner.RunWith;
+import org.junit.runner.manipulation.Filter;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LazySuiteBuildTest {
+  @RunWith(JCUnit8.class)
+  public static class Target {
+    static final AtomicInteger numBuilds    = new AtomicInteger();
+    static final AtomicInteger numTestCases = new AtomicInteger();
+
+    @ParameterSource
+    public Parameter.Simple.Factory<Integer> a() {
+      numBuilds.incrementAndGet();
+      return Parameter.Simple.Factory.of(asList(1, 2, 3));
+    }
+
+    @ParameterSource
+    public Parameter.Simple.Factory<Integer> b() {
+      return Parameter.Simple.Factory.of(asList(1, 2, 3));
+    }
+
+    @BeforeTestCase
+    public static void beforeTestCase() {
+      numTestCases.incrementAndGet();
+    }
+
+    @Test
+    public void test(@From("a") int a, @From("b") int b) {
+    }
+
+    @Test
+    public void another(@From("a") int a) {
+    }
+  }
+
+  @RunWith(JCUnit8.class)
+  public static class Failing {
+    static final String INTENTIONAL_EXCEPTION_MESSAGE = "intentional exception";
+
+    @ParameterSource
+    public Parameter.Simple.Factory<Integer> a() {
+      throw new RuntimeException(INTENTIONAL_EXCEPTION_MESSAGE);
+    }
+
+    @Test
+    public void test(@From("a") int a) {
+    }
+  }
+
+  @Test
+  public void whenConstructed$thenSuiteNotBuilt() throws Throwable {
+    Target.numBuilds.set(0);
+
+    new JCUnit8(Target.class);
+
+    assertEquals(0, Target.numBuilds.get());
+  }
+
+  @Test
+  public void whenFiltered$thenOnlyMatchingTestCaseDescribed() throws Throwable {
+    Target.numBuilds.set(0);
+    JCUnit8 runner = new JCUnit8(Target.class);
+
+    runner.filter(Filter.matchMethodDescription(Description.createTestDescription(Target.class, "test[2]")));
+
+    assertEquals(1, Target.numBuilds.get());
+    assertEquals(1, runner.getDescription().getChildren().size());
+    assertEquals(1, runner.testCount());
+  }
+
+  @Test
+  public void whenOneTestCaseRun$thenOnlyItIsPrepared() {
+    Target.numBuilds.set(0);
+    Target.numTestCases.set(0);
+
+    Result result = new JUnit4Runner.Builder(Target.class).testCase(2).build().run();
+
+    assertTrue(result.getFailures().toString(), result.wasSuccessful());
+    assertEquals(2, result.getRunCount());
+    assertEquals(1, Target.numBuilds.get());
+    assertEquals(1, Target.numTestCases.get());
+  }
+
+  @Test
+  public void givenSuiteFailsToBuild$whenDescribedAndRun$thenReportedAsFailure() throws Throwable {
+    JCUnit8 runner = new JCUnit8(Failing.class);
+
+    assertEquals(1, runner.getDescription().getChildren().size());
+    Result result = new JUnitCore().run(runner);
+
+    assertEquals(1, result.getFailureCount());
+    assertTrue(
+        result.getFailures().get(0).getMessage(),
+        result.getFailures().get(0).getMessage().contains(Failing.INTENTIONAL_EXCEPTION_MESSAGE)
+    );
+  }
+}
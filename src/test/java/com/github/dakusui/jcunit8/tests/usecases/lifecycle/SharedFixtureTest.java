@@ -0,0 +1,88 @@
+package com.github.dakusui.jcunit8.tests.usecases.lifecycle;
+
+import com.github.dakusui.jcunit8.factorspace.Parameter;
+import com.github.dakusui.jcunit8.runners.junit4.JCUnit8;
+import com.github.dakusui.jcunit8.runners.junit4.annotations.AfterTestCase;
+import com.github.dakusui.jcunit8.runners.junit4.annotations.BeforeTestCase;
+import com.github.dakusui.jcunit8.runners.junit4.annotations.From;
+import com.github.dakusui.jcunit8.runners.junit4.annotations.ParameterSource;
+import org.junit.AfterClass;
+import org.junit.Test;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Result;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SharedFixtureTest {
+  @RunWith(JCUnit8.class)
+  public static class Shared {
+    static final List<String> log = Collections.synchronizedList(new ArrayList<>());
+    static Integer fixture;
+    static int     numTestCases;
+
+    @ParameterSource
+    public Parameter.Simple.Factory<Integer> a() {
+      return Parameter.Simple.Factory.of(asList(1, 2, 3));
+    }
+
+    @ParameterSource
+    public Parameter.Simple.Factory<Integer> b() {
+      return Parameter.Simple.Factory.of(asList(1, 2, 3));
+    }
+
+    @ParameterSource
+    public Parameter.Simple.Factory<Integer> c() {
+      return Parameter.Simple.Factory.of(asList(1, 2));
+    }
+
+    @BeforeTestCase(shared = true)
+    public static void setUpFixture(@From("a") int a) {
+      log.add("setUp:" + a);
+      fixture = a;
+    }
+
+    @BeforeTestCase
+    public static void beforeTestCase() {
+      numTestCases++;
+    }
+
+    @Test
+    public void test(@From("a") int a, @From("b") int b) {
+      assertEquals((Integer) a, fixture);
+    }
+
+    @AfterTestCase(shared = true)
+    public static void tearDownFixture(@From("a") int a) {
+      log.add("tearDown:" + a);
+      fixture = null;
+    }
+
+    @AfterClass
+    public static void afterClass() {
+      log.add("afterClass");
+    }
+  }
+
+  @Test
+  public void givenSharedFixture$whenRun$thenSetUpOncePerValue() {
+    Shared.log.clear();
+    Shared.numTestCases = 0;
+
+    Result result = JUnitCore.runClasses(Shared.class);
+
+    assertTrue(result.getFailures().toString(), result.wasSuccessful());
+    assertEquals(result.getRunCount(), Shared.numTestCases);
+    assertTrue(Shared.numTestCases > 3);
+    assertEquals(
+        asList("setUp:1", "tearDown:1", "setUp:2", "tearDown:2", "setUp:3", "tearDown:3", "afterClass"),
+        Shared.log
+    );
+  }
+}
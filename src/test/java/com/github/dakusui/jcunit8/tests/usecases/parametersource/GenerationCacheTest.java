@@ -0,0 +1,282 @@
+package com.github.dakusui.jcunit8.tests.usecases.parametersource;
+
+import com.github.dakusui.jcunit8.factorspace.Constraint;
+import com.github.dakusui.jcunit8.factorspace.Parameter;
+import com.github.dakusui.jcunit8.factorspace.ParameterSpace;
+import com.github.dakusui.jcunit8.pipeline.Budget;
+import com.github.dakusui.jcunit8.pipeline.Config;
+import com.github.dakusui.jcunit8.pipeline.Requirement;
+import com.github.dakusui.jcunit8.pipeline.stages.ConfigFactory;
+import com.github.dakusui.jcunit8.pipeline.stages.Orderer;
+import com.github.dakusui.jcunit8.runners.core.GenerationCache;
+import com.github.dakusui.jcunit8.runners.core.NodeUtils;
+import com.github.dakusui.jcunit8.runners.junit4.JCUnit8;
+import com.github.dakusui.jcunit8.runners.junit4.annotations.Condition;
+import com.github.dakusui.jcunit8.runners.junit4.annotations.ConfigureWith;
+import com.github.dakusui.jcunit8.runners.junit4.annotations.From;
+import com.github.dakusui.jcunit8.runners.junit4.annotations.ParameterSource;
+import com.github.dakusui.jcunit8.testsuite.TestSuite;
+import org.junit.Test;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Request;
+import org.junit.runner.Result;
+import org.junit.runner.RunWith;
+import org.junit.runners.model.TestClass;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.*;
+
+public class GenerationCacheTest {
+  public static class Space {
+    static final AtomicInteger numBuilds = new AtomicInteger();
+
+    @ParameterSource
+    public Parameter.Simple.Factory<Integer> a() {
+      numBuilds.incrementAndGet();
+      return Parameter.Simple.Factory.of(asList(1, 2, 3));
+    }
+
+    @ParameterSource
+    public Parameter.Simple.Factory<Integer> b() {
+      return Parameter.Simple.Factory.of(asList(1, 2, 3));
+    }
+
+    @ParameterSource
+    public Parameter.Simple.Factory<Integer> c() {
+      return Parameter.Simple.Factory.of(asList(1, 2, 3));
+    }
+
+    @Condition(constraint = true)
+    public boolean aIsNotB(@From("a") int a, @From("b") int b) {
+      return a != b;
+    }
+  }
+
+  public static class AnotherSpace {
+    @Condition(constraint = true)
+    public boolean aIsNotB(@From("a") int a, @From("b") int b) {
+      return a < b;
+    }
+  }
+
+  /**
+   * Creates a config that runs test cases in the reverse order only for
+   * {@link ThirdWithPerClass}.
+   */
+  public static class PerClass extends ConfigFactory.Base {
+    @Override
+    protected Requirement defineRequirement(Requirement.Builder defaultValues) {
+      return defaultValues.build();
+    }
+
+    @Override
+    public Config create(Class<?> testClass) {
+      return Config.Builder.forTuple(requirement())
+          .withOrderer(testClass == ThirdWithPerClass.class ? GenerationCacheTest::reverse : Orderer.NONE)
+          .build();
+    }
+  }
+
+  @RunWith(JCUnit8.class)
+  @ConfigureWith(value = PerClass.class, parameterSpace = Space.class)
+  public static class ThirdWithPerClass {
+    static final List<String> log = Collections.synchronizedList(new ArrayList<>());
+
+    @Test
+    public void test(@From("a") int a, @From("b") int b, @From("c") int c) {
+      log.add(a + ":" + b + ":" + c);
+    }
+  }
+
+  @RunWith(JCUnit8.class)
+  @ConfigureWith(value = PerClass.class, parameterSpace = Space.class)
+  public static class AnotherThirdWithPerClass {
+    static final List<String> log = Collections.synchronizedList(new ArrayList<>());
+
+    @Test
+    public void test(@From("a") int a, @From("b") int b, @From("c") int c) {
+      log.add(a + ":" + b + ":" + c);
+    }
+  }
+
+  @RunWith(JCUnit8.class)
+  @ConfigureWith(parameterSpace = Space.class)
+  public static class First {
+    static final List<String> log = Collections.synchronizedList(new ArrayList<>());
+
+    @Test
+    public void test(@From("a") int a, @From("b") int b) {
+      log.add(a + ":" + b);
+    }
+  }
+
+  @RunWith(JCUnit8.class)
+  @ConfigureWith(parameterSpace = Space.class)
+  public static class Second {
+    static final List<String> log = Collections.synchronizedList(new ArrayList<>());
+
+    @Test
+    public void test(@From("b") int b, @From("a") int a) {
+      log.add(a + ":" + b);
+    }
+  }
+
+  @RunWith(JCUnit8.class)
+  @ConfigureWith(parameterSpace = Space.class)
+  public static class Third {
+    @Test
+    public void test(@From("a") int a, @From("b") int b, @From("c") int c) {
+    }
+  }
+
+  @Test
+  public void givenSameParameterSpace$whenRun$thenGeneratedOnce() {
+    GenerationCache.clear();
+    Space.numBuilds.set(0);
+    First.log.clear();
+    Second.log.clear();
+
+    Result result = JUnitCore.runClasses(First.class, Second.class);
+
+    assertTrue(result.getFailures().toString(), result.wasSuccessful());
+    assertEquals(1, Space.numBuilds.get());
+    assertEquals(First.log, Second.log);
+    assertTrue(First.log.stream().map(each -> each.split(":")).noneMatch(each -> each[0].equals(each[1])));
+  }
+
+  @Test
+  public void givenDifferentParameters$whenRun$thenGeneratedForEach() {
+    GenerationCache.clear();
+    Space.numBuilds.set(0);
+
+    Result result = JUnitCore.runClasses(First.class, Third.class);
+
+    assertTrue(result.getFailures().toString(), result.wasSuccessful());
+    assertEquals(2, Space.numBuilds.get());
+  }
+
+  @Test
+  public void givenConstraintsOfSameNameInDifferentClasses$whenCreateKeys$thenDifferent() {
+    assertNotEquals(keyFor(Space.class), keyFor(AnotherSpace.class));
+    assertEquals(keyFor(Space.class), keyFor(Space.class));
+  }
+
+  @Test
+  public void givenMoreTestSuitesThanMaxSize$whenGet$thenLeastRecentlyUsedOneEvicted() {
+    GenerationCache.clear();
+    AtomicInteger numGenerations = new AtomicInteger();
+    TestSuite testSuite = new TestSuite.Builder<>(new ParameterSpace.Builder().build(), null).build();
+    Supplier<TestSuite> generator = () -> {
+      numGenerations.incrementAndGet();
+      return testSuite;
+    };
+
+    for (int i = 0; i <= GenerationCache.MAX_SIZE; i++) {
+      GenerationCache.get(keyFor(i), null, generator);
+      GenerationCache.get(keyFor(0), null, generator);
+    }
+
+    assertEquals(GenerationCache.MAX_SIZE, GenerationCache.size());
+    assertEquals(GenerationCache.MAX_SIZE + 1, numGenerations.get());
+    ////
+    // The key 0 is used most recently, and the key 1 is evicted instead.
+    GenerationCache.get(keyFor(0), null, generator);
+    assertEquals(GenerationCache.MAX_SIZE + 1, numGenerations.get());
+    GenerationCache.get(keyFor(1), null, generator);
+    assertEquals(GenerationCache.MAX_SIZE + 2, numGenerations.get());
+    GenerationCache.clear();
+  }
+
+  @Test
+  public void givenConfigFactoryCreatingConfigForEachClass$whenRun$thenNotShared() {
+    GenerationCache.clear();
+    Space.numBuilds.set(0);
+    ThirdWithPerClass.log.clear();
+    AnotherThirdWithPerClass.log.clear();
+
+    Result result = JUnitCore.runClasses(ThirdWithPerClass.class, AnotherThirdWithPerClass.class);
+
+    assertTrue(result.getFailures().toString(), result.wasSuccessful());
+    assertFalse(GenerationCache.isCacheable(PerClass.class));
+    assertTrue(GenerationCache.isCacheable(ConfigFactory.Default.class));
+    assertEquals(2, Space.numBuilds.get());
+    assertTrue(ThirdWithPerClass.log.size() > 1);
+    assertEquals(reverse(ThirdWithPerClass.log), AnotherThirdWithPerClass.log);
+  }
+
+  @Test
+  public void givenTestSuiteWithExhaustedBudget$whenGetAgain$thenGeneratedAgain() {
+    GenerationCache.clear();
+    AtomicInteger numGenerations = new AtomicInteger();
+    Supplier<TestSuite> generator = () -> {
+      numGenerations.incrementAndGet();
+      return new TestSuite.Builder<>(new ParameterSpace.Builder().build(), null)
+          .withBudgetReport(new Budget.Report(Budget.Limit.TIME, 0, 0, emptyList()))
+          .build();
+    };
+
+    GenerationCache.get(keyFor(0), null, generator);
+    GenerationCache.get(keyFor(0), null, generator);
+
+    assertEquals(2, numGenerations.get());
+    assertEquals(0, GenerationCache.size());
+  }
+
+  @Test
+  public void givenConcurrentRunners$whenDescribed$thenGeneratedOnce() throws Exception {
+    GenerationCache.clear();
+    Space.numBuilds.set(0);
+    ExecutorService executorService = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<Integer>> futures = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        Class<?> testClass = i % 2 == 0 ? First.class : Second.class;
+        futures.add(executorService.submit(() -> Request.aClass(testClass).getRunner().testCount()));
+      }
+      for (Future<Integer> each : futures)
+        assertEquals(futures.get(0).get(), each.get());
+    } finally {
+      executorService.shutdown();
+    }
+
+    assertEquals(1, Space.numBuilds.get());
+  }
+
+  private static <T> List<T> reverse(List<T> list) {
+    List<T> ret = new ArrayList<>(list);
+    Collections.reverse(ret);
+    return ret;
+  }
+
+  private static GenerationCache.Key keyFor(Class<?> constraintDefinitionClass) {
+    return new GenerationCache.Key(
+        Space.class,
+        asList("a", "b"),
+        NodeUtils.allTestPredicates(new TestClass(constraintDefinitionClass)).values().stream()
+            .filter(each -> each instanceof Constraint)
+            .map(Constraint.class::cast)
+            .collect(toList()),
+        ConfigFactory.Default.class,
+        new Requirement.Builder().build()
+    );
+  }
+
+  private static GenerationCache.Key keyFor(int strength) {
+    return new GenerationCache.Key(
+        Space.class,
+        asList("a", "b"),
+        emptyList(),
+        ConfigFactory.Default.class,
+        new Requirement.Builder().withStrength(strength + 1).build()
+    );
+  }
+}
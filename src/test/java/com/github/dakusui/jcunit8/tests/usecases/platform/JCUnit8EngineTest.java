@@ -0,0 +1,234 @@
+package com.github.dakusui.jcunit8.tests.usecases.platform;
+
+import com.github.dakusui.jcunit8.factorspace.Parameter;
+import com.github.dakusui.jcunit8.runners.junit4.annotations.*;
+import com.github.dakusui.jcunit8.runners.platform.JCUnit8Engine;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.platform.engine.TestExecutionResult;
+import org.junit.platform.engine.UniqueId;
+import org.junit.platform.testkit.engine.EngineExecutionResults;
+import org.junit.platform.testkit.engine.EngineTestKit;
+import org.junit.platform.testkit.engine.Event;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.*;
+import static org.junit.platform.engine.discovery.DiscoverySelectors.*;
+
+public class JCUnit8EngineTest {
+  public static class Example {
+    static final List<String> log = Collections.synchronizedList(new ArrayList<>());
+
+    @ParameterSource
+    public Parameter.Simple.Factory<Integer> a() {
+      return Parameter.Simple.Factory.of(asList(1, 2, 3));
+    }
+
+    @ParameterSource
+    public Parameter.Simple.Factory<String> b() {
+      return Parameter.Simple.Factory.of(asList("x", "y"));
+    }
+
+    @Condition
+    public boolean aIsOne(@From("a") int a) {
+      return a == 1;
+    }
+
+    @BeforeClass
+    public static void beforeClass() {
+      log.add("beforeClass");
+    }
+
+    @Test
+    public void test(@From("a") int a, @From("b") String b) {
+      log.add(a + b);
+    }
+
+    @Test
+    @Given("aIsOne")
+    public void onlyWhenAIsOne(@From("a") int a) {
+      assertEquals(1, a);
+    }
+
+    @AfterClass
+    public static void afterClass() {
+      log.add("afterClass");
+    }
+  }
+
+  public static class Failing {
+    @ParameterSource
+    public Parameter.Simple.Factory<Integer> a() {
+      return Parameter.Simple.Factory.of(asList(1, 2));
+    }
+
+    @Test
+    public void test(@From("a") int a) {
+      assertEquals(1, a);
+    }
+  }
+
+  public static class FailingWithAfter {
+    static final List<String> log = Collections.synchronizedList(new ArrayList<>());
+
+    @ParameterSource
+    public Parameter.Simple.Factory<Integer> a() {
+      return Parameter.Simple.Factory.of(asList(1, 2));
+    }
+
+    @Test
+    public void test(@From("a") int a) {
+      assertEquals(1, a);
+    }
+
+    @After
+    public void after() {
+      log.add("after");
+      throw new IllegalStateException("after");
+    }
+  }
+
+  public static class Shared {
+    static final List<String> log = Collections.synchronizedList(new ArrayList<>());
+
+    @ParameterSource
+    public Parameter.Simple.Factory<Integer> a() {
+      return Parameter.Simple.Factory.of(asList(1, 2, 3));
+    }
+
+    @ParameterSource
+    public Parameter.Simple.Factory<Integer> b() {
+      return Parameter.Simple.Factory.of(asList(1, 2, 3));
+    }
+
+    @BeforeTestCase(shared = true)
+    public static void setUp(@From("a") int a) {
+      log.add("setUp:" + a);
+    }
+
+    @Test
+    public void test(@From("a") int a, @From("b") int b) {
+    }
+
+    @AfterTestCase(shared = true)
+    public static void tearDown(@From("a") int a) {
+      log.add("tearDown:" + a);
+    }
+  }
+
+  @Test
+  public void givenTestClass$whenExecute$thenEachTestCaseAndOracleRun() {
+    Example.log.clear();
+
+    EngineExecutionResults results = EngineTestKit.engine(JCUnit8Engine.ENGINE_ID).selectors(selectClass(Example.class)).execute();
+
+    assertEquals(12, results.testEvents().dynamicallyRegistered().count());
+    assertEquals(8, results.testEvents().succeeded().count());
+    assertEquals(4, results.testEvents().skipped().count());
+    assertEquals(0, results.allEvents().failed().count());
+    assertEquals("beforeClass", Example.log.get(0));
+    assertEquals("afterClass", Example.log.get(Example.log.size() - 1));
+    assertTrue(Example.log.containsAll(asList("1x", "2x", "3x", "1y", "2y", "3y")));
+  }
+
+  @Test
+  public void givenFailingOracle$whenExecute$thenReportedAsFailure() {
+    EngineExecutionResults results = EngineTestKit.engine(new JCUnit8Engine()).selectors(selectClass(Failing.class)).execute();
+
+    assertEquals(1, results.testEvents().succeeded().count());
+    assertEquals(1, results.testEvents().failed().count());
+  }
+
+  @Test
+  public void givenParallelExecution$whenExecute$thenAllRun() {
+    Example.log.clear();
+    Shared.log.clear();
+
+    EngineExecutionResults results = EngineTestKit.engine(new JCUnit8Engine())
+        .selectors(selectClass(Example.class), selectClass(Shared.class))
+        .configurationParameter(JCUnit8Engine.PARALLEL_EXECUTION_ENABLED, "true")
+        .configurationParameter(JCUnit8Engine.PARALLEL_EXECUTION_CONFIG_PREFIX + "strategy", "fixed")
+        .configurationParameter(JCUnit8Engine.PARALLEL_EXECUTION_CONFIG_PREFIX + "fixed.parallelism", "4")
+        .execute();
+
+    assertEquals(0, results.allEvents().failed().count());
+    assertEquals(8 + 9, results.testEvents().succeeded().count());
+    assertEquals(asList("setUp:1", "tearDown:1", "setUp:2", "tearDown:2", "setUp:3", "tearDown:3"), Shared.log);
+  }
+
+  @Test
+  public void givenUniqueIdOfOracle$whenExecute$thenOnlyItRuns() {
+    UniqueId uniqueId = UniqueId.forEngine(JCUnit8Engine.ENGINE_ID)
+        .append("class", Example.class.getName())
+        .append("test-case", "2")
+        .append("oracle", "test");
+
+    EngineExecutionResults results = EngineTestKit.engine(new JCUnit8Engine()).selectors(selectUniqueId(uniqueId)).execute();
+
+    assertEquals(1, results.testEvents().succeeded().count());
+    assertEquals(uniqueId, results.testEvents().succeeded().stream().map(Event::getTestDescriptor).findFirst().get().getUniqueId());
+  }
+
+  @Test
+  public void givenMethod$whenExecute$thenOnlyItsOracleRuns() {
+    EngineExecutionResults results = EngineTestKit.engine(new JCUnit8Engine()).selectors(selectMethod(Example.class, "test")).execute();
+
+    assertEquals(6, results.testEvents().succeeded().count());
+    assertEquals(0, results.testEvents().skipped().count());
+  }
+
+  @Test
+  public void givenFailingOracleAndAfter$whenExecute$thenAfterRunAndBothReported() {
+    FailingWithAfter.log.clear();
+
+    EngineExecutionResults results = EngineTestKit.engine(new JCUnit8Engine()).selectors(selectClass(FailingWithAfter.class)).execute();
+
+    assertEquals(asList("after", "after"), FailingWithAfter.log);
+    assertEquals(2, results.testEvents().failed().count());
+    ////
+    // For a = 2, the oracle's failure is reported and the one of @After is suppressed by it.
+    assertTrue(results.testEvents().failed().stream()
+        .map(each -> each.getPayload(TestExecutionResult.class).flatMap(TestExecutionResult::getThrowable).orElseThrow(AssertionError::new))
+        .anyMatch(each -> each instanceof AssertionError && each.getSuppressed().length == 1));
+  }
+
+  @Test
+  public void givenEngineDisabled$whenDiscover$thenNothingDiscovered() {
+    EngineExecutionResults results = EngineTestKit.engine(new JCUnit8Engine())
+        .selectors(selectClass(Example.class))
+        .configurationParameter(JCUnit8Engine.ENABLED, "false")
+        .execute();
+
+    assertEquals(1, results.containerEvents().started().count());
+    assertEquals(0, results.testEvents().started().count());
+  }
+
+  @Test
+  public void givenPackageWithNestedFixtures$whenDiscover$thenNotDiscovered() {
+    EngineExecutionResults results = EngineTestKit.engine(new JCUnit8Engine())
+        .selectors(selectPackage(JCUnit8EngineTest.class.getPackage().getName()))
+        .execute();
+
+    ////
+    // Example, Failing, FailingWithAfter, and Shared are not run.
+    assertEquals(1, results.containerEvents().started().count());
+    assertEquals(0, results.testEvents().started().count());
+  }
+
+  @Test
+  public void givenClassRunWithJUnit4$whenDiscover$thenNotDiscovered() {
+    EngineExecutionResults results = EngineTestKit.engine(new JCUnit8Engine())
+        .selectors(selectClass(com.github.dakusui.jcunit8.tests.usecases.lifecycle.SharedFixtureTest.Shared.class))
+        .execute();
+
+    ////
+    // Only the engine itself is started.
+    assertEquals(1, results.containerEvents().started().count());
+  }
+}